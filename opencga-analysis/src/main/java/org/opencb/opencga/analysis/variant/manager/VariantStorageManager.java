@@ -25,6 +25,7 @@ import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.FileEntry;
 import org.opencb.biodata.models.variant.avro.SampleEntry;
 import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
 import org.opencb.biodata.models.variant.avro.VariantType;
 import org.opencb.biodata.models.variant.metadata.SampleVariantStats;
 import org.opencb.biodata.models.variant.metadata.VariantMetadata;
@@ -49,6 +50,7 @@ import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.catalog.managers.StudyManager;
 import org.opencb.opencga.core.api.ParamConstants;
+import org.opencb.opencga.core.common.Metrics;
 import org.opencb.opencga.core.common.UriUtils;
 import org.opencb.opencga.core.config.storage.CellBaseConfiguration;
 import org.opencb.opencga.core.config.storage.SampleIndexConfiguration;
@@ -86,16 +88,24 @@ import org.opencb.opencga.storage.core.variant.adaptors.*;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
 import org.opencb.opencga.storage.core.variant.query.ParsedQuery;
+import org.opencb.opencga.storage.core.variant.query.ParsedVariantQuery;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjectionParser;
 import org.opencb.opencga.storage.core.variant.score.VariantScoreFormatDescriptor;
+import org.opencb.opencga.storage.core.variant.search.SearchIndexFacetCache;
 import org.opencb.opencga.storage.core.variant.search.solr.VariantSearchLoadResult;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import static org.opencb.commons.datastore.core.QueryOptions.*;
@@ -110,6 +120,9 @@ import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.is
 public class VariantStorageManager extends StorageManager implements AutoCloseable {
 
     private final VariantCatalogQueryUtils catalogUtils;
+    // Storage operations in progress, to be shared by identical concurrent requests. See #coalesce
+    // package protected for test visibility
+    final Map<String, OperationInProgress> operationsInProgress = new ConcurrentHashMap<>();
 
     public VariantStorageManager(CatalogManager catalogManager, StorageEngineFactory storageEngineFactory) {
         super(catalogManager, storageEngineFactory);
@@ -187,6 +200,35 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
         });
     }
 
+    /**
+     * Prepares the export of the result of the given query into an output stream, without writing any file. No metadata is exported.
+     * Permissions are checked and the query is parsed before returning, so no error is found once the writing starts,
+     * apart from the IO errors.
+     *
+     * @param outputFormat Variant Output format.
+     * @param inputQuery   Query with the variants to export
+     * @param queryOptions Query options
+     * @param token        User's session id
+     * @return Writer of the variants. The output stream given to the writer is not closed.
+     * @throws CatalogException       if there is any error with Catalog
+     * @throws StorageEngineException If there is any error parsing the query
+     * @throws IOException            If there is any IO error
+     */
+    public VariantStreamWriter exportData(VariantOutputFormat outputFormat, Query inputQuery, QueryOptions queryOptions, String token)
+            throws CatalogException, StorageEngineException, IOException {
+        Query query = inputQuery == null ? new Query() : new Query(inputQuery);
+        QueryOptions options = queryOptions == null ? new QueryOptions() : queryOptions;
+        return secure(query, options, token, Enums.Action.DOWNLOAD, engine -> {
+            ParsedVariantQuery parsedQuery = engine.parseExportQuery(outputFormat, query, options);
+            return outputStream -> engine.exportData(outputStream, outputFormat, parsedQuery);
+        });
+    }
+
+    @FunctionalInterface
+    public interface VariantStreamWriter {
+        void write(OutputStream outputStream) throws IOException, StorageEngineException;
+    }
+
     // --------------------------//
     //   Data Operation methods  //
     // --------------------------//
@@ -593,12 +635,12 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
     public VariantQueryResult<Variant> get(Query inputQuery, QueryOptions queryOptions, String token)
             throws CatalogException, StorageEngineException, IOException {
         Query query = inputQuery == null ? new Query() : new Query(inputQuery);
-        return secure(query, queryOptions, token, Enums.Action.SEARCH, engine -> {
+        return secure(query, queryOptions, token, Enums.Action.SEARCH, engine -> coalesce("get", query, queryOptions, engine, e -> {
             logger.debug("getVariants {}, {}", query, queryOptions);
-            VariantQueryResult<Variant> result = engine.get(query, queryOptions);
+            VariantQueryResult<Variant> result = e.get(query, queryOptions);
             logger.debug("gotVariants {}, {}, in {}ms", result.getNumResults(), result.getNumMatches(), result.getTime());
             return result;
-        });
+        }, VariantStorageManager::copyVariants));
     }
 
     @SuppressWarnings("unchecked")
@@ -1094,7 +1136,7 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
 
     // Permission related methods
 
-    private interface VariantReadOperation<R> {
+    interface VariantReadOperation<R> {
         R apply(VariantStorageEngine engine) throws CatalogException, StorageEngineException;
     }
 
@@ -1217,10 +1259,14 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
             StopWatch stopWatch = StopWatch.createStarted();
             query = catalogUtils.parseQuery(query, queryOptions, variantStorageEngine.getCellBaseUtils(), token);
             auditAttributes.append("catalogParseQueryTimeMillis", stopWatch.getTime(TimeUnit.MILLISECONDS));
+            Metrics.record("opencga_variant_catalog_parse_query_duration_ms", stopWatch.getTime(TimeUnit.MILLISECONDS),
+                    "action", auditAction.name());
 
             stopWatch = StopWatch.createStarted();
             checkSamplesPermissions(query, queryOptions, variantStorageEngine.getMetadataManager(), auditAction, token);
             auditAttributes.append("checkPermissionsTimeMillis", stopWatch.getTime(TimeUnit.MILLISECONDS));
+            Metrics.record("opencga_variant_check_permissions_duration_ms", stopWatch.getTime(TimeUnit.MILLISECONDS),
+                    "action", auditAction.name());
 
             storageStopWatch = StopWatch.createStarted();
             if (supplier instanceof VariantReadOperationWithAudit) {
@@ -1236,6 +1282,10 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
             auditAttributes.append("storageTimeMillis", storageStopWatch == null
                     ? -1
                     : storageStopWatch.getTime(TimeUnit.MILLISECONDS));
+            if (storageStopWatch != null) {
+                Metrics.record("opencga_variant_storage_duration_ms", storageStopWatch.getTime(TimeUnit.MILLISECONDS),
+                        "action", auditAction.name());
+            }
             if (result instanceof DataResult) {
                 auditAttributes.append("dbTime", ((DataResult) result).getTime());
                 auditAttributes.append("numResults", ((DataResult) result).getResults().size());
@@ -1261,6 +1311,122 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
         }
     }
 
+    /**
+     * Execute a read operation, or wait for an identical one already in progress and share its result.
+     * The key is built from the query already parsed by catalog and with the permissions of the caller checked, so every caller
+     * is authorized individually, and all of them would send exactly the same request to the storage engine.
+     * Every caller gets its own copy of the result, so the callers are free to modify it.
+     *
+     * @param operationName Name of the operation
+     * @param query         Parsed query
+     * @param queryOptions  Query options
+     * @param engine        Variant storage engine
+     * @param supplier      Operation to execute
+     * @param copier        Deep copy of the result, for the callers sharing it
+     * @param <R>           Result type
+     * @return Result of the operation
+     * @throws CatalogException       if there is any catalog error
+     * @throws StorageEngineException if there is any storage error
+     */
+    @SuppressWarnings("unchecked")
+    // package protected for test visibility
+    <R> R coalesce(String operationName, Query query, QueryOptions queryOptions, VariantStorageEngine engine,
+                   VariantReadOperation<R> supplier, UnaryOperator<R> copier) throws CatalogException, StorageEngineException {
+        if (!engine.getOptions().getBoolean(VariantStorageOptions.QUERY_COALESCE.key(),
+                VariantStorageOptions.QUERY_COALESCE.defaultValue())) {
+            return supplier.apply(engine);
+        }
+        String key = operationName + '|' + engine.getStorageEngineId() + '|' + engine.getDBName()
+                + '|' + new TreeMap<>(query)
+                + '|' + (queryOptions == null ? Collections.emptyMap() : new TreeMap<>(queryOptions));
+        OperationInProgress operation = new OperationInProgress();
+        OperationInProgress inProgress = operationsInProgress.compute(key, (k, current) -> {
+            if (current == null) {
+                return operation;
+            } else {
+                current.waiters.incrementAndGet();
+                return current;
+            }
+        });
+        if (inProgress != operation) {
+            logger.debug("Waiting for identical {} in progress", operationName);
+            try {
+                return copier.apply((R) inProgress.future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageEngineException("Interrupted while waiting for an identical " + operationName, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CatalogException) {
+                    throw (CatalogException) e.getCause();
+                } else if (e.getCause() instanceof StorageEngineException) {
+                    throw (StorageEngineException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else {
+                    throw new StorageEngineException("Error executing " + operationName, e.getCause());
+                }
+            }
+        }
+        try {
+            R result = supplier.apply(engine);
+            // No more callers can join once removed, so the number of waiters is final
+            operationsInProgress.remove(key, operation);
+            operation.future.complete(result);
+            // Keep the original untouched while the waiters are copying it
+            return operation.waiters.get() > 0 ? copier.apply(result) : result;
+        } catch (CatalogException | StorageEngineException | RuntimeException e) {
+            operation.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            operationsInProgress.remove(key, operation);
+            if (!operation.future.isDone()) {
+                // Any other error. Do not leave the waiting callers blocked
+                operation.future.cancel(false);
+            }
+        }
+    }
+
+    // package protected for test visibility
+    static final class OperationInProgress {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    // package protected for test visibility
+    static VariantQueryResult<Variant> copyVariants(VariantQueryResult<Variant> result) {
+        if (result == null) {
+            return null;
+        }
+        List<Variant> variants = null;
+        if (result.getResults() != null) {
+            variants = new ArrayList<>(result.getResults().size());
+            for (Variant variant : result.getResults()) {
+                variants.add(new Variant(VariantAvro.newBuilder(variant.getImpl()).build()));
+            }
+        }
+        VariantQueryResult<Variant> copy = new VariantQueryResult<>(new DataResult<>(result.getTime(),
+                result.getEvents() == null ? null : new ArrayList<>(result.getEvents()), result.getNumResults(), variants,
+                result.getNumMatches(), result.getAttributes() == null ? null : new ObjectMap(result.getAttributes())));
+        if (result.getSamples() != null) {
+            Map<String, List<String>> samples = new LinkedHashMap<>();
+            result.getSamples().forEach((study, studySamples) -> samples.put(study,
+                    studySamples == null ? null : new ArrayList<>(studySamples)));
+            copy.setSamples(samples);
+        }
+        return copy;
+    }
+
+    private static DataResult<FacetField> copyFacets(DataResult<FacetField> result) {
+        if (result == null) {
+            return null;
+        }
+        DataResult<FacetField> copy = new DataResult<>(result.getTime(),
+                result.getEvents() == null ? null : new ArrayList<>(result.getEvents()), result.getNumResults(),
+                SearchIndexFacetCache.copy(result.getResults()), result.getNumMatches(),
+                result.getAttributes() == null ? null : new ObjectMap(result.getAttributes()));
+        return result instanceof VariantQueryResult ? new VariantQueryResult<>(copy) : copy;
+    }
+
     private Map<String, List<String>> checkSamplesPermissions(Query query, QueryOptions queryOptions, String token)
             throws CatalogException, StorageEngineException, IOException {
         VariantStorageEngine variantStorageEngine = getVariantStorageEngine(query, token);
@@ -1478,12 +1644,12 @@ public class VariantStorageManager extends StorageManager implements AutoCloseab
 
     public DataResult<FacetField> facet(Query query, QueryOptions queryOptions, String token)
             throws CatalogException, StorageEngineException, IOException {
-        return secure(query, queryOptions, token, Enums.Action.FACET, engine -> {
+        return secure(query, queryOptions, token, Enums.Action.FACET, engine -> coalesce("facet", query, queryOptions, engine, e -> {
             logger.debug("getFacets {}, {}", query, queryOptions);
-            DataResult<FacetField> result = engine.facet(query, queryOptions);
+            DataResult<FacetField> result = e.facet(query, queryOptions);
             logger.debug("getFacets in {}ms", result.getTime());
             return result;
-        });
+        }, VariantStorageManager::copyFacets));
     }
 
     public List<BeaconResponse> beacon(String beaconsStr, BeaconResponse.Query beaconQuery, String token)
@@ -18,8 +18,10 @@ package org.opencb.opencga.analysis.variant.manager;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.metadata.Aggregation;
 import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.analysis.variant.manager.operations.AbstractVariantOperationManagerTest;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
@@ -28,11 +30,14 @@ import org.opencb.opencga.core.models.file.File;
 import org.opencb.opencga.core.models.job.Job;
 import org.opencb.opencga.core.models.study.Study;
 import org.opencb.opencga.core.response.OpenCGAResult;
+import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -114,4 +119,100 @@ public class VariantStorageManagerTest extends AbstractVariantOperationManagerTe
                 .first();
         assertEquals(Collections.emptySet(), variantManager.getIndexedSamples(studyNew.getId(), sessionId));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCoalesceGet() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        List<Future<VariantQueryResult<Variant>>> futures = coalesceGet(() -> {
+            executions.incrementAndGet();
+            return new VariantQueryResult<>(10, 1, 1, new ArrayList<>(), new ArrayList<>(Collections.singletonList(new Variant("1:100:A:C"))),
+                    Collections.singletonMap(studyFqn, new ArrayList<>(Collections.singletonList("S1"))), null);
+        });
+        VariantQueryResult<Variant> result1 = futures.get(0).get();
+        VariantQueryResult<Variant> result2 = futures.get(1).get();
+
+        assertEquals(1, executions.get());
+        assertNotSame(result1, result2);
+        assertNotSame(result1.first(), result2.first());
+        assertEquals(result1.first().toString(), result2.first().toString());
+        assertEquals(result1.getSamples(), result2.getSamples());
+
+        String id = result2.first().getId();
+        result1.first().setId("modified");
+        result1.getSamples().get(studyFqn).add("S2");
+        result1.getResults().clear();
+        assertEquals(1, result2.getResults().size());
+        assertEquals(id, result2.first().getId());
+        assertEquals(Collections.singletonList("S1"), result2.getSamples().get(studyFqn));
+        assertTrue(variantManager.operationsInProgress.isEmpty());
+    }
+
+    @Test
+    public void testCoalesceGetFail() throws Exception {
+        List<Future<VariantQueryResult<Variant>>> futures = coalesceGet(() -> {
+            throw new StorageEngineException("Error reading variants");
+        });
+        for (Future<VariantQueryResult<Variant>> future : futures) {
+            try {
+                future.get();
+                fail("Expected StorageEngineException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StorageEngineException);
+                assertEquals("Error reading variants", e.getCause().getMessage());
+            }
+        }
+        assertTrue(variantManager.operationsInProgress.isEmpty());
+    }
+
+    /**
+     * Run two identical get operations at the same time. The first one is blocked until the second one is waiting for it.
+     *
+     * @param supplier Result of the operation
+     * @return Futures of both callers
+     * @throws Exception on error
+     */
+    private List<Future<VariantQueryResult<Variant>>> coalesceGet(Callable<VariantQueryResult<Variant>> supplier) throws Exception {
+        VariantStorageEngine engine = variantManager.getVariantStorageEngine(studyId, sessionId);
+        Query query = new Query(VariantQueryParam.STUDY.key(), studyFqn);
+        QueryOptions options = new QueryOptions(QueryOptions.LIMIT, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        VariantStorageManager.VariantReadOperation<VariantQueryResult<Variant>> operation = e -> {
+            started.countDown();
+            try {
+                release.await();
+                return supplier.call();
+            } catch (StorageEngineException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new StorageEngineException("Unexpected error", ex);
+            }
+        };
+        Callable<VariantQueryResult<Variant>> get = () -> variantManager.coalesce("get", new Query(query), new QueryOptions(options),
+                engine, operation, VariantStorageManager::copyVariants);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<VariantQueryResult<Variant>>> futures = new ArrayList<>();
+            futures.add(executor.submit(get));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            futures.add(executor.submit(get));
+            long timeout = System.currentTimeMillis() + 10000;
+            while (variantManager.operationsInProgress.values().stream().mapToInt(o -> o.waiters.get()).sum() < 1) {
+                assertTrue("Second caller not waiting", System.currentTimeMillis() < timeout);
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<VariantQueryResult<Variant>> future : futures) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException ignore) {
+                    // Checked by the caller
+                }
+            }
+            return futures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.opencb.opencga.catalog.migration.Migration;
 import org.opencb.opencga.catalog.migration.MigrationManager;
 import org.opencb.opencga.catalog.migration.MigrationRun;
 import org.opencb.opencga.catalog.migration.MigrationSummary;
+import org.opencb.opencga.catalog.migration.MigrationTool;
 import org.opencb.opencga.core.common.GitRepositoryState;
 import org.opencb.opencga.core.common.JacksonUtils;
 import org.opencb.opencga.core.common.TimeUtils;
@@ -124,7 +125,8 @@ public class MigrationCommandExecutor extends AdminCommandExecutor {
             String version = parseVersion(options.version);
 
             MigrationManager migrationManager = catalogManager.getMigrationManager();
-            migrationManager.runMigration(version, options.domain, options.language, options.offline, appHome, token);
+            ObjectMap params = new ObjectMap(MigrationTool.NUM_THREADS, options.numThreads);
+            migrationManager.runMigration(version, options.domain, options.language, options.offline, appHome, params, token);
         }
     }
 
@@ -136,7 +138,8 @@ public class MigrationCommandExecutor extends AdminCommandExecutor {
             String token = catalogManager.getUserManager().loginAsAdmin(options.commonOptions.adminPassword).getToken();
 
             catalogManager.getMigrationManager().runManualMigration(parseVersion(options.version), options.id, Paths.get(appHome),
-                    options.force, options.offline, new ObjectMap(options.commonOptions.commonOptions.params), token);
+                    options.force, options.offline, new ObjectMap(options.commonOptions.commonOptions.params)
+                            .append(MigrationTool.NUM_THREADS, options.numThreads), token);
         }
     }
 
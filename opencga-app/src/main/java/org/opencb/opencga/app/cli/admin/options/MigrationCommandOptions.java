@@ -8,6 +8,7 @@ import org.opencb.opencga.app.cli.GeneralCliOptions;
 import org.opencb.opencga.app.cli.admin.AdminCliOptionsParser;
 import org.opencb.opencga.app.cli.admin.executors.MigrationCommandExecutor;
 import org.opencb.opencga.catalog.migration.Migration;
+import org.opencb.opencga.catalog.migration.MigrationTool;
 
 import java.util.List;
 
@@ -86,6 +87,10 @@ public class MigrationCommandOptions extends GeneralCliOptions {
         @Parameter(names = {"--version"}, description = "Run all pending migrations up to this version number")
         public String version;
 
+        @Parameter(names = {"--num-threads"}, description = "Maximum number of studies or collections migrated in parallel by each "
+                + "migration")
+        public int numThreads = MigrationTool.DEFAULT_NUM_THREADS;
+
         // TODO
 //        @Parameter(names = {"--background"}, description = "Run migrations in background using the execution")
 //        public boolean background;
@@ -110,6 +115,9 @@ public class MigrationCommandOptions extends GeneralCliOptions {
         @Parameter(names = {"--force"}, description = "Force migration run even if it's on status DONE, ON_HOLD or REDUNDANT", arity = 0)
         public boolean force;
 
+        @Parameter(names = {"--num-threads"}, description = "Maximum number of studies or collections migrated in parallel")
+        public int numThreads = MigrationTool.DEFAULT_NUM_THREADS;
+
     }
 
     public SummaryCommandOptions getSummaryCommandOptions() {
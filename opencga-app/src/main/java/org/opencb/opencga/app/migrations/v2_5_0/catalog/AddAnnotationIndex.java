@@ -0,0 +1,59 @@
+package org.opencb.opencga.app.migrations.v2_5_0.catalog;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.Document;
+import org.opencb.opencga.catalog.db.mongodb.AnnotationMongoDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptorFactory;
+import org.opencb.opencga.catalog.db.mongodb.converters.AnnotationConverter;
+import org.opencb.opencga.catalog.migration.Migration;
+import org.opencb.opencga.catalog.migration.MigrationTool;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.eq;
+
+@Migration(id = "add_annotation_index",
+        description = "Add per-variable annotation index to annotable entries", version = "2.5.0",
+        language = Migration.MigrationLanguage.JAVA,
+        domain = Migration.MigrationDomain.CATALOG,
+        date = 20221019)
+public class AddAnnotationIndex extends MigrationTool {
+
+    @Override
+    protected void run() throws Exception {
+        String annotationSets = AnnotationMongoDBAdaptor.AnnotationSetParams.ANNOTATION_SETS.key();
+        String internalAnnotationSets = AnnotationMongoDBAdaptor.AnnotationSetParams.INTERNAL_ANNOTATION_SETS.key();
+        String annotationIndex = AnnotationMongoDBAdaptor.AnnotationSetParams.ANNOTATION_INDEX.key();
+
+        List<String> collections = Arrays.asList(
+                MongoDBAdaptorFactory.FILE_COLLECTION,
+                MongoDBAdaptorFactory.SAMPLE_COLLECTION,
+                MongoDBAdaptorFactory.SAMPLE_ARCHIVE_COLLECTION,
+                MongoDBAdaptorFactory.INDIVIDUAL_COLLECTION,
+                MongoDBAdaptorFactory.INDIVIDUAL_ARCHIVE_COLLECTION,
+                MongoDBAdaptorFactory.COHORT_COLLECTION,
+                MongoDBAdaptorFactory.FAMILY_COLLECTION,
+                MongoDBAdaptorFactory.FAMILY_ARCHIVE_COLLECTION
+        );
+
+        AnnotationConverter annotationConverter = new AnnotationConverter();
+        for (String collection : collections) {
+            migrateCollection(collection, Filters.exists(annotationIndex, false),
+                    Projections.include(annotationSets, internalAnnotationSets), (doc, bulk) -> {
+                        Document index = annotationConverter.annotationIndexToDB(doc.getList(annotationSets, Document.class),
+                                doc.getList(internalAnnotationSets, Document.class));
+                        bulk.add(new UpdateOneModel<>(
+                                        eq("_id", doc.get("_id")),
+                                        new Document("$set", new Document(annotationIndex, index))
+                                )
+                        );
+                    });
+        }
+
+        createIndex(collections, new Document(annotationIndex + ".$**", 1));
+    }
+
+}
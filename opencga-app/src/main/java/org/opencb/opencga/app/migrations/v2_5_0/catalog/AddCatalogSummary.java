@@ -0,0 +1,38 @@
+package org.opencb.opencga.app.migrations.v2_5_0.catalog;
+
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptorFactory;
+import org.opencb.opencga.catalog.migration.Migration;
+import org.opencb.opencga.catalog.migration.MigrationTool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Migration(id = "add_catalog_summary",
+        description = "Create the summary collection and calculate the summary counters of every study", version = "2.5.0",
+        language = Migration.MigrationLanguage.JAVA,
+        domain = Migration.MigrationDomain.CATALOG,
+        date = 20221020)
+public class AddCatalogSummary extends MigrationTool {
+
+    @Override
+    protected void run() throws Exception {
+        // The collection needs to exist before the first counter is incremented within a transaction
+        if (!dbAdaptorFactory.getMongoDataStore().getCollectionNames().contains(MongoDBAdaptorFactory.SUMMARY_COLLECTION)) {
+            dbAdaptorFactory.getMongoDataStore().createCollection(MongoDBAdaptorFactory.SUMMARY_COLLECTION);
+        }
+
+        List<String> studyUids = new ArrayList<>();
+        queryMongo(MongoDBAdaptorFactory.STUDY_COLLECTION, new Document(),
+                Projections.include(StudyDBAdaptor.QueryParams.UID.key()),
+                doc -> studyUids.add(String.valueOf(doc.get(StudyDBAdaptor.QueryParams.UID.key(), Number.class).longValue())));
+
+        runInParallel(studyUids, studyUid -> {
+            logger.info("Calculating summary of study {}", studyUid);
+            dbAdaptorFactory.getCatalogSummaryDBAdaptor().rebuild(Long.parseLong(studyUid));
+        });
+    }
+
+}
@@ -16,17 +16,21 @@
 
 package org.opencb.opencga.catalog.auth.authentication;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import io.jsonwebtoken.*;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthenticationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class JwtManager {
 
@@ -40,6 +44,17 @@ public class JwtManager {
     // 32 characters to ensure it is at least 256 bits long
     public static final int SECRET_KEY_MIN_LENGTH = 32;
 
+    private static final int CLAIMS_CACHE_SIZE = 10000;
+    // Maximum time a verified token is reused. Tokens are never reused after their expiration date.
+    private static final int CLAIMS_CACHE_MAX_AGE_MINUTES = 60;
+
+    // Claims of the tokens already verified by any JwtManager, keyed by the hash of the token.
+    private static final Cache<String, VerifiedClaims> CLAIMS_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CLAIMS_CACHE_SIZE)
+            .expireAfterWrite(CLAIMS_CACHE_MAX_AGE_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
     public JwtManager(String algorithm) {
         this(algorithm, null, null);
     }
@@ -166,6 +181,22 @@ public class JwtManager {
     }
 
     private Jws<Claims> parseClaims(String token, Key publicKey) throws CatalogAuthenticationException {
+        String tokenHash = hash(token);
+        VerifiedClaims verifiedClaims = CLAIMS_CACHE.getIfPresent(tokenHash);
+        if (verifiedClaims != null) {
+            if (verifiedClaims.isExpired(System.currentTimeMillis())) {
+                CLAIMS_CACHE.invalidate(tokenHash);
+            } else if (verifiedClaims.isVerifiedWith(publicKey)) {
+                return verifiedClaims.claims;
+            }
+        }
+
+        Jws<Claims> claims = verifyClaims(token, publicKey);
+        CLAIMS_CACHE.put(tokenHash, new VerifiedClaims(publicKey, claims));
+        return claims;
+    }
+
+    private Jws<Claims> verifyClaims(String token, Key publicKey) throws CatalogAuthenticationException {
         try {
             return Jwts.parser().setSigningKey(publicKey).parseClaimsJws(token);
         } catch (ExpiredJwtException e) {
@@ -200,4 +231,48 @@ public class JwtManager {
         return true;
     }
 
+    /**
+     * Statistics of the cache of verified tokens shared by all the JwtManager instances.
+     *
+     * @return Cache statistics, including the hit rate.
+     */
+    public static CacheStats getClaimsCacheStats() {
+        return CLAIMS_CACHE.stats();
+    }
+
+    public static void invalidateClaimsCache() {
+        CLAIMS_CACHE.invalidateAll();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 must be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class VerifiedClaims {
+        private final Key publicKey;
+        private final Jws<Claims> claims;
+        private final long expiration;
+
+        private VerifiedClaims(Key publicKey, Jws<Claims> claims) {
+            this.publicKey = publicKey;
+            this.claims = claims;
+            Date expirationDate = claims.getBody().getExpiration();
+            this.expiration = expirationDate == null ? Long.MAX_VALUE : expirationDate.getTime();
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiration;
+        }
+
+        private boolean isVerifiedWith(Key key) {
+            return Objects.equals(publicKey, key);
+        }
+    }
+
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.auth.authorization;
+
+import org.bson.Document;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versioned cache of the authorization data of every study.
+ *
+ * For each study, it keeps the study document with the owner, groups and study ACLs, and the positive authorization decisions taken
+ * over any of its entries. Every modification of the groups or ACLs of a study creates a new version of the study entry, discarding
+ * all the cached data. Callers must obtain the {@link StudyEntry} before querying the database, so decisions computed from an older
+ * version are never visible in the newer one.
+ *
+ * Modifications made by other processes are not notified, so entries expire after a configurable amount of time.
+ */
+final class AuthorizationCache {
+
+    private final long ttlMillis;
+    private final int maxDecisions;
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<Long, StudyEntry> studies = new ConcurrentHashMap<>();
+
+    AuthorizationCache(int ttlSeconds, int maxDecisions) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(0, ttlSeconds));
+        this.maxDecisions = maxDecisions;
+    }
+
+    @FunctionalInterface
+    interface StudyLoader {
+        Document load(long studyUid) throws CatalogException;
+    }
+
+    boolean isEnabled() {
+        return ttlMillis > 0;
+    }
+
+    /**
+     * Get the current version of the cached data of a study. If the cache is disabled, a new version is returned that will not be
+     * reused.
+     *
+     * @param studyUid Study uid.
+     * @return the current study entry.
+     */
+    StudyEntry getStudy(long studyUid) {
+        if (!isEnabled()) {
+            return new StudyEntry(studyUid, versions.incrementAndGet(), 0);
+        }
+        long now = System.currentTimeMillis();
+        return studies.compute(studyUid, (uid, entry) -> {
+            if (entry == null || entry.isExpired(now)) {
+                return new StudyEntry(uid, versions.incrementAndGet(), now);
+            } else {
+                return entry;
+            }
+        });
+    }
+
+    void invalidate(long studyUid) {
+        studies.remove(studyUid);
+    }
+
+    void invalidateAll() {
+        studies.clear();
+    }
+
+    final class StudyEntry {
+        private final long studyUid;
+        private final long version;
+        private final long creationTime;
+        private volatile Document study;
+        private final Set<String> grantedPermissions = ConcurrentHashMap.newKeySet();
+
+        private StudyEntry(long studyUid, long version, long creationTime) {
+            this.studyUid = studyUid;
+            this.version = version;
+            this.creationTime = creationTime;
+        }
+
+        private boolean isExpired(long now) {
+            return now - creationTime > ttlMillis;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * Get the study document containing the owner, groups and study ACLs, loading it if it was not loaded yet for this version.
+         *
+         * @param loader Function to read the study document from the database.
+         * @return the study document. Must not be modified.
+         * @throws CatalogException if the study could not be read.
+         */
+        Document getStudyDocument(StudyLoader loader) throws CatalogException {
+            Document document = study;
+            if (document == null) {
+                document = loader.load(studyUid);
+                study = document;
+            }
+            return document;
+        }
+
+        boolean isGranted(String resource, long uid, String user, String permission) {
+            return grantedPermissions.contains(key(resource, uid, user, permission));
+        }
+
+        void grant(String resource, long uid, String user, String permission) {
+            if (isEnabled() && grantedPermissions.size() < maxDecisions) {
+                grantedPermissions.add(key(resource, uid, user, permission));
+            }
+        }
+
+        private String key(String resource, long uid, String user, String permission) {
+            return resource + ':' + uid + ':' + user + ':' + permission;
+        }
+    }
+
+}
@@ -117,9 +117,33 @@ public interface AuthorizationManager {
 
     void checkFilePermission(long studyId, long fileId, String userId, FileAclEntry.FilePermissions permission) throws CatalogException;
 
+    /**
+     * Check the user has the permission over all the files, evaluating all of them at once.
+     *
+     * @param studyId    study uid.
+     * @param fileIds    list of file uids.
+     * @param userId     user id.
+     * @param permission permission to check.
+     * @throws CatalogException if the user does not have the permission over any of the files.
+     */
+    void checkFilePermissions(long studyId, List<Long> fileIds, String userId, FileAclEntry.FilePermissions permission)
+            throws CatalogException;
+
     void checkSamplePermission(long studyId, long sampleId, String userId, SampleAclEntry.SamplePermissions permission)
             throws CatalogException;
 
+    /**
+     * Check the user has the permission over all the samples, evaluating all of them at once.
+     *
+     * @param studyId    study uid.
+     * @param sampleIds  list of sample uids.
+     * @param userId     user id.
+     * @param permission permission to check.
+     * @throws CatalogException if the user does not have the permission over any of the samples.
+     */
+    void checkSamplePermissions(long studyId, List<Long> sampleIds, String userId, SampleAclEntry.SamplePermissions permission)
+            throws CatalogException;
+
     void checkIndividualPermission(long studyId, long individualId, String userId, IndividualAclEntry.IndividualPermissions permission)
             throws CatalogException;
 
@@ -456,6 +480,18 @@ public interface AuthorizationManager {
 
     void removePermissionRule(long studyId, String permissionRuleId, Enums.Entity entry) throws CatalogException;
 
+    /**
+     * Discard any cached groups, ACLs or authorization decisions of the study. Must be called after modifying the groups of the study.
+     *
+     * @param studyId study uid.
+     */
+    void invalidateCache(long studyId);
+
+    /**
+     * Discard any cached groups, ACLs or authorization decisions of all the studies.
+     */
+    void invalidateCache();
+
     class CatalogAclParams {
         private List<Long> ids;
         private List<String> permissions;
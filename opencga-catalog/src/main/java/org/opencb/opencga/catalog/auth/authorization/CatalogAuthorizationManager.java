@@ -16,11 +16,14 @@
 
 package org.opencb.opencga.catalog.auth.authorization;
 
+import org.bson.Document;
 import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.utils.CollectionUtils;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
 import org.opencb.opencga.catalog.db.api.*;
 import org.opencb.opencga.catalog.db.mongodb.AuthorizationMongoDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.AuthorizationMongoDBUtils;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
@@ -57,6 +60,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     public static final String MEMBERS_GROUP = ParamConstants.MEMBERS_GROUP;
     public static final String ADMINS_GROUP = ParamConstants.ADMINS_GROUP;
     private static final String OPENCGA = ParamConstants.OPENCGA_USER_ID;
+    private static final String PRIVATE_OWNER_ID = "_ownerId";
+    private static final String PRIVATE_ACL = "_acl";
 
     private final Logger logger;
 
@@ -75,6 +80,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     private final boolean openRegister;
 
     private final AuthorizationDBAdaptor aclDBAdaptor;
+    private final AuthorizationCache cache;
 
     public CatalogAuthorizationManager(DBAdaptorFactory dbFactory, Configuration configuration)
             throws CatalogDBException {
@@ -82,6 +88,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         this.aclDBAdaptor = new AuthorizationMongoDBAdaptor(dbFactory, configuration);
 
         this.openRegister = configuration.isOpenRegister();
+        if (configuration.getOptimizations() != null) {
+            this.cache = new AuthorizationCache(configuration.getOptimizations().getAuthorizationCacheTtl(),
+                    configuration.getOptimizations().getAuthorizationCacheSize());
+        } else {
+            this.cache = new AuthorizationCache(0, 0);
+        }
 
         this.dbAdaptorFactory = dbFactory;
         projectDBAdaptor = dbFactory.getCatalogProjectDbAdaptor();
@@ -141,7 +153,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (isInstallationAdministrator(userId)) {
             return;
         } else {
-            if (studyDBAdaptor.hasStudyPermission(studyId, userId, permission)) {
+            if (AuthorizationMongoDBUtils.checkStudyPermission(getStudyDocument(studyId), userId, permission.name())) {
                 return;
             }
         }
@@ -154,7 +166,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to modify a study");
         }
@@ -166,13 +178,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
         if (ownerId.equals(userId)) {
             return;
         }
 
-        OpenCGAResult<Group> groupBelonging = getGroupBelonging(studyId, userId);
-        if (groupBelonging.getNumResults() == 0) {
+        if (!isUserInAnyGroup(getStudyDocument(studyId), userId)) {
             throw new CatalogAuthorizationException("Only the members of the study are allowed to see it");
         }
     }
@@ -183,7 +194,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to modify a update permission rules");
         }
@@ -199,7 +210,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
         if (!userId.equals(ownerId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only administrative users are allowed to create/remove groups.");
         }
@@ -213,7 +224,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     @Override
     public void checkUpdateGroupPermissions(long studyId, String userId, String group, ParamUtils.BasicUpdateAction action)
             throws CatalogException {
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
 
         if (userId.equals(ownerId)) {
             // Granted permission but check it is a valid action
@@ -253,7 +264,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to assign or see all permissions");
         }
@@ -265,7 +276,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
 
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to create/update/delete variable "
@@ -298,7 +309,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
     @Override
     public Boolean isOwnerOrAdmin(long studyId, String userId) throws CatalogException {
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = getOwnerId(studyId);
 
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             return false;
@@ -308,13 +319,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
 
     private boolean isAdministrativeUser(long studyId, String user) throws CatalogException {
-        OpenCGAResult<Group> groupBelonging = getGroupBelonging(studyId, user);
-        for (Group group : groupBelonging.getResults()) {
-            if (group.getId().equals(ADMINS_GROUP)) {
-                return true;
-            }
-        }
-        return false;
+        return AuthorizationMongoDBUtils.getAdminUsers(getStudyDocument(studyId)).contains(user);
     }
 
     @Override
@@ -325,21 +330,76 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, fileDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.FILE, fileId, userId, permission.name(), query, fileDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "File", fileId, null);
     }
 
-    private boolean checkUserPermission(String userId, Query query, CoreDBAdaptor dbAdaptor) throws CatalogException {
+    @Override
+    public void checkFilePermissions(long studyId, List<Long> fileIds, String userId, FileAclEntry.FilePermissions permission)
+            throws CatalogException {
+        Query query = new Query()
+                .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
+                .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
+
+        checkUserPermissions(studyId, Enums.Resource.FILE, fileIds, userId, permission.name(), FileDBAdaptor.QueryParams.UID.key(),
+                query, fileDBAdaptor, fileId -> checkFilePermission(studyId, fileId, userId, permission));
+    }
+
+    private boolean checkUserPermission(long studyId, Enums.Resource resource, long uid, String userId, String permission, Query query,
+                                        CoreDBAdaptor dbAdaptor) throws CatalogException {
         if (isInstallationAdministrator(userId)) {
             return true;
+        }
+        // Obtain the current version of the study before querying, so the decision is discarded if the ACLs change meanwhile
+        AuthorizationCache.StudyEntry studyEntry = cache.getStudy(studyId);
+        if (studyEntry.isGranted(resource.name(), uid, userId, permission)) {
+            return true;
+        }
+        if (dbAdaptor.count(query, userId).getNumMatches() == 1) {
+            studyEntry.grant(resource.name(), uid, userId, permission);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check the user has the permission over all the entries with a single query, caching the decisions. If any of them is not
+     * granted, each of the entries is checked individually to report the first one the user does not have permissions for.
+     */
+    private void checkUserPermissions(long studyId, Enums.Resource resource, List<Long> uids, String userId, String permission,
+                                      String uidKey, Query query, CoreDBAdaptor dbAdaptor, PermissionCheck check)
+            throws CatalogException {
+        if (uids == null || uids.isEmpty() || isInstallationAdministrator(userId)) {
+            return;
+        }
+        AuthorizationCache.StudyEntry studyEntry = cache.getStudy(studyId);
+        List<Long> pendingUids = new ArrayList<>(uids.size());
+        for (Long uid : new LinkedHashSet<>(uids)) {
+            if (!studyEntry.isGranted(resource.name(), uid, userId, permission)) {
+                pendingUids.add(uid);
+            }
+        }
+        if (pendingUids.isEmpty()) {
+            return;
+        }
+
+        query.append(uidKey, pendingUids);
+        if (dbAdaptor.count(query, userId).getNumMatches() == pendingUids.size()) {
+            for (Long uid : pendingUids) {
+                studyEntry.grant(resource.name(), uid, userId, permission);
+            }
         } else {
-            if (dbAdaptor.count(query, userId).getNumMatches() == 1) {
-                return true;
+            for (Long uid : pendingUids) {
+                check.check(uid);
             }
         }
-        return false;
+    }
+
+    @FunctionalInterface
+    private interface PermissionCheck {
+        void check(long uid) throws CatalogException;
     }
 
     @Override
@@ -350,12 +410,23 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, sampleDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.SAMPLE, sampleId, userId, permission.name(), query, sampleDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Sample", sampleId, null);
     }
 
+    @Override
+    public void checkSamplePermissions(long studyId, List<Long> sampleIds, String userId, SampleAclEntry.SamplePermissions permission)
+            throws CatalogException {
+        Query query = new Query()
+                .append(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
+                .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
+
+        checkUserPermissions(studyId, Enums.Resource.SAMPLE, sampleIds, userId, permission.name(), SampleDBAdaptor.QueryParams.UID.key(),
+                query, sampleDBAdaptor, sampleId -> checkSamplePermission(studyId, sampleId, userId, permission));
+    }
+
     @Override
     public void checkIndividualPermission(long studyId, long individualId, String userId,
                                           IndividualAclEntry.IndividualPermissions permission) throws CatalogException {
@@ -364,7 +435,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, individualDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.INDIVIDUAL, individualId, userId, permission.name(), query, individualDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Individual", individualId, null);
@@ -377,7 +448,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(JobDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, jobDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.JOB, jobId, userId, permission.name(), query, jobDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Job", jobId, null);
@@ -391,7 +462,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(CohortDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, cohortDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.COHORT, cohortId, userId, permission.name(), query, cohortDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Cohort", cohortId, null);
@@ -406,7 +477,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(PanelDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, panelDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.DISEASE_PANEL, panelId, userId, permission.name(), query, panelDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Panel", panelId, null);
@@ -420,7 +491,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(FamilyDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, familyDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.FAMILY, familyId, userId, permission.name(), query, familyDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Family", familyId, null);
@@ -435,7 +506,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(ClinicalAnalysisDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, clinicalAnalysisDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.CLINICAL_ANALYSIS, analysisId, userId, permission.name(), query,
+                clinicalAnalysisDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "ClinicalAnalysis", analysisId, null);
@@ -496,7 +568,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
     @Override
     public void resetPermissionsFromAllEntities(long studyId, List<String> members) throws CatalogException {
-        aclDBAdaptor.resetMembersFromAllEntries(studyId, members);
+        try {
+            aclDBAdaptor.resetMembersFromAllEntries(studyId, members);
+        } finally {
+            cache.invalidate(studyId);
+        }
     }
 
     @Override
@@ -716,14 +792,22 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     @Override
     public OpenCGAResult<Map<String, List<String>>> setStudyAcls(List<Long> studyIds, List<String> members, List<String> permissions)
             throws CatalogException {
-        aclDBAdaptor.setToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        try {
+            aclDBAdaptor.setToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        } finally {
+            studyIds.forEach(cache::invalidate);
+        }
         return aclDBAdaptor.get(studyIds, members, Enums.Resource.STUDY);
     }
 
     @Override
     public OpenCGAResult<Map<String, List<String>>> addStudyAcls(List<Long> studyIds, List<String> members, List<String> permissions)
             throws CatalogException {
-        aclDBAdaptor.addToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        try {
+            aclDBAdaptor.addToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        } finally {
+            studyIds.forEach(cache::invalidate);
+        }
         return aclDBAdaptor.get(studyIds, members, Enums.Resource.STUDY);
     }
 
@@ -743,7 +827,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             throws CatalogException {
         long startTime = System.currentTimeMillis();
         setImplicitPermissions(aclParams);
-        aclDBAdaptor.setToMembers(studyUid, members, aclParams);
+        try {
+            aclDBAdaptor.setToMembers(studyUid, members, aclParams);
+        } finally {
+            cache.invalidate(studyUid);
+        }
         return getAclResult(aclParams.get(0).getIds(), members, aclParams.get(0).getResource(), startTime);
     }
 
@@ -752,7 +840,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             throws CatalogException {
         long startTime = System.currentTimeMillis();
         setImplicitPermissions(aclParams);
-        aclDBAdaptor.addToMembers(studyId, members, aclParams);
+        try {
+            aclDBAdaptor.addToMembers(studyId, members, aclParams);
+        } finally {
+            cache.invalidate(studyId);
+        }
         return getAclResult(aclParams.get(0).getIds(), members, aclParams.get(0).getResource(), startTime);
     }
 
@@ -761,7 +853,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             throws CatalogException {
         long startTime = System.currentTimeMillis();
         setDependentPermissions(aclParams);
-        aclDBAdaptor.removeFromMembers(members, aclParams);
+        try {
+            aclDBAdaptor.removeFromMembers(members, aclParams);
+        } finally {
+            // The study of the entries is unknown
+            cache.invalidateAll();
+        }
         return getAclResult(aclParams.get(0).getIds(), members, aclParams.get(0).getResource(), startTime);
     }
 
@@ -1122,7 +1219,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
 
         long startTime = System.currentTimeMillis();
-        aclDBAdaptor.setAcls(ids, aclEntries, resource);
+        try {
+            aclDBAdaptor.setAcls(ids, aclEntries, resource);
+        } finally {
+            cache.invalidate(studyId);
+        }
         int dbTime = (int) (System.currentTimeMillis() - startTime);
 
         OpenCGAResult result = getAcls(ids, null, resource);
@@ -1137,13 +1238,17 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         List<String> userList = permissionRule.getMembers().stream()
                 .filter(member -> !member.startsWith("@"))
                 .collect(Collectors.toList());
-        if (CollectionUtils.isNotEmpty(userList)) {
-            // We first add the member to the @members group in case they didn't belong already
-            studyDBAdaptor.addUsersToGroup(studyId, MEMBERS_GROUP, userList);
-        }
+        try {
+            if (CollectionUtils.isNotEmpty(userList)) {
+                // We first add the member to the @members group in case they didn't belong already
+                studyDBAdaptor.addUsersToGroup(studyId, MEMBERS_GROUP, userList);
+            }
 
-        // 2. We can apply the permission rules
-        aclDBAdaptor.applyPermissionRules(studyId, permissionRule, entry);
+            // 2. We can apply the permission rules
+            aclDBAdaptor.applyPermissionRules(studyId, permissionRule, entry);
+        } finally {
+            cache.invalidate(studyId);
+        }
     }
 
     @Override
@@ -1152,7 +1257,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRuleAndRemovePermissions(study, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRuleAndRemovePermissions(study, permissionRuleId, entry);
+        } finally {
+            cache.invalidate(study.getUid());
+        }
     }
 
     @Override
@@ -1161,7 +1270,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRuleAndRestorePermissions(study, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRuleAndRestorePermissions(study, permissionRuleId, entry);
+        } finally {
+            cache.invalidate(study.getUid());
+        }
     }
 
     @Override
@@ -1169,7 +1282,21 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRule(studyId, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRule(studyId, permissionRuleId, entry);
+        } finally {
+            cache.invalidate(studyId);
+        }
+    }
+
+    @Override
+    public void invalidateCache(long studyId) {
+        cache.invalidate(studyId);
+    }
+
+    @Override
+    public void invalidateCache() {
+        cache.invalidateAll();
     }
 
     /*
@@ -1193,6 +1320,49 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         return getGroupBelonging(studyId, Arrays.asList(members.split(",")));
     }
 
+    /**
+     * Get the study document containing the owner, groups and study ACLs from the authorization cache.
+     *
+     * @param studyId study id.
+     * @return the study document. Must not be modified.
+     * @throws CatalogException if the study does not exist.
+     */
+    private Document getStudyDocument(long studyId) throws CatalogException {
+        return cache.getStudy(studyId).getStudyDocument(this::loadStudyDocument);
+    }
+
+    private Document loadStudyDocument(long studyId) throws CatalogException {
+        Query query = new Query(StudyDBAdaptor.QueryParams.UID.key(), studyId);
+        OpenCGAResult queryResult = studyDBAdaptor.nativeGet(query, QueryOptions.empty());
+        if (queryResult.getNumResults() == 0) {
+            throw new CatalogDBException("Study " + studyId + " not found");
+        }
+        Document study = (Document) queryResult.first();
+
+        // Only keep the fields needed to check the permissions
+        return new Document()
+                .append(PRIVATE_OWNER_ID, study.get(PRIVATE_OWNER_ID))
+                .append(StudyDBAdaptor.QueryParams.GROUPS.key(), study.get(StudyDBAdaptor.QueryParams.GROUPS.key()))
+                .append(PRIVATE_ACL, study.get(PRIVATE_ACL));
+    }
+
+    private String getOwnerId(long studyId) throws CatalogException {
+        return getStudyDocument(studyId).getString(PRIVATE_OWNER_ID);
+    }
+
+    private static boolean isUserInAnyGroup(Document study, String user) {
+        List<Document> groups = study.get(StudyDBAdaptor.QueryParams.GROUPS.key(), List.class);
+        if (groups != null) {
+            for (Document group : groups) {
+                List<String> userIds = group.get("userIds", List.class);
+                if (userIds != null && userIds.contains(user)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public static void checkPermissions(List<String> permissions, Function<String, Enum> getValue) throws CatalogException {
         for (String permission : permissions) {
             try {
@@ -94,5 +94,7 @@ public interface DBAdaptorFactory extends AutoCloseable {
 
     InterpretationDBAdaptor getInterpretationDBAdaptor();
 
+    SummaryDBAdaptor getCatalogSummaryDBAdaptor();
+
     Map<String, MongoDBCollection> getMongoDBCollectionMap();
 }
@@ -238,6 +238,25 @@ public interface FileDBAdaptor extends AnnotationSetDBAdaptor<File> {
                          List<VariableSet> variableSetList, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
+    /**
+     * Insert a list of files in a single transaction, so either all of them or none are inserted. Files with samples are inserted
+     * in the order given, so a sample created by one file can be linked by the next ones as an existing sample.
+     *
+     * @param studyId Id of the study where the files belong to.
+     * @param files The files to be inserted in the database.
+     * @param existingSamples Samples already existing, by file path. Files without samples can be missing.
+     * @param nonExistingSamples Samples to be created, by file path. Files without samples can be missing.
+     * @param variableSetList Variable set list.
+     * @param options Options to filter the output that will be returned after the insertion of the files.
+     * @return A OpenCGAResult object containing the time spent.
+     * @throws CatalogDBException when any of the files could not be inserted, e.g. if the path is already in use.
+     * @throws CatalogParameterException if there is any formatting error.
+     * @throws CatalogAuthorizationException if the user is not authorised to perform the query.
+     */
+    OpenCGAResult insert(long studyId, List<File> files, Map<String, List<Sample>> existingSamples,
+                         Map<String, List<Sample>> nonExistingSamples, List<VariableSet> variableSetList, QueryOptions options)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
+
     /***
      * Retrieves the file from the database containing the fileId given.
      *
@@ -100,6 +100,15 @@ public interface JobDBAdaptor extends CoreDBAdaptor<Job> {
      */
     OpenCGAResult unmarkPermissionRule(long studyId, String permissionRuleId) throws CatalogException;
 
+    /**
+     * Listen to the changes made to the jobs by any process connected to the database, running the callback for every job inserted,
+     * set back to pending or whose priority changes. This method blocks the calling thread until it is interrupted.
+     *
+     * @param onChange callback to be run every time a job is inserted or updated.
+     * @throws CatalogDBException if the changes cannot be listened to (e.g. the database does not support change streams).
+     */
+    void watch(Runnable onChange) throws CatalogDBException;
+
     enum QueryParams implements QueryParam {
         ID("id", TEXT, ""),
         UID("uid", LONG, ""),
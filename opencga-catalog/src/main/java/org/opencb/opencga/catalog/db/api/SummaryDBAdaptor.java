@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.api;
+
+import org.opencb.commons.datastore.core.FacetField;
+import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.catalog.exceptions.CatalogParameterException;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.response.OpenCGAResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-study summary counters of the catalog entries, kept up to date by the DB adaptors whenever an entry is created, updated or
+ * deleted.
+ */
+public interface SummaryDBAdaptor {
+
+    /**
+     * Resources for which summary counters are kept.
+     */
+    List<Enums.Resource> RESOURCES = Arrays.asList(Enums.Resource.FILE, Enums.Resource.SAMPLE, Enums.Resource.INDIVIDUAL);
+
+    /**
+     * Get the summary counters of a resource. Each FacetField corresponds to one of the fields summarised, containing the number of
+     * entries of the study and one bucket per value found. Reads never calculate the counters: if they have not been rebuilt yet,
+     * the result contains a warning event.
+     *
+     * @param studyUid Study uid.
+     * @param resource Resource.
+     * @return the list of FacetFields.
+     * @throws CatalogDBException if the resource is not summarised or the counters could not be read.
+     */
+    OpenCGAResult<FacetField> get(long studyUid, Enums.Resource resource) throws CatalogDBException;
+
+    /**
+     * Calculate the summary of a resource counting only the entries the user is allowed to see. Unlike the stored counters, which
+     * include every entry of the study, this iterates over the entries, so it should only be used for users that cannot see all of
+     * them.
+     *
+     * @param studyUid Study uid.
+     * @param resource Resource.
+     * @param user     User whose permissions restrict the entries counted.
+     * @return the list of FacetFields, in the same format as {@link #get(long, Enums.Resource)}.
+     * @throws CatalogDBException            if the resource is not summarised or the entries could not be read.
+     * @throws CatalogAuthorizationException if the user permissions could not be checked.
+     * @throws CatalogParameterException     if the query is not valid.
+     */
+    OpenCGAResult<FacetField> get(long studyUid, Enums.Resource resource, String user)
+            throws CatalogDBException, CatalogAuthorizationException, CatalogParameterException;
+
+    /**
+     * Recalculate from scratch the summary counters of every resource of the study.
+     *
+     * @param studyUid Study uid.
+     * @return an OpenCGAResult with the number of summaries updated.
+     * @throws CatalogDBException if the counters could not be calculated.
+     */
+    OpenCGAResult<?> rebuild(long studyUid) throws CatalogDBException;
+
+}
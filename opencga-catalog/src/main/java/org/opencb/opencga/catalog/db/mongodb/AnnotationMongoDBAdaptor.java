@@ -28,6 +28,7 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.opencb.commons.datastore.core.*;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
+import org.opencb.commons.datastore.mongodb.MongoDBIterator;
 import org.opencb.opencga.catalog.db.api.AnnotationSetDBAdaptor;
 import org.opencb.opencga.catalog.db.mongodb.converters.AnnotationConverter;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
@@ -61,6 +62,9 @@ import static org.opencb.opencga.catalog.managers.AnnotationSetManager.ANNOTATIO
  */
 public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor implements AnnotationSetDBAdaptor<T> {
 
+    // Number of entries whose annotation index is written in each bulk update
+    static final int ANNOTATION_INDEX_BATCH_SIZE = 100;
+
     private final AnnotationConverter annotationConverter;
 
     AnnotationMongoDBAdaptor(Configuration configuration, Logger logger) {
@@ -75,6 +79,8 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
         ANNOTATION_SETS("customAnnotationSets", TEXT_ARRAY, ""),
         PRIVATE_VARIABLE_SET_MAP("_vsMap", TEXT_ARRAY, ""),
         PRIVATE_INTERNAL_VARIABLE_SET_MAP("_ivsMap", TEXT_ARRAY, ""),
+        // Values of every variable, grouped by variable set uid, to be able to query them directly
+        ANNOTATION_INDEX("_annIdx", TEXT_ARRAY, ""),
 
         // The variables stored as will appear inside the array
         ID("id", TEXT, ""),
@@ -136,10 +142,10 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
         }
     }
 
-    public void createAnnotationSetForMigration(Object id, VariableSet variableSet, AnnotationSet annotationSet)
-            throws CatalogDBException {
+    public void createAnnotationSetForMigration(ClientSession clientSession, Object id, VariableSet variableSet,
+                                                AnnotationSet annotationSet) throws CatalogDBException {
         // Check if there already exists an annotation set with the same name
-        DataResult<Long> count = getCollection().count(
+        DataResult<Long> count = getCollection().count(clientSession,
                 new Document()
                         .append(AnnotationSetParams.ANNOTATION_SET_NAME.key(), annotationSet.getId())
                         .append("_id", id));
@@ -149,7 +155,7 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
 
         if (variableSet.isUnique()) {
             // Check if the variableset has been already annotated with a different annotation set
-            count = getCollection().count(
+            count = getCollection().count(clientSession,
                     new Document()
                             .append(AnnotationSetParams.ANNOTATION_SETS_VARIABLE_SET_ID.key(), annotationSet.getVariableSetId())
                             .append("_id", id));
@@ -170,11 +176,12 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
                 .append("$addToSet", new Document(AnnotationSetParams.ANNOTATION_SETS.key(), new Document("$each", documentList)))
                 .append("$set", new Document(AnnotationSetParams.PRIVATE_VARIABLE_SET_MAP.key() + "." + variableSet.getUid(),
                         variableSet.getId()));
-        DataResult result = getCollection().update(query, update, null);
+        DataResult result = getCollection().update(clientSession, query, update, null);
 
         if (result.getNumUpdated() != 1) {
             throw CatalogDBException.alreadyExists("AnnotationSet", "name", annotationSet.getId());
         }
+        updateAnnotationIndex(clientSession, Filters.eq("_id", id));
     }
 
     /**
@@ -430,9 +437,103 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
             addNewAnnotations(clientSession, entryId, annotationDocumentList, isVersioned);
         }
 
+        // Keep the annotation index in sync with the new annotation sets
+        Document queryDocument = new Document(PRIVATE_UID, entryId);
+        if (isVersioned) {
+            queryDocument.append(LAST_OF_VERSION, true);
+        }
+        updateAnnotationIndex(clientSession, queryDocument);
+
         return endWrite(startTime, 1, 1, new ArrayList<>());
     }
 
+    /**
+     * Add the annotation index to the document of a new entry, if the annotation index is enabled.
+     *
+     * @param document Document of the entry, containing its annotation sets.
+     * @return the same document.
+     */
+    protected Document addAnnotationIndex(Document document) {
+        if (isAnnotationQueryIndex()) {
+            document.put(AnnotationSetParams.ANNOTATION_INDEX.key(), getAnnotationIndex(document));
+        }
+        return document;
+    }
+
+    /**
+     * Rebuild the annotation index of the entries matching the query out of their current annotation sets. Meant for the few entries
+     * modified by a single write, within its transaction.
+     *
+     * If the annotation index is not enabled, the stale index of the entries is removed instead, so the entries are indexed again by
+     * the add_annotation_index migration. Entries without index never match this update.
+     *
+     * @param clientSession Client session.
+     * @param query         Query to select the entries to be updated.
+     * @return the number of entries updated.
+     */
+    protected long updateAnnotationIndex(ClientSession clientSession, Bson query) {
+        if (!isAnnotationQueryIndex()) {
+            return getCollection().update(clientSession, Filters.and(query, Filters.exists(AnnotationSetParams.ANNOTATION_INDEX.key())),
+                    Updates.unset(AnnotationSetParams.ANNOTATION_INDEX.key()), new QueryOptions(MongoDBCollection.MULTI, true))
+                    .getNumUpdated();
+        }
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(AnnotationSetParams.ANNOTATION_SETS.key(),
+                AnnotationSetParams.INTERNAL_ANNOTATION_SETS.key()));
+        long count = 0;
+        try (MongoDBIterator<Document> iterator = getCollection().iterator(clientSession, query, null, null, options)) {
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                getCollection().update(clientSession, Filters.eq("_id", document.get("_id")),
+                        Updates.set(AnnotationSetParams.ANNOTATION_INDEX.key(), getAnnotationIndex(document)), new QueryOptions());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rebuild the annotation index of every entry annotated with the variable set, after a change in the variable set has been
+     * committed. This may affect a large number of entries, so it runs out of any transaction, writing the index in bulk updates of
+     * {@link #ANNOTATION_INDEX_BATCH_SIZE} entries. As the index is calculated from the annotation sets stored, it can be repeated
+     * safely if it is interrupted.
+     *
+     * @param variableSetId Variable set uid.
+     * @return the number of entries updated.
+     */
+    long updateAnnotationIndex(long variableSetId) {
+        Bson query = Filters.or(Filters.eq(AnnotationSetParams.ANNOTATION_SETS_VARIABLE_SET_ID.key(), variableSetId),
+                Filters.exists(AnnotationSetParams.ANNOTATION_INDEX.key() + "." + variableSetId));
+        if (!isAnnotationQueryIndex()) {
+            return updateAnnotationIndex(null, query);
+        }
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(AnnotationSetParams.ANNOTATION_SETS.key(),
+                AnnotationSetParams.INTERNAL_ANNOTATION_SETS.key()));
+        long count = 0;
+        List<Bson> queries = new ArrayList<>(ANNOTATION_INDEX_BATCH_SIZE);
+        List<Bson> updates = new ArrayList<>(ANNOTATION_INDEX_BATCH_SIZE);
+        try (MongoDBIterator<Document> iterator = getCollection().iterator(null, query, null, null, options)) {
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                queries.add(Filters.eq("_id", document.get("_id")));
+                updates.add(Updates.set(AnnotationSetParams.ANNOTATION_INDEX.key(), getAnnotationIndex(document)));
+                if (queries.size() == ANNOTATION_INDEX_BATCH_SIZE) {
+                    count += getCollection().update(queries, updates, new QueryOptions()).getNumUpdated();
+                    queries.clear();
+                    updates.clear();
+                }
+            }
+        }
+        if (!queries.isEmpty()) {
+            count += getCollection().update(queries, updates, new QueryOptions()).getNumUpdated();
+        }
+        return count;
+    }
+
+    private Document getAnnotationIndex(Document document) {
+        return annotationConverter.annotationIndexToDB(document.getList(AnnotationSetParams.ANNOTATION_SETS.key(), Document.class),
+                document.getList(AnnotationSetParams.INTERNAL_ANNOTATION_SETS.key(), Document.class));
+    }
+
     private void removePrivateVariableMap(ClientSession clientSession, long entryId, Map<String, String> privateVariableMapToSet,
                                           boolean isVersioned) throws CatalogDBException {
         removePrivateVariableMap(clientSession, entryId, privateVariableMapToSet, isVersioned, false);
@@ -614,7 +715,8 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
         Bson pull = new Document()
                 .append("$pull", new Document(annotationSetKey,
                         new Document(AnnotationSetParams.VARIABLE_SET_ID.key(), variableSet.getUid())))
-                .append("$unset", new Document(AnnotationSetParams.PRIVATE_VARIABLE_SET_MAP.key() + "." + variableSet.getUid(), ""));
+                .append("$unset", new Document(AnnotationSetParams.PRIVATE_VARIABLE_SET_MAP.key() + "." + variableSet.getUid(), "")
+                        .append(AnnotationSetParams.ANNOTATION_INDEX.key() + "." + variableSet.getUid(), ""));
 
         DataResult result = getCollection().update(clientSession, queryDocument, pull, new QueryOptions("multi", true));
         if (result.getNumMatches() > 0 && result.getNumUpdated() < 1) {
@@ -696,6 +798,17 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
     }
 
     public OpenCGAResult addVariableToAnnotations(long variableSetId, Variable variable) throws CatalogDBException {
+        try {
+            OpenCGAResult result = runTransaction(clientSession -> addVariableToAnnotations(clientSession, variableSetId, variable));
+            updateAnnotationIndex(variableSetId);
+            return result;
+        } catch (CatalogParameterException | CatalogAuthorizationException e) {
+            throw new CatalogDBException(e);
+        }
+    }
+
+    OpenCGAResult addVariableToAnnotations(ClientSession clientSession, long variableSetId, Variable variable)
+            throws CatalogDBException {
         long startTime = startQuery();
 
         // We generate the generic document that should be inserted
@@ -750,7 +863,8 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
             Bson update = new Document("$addToSet", new Document(AnnotationSetParams.ANNOTATION_SETS.key(),
                     new Document("$each", documentList)));
 
-            DataResult result = getCollection().update(bsonQuery, update, new QueryOptions(MongoDBCollection.MULTI, true));
+            DataResult result = getCollection().update(clientSession, bsonQuery, update,
+                    new QueryOptions(MongoDBCollection.MULTI, true));
             modifiedCount += result.getNumUpdated();
             matchCount += result.getNumMatches();
         }
@@ -771,6 +885,16 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
      * @throws CatalogDBException if there is any unexpected error.
      */
     public OpenCGAResult removeAnnotationField(long variableSetId, String fieldId) throws CatalogDBException {
+        try {
+            OpenCGAResult result = runTransaction(clientSession -> removeAnnotationField(clientSession, variableSetId, fieldId));
+            updateAnnotationIndex(variableSetId);
+            return result;
+        } catch (CatalogParameterException | CatalogAuthorizationException e) {
+            throw new CatalogDBException(e);
+        }
+    }
+
+    OpenCGAResult removeAnnotationField(ClientSession clientSession, long variableSetId, String fieldId) throws CatalogDBException {
         long startTime = startQuery();
 //        List<Document> aggregateResult = getAnnotationDocuments(variableSetId, fieldId);
 
@@ -786,7 +910,7 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
                         .append(AnnotationSetParams.VARIABLE_SET_ID.key(), variableSetId)
                         .append(AnnotationSetParams.ID.key(), Pattern.compile("^" + fieldId))));
 
-        DataResult result = getCollection().update(query, pull, new QueryOptions("multi", true));
+        DataResult result = getCollection().update(clientSession, query, pull, new QueryOptions("multi", true));
         if (result.getNumUpdated() == 0 && result.getNumMatches() > 0) {
             throw new CatalogDBException("VariableSet {id: " + variableSetId + "}: An unexpected error happened when extracting the "
                     + "annotations for the variable " + fieldId + ". Please, report this error to the OpenCGA developers.");
@@ -841,6 +965,11 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
         return endQuery(startTime, variableSummaryList);
     }
 
+    private boolean isAnnotationQueryIndex() {
+        return configuration != null && configuration.getOptimizations() != null
+                && configuration.getOptimizations().isAnnotationQueryIndex();
+    }
+
     public Document createAnnotationQuery(String annotations, ObjectMap variableTypeMap) throws CatalogDBException {
         Document document = new Document();
 
@@ -961,6 +1090,21 @@ public abstract class AnnotationMongoDBAdaptor<T> extends MongoDBAdaptor impleme
                         }
                         boolean isInternal = variableTypeMap.getBoolean(variableSet + "__isInternal");
 
+                        List<String> variableKeys = Arrays.asList(StringUtils.split(key, "."));
+                        if (isAnnotationQueryIndex() && AnnotationUtils.isAnnotationIndexQuery(annotationSet, valueString)
+                                && AnnotationConverter.isIndexableKey(variableKeys)) {
+                            // Query the values of the variable directly, using the annotation index
+                            String field = AnnotationSetParams.ANNOTATION_INDEX.key() + "."
+                                    + AnnotationConverter.getAnnotationIndexField(variableTypeMap.getLong(variableSet), variableKeys);
+                            try {
+                                documentList.add(addCompQueryFilter(type, field, Arrays.asList(valueString.split(",")),
+                                        new ArrayList<>()).get(0));
+                            } catch (CatalogDBException e) {
+                                throw new CatalogDBException("Variable " + key + ": " + e.getMessage(), e);
+                            }
+                            continue;
+                        }
+
                         List<Document> valueList;
                         try {
                             valueList = addCompQueryFilter(type, AnnotationSetParams.VALUE.key(), Arrays.asList(valueString.split(",")),
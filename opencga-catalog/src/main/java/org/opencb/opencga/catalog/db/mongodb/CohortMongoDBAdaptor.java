@@ -130,6 +130,7 @@ public class CohortMongoDBAdaptor extends AnnotationMongoDBAdaptor<Cohort> imple
         }
 
         Document cohortObject = cohortConverter.convertToStorageType(cohort, variableSetList);
+        addAnnotationIndex(cohortObject);
 
         cohortObject.put(PRIVATE_CREATION_DATE,
                 StringUtils.isNotEmpty(cohort.getCreationDate()) ? TimeUtils.toDate(cohort.getCreationDate()) : TimeUtils.getDate());
@@ -185,6 +185,7 @@ public class FamilyMongoDBAdaptor extends AnnotationMongoDBAdaptor<Family> imple
         family.setRoles(roles);
 
         Document familyDocument = familyConverter.convertToStorageType(family, variableSetList);
+        addAnnotationIndex(familyDocument);
 
         // Versioning private parameters
         familyDocument.put(RELEASE_FROM_VERSION, Arrays.asList(family.getRelease()));
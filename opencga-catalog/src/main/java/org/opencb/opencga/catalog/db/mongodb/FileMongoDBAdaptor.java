@@ -196,6 +196,85 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
                     nonExistingSamples.stream().map(Sample::getId).collect(Collectors.toList())));
         }
 
+        Document fileDocument = createFileDocument(studyId, file, samples, variableSetList);
+        fileCollection.insert(clientSession, fileDocument, null);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyId, Enums.Resource.FILE, null, fileDocument);
+
+        // Update the size field from the study collection
+        if (!file.isExternal() && file.getSize() > 0) {
+            dbAdaptorFactory.getCatalogStudyDBAdaptor().updateDiskUsage(clientSession, studyId, file.getSize());
+        }
+
+        return file.getUid();
+    }
+
+    @Override
+    public OpenCGAResult insert(long studyId, List<File> files, Map<String, List<Sample>> existingSamples,
+                                Map<String, List<Sample>> nonExistingSamples, List<VariableSet> variableSetList, QueryOptions options)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
+        if (files.isEmpty()) {
+            return OpenCGAResult.empty();
+        }
+        List<File> filesWithoutSamples = new ArrayList<>(files.size());
+        List<File> filesWithSamples = new ArrayList<>();
+        for (File file : files) {
+            if (file.getSampleIds() == null || file.getSampleIds().isEmpty()) {
+                filesWithoutSamples.add(file);
+            } else {
+                filesWithSamples.add(file);
+            }
+        }
+        return runTransaction(
+                (clientSession) -> {
+                    long tmpStartTime = startQuery();
+                    logger.debug("Starting file insert transaction for {} files", files.size());
+
+                    dbAdaptorFactory.getCatalogStudyDBAdaptor().checkId(clientSession, studyId);
+                    if (!filesWithoutSamples.isEmpty()) {
+                        insert(clientSession, studyId, filesWithoutSamples, variableSetList);
+                    }
+                    for (File file : filesWithSamples) {
+                        insert(clientSession, studyId, file, existingSamples.get(file.getPath()), nonExistingSamples.get(file.getPath()),
+                                variableSetList);
+                    }
+                    return endWrite(tmpStartTime, files.size(), files.size(), 0, 0, null);
+                },
+                (e) -> logger.error("Could not create {} files: {}", files.size(), e.getMessage()));
+    }
+
+    void insert(ClientSession clientSession, long studyId, List<File> files, List<VariableSet> variableSetList)
+            throws CatalogDBException {
+        // Check all the paths at once
+        List<String> paths = files.stream().map(File::getPath).collect(Collectors.toList());
+        Document query = new Document(PRIVATE_STUDY_UID, studyId).append(QueryParams.PATH.key(), new Document("$in", paths));
+        DataResult<Document> existing = fileCollection.find(clientSession, query,
+                new QueryOptions(QueryOptions.INCLUDE, QueryParams.PATH.key()));
+        if (existing.getNumResults() > 0) {
+            throw CatalogDBException.alreadyExists("File", studyId, "path", existing.first().getString(QueryParams.PATH.key()));
+        }
+
+        List<Document> fileDocuments = new ArrayList<>(files.size());
+        long diskUsage = 0;
+        for (File file : files) {
+            if (file.getSampleIds() != null && !file.getSampleIds().isEmpty()) {
+                throw new CatalogDBException("Unexpected samples in file '" + file.getPath() + "'. Files with samples must be inserted "
+                        + "one by one");
+            }
+            fileDocuments.add(createFileDocument(studyId, file, Collections.emptyList(), variableSetList));
+            if (!file.isExternal() && file.getSize() > 0) {
+                diskUsage += file.getSize();
+            }
+        }
+        fileCollection.insert(clientSession, fileDocuments, null);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyId, Enums.Resource.FILE, fileDocuments, 1);
+
+        // Update the size field from the study collection
+        if (diskUsage > 0) {
+            dbAdaptorFactory.getCatalogStudyDBAdaptor().updateDiskUsage(clientSession, studyId, diskUsage);
+        }
+    }
+
+    private Document createFileDocument(long studyId, File file, List<Sample> samples, List<VariableSet> variableSetList) {
         //new file uid
         long fileUid = getNewUid();
         file.setUid(fileUid);
@@ -205,21 +284,14 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
         }
 
         Document fileDocument = fileConverter.convertToStorageType(file, samples, variableSetList);
+        addAnnotationIndex(fileDocument);
 
         fileDocument.put(PERMISSION_RULES_APPLIED, Collections.emptyList());
         fileDocument.put(PRIVATE_CREATION_DATE,
                 StringUtils.isNotEmpty(file.getCreationDate()) ? TimeUtils.toDate(file.getCreationDate()) : TimeUtils.getDate());
         fileDocument.put(PRIVATE_MODIFICATION_DATE,
                 StringUtils.isNotEmpty(file.getModificationDate()) ? TimeUtils.toDate(file.getModificationDate()) : TimeUtils.getDate());
-
-        fileCollection.insert(clientSession, fileDocument, null);
-
-        // Update the size field from the study collection
-        if (!file.isExternal() && file.getSize() > 0) {
-            dbAdaptorFactory.getCatalogStudyDBAdaptor().updateDiskUsage(clientSession, studyId, file.getSize());
-        }
-
-        return fileUid;
+        return fileDocument;
     }
 
     @Override
@@ -365,6 +437,10 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
                     queryBson.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry()),
                     fileUpdate.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry()));
 
+            SummaryMongoDBAdaptor summaryDBAdaptor = dbAdaptorFactory.getCatalogSummaryDBAdaptor();
+            Document summaryFields = summaryDBAdaptor.isSummarised(Enums.Resource.FILE, parameters)
+                    ? summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.FILE, fileCollection, queryBson)
+                    : null;
             result = fileCollection.update(clientSession, queryBson, fileUpdate, null);
 
             // If the size of some of the files have been changed, notify to the correspondent study
@@ -381,6 +457,9 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
             }
             if (result.getNumUpdated() == 0) {
                 events.add(new Event(Event.Type.WARNING, file.getPath(), "File was already updated"));
+            } else if (summaryFields != null) {
+                summaryDBAdaptor.update(clientSession, file.getStudyUid(), Enums.Resource.FILE, summaryFields,
+                        summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.FILE, fileCollection, queryBson));
             }
             logger.debug("File {} successfully updated", file.getPath());
         }
@@ -850,6 +929,7 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
                 }
 
                 logger.debug("File uid '{}' deleted from main FILE collection", tmpFileUid);
+                dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyUid, Enums.Resource.FILE, tmpFile, null);
                 numFiles++;
             }
 
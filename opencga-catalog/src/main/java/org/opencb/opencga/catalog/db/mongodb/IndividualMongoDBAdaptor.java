@@ -182,6 +182,7 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
         }
 
         Document individualDocument = individualConverter.convertToStorageType(individual, variableSetList);
+        addAnnotationIndex(individualDocument);
 
         // Versioning private parameters
         individualDocument.put(RELEASE_FROM_VERSION, Arrays.asList(individual.getRelease()));
@@ -196,6 +197,8 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
 
         logger.debug("Inserting individual '{}' ({})...", individual.getId(), individual.getUid());
         versionedMongoDBAdaptor.insert(clientSession, individualDocument);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyId, Enums.Resource.INDIVIDUAL, null,
+                individualDocument);
         logger.debug("Individual '{}' successfully inserted", individual.getId());
 
         if (individual.getSamples() != null && !individual.getSamples().isEmpty()) {
@@ -410,6 +413,10 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
             List<Event> events = new ArrayList<>();
             if (!individualUpdate.isEmpty()) {
                 Bson finalQuery = parseQuery(tmpQuery);
+                SummaryMongoDBAdaptor summaryDBAdaptor = dbAdaptorFactory.getCatalogSummaryDBAdaptor();
+                Document summaryFields = summaryDBAdaptor.isSummarised(Enums.Resource.INDIVIDUAL, parameters)
+                        ? summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.INDIVIDUAL, individualCollection, finalQuery)
+                        : null;
 
                 logger.debug("Individual update: query : {}, update: {}",
                         finalQuery.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry()),
@@ -422,6 +429,10 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
                 }
                 if (result.getNumUpdated() == 0) {
                     events.add(new Event(Event.Type.WARNING, individual.getId(), "Individual was already updated"));
+                } else if (summaryFields != null) {
+                    summaryDBAdaptor.update(clientSession, individual.getStudyUid(), Enums.Resource.INDIVIDUAL, summaryFields,
+                            summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.INDIVIDUAL, individualCollection,
+                                    finalQuery));
                 }
 
                 if (!updateDocument.getAttributes().isEmpty()) {
@@ -959,6 +970,8 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
                 .append(QueryParams.STUDY_UID.key(), studyUid);
         Bson bson = parseQuery(individualQuery);
         versionedMongoDBAdaptor.delete(clientSession, bson);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyUid, Enums.Resource.INDIVIDUAL, individualDocument,
+                null);
 
         // Remove individual reference from the list of samples
         List<Document> sampleList = individualDocument.getList(QueryParams.SAMPLES.key(), Document.class);
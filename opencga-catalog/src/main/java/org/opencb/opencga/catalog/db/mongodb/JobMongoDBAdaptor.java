@@ -17,10 +17,15 @@
 package org.opencb.opencga.catalog.db.mongodb;
 
 import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
 import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.opencb.commons.datastore.core.*;
@@ -53,6 +58,7 @@ import org.opencb.opencga.core.response.OpenCGAResult;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -88,6 +94,61 @@ public class JobMongoDBAdaptor extends MongoDBAdaptor implements JobDBAdaptor {
         return jobCollection;
     }
 
+    @Override
+    public void watch(Runnable onChange) throws CatalogDBException {
+        List<Bson> pipeline = Collections.singletonList(Aggregates.match(Filters.in("operationType",
+                Arrays.asList("insert", "update", "replace", "delete"))));
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = dbAdaptorFactory.getMongoDataStore().getDb()
+                .getCollection(MongoDBAdaptorFactory.JOB_COLLECTION)
+                .watch(pipeline)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor()) {
+            while (!Thread.currentThread().isInterrupted()) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null && isWatchedChange(change)) {
+                    onChange.run();
+                }
+            }
+        } catch (MongoException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            throw new CatalogDBException("Could not watch changes of the job collection: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Only new jobs, jobs set back to pending and changes in the priority are notified. Any other status change is made by the
+     * daemon scheduling the jobs, so it does not need to be notified back, as well as the periodical updates of the execution results.
+     *
+     * @param change Change stream document.
+     * @return whether the change needs to be notified.
+     */
+    private boolean isWatchedChange(ChangeStreamDocument<Document> change) {
+        if (change.getUpdateDescription() == null || change.getUpdateDescription().getUpdatedFields() == null) {
+            return true;
+        }
+        String statusIdKey = QueryParams.INTERNAL_STATUS_ID.key();
+        for (Map.Entry<String, BsonValue> entry : change.getUpdateDescription().getUpdatedFields().entrySet()) {
+            String field = entry.getKey();
+            if (field.equals(QueryParams.PRIORITY.key())) {
+                return true;
+            }
+            if (field.equals(statusIdKey) || statusIdKey.startsWith(field + ".")) {
+                // Look for the new status id within the updated value
+                BsonValue value = entry.getValue();
+                String[] path = field.equals(statusIdKey) ? new String[0] : statusIdKey.substring(field.length() + 1).split("\\.");
+                for (String key : path) {
+                    value = value != null && value.isDocument() ? value.asDocument().get(key) : null;
+                }
+                if (value != null && value.isString() && Enums.ExecutionStatus.PENDING.equals(value.asString().getValue())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public boolean exists(ClientSession clientSession, long jobUid)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
         return count(clientSession, new Query(QueryParams.UID.key(), jobUid)).getNumMatches() > 0;
@@ -76,7 +76,8 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
 
             MIGRATION_COLLECTION,
             METADATA_COLLECTION,
-            AUDIT_COLLECTION
+            AUDIT_COLLECTION,
+            SUMMARY_COLLECTION
     );
 
     public static final String USER_COLLECTION = "user";
@@ -135,6 +136,7 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
     public static final String METADATA_COLLECTION = "metadata";
     public static final String MIGRATION_COLLECTION = "migration";
     public static final String AUDIT_COLLECTION = "audit";
+    public static final String SUMMARY_COLLECTION = "summary";
     static final String METADATA_OBJECT_ID = "METADATA";
     private final MongoDataStoreManager mongoManager;
     private final MongoDBConfiguration configuration;
@@ -158,6 +160,7 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
     private AuditMongoDBAdaptor auditDBAdaptor;
     private MetaMongoDBAdaptor metaDBAdaptor;
     private MigrationMongoDBAdaptor migrationDBAdaptor;
+    private SummaryMongoDBAdaptor summaryDBAdaptor;
 
     private Logger logger;
 
@@ -319,6 +322,11 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
         return migrationDBAdaptor;
     }
 
+    @Override
+    public SummaryMongoDBAdaptor getCatalogSummaryDBAdaptor() {
+        return summaryDBAdaptor;
+    }
+
     @Override
     public Map<String, MongoDBCollection> getMongoDBCollectionMap() {
         return collections;
@@ -373,6 +381,7 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
         MongoDBCollection deletedInterpretationCollection = mongoDataStore.getCollection(DELETED_INTERPRETATION_COLLECTION);
 
         MongoDBCollection auditCollection = mongoDataStore.getCollection(AUDIT_COLLECTION);
+        MongoDBCollection summaryCollection = mongoDataStore.getCollection(SUMMARY_COLLECTION);
 
         collections = new HashMap<>();
         collections.put(METADATA_COLLECTION, metaCollection);
@@ -409,6 +418,7 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
         collections.put(DELETED_INTERPRETATION_COLLECTION, deletedInterpretationCollection);
 
         collections.put(AUDIT_COLLECTION, auditCollection);
+        collections.put(SUMMARY_COLLECTION, summaryCollection);
 
         fileDBAdaptor = new FileMongoDBAdaptor(fileCollection, deletedFileCollection, catalogConfiguration, this);
         familyDBAdaptor = new FamilyMongoDBAdaptor(familyCollection, familyArchivedCollection, deletedFamilyCollection,
@@ -430,6 +440,7 @@ public class MongoDBAdaptorFactory implements DBAdaptorFactory {
         metaDBAdaptor = new MetaMongoDBAdaptor(metaCollection, catalogConfiguration, this);
         auditDBAdaptor = new AuditMongoDBAdaptor(auditCollection, catalogConfiguration);
         migrationDBAdaptor = new MigrationMongoDBAdaptor(migrationCollection, catalogConfiguration, this);
+        summaryDBAdaptor = new SummaryMongoDBAdaptor(summaryCollection, catalogConfiguration, this);
     }
 
 }
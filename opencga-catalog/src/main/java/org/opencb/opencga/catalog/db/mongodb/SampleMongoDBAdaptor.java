@@ -171,6 +171,7 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
         }
 
         Document sampleObject = sampleConverter.convertToStorageType(sample, variableSetList);
+        addAnnotationIndex(sampleObject);
 
         // Versioning private parameters
         sampleObject.put(RELEASE_FROM_VERSION, Arrays.asList(sample.getRelease()));
@@ -185,6 +186,7 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
 
         logger.debug("Inserting sample '{}' ({})...", sample.getId(), sample.getUid());
         versionedMongoDBAdaptor.insert(clientSession, sampleObject);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyUid, Enums.Resource.SAMPLE, null, sampleObject);
         logger.debug("Sample '{}' successfully inserted", sample.getId());
 
         if (individualUid > 0) {
@@ -335,6 +337,10 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
             List<Event> events = new ArrayList<>();
             if (!sampleUpdate.isEmpty()) {
                 Bson finalQuery = parseQuery(tmpQuery);
+                SummaryMongoDBAdaptor summaryDBAdaptor = dbAdaptorFactory.getCatalogSummaryDBAdaptor();
+                Document summaryFields = summaryDBAdaptor.isSummarised(Enums.Resource.SAMPLE, parameters)
+                        ? summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.SAMPLE, sampleCollection, finalQuery)
+                        : null;
 
                 logger.debug("Sample update: query : {}, update: {}",
                         finalQuery.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry()),
@@ -365,6 +371,9 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
                 }
                 if (result.getNumUpdated() == 0) {
                     events.add(new Event(Event.Type.WARNING, sampleId, "Sample was already updated"));
+                } else if (summaryFields != null) {
+                    summaryDBAdaptor.update(clientSession, studyUid, Enums.Resource.SAMPLE, summaryFields,
+                            summaryDBAdaptor.getSummarisedFields(clientSession, Enums.Resource.SAMPLE, sampleCollection, finalQuery));
                 }
                 logger.debug("Sample {} successfully updated", sampleId);
             }
@@ -901,6 +910,7 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
                 .append(QueryParams.STUDY_UID.key(), studyUid);
         Bson bsonQuery = parseQuery(sampleQuery);
         versionedMongoDBAdaptor.delete(clientSession, bsonQuery);
+        dbAdaptorFactory.getCatalogSummaryDBAdaptor().update(clientSession, studyUid, Enums.Resource.SAMPLE, sampleDocument, null);
         logger.debug("Sample {}({}) deleted", sampleId, sampleUid);
         return endWrite(tmpStartTime, 1, 0, 0, 1, Collections.emptyList());
     }
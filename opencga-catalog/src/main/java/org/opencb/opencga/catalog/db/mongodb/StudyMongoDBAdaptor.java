@@ -785,19 +785,28 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
         Bson bsonQuery = Filters.eq(QueryParams.VARIABLE_SET_UID.key(), variableSetId);
         Bson update = Updates.push(QueryParams.VARIABLE_SET.key() + ".$." + VariableSetParams.VARIABLE.key(),
                 getMongoDBDocument(variable, "variable"));
-        DataResult result = studyCollection.update(bsonQuery, update, null);
-        if (result.getNumUpdated() == 0) {
-            throw CatalogDBException.updateError("VariableSet", variableSetId);
-        }
-        if (variable.isRequired()) {
-            dbAdaptorFactory.getCatalogSampleDBAdaptor().addVariableToAnnotations(variableSetId, variable);
-            dbAdaptorFactory.getCatalogCohortDBAdaptor().addVariableToAnnotations(variableSetId, variable);
-            dbAdaptorFactory.getCatalogIndividualDBAdaptor().addVariableToAnnotations(variableSetId, variable);
-            dbAdaptorFactory.getCatalogFamilyDBAdaptor().addVariableToAnnotations(variableSetId, variable);
-            dbAdaptorFactory.getCatalogFileDBAdaptor().addVariableToAnnotations(variableSetId, variable);
+        try {
+            OpenCGAResult<VariableSet> transactionResult = runTransaction(clientSession -> {
+                DataResult result = studyCollection.update(clientSession, bsonQuery, update, null);
+                if (result.getNumUpdated() == 0) {
+                    throw CatalogDBException.updateError("VariableSet", variableSetId);
+                }
+                if (variable.isRequired()) {
+                    dbAdaptorFactory.getCatalogSampleDBAdaptor().addVariableToAnnotations(clientSession, variableSetId, variable);
+                    dbAdaptorFactory.getCatalogCohortDBAdaptor().addVariableToAnnotations(clientSession, variableSetId, variable);
+                    dbAdaptorFactory.getCatalogIndividualDBAdaptor().addVariableToAnnotations(clientSession, variableSetId, variable);
+                    dbAdaptorFactory.getCatalogFamilyDBAdaptor().addVariableToAnnotations(clientSession, variableSetId, variable);
+                    dbAdaptorFactory.getCatalogFileDBAdaptor().addVariableToAnnotations(clientSession, variableSetId, variable);
+                }
+                return new OpenCGAResult<>(result);
+            });
+            if (variable.isRequired()) {
+                updateAnnotationIndex(variableSetId);
+            }
+            return transactionResult;
+        } catch (CatalogParameterException e) {
+            throw new CatalogDBException(e);
         }
-
-        return new OpenCGAResult<>(result);
     }
 
     @Override
@@ -863,20 +872,42 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
         Bson bsonQuery = Filters.eq(QueryParams.VARIABLE_SET_UID.key(), variableSetId);
         Bson update = Updates.pull(QueryParams.VARIABLE_SET.key() + ".$." + VariableSetParams.VARIABLE.key(),
                 Filters.eq("id", name));
-        DataResult result = studyCollection.update(bsonQuery, update, null);
-        if (result.getNumUpdated() != 1) {
-            throw new CatalogDBException("Remove field from Variable Set. Could not remove the field " + name
-                    + " from the variableSet id " + variableSetId);
-        }
+        try {
+            OpenCGAResult<VariableSet> transactionResult = runTransaction(clientSession -> {
+                DataResult result = studyCollection.update(clientSession, bsonQuery, update, null);
+                if (result.getNumUpdated() != 1) {
+                    throw new CatalogDBException("Remove field from Variable Set. Could not remove the field " + name
+                            + " from the variableSet id " + variableSetId);
+                }
 
-        // Remove all the annotations from that field
-        dbAdaptorFactory.getCatalogSampleDBAdaptor().removeAnnotationField(variableSetId, name);
-        dbAdaptorFactory.getCatalogCohortDBAdaptor().removeAnnotationField(variableSetId, name);
-        dbAdaptorFactory.getCatalogIndividualDBAdaptor().removeAnnotationField(variableSetId, name);
-        dbAdaptorFactory.getCatalogFamilyDBAdaptor().removeAnnotationField(variableSetId, name);
-        dbAdaptorFactory.getCatalogFileDBAdaptor().removeAnnotationField(variableSetId, name);
+                // Remove all the annotations from that field
+                dbAdaptorFactory.getCatalogSampleDBAdaptor().removeAnnotationField(clientSession, variableSetId, name);
+                dbAdaptorFactory.getCatalogCohortDBAdaptor().removeAnnotationField(clientSession, variableSetId, name);
+                dbAdaptorFactory.getCatalogIndividualDBAdaptor().removeAnnotationField(clientSession, variableSetId, name);
+                dbAdaptorFactory.getCatalogFamilyDBAdaptor().removeAnnotationField(clientSession, variableSetId, name);
+                dbAdaptorFactory.getCatalogFileDBAdaptor().removeAnnotationField(clientSession, variableSetId, name);
 
-        return new OpenCGAResult<>(result);
+                return new OpenCGAResult<>(result);
+            });
+            updateAnnotationIndex(variableSetId);
+            return transactionResult;
+        } catch (CatalogParameterException e) {
+            throw new CatalogDBException(e);
+        }
+    }
+
+    /**
+     * Rebuild the annotation index of the entries annotated with the variable set, once the changes in their annotations have been
+     * committed. It is kept out of the transaction, as it may need to update every entry of the study.
+     *
+     * @param variableSetId Variable set uid.
+     */
+    private void updateAnnotationIndex(long variableSetId) {
+        dbAdaptorFactory.getCatalogSampleDBAdaptor().updateAnnotationIndex(variableSetId);
+        dbAdaptorFactory.getCatalogCohortDBAdaptor().updateAnnotationIndex(variableSetId);
+        dbAdaptorFactory.getCatalogIndividualDBAdaptor().updateAnnotationIndex(variableSetId);
+        dbAdaptorFactory.getCatalogFamilyDBAdaptor().updateAnnotationIndex(variableSetId);
+        dbAdaptorFactory.getCatalogFileDBAdaptor().updateAnnotationIndex(variableSetId);
     }
 
     private Variable getVariable(VariableSet variableSet, String variableId) throws CatalogDBException {
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.Event;
+import org.opencb.commons.datastore.core.FacetField;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.mongodb.MongoDBCollection;
+import org.opencb.commons.datastore.mongodb.MongoDBIterator;
+import org.opencb.opencga.catalog.db.api.CoreDBAdaptor;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+import org.opencb.opencga.catalog.db.api.FileDBAdaptor;
+import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
+import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
+import org.opencb.opencga.catalog.db.api.SummaryDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.catalog.exceptions.CatalogParameterException;
+import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.config.Configuration;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.response.OpenCGAResult;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.opencb.opencga.catalog.db.mongodb.MongoDBUtils.TO_REPLACE_DOTS;
+
+/**
+ * Summary counters are stored in one document per study and resource, containing the number of entries and, for each field
+ * summarised, the number of entries containing each value:
+ * {_id: "studyUid:SAMPLE", studyUid: 3, resource: "SAMPLE", complete: true, count: 10, fields: {status: {READY: 8, ...}, ...}}.
+ *
+ * Counters are incremented within the same transaction that writes the entry. To avoid write conflicts between concurrent
+ * transactions of the same study, each increment is applied to one of {@link #NUM_SHARDS} documents chosen at random
+ * ("studyUid:SAMPLE:3"), and the counters of all of them are added up on read. A rebuild writes the totals in the main document
+ * and removes the rest of shards.
+ *
+ * The main document is only marked as complete once the summary has been calculated from scratch by the migration, the
+ * SummaryDaemon or a manual rebuild. Until then, reads return the counters incremented so far along with a warning.
+ */
+public class SummaryMongoDBAdaptor extends MongoDBAdaptor implements SummaryDBAdaptor {
+
+    static final String STUDY_UID = "studyUid";
+    static final String RESOURCE = "resource";
+    static final String COMPLETE = "complete";
+    static final String COUNT = "count";
+    static final String FIELDS = "fields";
+    static final String MODIFICATION_DATE = "modificationDate";
+
+    static final int NUM_SHARDS = 16;
+
+    static final String CREATION_MONTH = "creationMonth";
+    private static final String TO_REPLACE_DOLLAR = "&#36;";
+
+    // Summary field -> document field, for each of the resources summarised
+    private static final Map<Enums.Resource, Map<String, String>> SUMMARY_FIELDS;
+
+    static {
+        SUMMARY_FIELDS = new EnumMap<>(Enums.Resource.class);
+
+        Map<String, String> fileFields = new LinkedHashMap<>();
+        fileFields.put("type", FileDBAdaptor.QueryParams.TYPE.key());
+        fileFields.put("format", FileDBAdaptor.QueryParams.FORMAT.key());
+        fileFields.put("bioformat", FileDBAdaptor.QueryParams.BIOFORMAT.key());
+        fileFields.put("status", FileDBAdaptor.QueryParams.STATUS_ID.key());
+        fileFields.put(CREATION_MONTH, FileDBAdaptor.QueryParams.CREATION_DATE.key());
+        SUMMARY_FIELDS.put(Enums.Resource.FILE, fileFields);
+
+        Map<String, String> sampleFields = new LinkedHashMap<>();
+        sampleFields.put("status", SampleDBAdaptor.QueryParams.STATUS_ID.key());
+        sampleFields.put("somatic", SampleDBAdaptor.QueryParams.SOMATIC.key());
+        sampleFields.put("phenotypes", SampleDBAdaptor.QueryParams.PHENOTYPES_ID.key());
+        sampleFields.put(CREATION_MONTH, SampleDBAdaptor.QueryParams.CREATION_DATE.key());
+        SUMMARY_FIELDS.put(Enums.Resource.SAMPLE, sampleFields);
+
+        Map<String, String> individualFields = new LinkedHashMap<>();
+        individualFields.put("status", IndividualDBAdaptor.QueryParams.STATUS_ID.key());
+        individualFields.put("sex", IndividualDBAdaptor.QueryParams.SEX_ID.key());
+        individualFields.put("karyotypicSex", IndividualDBAdaptor.QueryParams.KARYOTYPIC_SEX.key());
+        individualFields.put("lifeStatus", IndividualDBAdaptor.QueryParams.LIFE_STATUS.key());
+        individualFields.put("phenotypes", IndividualDBAdaptor.QueryParams.PHENOTYPES_ID.key());
+        individualFields.put(CREATION_MONTH, IndividualDBAdaptor.QueryParams.CREATION_DATE.key());
+        SUMMARY_FIELDS.put(Enums.Resource.INDIVIDUAL, individualFields);
+    }
+
+    private final MongoDBCollection summaryCollection;
+
+    public SummaryMongoDBAdaptor(MongoDBCollection summaryCollection, Configuration configuration, MongoDBAdaptorFactory dbAdaptorFactory) {
+        super(configuration, LoggerFactory.getLogger(SummaryMongoDBAdaptor.class));
+        this.dbAdaptorFactory = dbAdaptorFactory;
+        this.summaryCollection = summaryCollection;
+    }
+
+    @Override
+    public OpenCGAResult<FacetField> get(long studyUid, Enums.Resource resource) throws CatalogDBException {
+        if (!SUMMARY_FIELDS.containsKey(resource)) {
+            throw new CatalogDBException("No summary available for " + resource);
+        }
+        long startTime = startQuery();
+        Map<String, String> fields = getSummaryFields(resource);
+
+        // Add up the counters of every shard
+        boolean complete = false;
+        long count = 0;
+        Map<String, Map<String, Long>> counters = new HashMap<>();
+        DataResult<Document> result = summaryCollection.find(Filters.and(Filters.eq(STUDY_UID, studyUid),
+                Filters.eq(RESOURCE, resource.name())), QueryOptions.empty());
+        for (Document shard : result.getResults()) {
+            if (getId(studyUid, resource).equals(shard.get(PRIVATE_MONGO_ID))) {
+                complete = shard.getBoolean(COMPLETE, false);
+            }
+            Number shardCount = shard.get(COUNT, Number.class);
+            count += shardCount != null ? shardCount.longValue() : 0;
+            Document fieldsDocument = shard.get(FIELDS, Document.class);
+            if (fieldsDocument == null) {
+                continue;
+            }
+            for (String field : fields.keySet()) {
+                Document values = fieldsDocument.get(field, Document.class);
+                if (values != null) {
+                    Map<String, Long> fieldCounters = counters.computeIfAbsent(field, k -> new HashMap<>());
+                    for (Map.Entry<String, Object> entry : values.entrySet()) {
+                        fieldCounters.merge(decodeKey(entry.getKey()), ((Number) entry.getValue()).longValue(), Long::sum);
+                    }
+                }
+            }
+        }
+
+        List<FacetField> facetFields = toFacetFields(fields, count, counters);
+
+        List<Event> events = new ArrayList<>();
+        if (!complete) {
+            events.add(new Event(Event.Type.WARNING, "The " + resource + " summary has not been calculated yet. Only the changes made "
+                    + "since the summary counters were introduced are counted until the next rebuild."));
+        }
+        return endQuery(startTime, facetFields, -1, events);
+    }
+
+    @Override
+    public OpenCGAResult<FacetField> get(long studyUid, Enums.Resource resource, String user)
+            throws CatalogDBException, CatalogAuthorizationException, CatalogParameterException {
+        if (!SUMMARY_FIELDS.containsKey(resource)) {
+            throw new CatalogDBException("No summary available for " + resource);
+        }
+        long startTime = startQuery();
+        Map<String, String> fields = getSummaryFields(resource);
+
+        // The stored counters include every entry, so they are calculated from the entries the user can see
+        long count = 0;
+        Map<String, Map<String, Long>> counters = new HashMap<>();
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, new ArrayList<>(fields.values()));
+        try (DBIterator<Document> iterator = getCoreDBAdaptor(resource).nativeIterator(studyUid, new Query(), options, user)) {
+            while (iterator.hasNext()) {
+                for (Map.Entry<String, Set<String>> entry : extractValues(fields, iterator.next()).entrySet()) {
+                    Map<String, Long> fieldCounters = counters.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                    for (String value : entry.getValue()) {
+                        fieldCounters.merge(value, 1L, Long::sum);
+                    }
+                }
+                count++;
+            }
+        }
+        return endQuery(startTime, toFacetFields(fields, count, counters), -1, Collections.emptyList());
+    }
+
+    @Override
+    public OpenCGAResult<?> rebuild(long studyUid) throws CatalogDBException {
+        long startTime = startQuery();
+        for (Enums.Resource resource : RESOURCES) {
+            rebuild(studyUid, resource);
+        }
+        return endWrite(startTime, RESOURCES.size(), RESOURCES.size(), Collections.emptyList());
+    }
+
+    private void rebuild(long studyUid, Enums.Resource resource) throws CatalogDBException {
+        Map<String, String> fields = getSummaryFields(resource);
+        MongoDBCollection collection = dbAdaptorFactory.getMongoDBCollectionMap().get(getCollectionName(resource));
+
+        long count = 0;
+        Map<String, Map<String, Long>> counters = new HashMap<>();
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, new ArrayList<>(fields.values()));
+        try (MongoDBIterator<Document> iterator = collection.iterator(null, Filters.eq(PRIVATE_STUDY_UID, studyUid), null, null,
+                options)) {
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                for (Map.Entry<String, Set<String>> entry : extractValues(fields, document).entrySet()) {
+                    Map<String, Long> fieldCounters = counters.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                    for (String value : entry.getValue()) {
+                        fieldCounters.merge(encodeKey(value), 1L, Long::sum);
+                    }
+                }
+                count++;
+            }
+        }
+
+        Document fieldsDocument = new Document();
+        for (String field : fields.keySet()) {
+            Document values = new Document();
+            counters.getOrDefault(field, Collections.emptyMap()).forEach(values::put);
+            fieldsDocument.put(field, values);
+        }
+        Document summary = new Document()
+                .append(STUDY_UID, studyUid)
+                .append(RESOURCE, resource.name())
+                .append(COMPLETE, true)
+                .append(COUNT, count)
+                .append(FIELDS, fieldsDocument)
+                .append(MODIFICATION_DATE, TimeUtils.getDate());
+
+        // Concurrent increments made while the entries were being read may be lost. They will be fixed by the next rebuild.
+        DataResult result = summaryCollection.update(Filters.eq(PRIVATE_MONGO_ID, getId(studyUid, resource)),
+                new Document("$set", summary), new QueryOptions(MongoDBCollection.UPSERT, true));
+        if (result.getNumMatches() == 0 && result.getNumInserted() == 0) {
+            throw new CatalogDBException("Could not store the " + resource + " summary of study " + studyUid);
+        }
+        // The rest of shards are already counted in the main document
+        summaryCollection.remove(Filters.and(Filters.eq(STUDY_UID, studyUid), Filters.eq(RESOURCE, resource.name()),
+                Filters.ne(PRIVATE_MONGO_ID, getId(studyUid, resource))), new QueryOptions(MongoDBCollection.MULTI, true));
+    }
+
+    /**
+     * Check whether any of the fields that are going to be updated is part of the summary of the resource.
+     *
+     * @param resource   Resource.
+     * @param parameters Update parameters.
+     * @return true if the summary needs to be updated.
+     */
+    boolean isSummarised(Enums.Resource resource, ObjectMap parameters) {
+        for (String field : getSummaryFields(resource).values()) {
+            if (parameters.containsKey(field.split("\\.")[0])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the values of the summarised fields of an entry.
+     *
+     * @param clientSession Client session.
+     * @param resource      Resource.
+     * @param collection    Collection containing the entry.
+     * @param query         Query matching the entry.
+     * @return the document with the summarised fields, or null if the entry does not exist.
+     */
+    Document getSummarisedFields(ClientSession clientSession, Enums.Resource resource, MongoDBCollection collection, Bson query) {
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, new ArrayList<>(getSummaryFields(resource).values()));
+        DataResult<Document> result = collection.find(clientSession, query, options);
+        return result.getNumResults() > 0 ? result.first() : null;
+    }
+
+    /**
+     * Update the summary counters after an entry has been created, updated or deleted.
+     *
+     * @param clientSession Client session.
+     * @param studyUid      Study uid.
+     * @param resource      Resource.
+     * @param oldDocument   Document of the entry before the change, or null if it has been created.
+     * @param newDocument   Document of the entry after the change, or null if it has been deleted.
+     */
+    void update(ClientSession clientSession, long studyUid, Enums.Resource resource, Document oldDocument, Document newDocument) {
+        Map<String, Integer> increments = new HashMap<>();
+        addIncrements(resource, oldDocument, -1, increments);
+        addIncrements(resource, newDocument, 1, increments);
+        increment(clientSession, studyUid, resource, increments);
+    }
+
+    /**
+     * Update the summary counters after a list of entries has been created or deleted.
+     *
+     * @param clientSession Client session.
+     * @param studyUid      Study uid.
+     * @param resource      Resource.
+     * @param documents     Documents of the entries.
+     * @param delta         1 if the entries have been created, -1 if they have been deleted.
+     */
+    void update(ClientSession clientSession, long studyUid, Enums.Resource resource, List<Document> documents, int delta) {
+        Map<String, Integer> increments = new HashMap<>();
+        for (Document document : documents) {
+            addIncrements(resource, document, delta, increments);
+        }
+        increment(clientSession, studyUid, resource, increments);
+    }
+
+    private void addIncrements(Enums.Resource resource, Document document, int delta, Map<String, Integer> increments) {
+        if (document == null) {
+            return;
+        }
+        increments.merge(COUNT, delta, Integer::sum);
+        for (Map.Entry<String, Set<String>> entry : extractValues(getSummaryFields(resource), document).entrySet()) {
+            for (String value : entry.getValue()) {
+                increments.merge(FIELDS + "." + entry.getKey() + "." + encodeKey(value), delta, Integer::sum);
+            }
+        }
+    }
+
+    private void increment(ClientSession clientSession, long studyUid, Enums.Resource resource, Map<String, Integer> increments) {
+        Document inc = new Document();
+        for (Map.Entry<String, Integer> entry : increments.entrySet()) {
+            if (entry.getValue() != 0) {
+                inc.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (inc.isEmpty()) {
+            return;
+        }
+        Document update = new Document("$inc", inc)
+                .append("$set", new Document(MODIFICATION_DATE, TimeUtils.getDate()))
+                .append("$setOnInsert", new Document(STUDY_UID, studyUid).append(RESOURCE, resource.name()));
+        // Spread the increments among the shards, so concurrent transactions rarely write the same document
+        int shard = ThreadLocalRandom.current().nextInt(NUM_SHARDS);
+        String id = shard == 0 ? getId(studyUid, resource) : getId(studyUid, resource) + ":" + shard;
+        summaryCollection.update(clientSession, Filters.eq(PRIVATE_MONGO_ID, id), update,
+                new QueryOptions(MongoDBCollection.UPSERT, true));
+    }
+
+    private static List<FacetField> toFacetFields(Map<String, String> fields, long count, Map<String, Map<String, Long>> counters) {
+        List<FacetField> facetFields = new ArrayList<>(fields.size());
+        for (String field : fields.keySet()) {
+            List<FacetField.Bucket> buckets = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : counters.getOrDefault(field, Collections.emptyMap()).entrySet()) {
+                if (entry.getValue() > 0) {
+                    buckets.add(new FacetField.Bucket(entry.getKey(), entry.getValue(), null));
+                }
+            }
+            buckets.sort((b1, b2) -> Long.compare(b2.getCount(), b1.getCount()));
+            facetFields.add(new FacetField(field, count, buckets));
+        }
+        return facetFields;
+    }
+
+    private static Map<String, Set<String>> extractValues(Map<String, String> fields, Document document) {
+        Map<String, Set<String>> values = new HashMap<>();
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            Set<String> fieldValues = new HashSet<>();
+            collectValues(document, entry.getValue().split("\\."), 0, fieldValues);
+            if (CREATION_MONTH.equals(entry.getKey())) {
+                Set<String> months = new HashSet<>();
+                for (String creationDate : fieldValues) {
+                    // yyyyMMddHHmmss -> yyyyMM
+                    months.add(creationDate.length() > 6 ? creationDate.substring(0, 6) : creationDate);
+                }
+                fieldValues = months;
+            }
+            values.put(entry.getKey(), fieldValues);
+        }
+        return values;
+    }
+
+    private static void collectValues(Object object, String[] path, int i, Set<String> values) {
+        if (object == null) {
+            return;
+        }
+        if (object instanceof List) {
+            for (Object element : (List<?>) object) {
+                collectValues(element, path, i, values);
+            }
+        } else if (i == path.length) {
+            String value = object.toString();
+            if (!value.isEmpty()) {
+                values.add(value);
+            }
+        } else if (object instanceof Document) {
+            collectValues(((Document) object).get(path[i]), path, i + 1, values);
+        }
+    }
+
+    private static String encodeKey(String value) {
+        String key = value.replace(".", TO_REPLACE_DOTS);
+        return key.startsWith("$") ? TO_REPLACE_DOLLAR + key.substring(1) : key;
+    }
+
+    private static String decodeKey(String key) {
+        String value = key.startsWith(TO_REPLACE_DOLLAR) ? "$" + key.substring(TO_REPLACE_DOLLAR.length()) : key;
+        return value.replace(TO_REPLACE_DOTS, ".");
+    }
+
+    private static String getId(long studyUid, Enums.Resource resource) {
+        return studyUid + ":" + resource.name();
+    }
+
+    private static Map<String, String> getSummaryFields(Enums.Resource resource) {
+        Map<String, String> fields = SUMMARY_FIELDS.get(resource);
+        if (fields == null) {
+            throw new IllegalArgumentException("No summary available for " + resource);
+        }
+        return fields;
+    }
+
+    private CoreDBAdaptor<?> getCoreDBAdaptor(Enums.Resource resource) {
+        switch (resource) {
+            case FILE:
+                return dbAdaptorFactory.getCatalogFileDBAdaptor();
+            case SAMPLE:
+                return dbAdaptorFactory.getCatalogSampleDBAdaptor();
+            case INDIVIDUAL:
+                return dbAdaptorFactory.getCatalogIndividualDBAdaptor();
+            default:
+                throw new IllegalArgumentException("No summary available for " + resource);
+        }
+    }
+
+    private static String getCollectionName(Enums.Resource resource) {
+        switch (resource) {
+            case FILE:
+                return MongoDBAdaptorFactory.FILE_COLLECTION;
+            case SAMPLE:
+                return MongoDBAdaptorFactory.SAMPLE_COLLECTION;
+            case INDIVIDUAL:
+                return MongoDBAdaptorFactory.INDIVIDUAL_COLLECTION;
+            default:
+                throw new IllegalArgumentException("No summary available for " + resource);
+        }
+    }
+
+}
@@ -693,6 +693,77 @@ public class AnnotationConverter {
         return variableSet + INTERNAL_DELIMITER + annotationSet + INTERNAL_DELIMITER + StringUtils.join(variableKeys, INTERNAL_DELIMITER);
     }
 
+    /**
+     * Builds the annotation index of an entry out of its annotation documents.
+     *
+     * The index contains one document per variable set uid, and one field per variable containing all the values annotated in any of
+     * the annotation sets of that variable set. E.g. {"5": {"age": [30], "address__city": ["Cambridge"]}}. Values are always stored as
+     * arrays, so every field can be queried directly instead of using $elemMatch over the list of annotations.
+     *
+     * @param annotationList         List of annotation documents, as stored in the database.
+     * @param internalAnnotationList List of internal annotation documents, as stored in the database.
+     * @return the annotation index document.
+     */
+    public Document annotationIndexToDB(List<Document> annotationList, List<Document> internalAnnotationList) {
+        Document index = new Document();
+        addToAnnotationIndex(annotationList, index);
+        addToAnnotationIndex(internalAnnotationList, index);
+        return index;
+    }
+
+    private void addToAnnotationIndex(List<Document> annotationList, Document index) {
+        if (annotationList == null) {
+            return;
+        }
+        for (Document annotation : annotationList) {
+            Object value = annotation.get(VALUE);
+            Object variableSetUid = annotation.get(VARIABLE_SET);
+            List<String> keys = annotation.getList(VARIABLE_KEYS, String.class);
+            if (value == null || variableSetUid == null || keys == null || value instanceof Map || !isIndexableKey(keys)) {
+                continue;
+            }
+            Document variableSetIndex = (Document) index.computeIfAbsent(String.valueOf(variableSetUid), k -> new Document());
+            List<Object> values = (List<Object>) variableSetIndex.computeIfAbsent(StringUtils.join(keys, INTERNAL_DELIMITER),
+                    k -> new ArrayList<>());
+            if (value instanceof Collection) {
+                for (Object v : (Collection<?>) value) {
+                    if (v != null && !(v instanceof Map)) {
+                        values.add(v);
+                    }
+                }
+            } else {
+                values.add(value);
+            }
+        }
+    }
+
+    /**
+     * Whether a variable can be queried through the annotation index. Variable keys containing dots or starting with '$' (e.g. keys
+     * of map variables) are not valid field names, so they are not indexed.
+     *
+     * @param variableKeys Variable keys. ([a, b, c] for instance)
+     * @return whether the variable is indexed.
+     */
+    public static boolean isIndexableKey(List<String> variableKeys) {
+        for (String key : variableKeys) {
+            if (StringUtils.isEmpty(key) || key.contains(".") || key.startsWith("$")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Field of the annotation index containing the values of a variable.
+     *
+     * @param variableSetUid Variable set uid.
+     * @param variableKeys   Variable keys. ([a, b, c] for instance)
+     * @return the field, relative to the annotation index document.
+     */
+    public static String getAnnotationIndexField(long variableSetUid, List<String> variableKeys) {
+        return variableSetUid + "." + StringUtils.join(variableKeys, INTERNAL_DELIMITER);
+    }
+
     private Object getAnnotationValue(FromDBToMap fromDBToMap) {
         if (fromDBToMap.getArrayLevel().size() == 0) {
             return fromDBToMap.getAnnotationValue();
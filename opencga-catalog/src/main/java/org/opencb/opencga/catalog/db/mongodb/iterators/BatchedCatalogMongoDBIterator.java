@@ -21,18 +21,57 @@ import org.bson.Document;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.commons.datastore.mongodb.MongoDBIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
-import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
+/**
+ * Iterator that reads the main documents in batches, and resolves the documents referenced by each batch with a few queries.
+ *
+ * When the iterator is not bound to a transaction, the next batch is read and resolved in background while the current one is being
+ * consumed. At most {@link #MAX_PREFETCH_THREADS} batches are prefetched at the same time in the whole process. If all of them are
+ * busy, the next batch is read on demand instead. Referenced documents are cached across batches, so documents referenced from
+ * several batches are only read once.
+ *
+ * @param <T> Type of the returned elements.
+ */
 public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIterator<T> {
 
-    private Queue<Document> buffer = new LinkedList<>();
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final int MAX_PREFETCH_THREADS = 16;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService PREFETCH_EXECUTOR = new ThreadPoolExecutor(0, MAX_PREFETCH_THREADS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "catalog-iterator-prefetch-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
 
     protected final QueryOptions options;
 
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Queue<Document> buffer = new LinkedList<>();
+    private Future<Queue<Document>> nextBatch;
+    private boolean exhausted;
+    private final Map<String, ReferenceCache<?>> referenceCaches = new HashMap<>();
+
+    // Metrics
+    private int batches;
+    private long documents;
+    private long fetchTimeNanos;
+    private long waitTimeNanos;
+    private int referenceQueries;
+    private long referenceCacheHits;
+
+    private final Logger logger = LoggerFactory.getLogger(BatchedCatalogMongoDBIterator.class);
+
     public BatchedCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, GenericDocumentComplexConverter<T> converter) {
         this(mongoCursor, null, converter, null, null);
     }
@@ -44,17 +83,32 @@ public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIte
         this.options = options == null ? QueryOptions.empty() : options;
     }
 
+    /**
+     * Read the next documents from the cursor, and resolve all their references.
+     * Implementations must not use the buffer of the previous batch, as it may be being consumed at the same time.
+     *
+     * @param buffer     Queue to fill with the next documents.
+     * @param bufferSize Maximum number of documents to read.
+     */
+    protected abstract void fetchNextBatch(Queue<Document> buffer, int bufferSize);
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public BatchedCatalogMongoDBIterator<T> setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
 
     @Override
     public boolean hasNext() {
-        if (buffer.isEmpty()) {
-            fetchNextBatch(buffer, 100);
+        if (buffer.isEmpty() && !exhausted) {
+            buffer = takeNextBatch();
         }
         return !buffer.isEmpty();
     }
 
-    protected abstract void fetchNextBatch(Queue<Document> buffer, int bufferSize);
-
     @Override
     public T next() {
         if (!hasNext()) {
@@ -62,6 +116,7 @@ public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIte
         }
 
         Document next = buffer.remove();
+
         addAclInformation(next, options);
 
         if (filter != null) {
@@ -78,4 +133,142 @@ public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIte
             return (T) next;
         }
     }
+
+    @Override
+    public void close() {
+        if (nextBatch != null) {
+            // A running task can not be safely cancelled, so wait until the prefetch finishes before closing the cursor
+            try {
+                nextBatch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.debug("Discarded prefetched batch: {}", e.getCause().getMessage());
+            }
+            nextBatch = null;
+        }
+        if (batches > 0) {
+            logger.debug("{}: {} documents in {} batches. Fetch time: {} ms, wait time: {} ms. Reference queries: {}, cache hits: {}",
+                    getClass().getSimpleName(), documents, batches, TimeUnit.NANOSECONDS.toMillis(fetchTimeNanos),
+                    TimeUnit.NANOSECONDS.toMillis(waitTimeNanos), referenceQueries, referenceCacheHits);
+        }
+        super.close();
+    }
+
+    private Queue<Document> takeNextBatch() {
+        Queue<Document> batch;
+        if (nextBatch != null) {
+            long start = System.nanoTime();
+            try {
+                batch = nextBatch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the next batch", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Could not read the next batch", e.getCause());
+            } finally {
+                nextBatch = null;
+                waitTimeNanos += System.nanoTime() - start;
+            }
+        } else {
+            batch = readBatch();
+        }
+
+        if (batch.size() < batchSize) {
+            // The cursor is exhausted
+            exhausted = true;
+        } else if (clientSession == null) {
+            // Sessions can not be used concurrently, so only prefetch outside transactions
+            try {
+                nextBatch = PREFETCH_EXECUTOR.submit(this::readBatch);
+            } catch (RejectedExecutionException e) {
+                // Too many iterators prefetching. The next batch will be read when needed
+                nextBatch = null;
+            }
+        }
+        return batch;
+    }
+
+    private Queue<Document> readBatch() {
+        long start = System.nanoTime();
+        Queue<Document> batch = new LinkedList<>();
+        fetchNextBatch(batch, batchSize);
+        batches++;
+        documents += batch.size();
+        fetchTimeNanos += System.nanoTime() - start;
+        return batch;
+    }
+
+    /**
+     * Get the referenced documents from the given keys, querying only the ones not read in previous batches.
+     * Cached documents are copied, so the returned documents can be modified.
+     *
+     * @param reference Name of the reference, used to separate the cached documents.
+     * @param keys      Keys of the referenced documents.
+     * @param loader    Function to read the referenced documents not cached.
+     * @param <K>       Key type.
+     * @return Map of key to referenced document. Documents not found are not included.
+     */
+    protected <K> Map<K, Document> fetchReferences(String reference, Set<K> keys, Function<Set<K>, Map<K, Document>> loader) {
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        ReferenceCache<K> cache = (ReferenceCache<K>) referenceCaches.computeIfAbsent(reference,
+                k -> new ReferenceCache<>(batchSize * 10));
+        Map<K, Document> references = new HashMap<>(keys.size());
+        Set<K> missingKeys = new HashSet<>();
+        for (K key : keys) {
+            Document document = cache.get(key);
+            if (document == null) {
+                missingKeys.add(key);
+            } else {
+                references.put(key, deepCopy(document));
+                referenceCacheHits++;
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            Map<K, Document> loaded = loader.apply(missingKeys);
+            referenceQueries++;
+            for (Map.Entry<K, Document> entry : loaded.entrySet()) {
+                cache.put(entry.getKey(), deepCopy(entry.getValue()));
+                references.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return references;
+    }
+
+    private static <V> V deepCopy(V value) {
+        if (value instanceof Document) {
+            Document copy = new Document();
+            for (Map.Entry<String, Object> entry : ((Document) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return (V) copy;
+        } else if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object o : (List<?>) value) {
+                copy.add(deepCopy(o));
+            }
+            return (V) copy;
+        } else {
+            return value;
+        }
+    }
+
+    private static final class ReferenceCache<K> extends LinkedHashMap<K, Document> {
+        private final int maxSize;
+
+        private ReferenceCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Document> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
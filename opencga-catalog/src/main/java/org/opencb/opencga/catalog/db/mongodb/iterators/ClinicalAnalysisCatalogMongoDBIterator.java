@@ -36,7 +36,7 @@ import java.util.*;
 import static org.opencb.opencga.catalog.db.api.ClinicalAnalysisDBAdaptor.QueryParams.*;
 import static org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptor.NATIVE_QUERY;
 
-public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIterator<E> {
+public class ClinicalAnalysisCatalogMongoDBIterator<E> extends BatchedCatalogMongoDBIterator<E> {
 
     private long studyUid;
     private String user;
@@ -52,14 +52,8 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
     private QueryOptions interpretationQueryOptions;
     private QueryOptions panelQueryOptions;
 
-    private QueryOptions options;
-
-    private Queue<Document> clinicalAnalysisListBuffer;
-
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     private static final String UID = ClinicalAnalysisDBAdaptor.QueryParams.UID.key();
     private static final String VERSION = FamilyDBAdaptor.QueryParams.VERSION.key();
 
@@ -74,73 +68,43 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
     public ClinicalAnalysisCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                                   GenericDocumentComplexConverter<E> converter, MongoDBAdaptorFactory dbAdaptorFactory,
                                                   long studyUid, String user, QueryOptions options) {
-        super(mongoCursor, clientSession, converter, null);
+        super(mongoCursor, clientSession, converter, null, options);
 
         this.user = user;
         this.studyUid = studyUid;
 
-        this.options = options;
-
         this.fileDBAdaptor = dbAdaptorFactory.getCatalogFileDBAdaptor();
         this.familyDBAdaptor = dbAdaptorFactory.getCatalogFamilyDBAdaptor();
         this.individualDBAdaptor = dbAdaptorFactory.getCatalogIndividualDBAdaptor();
         this.interpretationDBAdaptor = dbAdaptorFactory.getInterpretationDBAdaptor();
         this.panelDBAdaptor = dbAdaptorFactory.getCatalogPanelDBAdaptor();
 
-        this.interpretationQueryOptions = createInnerQueryOptionsForVersionedEntity(options, INTERPRETATION.key(), false);
-        this.fileQueryOptions = createInnerQueryOptionsForVersionedEntity(options, FILES.key(), true);
-        this.familyQueryOptions = createInnerQueryOptionsForVersionedEntity(options, FAMILY.key(), false);
-        this.individualQueryOptions = createInnerQueryOptionsForVersionedEntity(options, PROBAND.key(), false);
-        this.panelQueryOptions = createInnerQueryOptionsForVersionedEntity(options, PANELS.key(), true);
+        this.interpretationQueryOptions = createInnerQueryOptionsForVersionedEntity(this.options, INTERPRETATION.key(), false);
+        this.fileQueryOptions = createInnerQueryOptionsForVersionedEntity(this.options, FILES.key(), true);
+        this.familyQueryOptions = createInnerQueryOptionsForVersionedEntity(this.options, FAMILY.key(), false);
+        this.individualQueryOptions = createInnerQueryOptionsForVersionedEntity(this.options, PROBAND.key(), false);
+        this.panelQueryOptions = createInnerQueryOptionsForVersionedEntity(this.options, PANELS.key(), true);
 
-        this.clinicalAnalysisListBuffer = new LinkedList<>();
         this.logger = LoggerFactory.getLogger(ClinicalAnalysisCatalogMongoDBIterator.class);
     }
 
     @Override
-    public E next() {
-        Document next = clinicalAnalysisListBuffer.remove();
-
-        if (filter != null) {
-            next = filter.apply(next);
-        }
-
-        addAclInformation(next, options);
-
-        if (converter != null) {
-            return (E) converter.convertToDataModelType(next);
-        } else {
-            return (E) next;
-        }
-    }
-
-
-    @Override
-    public boolean hasNext() {
-        if (clinicalAnalysisListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !clinicalAnalysisListBuffer.isEmpty();
-    }
-
-    private void fetchNextBatch() {
+    protected void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<Long> fileSet = new HashSet<>();
         Set<String> interpretationSet = new HashSet<>();
         Set<String> familySet = new HashSet<>();
         Set<String> individualSet = new HashSet<>();
         Set<String> panelSet = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
-        int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        // Get next bufferSize documents
+        while (mongoCursor.hasNext() && buffer.size() < bufferSize) {
             Document clinicalDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = clinicalDocument.get(PRIVATE_STUDY_UID, Number.class).longValue();
             }
 
-            clinicalAnalysisListBuffer.add(clinicalDocument);
-            counter++;
+            buffer.add(clinicalDocument);
 
             if (!options.getBoolean(NATIVE_QUERY)) {
                 extractFamilyInfo((Document) clinicalDocument.get(FAMILY.key()), familySet);
@@ -181,15 +145,16 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
             }
         }
 
-        Map<String, Document> interpretationMap = fetchInterpretations(interpretationSet);
-        Map<Long, Document> fileMap = fetchFiles(fileSet);
-        Map<String, Document> familyMap = fetchFamilies(familySet);
-        Map<String, Document> individualMap = fetchIndividuals(individualSet);
-        Map<String, Document> panelMap = fetchPanels(panelSet);
+        // References already read in previous batches are not queried again
+        Map<String, Document> interpretationMap = fetchReferences("interpretations", interpretationSet, this::fetchInterpretations);
+        Map<Long, Document> fileMap = fetchReferences("files", fileSet, this::fetchFiles);
+        Map<String, Document> familyMap = fetchReferences("families", familySet, this::fetchFamilies);
+        Map<String, Document> individualMap = fetchReferences("individuals", individualSet, this::fetchIndividuals);
+        Map<String, Document> panelMap = fetchReferences("panels", panelSet, this::fetchPanels);
 
         if (!interpretationMap.isEmpty() || !familyMap.isEmpty() || !individualMap.isEmpty()) {
             // Fill data in clinical analyses
-            clinicalAnalysisListBuffer.forEach(clinicalAnalysis -> {
+            buffer.forEach(clinicalAnalysis -> {
                 fillInterpretationData(clinicalAnalysis, interpretationMap);
                 fillFiles(clinicalAnalysis, fileMap);
                 fillPanels(clinicalAnalysis, panelMap);
@@ -39,20 +39,18 @@ import java.util.function.UnaryOperator;
 
 import static org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptor.NATIVE_QUERY;
 
-public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterator<E> {
+public class CohortCatalogMongoDBIterator<E> extends BatchedCatalogMongoDBIterator<E> {
 
     private long studyUid;
     private String user;
 
+    private AnnotableConverter<? extends Annotable> annotableConverter;
+
     private SampleMongoDBAdaptor sampleDBAdaptor;
     private QueryOptions sampleQueryOptions;
 
-    private Queue<Document> cohortListBuffer;
-
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public CohortCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         SampleMongoDBAdaptor sampleMongoDBAdaptor, QueryOptions options) {
@@ -62,59 +60,42 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     public CohortCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         SampleMongoDBAdaptor sampleMongoDBAdaptor, long studyUid, String user, QueryOptions options) {
-        super(mongoCursor, clientSession, converter, filter, options);
+        super(mongoCursor, clientSession, null, filter, options);
 
         this.user = user;
         this.studyUid = studyUid;
 
+        this.annotableConverter = converter;
         this.sampleDBAdaptor = sampleMongoDBAdaptor;
         this.sampleQueryOptions = createSampleQueryOptions();
 
-        this.cohortListBuffer = new LinkedList<>();
         this.logger = LoggerFactory.getLogger(CohortCatalogMongoDBIterator.class);
     }
 
     @Override
-    public E next() {
-        Document next = cohortListBuffer.remove();
-
-        if (filter != null) {
-            next = filter.apply(next);
-        }
-
-        addAclInformation(next, options);
-
-        if (converter != null) {
-            return (E) converter.convertToDataModelType(next, options);
+    protected E convert(Document next) {
+        if (annotableConverter != null) {
+            return (E) annotableConverter.convertToDataModelType(next, options);
         } else {
             return (E) next;
         }
     }
 
     @Override
-    public boolean hasNext() {
-        if (cohortListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !cohortListBuffer.isEmpty();
-    }
-
-    private void fetchNextBatch() {
+    protected void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<Long> sampleSet = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
-        int counter = 0;
+        // Get next bufferSize documents
         // If a cohort has more than 100 samples, we will set this to true so only sample ids are fetched
         boolean fetchSampleIdsOnly = false;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && buffer.size() < bufferSize) {
             Document cohortDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = ((Number) cohortDocument.get(PRIVATE_STUDY_UID)).longValue();
             }
 
-            cohortListBuffer.add(cohortDocument);
-            counter++;
+            buffer.add(cohortDocument);
 
             // Extract all the samples
             Object samples = cohortDocument.get(CohortDBAdaptor.QueryParams.SAMPLES.key());
@@ -130,36 +111,22 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
 
         if (!sampleSet.isEmpty()) {
-            // Obtain all those samples
-            Query query = new Query(SampleDBAdaptor.QueryParams.UID.key(), new ArrayList<>(sampleSet));
-            List<Document> sampleList;
-
-            QueryOptions sampleOptions = fetchSampleIdsOnly
-                    ? new QueryOptions(SampleManager.INCLUDE_SAMPLE_IDS).append(NATIVE_QUERY, true)
-                    : new QueryOptions(sampleQueryOptions);
-
-            try {
-                if (user != null) {
-                    query.put(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
-                    sampleList = sampleDBAdaptor.nativeGet(clientSession, studyUid, query, sampleOptions, user).getResults();
-                } else {
-                    sampleList = sampleDBAdaptor.nativeGet(clientSession, query, sampleOptions).getResults();
-                }
-            } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
-                logger.warn("Could not obtain the samples associated to the cohorts: {}", e.getMessage(), e);
-                return;
+            // Obtain all those samples. Samples already read in previous batches are not queried again.
+            Map<Long, Document> sampleMap;
+            if (fetchSampleIdsOnly) {
+                QueryOptions sampleOptions = new QueryOptions(SampleManager.INCLUDE_SAMPLE_IDS).append(NATIVE_QUERY, true);
+                sampleMap = fetchReferences("sampleIds", sampleSet, uids -> fetchSamples(uids, sampleOptions));
+            } else {
+                sampleMap = fetchReferences("samples", sampleSet, uids -> fetchSamples(uids, new QueryOptions(sampleQueryOptions)));
             }
 
-            // Map each sample uid - version to the sample entry
-            Map<Long, Document> sampleMap = new HashMap<>(sampleList.size());
-            sampleList.forEach(sample ->
-                    sampleMap.put(((Number) sample.get(SampleDBAdaptor.QueryParams.UID.key())).longValue(), sample)
-            );
-
             // Add the samples obtained to the corresponding cohorts
-            cohortListBuffer.forEach(cohortDocument -> {
+            buffer.forEach(cohortDocument -> {
                 List<Document> tmpSampleList = new ArrayList<>();
                 List<Document> samples = (List<Document>) cohortDocument.get(CohortDBAdaptor.QueryParams.SAMPLES.key());
+                if (samples == null) {
+                    return;
+                }
 
                 samples.forEach(sample -> {
                     long uid = ((Number) sample.get(SampleDBAdaptor.QueryParams.UID.key())).longValue();
@@ -175,6 +142,29 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
     }
 
+    private Map<Long, Document> fetchSamples(Set<Long> sampleUids, QueryOptions sampleOptions) {
+        Query query = new Query(SampleDBAdaptor.QueryParams.UID.key(), new ArrayList<>(sampleUids));
+        List<Document> sampleList;
+        try {
+            if (user != null) {
+                query.put(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
+                sampleList = sampleDBAdaptor.nativeGet(clientSession, studyUid, query, sampleOptions, user).getResults();
+            } else {
+                sampleList = sampleDBAdaptor.nativeGet(clientSession, query, sampleOptions).getResults();
+            }
+        } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
+            logger.warn("Could not obtain the samples associated to the cohorts: {}", e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+
+        // Map each sample uid to the sample entry
+        Map<Long, Document> sampleMap = new HashMap<>(sampleList.size());
+        sampleList.forEach(sample ->
+                sampleMap.put(((Number) sample.get(SampleDBAdaptor.QueryParams.UID.key())).longValue(), sample)
+        );
+        return sampleMap;
+    }
+
     private QueryOptions createSampleQueryOptions() {
         QueryOptions queryOptions = new QueryOptions(NATIVE_QUERY, true);
 
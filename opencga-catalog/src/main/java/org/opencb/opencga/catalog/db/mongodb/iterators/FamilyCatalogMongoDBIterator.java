@@ -40,20 +40,18 @@ import java.util.function.UnaryOperator;
 
 import static org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptor.NATIVE_QUERY;
 
-public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterator<E> {
+public class FamilyCatalogMongoDBIterator<E> extends BatchedCatalogMongoDBIterator<E> {
 
     private long studyUid;
     private String user;
 
+    private AnnotableConverter<? extends Annotable> annotableConverter;
+
     private IndividualMongoDBAdaptor individualDBAdaptor;
     private QueryOptions individualQueryOptions;
 
-    private Queue<Document> familyListBuffer;
-
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public FamilyCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, QueryOptions options) {
@@ -64,58 +62,40 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     public FamilyCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, long studyUid, String user, QueryOptions options) {
-        super(mongoCursor, clientSession, converter, filter, options);
+        super(mongoCursor, clientSession, null, filter, options);
 
         this.user = user;
         this.studyUid = studyUid;
 
+        this.annotableConverter = converter;
         this.individualDBAdaptor = individualDBAdaptor;
         this.individualQueryOptions = createIndividualQueryOptions();
 
-        this.familyListBuffer = new LinkedList<>();
         this.logger = LoggerFactory.getLogger(FamilyCatalogMongoDBIterator.class);
     }
 
     @Override
-    public E next() {
-        Document next = familyListBuffer.remove();
-
-        if (filter != null) {
-            next = filter.apply(next);
-        }
-
-        addAclInformation(next, options);
-
-        if (converter != null) {
-            return (E) converter.convertToDataModelType(next, options);
+    protected E convert(Document next) {
+        if (annotableConverter != null) {
+            return (E) annotableConverter.convertToDataModelType(next, options);
         } else {
             return (E) next;
         }
     }
 
-
     @Override
-    public boolean hasNext() {
-        if (familyListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !familyListBuffer.isEmpty();
-    }
-
-    private void fetchNextBatch() {
+    protected void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<String> memberVersions = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
-        int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        // Get next bufferSize documents
+        while (mongoCursor.hasNext() && buffer.size() < bufferSize) {
             Document familyDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = ((Number) familyDocument.get(PRIVATE_STUDY_UID)).longValue();
             }
 
-            familyListBuffer.add(familyDocument);
-            counter++;
+            buffer.add(familyDocument);
 
             // Extract all the members
             Object members = familyDocument.get(FamilyMongoDBAdaptor.QueryParams.MEMBERS.key());
@@ -133,47 +113,23 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
 
         if (!memberVersions.isEmpty()) {
-            // Obtain all those members
-
-            List<Long> uidList = new ArrayList<>(memberVersions.size());
-            List<Integer> versionList = new ArrayList<>(memberVersions.size());
-            memberVersions.forEach(s -> {
-                String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
-                uidList.add(Long.valueOf(split[0]));
-                versionList.add(Integer.valueOf(split[1]));
-            });
-
-            Query query = new Query()
-                    .append(IndividualDBAdaptor.QueryParams.UID.key(), uidList)
-                    .append(IndividualDBAdaptor.QueryParams.VERSION.key(), versionList);
-            List<Document> memberList;
-            try {
-                if (user != null) {
-                    query.put(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
-                    memberList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user).getResults();
-                } else {
-                    memberList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
-                }
-            } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
-                logger.warn("Could not obtain the members associated to the families: {}", e.getMessage(), e);
-                return;
-            }
-
+            // Obtain all those members. Members already read in previous batches are not queried again.
             // Map each member uid - version to the member entry
-            Map<String, Document> memberUidVersionMap = new HashMap<>(memberList.size());
+            Map<String, Document> memberUidVersionMap = fetchReferences("members", memberVersions, this::fetchMembers);
+
             // Map each member uid to the member entry
-            Map<String, Document> memberUidMap = new HashMap<>(memberList.size());
-            memberList.forEach(member -> {
-                        memberUidVersionMap.put(member.get(FamilyDBAdaptor.QueryParams.UID.key()) + "__"
-                                + member.get(FamilyDBAdaptor.QueryParams.VERSION.key()), member);
-                        memberUidMap.put(String.valueOf(member.get(FamilyDBAdaptor.QueryParams.UID.key())), member);
-                    }
+            Map<String, Document> memberUidMap = new HashMap<>(memberUidVersionMap.size());
+            memberUidVersionMap.values().forEach(member ->
+                    memberUidMap.put(String.valueOf(member.get(FamilyDBAdaptor.QueryParams.UID.key())), member)
             );
 
             // Add the members obtained to the corresponding families
-            familyListBuffer.forEach(family -> {
+            buffer.forEach(family -> {
                 List<Document> tmpMemberList = new ArrayList<>();
                 List<Document> members = (List<Document>) family.get(FamilyMongoDBAdaptor.QueryParams.MEMBERS.key());
+                if (members == null) {
+                    return;
+                }
 
                 members.forEach(s -> {
                     String uid = String.valueOf(s.get(FamilyDBAdaptor.QueryParams.UID.key()));
@@ -195,6 +151,37 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
     }
 
+    private Map<String, Document> fetchMembers(Set<String> memberVersions) {
+        List<Long> uidList = new ArrayList<>(memberVersions.size());
+        List<Integer> versionList = new ArrayList<>(memberVersions.size());
+        memberVersions.forEach(s -> {
+            String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
+            uidList.add(Long.valueOf(split[0]));
+            versionList.add(Integer.valueOf(split[1]));
+        });
+
+        Query query = new Query()
+                .append(IndividualDBAdaptor.QueryParams.UID.key(), uidList)
+                .append(IndividualDBAdaptor.QueryParams.VERSION.key(), versionList);
+        List<Document> memberList;
+        try {
+            if (user != null) {
+                query.put(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
+                memberList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user).getResults();
+            } else {
+                memberList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
+            }
+        } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
+            logger.warn("Could not obtain the members associated to the families: {}", e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+
+        Map<String, Document> memberUidVersionMap = new HashMap<>(memberList.size());
+        memberList.forEach(member -> memberUidVersionMap.put(member.get(FamilyDBAdaptor.QueryParams.UID.key()) + "__"
+                + member.get(FamilyDBAdaptor.QueryParams.VERSION.key()), member));
+        return memberUidVersionMap;
+    }
+
     private void fillParentInformation(Document member, String key, Map<String, Document> memberUidMap) {
         Document parent = (Document) member.get(key);
         if (parent != null && !parent.isEmpty()) {
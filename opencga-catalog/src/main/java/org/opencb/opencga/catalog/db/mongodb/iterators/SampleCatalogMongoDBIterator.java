@@ -38,20 +38,18 @@ import java.util.function.UnaryOperator;
 
 import static org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptor.NATIVE_QUERY;
 
-public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterator<E> {
+public class SampleCatalogMongoDBIterator<E> extends BatchedCatalogMongoDBIterator<E> {
 
     private long studyUid;
     private String user;
 
+    private AnnotableConverter<? extends Annotable> annotableConverter;
+
     private IndividualMongoDBAdaptor individualDBAdaptor;
     private QueryOptions individualQueryOptions;
 
-    private Queue<Document> sampleListBuffer;
-
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public SampleCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, QueryOptions options) {
@@ -61,58 +59,40 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     public SampleCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, UnaryOperator<Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, long studyUid, String user, QueryOptions options) {
-        super(mongoCursor, clientSession, converter, filter, options);
+        super(mongoCursor, clientSession, null, filter, options);
 
         this.user = user;
         this.studyUid = studyUid;
 
+        this.annotableConverter = converter;
         this.individualDBAdaptor = individualDBAdaptor;
         this.individualQueryOptions = createIndividualQueryOptions();
 
-        this.sampleListBuffer = new LinkedList<>();
         this.logger = LoggerFactory.getLogger(SampleCatalogMongoDBIterator.class);
     }
 
     @Override
-    public E next() {
-        Document next = sampleListBuffer.remove();
-
-        if (filter != null) {
-            next = filter.apply(next);
-        }
-
-        addAclInformation(next, options);
-
-        if (converter != null) {
-            return (E) converter.convertToDataModelType(next, options);
+    protected E convert(Document next) {
+        if (annotableConverter != null) {
+            return (E) annotableConverter.convertToDataModelType(next, options);
         } else {
             return (E) next;
         }
     }
 
-
     @Override
-    public boolean hasNext() {
-        if (sampleListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !sampleListBuffer.isEmpty();
-    }
+    protected void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
+        Map<Long, Document> sampleUidMap = new HashMap<>(bufferSize);
 
-    private void fetchNextBatch() {
-        Map<Long, Document> sampleUidMap = new HashMap<>(BUFFER_SIZE);
-
-        // Get next BUFFER_SIZE documents
-        int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        // Get next bufferSize documents
+        while (mongoCursor.hasNext() && buffer.size() < bufferSize) {
             Document sampleDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = ((Number) sampleDocument.get(PRIVATE_STUDY_UID)).longValue();
             }
 
-            sampleListBuffer.add(sampleDocument);
-            counter++;
+            buffer.add(sampleDocument);
 
             // Extract the sample uids
             if (!options.getBoolean(NATIVE_QUERY) && options.getBoolean(ParamConstants.SAMPLE_INCLUDE_INDIVIDUAL_PARAM)) {
@@ -122,46 +102,51 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
 
         if (!sampleUidMap.isEmpty()) {
-            // Obtain all the related individuals
-            Query query = new Query(IndividualDBAdaptor.QueryParams.SAMPLE_UIDS.key(), sampleUidMap.keySet());
-            List<Document> individualList;
-            try {
-                if (user != null) {
-                    individualList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user)
-                            .getResults();
-                } else {
-                    individualList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
-                }
-            } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
-                logger.warn("Could not obtain the individuals containing the samples: {}", e.getMessage(), e);
-                return;
-            }
+            // Obtain all the related individuals. Not cached, as every sample uid is only read once.
+            Map<Long, Document> individualMap = fetchIndividuals(sampleUidMap.keySet());
 
             // Add the individuals to the sample attributes
-            individualList.forEach(individual -> {
-                List<Document> samples = (List<Document>) individual.get(IndividualMongoDBAdaptor.QueryParams.SAMPLES.key());
-
-                if (samples != null) {
-                    individual.remove(IndividualMongoDBAdaptor.QueryParams.SAMPLES.key());
-                    samples.forEach(s -> {
-                        long uid = ((Number) s.get(SampleDBAdaptor.QueryParams.UID.key())).longValue();
-
-                        Document sample = sampleUidMap.get(uid);
-                        if (sample != null) { // If the sample exists
-                            Document attributes = (Document) sample.get(SampleDBAdaptor.QueryParams.ATTRIBUTES.key());
-                            if (attributes == null) {
-                                attributes = new Document();
-                                sample.put(SampleDBAdaptor.QueryParams.ATTRIBUTES.key(), attributes);
-                            }
-                            // We add the individual to the attributes field
-                            attributes.put("OPENCGA_INDIVIDUAL", individual);
-                        }
-                    });
+            individualMap.forEach((uid, individual) -> {
+                Document sample = sampleUidMap.get(uid);
+                if (sample != null) { // If the sample exists
+                    Document attributes = (Document) sample.get(SampleDBAdaptor.QueryParams.ATTRIBUTES.key());
+                    if (attributes == null) {
+                        attributes = new Document();
+                        sample.put(SampleDBAdaptor.QueryParams.ATTRIBUTES.key(), attributes);
+                    }
+                    // We add the individual to the attributes field
+                    attributes.put("OPENCGA_INDIVIDUAL", individual);
                 }
             });
         }
     }
 
+    private Map<Long, Document> fetchIndividuals(Set<Long> sampleUids) {
+        Query query = new Query(IndividualDBAdaptor.QueryParams.SAMPLE_UIDS.key(), new ArrayList<>(sampleUids));
+        List<Document> individualList;
+        try {
+            if (user != null) {
+                individualList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user)
+                        .getResults();
+            } else {
+                individualList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
+            }
+        } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
+            logger.warn("Could not obtain the individuals containing the samples: {}", e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+
+        // Map every sample uid to the individual containing it
+        Map<Long, Document> individualMap = new HashMap<>(sampleUids.size());
+        individualList.forEach(individual -> {
+            List<Document> samples = (List<Document>) individual.remove(IndividualMongoDBAdaptor.QueryParams.SAMPLES.key());
+            if (samples != null) {
+                samples.forEach(s -> individualMap.put(((Number) s.get(SampleDBAdaptor.QueryParams.UID.key())).longValue(), individual));
+            }
+        });
+        return individualMap;
+    }
+
     private QueryOptions createIndividualQueryOptions() {
         QueryOptions queryOptions = new QueryOptions(NATIVE_QUERY, true);
 
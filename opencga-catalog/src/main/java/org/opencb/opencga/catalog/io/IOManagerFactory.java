@@ -21,8 +21,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by imedina on 03/10/14.
@@ -31,7 +31,7 @@ public class IOManagerFactory {
 
     protected static Logger logger = LoggerFactory.getLogger(IOManagerFactory.class);
     private String defaultScheme = "file";
-    private Map<String, IOManager> ioManagers = new HashMap<>();
+    private Map<String, IOManager> ioManagers = new ConcurrentHashMap<>();
 
     public IOManager get(URI uri) throws IOException {
         return get(uri.getScheme());
@@ -25,12 +25,12 @@ import org.opencb.opencga.catalog.auth.authorization.AuthorizationManager;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
 import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
-import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.catalog.utils.UuidUtils;
 import org.opencb.opencga.core.common.GitRepositoryState;
 import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.config.Audit;
 import org.opencb.opencga.core.config.Configuration;
 import org.opencb.opencga.core.models.common.Enums;
 import org.opencb.opencga.core.models.study.Study;
@@ -38,14 +38,17 @@ import org.opencb.opencga.core.response.OpenCGAResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created on 18/08/15.
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
-public class AuditManager {
+public class AuditManager implements AutoCloseable {
 
     protected static Logger logger = LoggerFactory.getLogger(AuditManager.class);
 
@@ -56,40 +59,99 @@ public class AuditManager {
     private final Map<String, List<AuditRecord>> auditRecordMap;
     private static final int MAX_BATCH_SIZE = 100;
 
+    // Writes the audit records in background. Null if the audit records are written synchronously
+    private final AuditRecordWriter auditRecordWriter;
+
     public AuditManager(AuthorizationManager authorizationManager, CatalogManager catalogManager, DBAdaptorFactory catalogDBAdaptorFactory,
                         Configuration configuration) {
         this.catalogManager = catalogManager;
         this.authorizationManager = authorizationManager;
         this.auditDBAdaptor = catalogDBAdaptorFactory.getCatalogAuditDbAdaptor();
-        this.auditRecordMap = new HashMap<>();
+        this.auditRecordMap = new ConcurrentHashMap<>();
+
+        Audit audit = configuration.getAudit();
+        if (audit != null && audit.getQueueSize() > 0) {
+            Path spillDir;
+            if (StringUtils.isNotEmpty(audit.getSpillDir())) {
+                spillDir = Paths.get(audit.getSpillDir());
+            } else if (StringUtils.isNotEmpty(configuration.getLogDir())) {
+                spillDir = Paths.get(configuration.getLogDir());
+            } else {
+                spillDir = Paths.get(System.getProperty("java.io.tmpdir"));
+            }
+            this.auditRecordWriter = new AuditRecordWriter(auditDBAdaptor, audit.getQueueSize(), audit.getBatchSize(),
+                    audit.getFlushInterval(), spillDir);
+        } else {
+            this.auditRecordWriter = null;
+        }
     }
 
     public void audit(AuditRecord auditRecord) throws CatalogException {
-        auditDBAdaptor.insertAuditRecord(auditRecord);
+        if (auditRecordWriter != null) {
+            auditRecordWriter.write(auditRecord);
+        } else {
+            auditDBAdaptor.insertAuditRecord(auditRecord);
+        }
     }
 
     public void audit(List<AuditRecord> auditRecordList) throws CatalogException {
-        for (AuditRecord auditRecord : auditRecordList) {
-            auditDBAdaptor.insertAuditRecord(auditRecord);
+        if (auditRecordList.isEmpty()) {
+            return;
+        }
+        if (auditRecordWriter != null) {
+            auditRecordWriter.write(auditRecordList);
+        } else {
+            auditDBAdaptor.insertAuditRecords(auditRecordList);
         }
     }
 
     public void initAuditBatch(String operationId) {
-        this.auditRecordMap.put(operationId, new LinkedList<>());
+        this.auditRecordMap.put(operationId, new ArrayList<>());
     }
 
     public void finishAuditBatch(String operationId) throws CatalogException {
-        if (!this.auditRecordMap.containsKey(operationId)) {
+        List<AuditRecord> auditRecords = this.auditRecordMap.remove(operationId);
+        if (auditRecords == null) {
             throw new CatalogException("Cannot audit. Operation id '" + operationId + "' not found.");
         }
         try {
-            if (!this.auditRecordMap.get(operationId).isEmpty()) {
-                auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
-            }
-        } catch (CatalogDBException e) {
+            audit(auditRecords);
+        } catch (CatalogException e) {
             logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
-        } finally {
-            this.auditRecordMap.remove(operationId);
+        }
+    }
+
+    /**
+     * Block until all the audit records queued so far are written.
+     */
+    public void flush() {
+        if (auditRecordWriter != null) {
+            auditRecordWriter.flush();
+        }
+    }
+
+    /**
+     * Counters of the audit records written in background.
+     *
+     * @return ObjectMap with the number of queued, flushed, spilled and dropped audit records. Empty if audit records are written
+     * synchronously.
+     */
+    public ObjectMap getStats() {
+        ObjectMap stats = new ObjectMap();
+        if (auditRecordWriter != null) {
+            stats.append("pending", auditRecordWriter.getQueueCount())
+                    .append("queued", auditRecordWriter.getQueued())
+                    .append("flushed", auditRecordWriter.getFlushed())
+                    .append("spilled", auditRecordWriter.getSpilled())
+                    .append("dropped", auditRecordWriter.getDropped());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (auditRecordWriter != null) {
+            auditRecordWriter.close();
         }
     }
 
@@ -192,22 +254,23 @@ public class AuditManager {
         AuditRecord auditRecord = new AuditRecord(auditId, operationId, userId, apiVersion, action, resource, resourceId, resourceUuid,
                 studyId, studyUuid, params, status, date, attributes);
 
-        if (this.auditRecordMap.containsKey(operationId)) {
-            this.auditRecordMap.get(operationId).add(auditRecord);
+        List<AuditRecord> auditRecords = this.auditRecordMap.get(operationId);
+        if (auditRecords != null) {
+            auditRecords.add(auditRecord);
 
-            if (this.auditRecordMap.size() == MAX_BATCH_SIZE) {
+            if (auditRecords.size() >= MAX_BATCH_SIZE) {
                 try {
-                    auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
-                } catch (CatalogDBException e) {
+                    audit(auditRecords);
+                } catch (CatalogException e) {
                     logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
                 } finally {
-                    this.auditRecordMap.get(operationId).clear();
+                    this.auditRecordMap.put(operationId, new ArrayList<>());
                 }
             }
         } else {
             try {
-                auditDBAdaptor.insertAuditRecord(auditRecord);
-            } catch (CatalogDBException e) {
+                audit(auditRecord);
+            } catch (CatalogException e) {
                 logger.error("Could not audit '{}' -> Error: {}", auditRecord, e.getMessage(), e);
             }
         }
@@ -227,6 +290,7 @@ public class AuditManager {
                 .append("token", token);
         try {
             authorizationManager.checkIsOwnerOrAdmin(study.getUid(), userId);
+            flush();
 
             query.remove(AuditDBAdaptor.QueryParams.STUDY_ID.key());
             query.put(AuditDBAdaptor.QueryParams.STUDY_UUID.key(), study.getUuid());
@@ -263,6 +327,7 @@ public class AuditManager {
     public OpenCGAResult groupBy(Query query, List<String> fields, QueryOptions options, String token) throws CatalogException {
         String userId = catalogManager.getUserManager().getUserId(token);
         if (authorizationManager.isInstallationAdministrator(userId)) {
+            flush();
             return auditDBAdaptor.groupBy(query, fields, options);
         }
         throw new CatalogAuthorizationException("Only root of OpenCGA can query the audit database");
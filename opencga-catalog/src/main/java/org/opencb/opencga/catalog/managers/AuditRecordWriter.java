@@ -0,0 +1,359 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.managers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.opencb.opencga.core.models.audit.AuditRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit records in background.
+ *
+ * Records are added to a bounded non-blocking queue, and written to the database in batches by a background thread, either when a
+ * batch is full or when the flush interval expires. Records that can not be written to the database, or that do not fit in the queue,
+ * are appended to a local spill file, which is written back to the database once it is available again.
+ *
+ * Each writer has its own spill file, so several instances or processes can share the same directory. Spill files are atomically
+ * renamed before being replayed, so they are only replayed once. Spill files of other writers are only replayed when they have not been
+ * modified for a while, i.e. their writer is gone.
+ */
+class AuditRecordWriter implements Closeable {
+
+    private static final String SPILL_FILE_PREFIX = "opencga-audit-spill";
+    private static final String SPILL_FILE_SUFFIX = ".json";
+    private static final String REPLAY_SUFFIX = ".replaying";
+    private static final long ORPHAN_SPILL_FILE_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Writers not closed yet, flushed by a single shutdown hook shared by all the instances
+    private static final Set<AuditRecordWriter> OPEN_WRITERS = ConcurrentHashMap.newKeySet();
+    private static final Thread SHUTDOWN_HOOK = new Thread(AuditRecordWriter::flushAll, "audit-writer-shutdown");
+    private static boolean shutdownHookRegistered = false;
+
+    private final AuditDBAdaptor auditDBAdaptor;
+    private final int queueSize;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Path spillDir;
+    private final Path spillFile;
+    private final ObjectMapper objectMapper;
+
+    private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueCount = new AtomicInteger();
+    private final Object writeLock = new Object();
+    private final Object spillLock = new Object();
+    private volatile Thread thread;
+    private volatile boolean running = true;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Logger logger = LoggerFactory.getLogger(AuditRecordWriter.class);
+
+    AuditRecordWriter(AuditDBAdaptor auditDBAdaptor, int queueSize, int batchSize, long flushIntervalMillis, Path spillDir) {
+        this.auditDBAdaptor = auditDBAdaptor;
+        this.queueSize = queueSize;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.spillDir = spillDir;
+        this.spillFile = spillDir.resolve(SPILL_FILE_PREFIX + "-" + getPid() + "-" + UUID.randomUUID() + SPILL_FILE_SUFFIX);
+        this.objectMapper = JacksonUtils.getDefaultNonNullObjectMapper();
+    }
+
+    private static String getPid() {
+        // "pid@hostname"
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        int idx = name.indexOf('@');
+        return idx > 0 ? name.substring(0, idx) : "0";
+    }
+
+    private static void flushAll() {
+        for (AuditRecordWriter writer : OPEN_WRITERS) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Start the background thread on the first write, so managers that never audit anything do not start any thread.
+     */
+    private synchronized void start() {
+        if (running && thread == null) {
+            thread = new Thread(this::run, "audit-writer");
+            thread.setDaemon(true);
+            thread.start();
+
+            // Do not lose the pending records if the manager is not closed
+            OPEN_WRITERS.add(this);
+            synchronized (AuditRecordWriter.class) {
+                if (!shutdownHookRegistered) {
+                    Runtime.getRuntime().addShutdownHook(SHUTDOWN_HOOK);
+                    shutdownHookRegistered = true;
+                }
+            }
+        }
+    }
+
+    void write(AuditRecord auditRecord) {
+        if (thread == null) {
+            start();
+        }
+        if (!running) {
+            insert(Collections.singletonList(auditRecord));
+            return;
+        }
+        if (queueCount.incrementAndGet() > queueSize) {
+            queueCount.decrementAndGet();
+            logger.warn("Audit queue is full. Storing audit record '{}' in {}", auditRecord.getId(), spillFile);
+            spill(Collections.singletonList(auditRecord));
+        } else {
+            queue.add(auditRecord);
+            queued.incrementAndGet();
+            if (queueCount.get() >= batchSize) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    void write(List<AuditRecord> auditRecords) {
+        for (AuditRecord auditRecord : auditRecords) {
+            write(auditRecord);
+        }
+    }
+
+    /**
+     * Write all the records already queued, blocking until they are written.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            List<AuditRecord> batch = drain();
+            while (!batch.isEmpty()) {
+                insert(batch);
+                batch = drain();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread writerThread;
+        synchronized (this) {
+            running = false;
+            writerThread = thread;
+        }
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        OPEN_WRITERS.remove(this);
+        logger.debug("Audit writer closed. Queued: {}, flushed: {}, spilled: {}, dropped: {}", queued.get(), flushed.get(),
+                spilled.get(), dropped.get());
+    }
+
+    private void run() {
+        replaySpillFile();
+        while (running) {
+            int size;
+            synchronized (writeLock) {
+                List<AuditRecord> batch = drain();
+                size = batch.size();
+                if (size > 0) {
+                    insert(batch);
+                }
+            }
+            if (size < batchSize) {
+                if (size == 0) {
+                    replaySpillFile();
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    private List<AuditRecord> drain() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        AuditRecord auditRecord;
+        while (batch.size() < batchSize && (auditRecord = queue.poll()) != null) {
+            queueCount.decrementAndGet();
+            batch.add(auditRecord);
+        }
+        return batch;
+    }
+
+    private void insert(List<AuditRecord> batch) {
+        try {
+            auditDBAdaptor.insertAuditRecords(batch);
+            flushed.addAndGet(batch.size());
+        } catch (Exception e) {
+            logger.error("Could not write {} audit records. Storing them in {}", batch.size(), spillFile, e);
+            spill(batch);
+        }
+    }
+
+    private void spill(List<AuditRecord> auditRecords) {
+        synchronized (spillLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                for (AuditRecord auditRecord : auditRecords) {
+                    writer.write(objectMapper.writeValueAsString(auditRecord));
+                    writer.newLine();
+                }
+                spilled.addAndGet(auditRecords.size());
+            } catch (IOException e) {
+                logger.error("Could not store {} audit records in {}. Audit records lost: {}", auditRecords.size(), spillFile,
+                        auditRecords, e);
+                dropped.addAndGet(auditRecords.size());
+            }
+        }
+    }
+
+    /**
+     * Write back to the database the records of this writer spill file, and of any orphaned spill file in the same directory.
+     */
+    private void replaySpillFile() {
+        List<Path> spillFiles = new ArrayList<>();
+        long orphanThreshold = System.currentTimeMillis() - ORPHAN_SPILL_FILE_AGE_MILLIS;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDir, SPILL_FILE_PREFIX + "*")) {
+            for (Path path : stream) {
+                if (path.equals(spillFile)) {
+                    spillFiles.add(path);
+                } else if (Files.getLastModifiedTime(path).toMillis() < orphanThreshold) {
+                    spillFiles.add(path);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.error("Could not list audit spill files from {}", spillDir, e);
+            return;
+        }
+        for (Path path : spillFiles) {
+            replaySpillFile(path);
+        }
+    }
+
+    private void replaySpillFile(Path path) {
+        // Take ownership of the file. Any other writer trying to replay the same file will fail to move it.
+        Path replayFile = path.getFileName().toString().endsWith(REPLAY_SUFFIX)
+                ? path
+                : spillDir.resolve(path.getFileName() + "." + UUID.randomUUID() + REPLAY_SUFFIX);
+        synchronized (spillLock) {
+            try {
+                if (!replayFile.equals(path)) {
+                    Files.move(path, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    // Orphaned replay file. Rename it again, so only one writer can take it.
+                    Path newReplayFile = spillDir.resolve(SPILL_FILE_PREFIX + "-" + UUID.randomUUID() + SPILL_FILE_SUFFIX + REPLAY_SUFFIX);
+                    Files.move(path, newReplayFile, StandardCopyOption.ATOMIC_MOVE);
+                    replayFile = newReplayFile;
+                }
+                // A file being replayed must not look orphaned
+                Files.setLastModifiedTime(replayFile, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (NoSuchFileException e) {
+                // Already taken by another writer
+                return;
+            } catch (IOException e) {
+                logger.error("Could not move audit spill file {}", path, e);
+                return;
+            }
+        }
+
+        List<AuditRecord> pending = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    pending.add(objectMapper.readValue(line, AuditRecord.class));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not read audit records from {}", replayFile, e);
+            return;
+        }
+
+        int written = 0;
+        try {
+            while (written < pending.size()) {
+                List<AuditRecord> batch = new ArrayList<>(pending.subList(written, Math.min(written + batchSize, pending.size())));
+                auditDBAdaptor.insertAuditRecords(batch);
+                written += batch.size();
+                flushed.addAndGet(batch.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not write audit records from {}. Will retry later. {}", replayFile, e.getMessage());
+        }
+
+        if (written < pending.size()) {
+            // Keep the records not written yet in the spill file of this writer
+            spill(pending.subList(written, pending.size()));
+            // These records were already counted as spilled
+            spilled.addAndGet(written - pending.size());
+        }
+        try {
+            Files.delete(replayFile);
+            if (written > 0) {
+                logger.info("Written {} audit records from {}", written, path);
+            }
+        } catch (IOException e) {
+            logger.error("Could not delete {}", replayFile, e);
+        }
+    }
+
+    long getQueued() {
+        return queued.get();
+    }
+
+    long getFlushed() {
+        return flushed.get();
+    }
+
+    long getSpilled() {
+        return spilled.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    int getQueueCount() {
+        return queueCount.get();
+    }
+}
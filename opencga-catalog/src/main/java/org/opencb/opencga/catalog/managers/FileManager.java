@@ -39,6 +39,7 @@ import org.opencb.opencga.catalog.exceptions.*;
 import org.opencb.opencga.catalog.io.IOManager;
 import org.opencb.opencga.catalog.io.IOManagerFactory;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
+import org.opencb.opencga.catalog.models.ResolvedEntries;
 import org.opencb.opencga.catalog.stats.solr.CatalogSolrManager;
 import org.opencb.opencga.catalog.utils.*;
 import org.opencb.opencga.core.api.ParamConstants;
@@ -243,6 +244,16 @@ public class FileManager extends AnnotationSetManager<File> {
         }
     }
 
+    @Override
+    String getIdentifierType(String entry) {
+        if (UuidUtils.isOpenCgaUuid(entry)) {
+            return FileDBAdaptor.QueryParams.UUID.key();
+        }
+        // Same transformation applied in internalGet. Entries without a folder can also be searched by name.
+        String fileName = StringUtils.removeStart(entry.replace(":", "/"), "/");
+        return fileName.contains("/") ? FileDBAdaptor.QueryParams.PATH.key() : FileDBAdaptor.QueryParams.NAME.key();
+    }
+
     FileDBAdaptor.QueryParams getFieldFilter(List<String> idList) throws CatalogException {
         FileDBAdaptor.QueryParams idQueryParam = null;
         for (String entry : idList) {
@@ -679,6 +690,22 @@ public class FileManager extends AnnotationSetManager<File> {
     }
 
     List<Event> validateNewFile(Study study, File file, boolean overwrite) throws CatalogException {
+        return validateNewFile(study, file, null, 0, overwrite);
+    }
+
+    /**
+     * Check and set all the params of a new file.
+     *
+     * @param study     Study where the file will be registered.
+     * @param file      New file.
+     * @param parent    Closest existing parent folder, including the uri. If null, it will be read from the database.
+     * @param release   Current release of the study. If not positive, it will be read from the database.
+     * @param overwrite Do not check if the file already exists.
+     * @return List of warning events.
+     * @throws CatalogException if any of the parameters is not valid.
+     */
+    private List<Event> validateNewFile(Study study, File file, @Nullable File parent, int release, boolean overwrite)
+            throws CatalogException {
         /** Check and set all the params and create a File object **/
         ParamUtils.checkObj(file, "File");
         ParamUtils.checkPath(file.getPath(), "path");
@@ -747,11 +774,11 @@ public class FileManager extends AnnotationSetManager<File> {
 
         URI uri;
         try {
-            if (file.getType() == File.Type.DIRECTORY) {
-                uri = getFileUri(study.getUid(), file.getPath(), true);
-            } else {
-                uri = getFileUri(study.getUid(), file.getPath(), false);
+            if (parent == null) {
+                // Get the closest existing parent. If parents == true, may happen that the parent is not registered in catalog yet.
+                parent = getParents(study.getUid(), file.getPath(), false, null).first();
             }
+            uri = getFileUri(parent, file.getPath(), file.getType() == File.Type.DIRECTORY);
         } catch (URISyntaxException e) {
             throw new CatalogException(e);
         }
@@ -780,7 +807,7 @@ public class FileManager extends AnnotationSetManager<File> {
 
         boolean external = isExternal(study, file.getPath(), uri);
         file.setExternal(external);
-        file.setRelease(studyManager.getCurrentRelease(study));
+        file.setRelease(release > 0 ? release : studyManager.getCurrentRelease(study));
 
         validateNewAnnotationSets(study.getVariableSets(), file.getAnnotationSets());
 
@@ -838,6 +865,122 @@ public class FileManager extends AnnotationSetManager<File> {
         return queryResult;
     }
 
+    /**
+     * Register in bulk a list of files already stored in their final location. Parent folders must exist.
+     * The size, checksum and any other metadata of the files must have been already filled by the caller. All the files, and any new
+     * sample they refer to, are inserted in a single transaction, so if any of them fails, none is registered.
+     *
+     * @param studyStr Study where the files will be registered.
+     * @param files    Files to be registered. The path is mandatory.
+     * @param token    Token of the user.
+     * @return An OpenCGAResult with the registered files.
+     * @throws CatalogException if the user does not have permissions, any parent folder does not exist or any path is already in use.
+     */
+    public OpenCGAResult<File> registerFiles(String studyStr, List<File> files, String token) throws CatalogException {
+        String userId = userManager.getUserId(token);
+        Study study = studyManager.resolveId(studyStr, userId, StudyManager.INCLUDE_VARIABLE_SET);
+
+        ObjectMap auditParams = new ObjectMap()
+                .append("study", studyStr)
+                .append("paths", files.stream().map(File::getPath).collect(Collectors.toList()))
+                .append("token", token);
+        try {
+            StopWatch stopWatch = StopWatch.createStarted();
+
+            // Read all the parent folders at once
+            Map<String, File> parents = new HashMap<>();
+            for (File file : files) {
+                ParamUtils.checkPath(file.getPath(), "path");
+                parents.put(getParentPath(file.getPath()), null);
+            }
+            Query query = new Query()
+                    .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
+                    .append(FileDBAdaptor.QueryParams.PATH.key(), new ArrayList<>(parents.keySet()));
+            for (File parent : fileDBAdaptor.get(query, INCLUDE_FILE_URI_PATH).getResults()) {
+                parents.put(parent.getPath(), parent);
+            }
+            Map<String, Map<String, List<String>>> parentAcls = new HashMap<>();
+            for (Map.Entry<String, File> entry : parents.entrySet()) {
+                File parent = entry.getValue();
+                if (parent == null) {
+                    throw new CatalogDBException("Directory not found " + entry.getKey());
+                } else if (parent.getType() != File.Type.DIRECTORY) {
+                    throw new CatalogException("Cannot register files in '" + parent.getPath() + "'. It is not a directory.");
+                }
+                authorizationManager.checkFilePermission(study.getUid(), parent.getUid(), userId, FileAclEntry.FilePermissions.WRITE);
+                OpenCGAResult<Map<String, List<String>>> allFileAcls = authorizationManager.getAllFileAcls(study.getUid(),
+                        parent.getUid());
+                if (allFileAcls.getNumResults() > 0 && !allFileAcls.first().isEmpty()) {
+                    parentAcls.put(parent.getPath(), allFileAcls.first());
+                }
+            }
+
+            int release = studyManager.getCurrentRelease(study);
+            Map<String, List<Sample>> existingSamples = new HashMap<>();
+            Map<String, List<Sample>> nonExistingSamples = new HashMap<>();
+            // New samples shared by several files are created by the first one, and linked as existing samples by the rest
+            Map<String, Sample> newSamples = new HashMap<>();
+            for (File file : files) {
+                validateNewFile(study, file, parents.get(getParentPath(file.getPath())), release, true);
+                if (!file.getSampleIds().isEmpty()) {
+                    List<Sample> fileExistingSamples = new LinkedList<>();
+                    List<Sample> fileNonExistingSamples = new LinkedList<>();
+                    validateNewSamples(study, file, fileExistingSamples, fileNonExistingSamples, token);
+                    Iterator<Sample> iterator = fileNonExistingSamples.iterator();
+                    while (iterator.hasNext()) {
+                        Sample sample = iterator.next();
+                        Sample newSample = newSamples.putIfAbsent(sample.getId(), sample);
+                        if (newSample != null) {
+                            iterator.remove();
+                            fileExistingSamples.add(newSample);
+                        }
+                    }
+                    existingSamples.put(file.getPath(), fileExistingSamples);
+                    nonExistingSamples.put(file.getPath(), fileNonExistingSamples);
+                }
+            }
+            fileDBAdaptor.insert(study.getUid(), files, existingSamples, nonExistingSamples, study.getVariableSets(), QueryOptions.empty());
+
+            // Propagate ACLs from the parent folders
+            Map<String, List<Long>> filesPerParent = new HashMap<>();
+            for (File file : files) {
+                filesPerParent.computeIfAbsent(getParentPath(file.getPath()), k -> new ArrayList<>()).add(file.getUid());
+            }
+            for (Map.Entry<String, Map<String, List<String>>> entry : parentAcls.entrySet()) {
+                authorizationManager.replicateAcls(study.getUid(), filesPerParent.get(entry.getKey()), entry.getValue(),
+                        Enums.Resource.FILE);
+            }
+
+            query = new Query()
+                    .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
+                    .append(FileDBAdaptor.QueryParams.UID.key(), files.stream().map(File::getUid).collect(Collectors.toList()));
+            OpenCGAResult<File> result = fileDBAdaptor.get(query, QueryOptions.empty());
+
+            List<File> transformedFiles = result.getResults().stream()
+                    .filter(file -> isTransformedFile(file.getName()))
+                    .collect(Collectors.toList());
+            if (!transformedFiles.isEmpty()) {
+                try {
+                    matchUpVariantFiles(study.getFqn(), transformedFiles, token);
+                } catch (CatalogException e) {
+                    logger.warn("Matching avro to variant file: {}", e.getMessage());
+                }
+            }
+
+            for (File file : files) {
+                auditManager.auditCreate(userId, Enums.Action.UPLOAD, Enums.Resource.FILE, file.getId(), file.getUuid(), study.getId(),
+                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+            }
+            logger.debug("Registered {} files in {}", files.size(), TimeUtils.durationToString(stopWatch));
+
+            return result;
+        } catch (CatalogException e) {
+            auditManager.auditCreate(userId, Enums.Action.UPLOAD, Enums.Resource.FILE, "", "", study.getId(), study.getUuid(),
+                    auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+            throw e;
+        }
+    }
+
     private void validateNewSamples(Study study, File file, List<Sample> existingSamples, List<Sample> nonExistingSamples, String sessionId)
             throws CatalogException {
         if (file.getSampleIds() == null || file.getSampleIds().isEmpty()) {
@@ -1542,6 +1685,9 @@ public class FileManager extends AnnotationSetManager<File> {
         Set<String> processedPaths = new HashSet<>();
         boolean physicalDelete = params.getBoolean(Constants.SKIP_TRASH, false);
 
+        // Resolve all the files at once
+        ResolvedEntries<File> resolvedFiles = resolve(study.getUid(), fileIds, INCLUDE_FILE_URI_PATH, userId);
+
         auditManager.initAuditBatch(operationUuid);
         OpenCGAResult<File> result = OpenCGAResult.empty();
         for (String id : fileIds) {
@@ -1549,11 +1695,10 @@ public class FileManager extends AnnotationSetManager<File> {
             String fileUuid = "";
 
             try {
-                OpenCGAResult<File> internalResult = internalGet(study.getUid(), id, INCLUDE_FILE_URI_PATH, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("File '" + id + "' not found");
+                File file = resolvedFiles.get(id);
+                if (file == null) {
+                    throw new CatalogException(resolvedFiles.getError(id));
                 }
-                File file = internalResult.first();
                 // We set the proper values for the audit
                 fileId = file.getId();
                 fileUuid = file.getUuid();
@@ -2098,6 +2243,9 @@ public class FileManager extends AnnotationSetManager<File> {
                 .append("options", options)
                 .append("token", token);
 
+        // Resolve all the files at once
+        ResolvedEntries<File> resolvedFiles = resolve(study.getUid(), fileIds, EXCLUDE_FILE_ATTRIBUTES, userId);
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<File> result = OpenCGAResult.empty();
         for (String id : fileIds) {
@@ -2105,11 +2253,10 @@ public class FileManager extends AnnotationSetManager<File> {
             String fileUuid = "";
 
             try {
-                OpenCGAResult<File> internalResult = internalGet(study.getUid(), fileId, EXCLUDE_FILE_ATTRIBUTES, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("File '" + id + "' not found");
+                File file = resolvedFiles.get(id);
+                if (file == null) {
+                    throw new CatalogException(resolvedFiles.getError(id));
                 }
-                File file = internalResult.first();
 
                 // We set the proper values for the audit
                 fileId = file.getId();
@@ -2940,18 +3087,15 @@ public class FileManager extends AnnotationSetManager<File> {
     }
 
     /**
-     * Get the URI where a file should be in Catalog, given a study and a path.
+     * Get the URI where a file should be in Catalog, given its closest existing parent and a path.
      *
-     * @param studyId   Study identifier
-     * @param path      Path to locate
-     * @param directory Boolean indicating if the file is a directory
+     * @param existingParent Closest existing parent of the path
+     * @param path           Path to locate
+     * @param directory      Boolean indicating if the file is a directory
      * @return URI where the file should be placed
-     * @throws CatalogException CatalogException
+     * @throws URISyntaxException if the URI is not valid
      */
-    private URI getFileUri(long studyId, String path, boolean directory) throws CatalogException, URISyntaxException {
-        // Get the closest existing parent. If parents == true, may happen that the parent is not registered in catalog yet.
-        File existingParent = getParents(studyId, path, false, null).first();
-
+    private URI getFileUri(File existingParent, String path, boolean directory) throws URISyntaxException {
         //Relative path to the existing parent
         String relativePath = Paths.get(existingParent.getPath()).relativize(Paths.get(path)).toString();
         if (path.endsWith("/") && !relativePath.endsWith("/")) {
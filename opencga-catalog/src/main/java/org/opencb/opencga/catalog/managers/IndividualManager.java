@@ -32,6 +32,7 @@ import org.opencb.opencga.catalog.db.api.*;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
+import org.opencb.opencga.catalog.models.ResolvedEntries;
 import org.opencb.opencga.catalog.stats.solr.CatalogSolrManager;
 import org.opencb.opencga.catalog.utils.AnnotationUtils;
 import org.opencb.opencga.catalog.utils.Constants;
@@ -584,6 +585,9 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             throw e;
         }
 
+        // Resolve all the individuals at once
+        ResolvedEntries<Individual> resolvedIndividuals = resolve(study.getUid(), individualIds, INCLUDE_INDIVIDUAL_IDS, userId);
+
         auditManager.initAuditBatch(operationUuid);
         OpenCGAResult result = OpenCGAResult.empty();
         for (String id : individualIds) {
@@ -591,12 +595,10 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             String individualUuid = "";
 
             try {
-                OpenCGAResult<Individual> internalResult = internalGet(study.getUid(), id, INCLUDE_INDIVIDUAL_IDS, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Individual '" + id + "' not found");
+                Individual individual = resolvedIndividuals.get(id);
+                if (individual == null) {
+                    throw new CatalogException(resolvedIndividuals.getError(id));
                 }
-
-                Individual individual = internalResult.first();
                 // We set the proper values for the audit
                 individualId = individual.getId();
                 individualUuid = individual.getUuid();
@@ -964,6 +966,9 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
                 .append("options", options)
                 .append("token", token);
 
+        // Resolve all the individuals at once
+        ResolvedEntries<Individual> resolvedIndividuals = resolve(study.getUid(), individualIds, QueryOptions.empty(), userId);
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Individual> result = OpenCGAResult.empty();
         for (String id : individualIds) {
@@ -971,11 +976,10 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             String individualUuid = "";
 
             try {
-                OpenCGAResult<Individual> internalResult = internalGet(study.getUid(), id, QueryOptions.empty(), userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Individual '" + id + "' not found");
+                Individual individual = resolvedIndividuals.get(id);
+                if (individual == null) {
+                    throw new CatalogException(resolvedIndividuals.getError(id));
                 }
-                Individual individual = internalResult.first();
 
                 // We set the proper values for the audit
                 individualId = individual.getId();
@@ -34,6 +34,7 @@ import org.opencb.opencga.catalog.io.IOManagerFactory;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
 import org.opencb.opencga.catalog.stats.solr.CatalogSolrManager;
 import org.opencb.opencga.catalog.utils.AnnotationUtils;
+import org.opencb.opencga.catalog.utils.JobNotificationChannel;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.catalog.utils.UuidUtils;
 import org.opencb.opencga.core.api.ParamConstants;
@@ -71,6 +72,7 @@ public class JobManager extends ResourceManager<Job> {
     private UserManager userManager;
     private StudyManager studyManager;
     private IOManagerFactory ioManagerFactory;
+    private final JobNotificationChannel notificationChannel = new JobNotificationChannel();
 
     private final String defaultFacet = "creationYear>>creationMonth;toolId>>executorId";
 
@@ -92,6 +94,15 @@ public class JobManager extends ResourceManager<Job> {
         return Enums.Resource.JOB;
     }
 
+    /**
+     * Channel notified every time a job is created or updated from this JobManager.
+     *
+     * @return the job notification channel.
+     */
+    public JobNotificationChannel getNotificationChannel() {
+        return notificationChannel;
+    }
+
 //    @Override
 //    OpenCGAResult<Job> internalGet(long studyUid, String entry, @Nullable Query query, QueryOptions options, String user)
 //            throws CatalogException {
@@ -310,6 +321,7 @@ public class JobManager extends ResourceManager<Job> {
 
             job.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.JOB));
             OpenCGAResult<Job> insert = jobDBAdaptor.insert(study.getUid(), job, options);
+            notificationChannel.publish();
             if (options.getBoolean(ParamConstants.INCLUDE_RESULT_PARAM)) {
                 // Fetch created job
                 OpenCGAResult<Job> queryResult = getJob(study.getUid(), job.getUuid(), options);
@@ -513,6 +525,7 @@ public class JobManager extends ResourceManager<Job> {
             }
 
             jobDBAdaptor.insert(study.getUid(), job, new QueryOptions());
+            notificationChannel.publish();
             OpenCGAResult<Job> jobResult = jobDBAdaptor.get(job.getUid(), new QueryOptions());
 
             auditManager.auditCreate(userId, Enums.Resource.JOB, job.getId(), "", study.getId(), study.getUuid(), auditParams,
@@ -538,6 +551,20 @@ public class JobManager extends ResourceManager<Job> {
         return jobDBAdaptor.count(query);
     }
 
+    /**
+     * Listen to the jobs created or updated by any process connected to the catalog database, publishing every change in the
+     * notification channel. This method blocks the calling thread until it is interrupted.
+     *
+     * @param token Token of the installation administrator.
+     * @throws CatalogException if the user is not the installation administrator or the changes cannot be listened to.
+     */
+    public void watchChanges(String token) throws CatalogException {
+        String userId = userManager.getUserId(token);
+        authorizationManager.checkIsInstallationAdministrator(userId);
+
+        jobDBAdaptor.watch(notificationChannel::publish);
+    }
+
     public DBIterator<Job> iterator(Query query, QueryOptions options, String token) throws CatalogException {
         String userId = userManager.getUserId(token);
         authorizationManager.isInstallationAdministrator(userId);
@@ -1189,6 +1216,7 @@ public class JobManager extends ResourceManager<Job> {
 //        }
 
         OpenCGAResult<Job> update = jobDBAdaptor.update(job.getUid(), updateMap, options);
+        notificationChannel.publish();
         if (options.getBoolean(ParamConstants.INCLUDE_RESULT_PARAM)) {
             // Fetch updated job
             OpenCGAResult<Job> result = jobDBAdaptor.get(study.getUid(), new Query(JobDBAdaptor.QueryParams.UID.key(), job.getUid()),
@@ -1256,6 +1284,7 @@ public class JobManager extends ResourceManager<Job> {
                 authorizationManager.checkJobPermission(study.getUid(), job.getUid(), userId, JobAclEntry.JobPermissions.WRITE);
 
                 OpenCGAResult updateResult = jobDBAdaptor.update(job.getUid(), parameters, options);
+                notificationChannel.publish();
                 result.append(updateResult);
 
                 auditManager.auditUpdate(operationId, userId, Enums.Resource.JOB, job.getId(), job.getUuid(), study.getId(),
@@ -1308,6 +1337,7 @@ public class JobManager extends ResourceManager<Job> {
             authorizationManager.checkJobPermission(study.getUid(), job.getUid(), userId, JobAclEntry.JobPermissions.WRITE);
 
             OpenCGAResult updateResult = jobDBAdaptor.update(job.getUid(), parameters, options);
+            notificationChannel.publish();
             result.append(updateResult);
 
             auditManager.auditUpdate(operationId, userId, Enums.Resource.JOB, job.getId(), job.getUuid(), study.getId(),
@@ -1369,6 +1399,7 @@ public class JobManager extends ResourceManager<Job> {
                 authorizationManager.checkJobPermission(study.getUid(), job.getUid(), userId, JobAclEntry.JobPermissions.WRITE);
 
                 OpenCGAResult updateResult = jobDBAdaptor.update(job.getUid(), parameters, options);
+                notificationChannel.publish();
                 result.append(updateResult);
 
                 auditManager.auditUpdate(operationId, userId, Enums.Resource.JOB, job.getId(), job.getUuid(), study.getId(),
@@ -28,6 +28,7 @@ import org.opencb.opencga.catalog.db.DBAdaptorFactory;
 import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
+import org.opencb.opencga.catalog.models.ResolvedEntries;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.catalog.utils.UuidUtils;
 import org.opencb.opencga.core.config.Configuration;
@@ -71,6 +72,103 @@ public abstract class ResourceManager<R extends IPrivateStudyUid> extends Abstra
     abstract InternalGetDataResult<R> internalGet(long studyUid, List<String> entryList, @Nullable Query query, QueryOptions options,
                                                    String user, boolean ignoreException) throws CatalogException;
 
+    /**
+     * Resolve a list of entries that may combine different kinds of identifiers (ids, uuids, paths...), running one query per kind of
+     * identifier instead of one query per entry. Entries that can not be found or seen by the user are reported as errors in the result
+     * instead of raising an exception. Only those are queried again individually, to report the proper error.
+     *
+     * @param studyUid  Study uid.
+     * @param entryList List of entries as provided by the user.
+     * @param options   QueryOptions object.
+     * @param user      User id.
+     * @return the resolved entries.
+     */
+    ResolvedEntries<R> resolve(long studyUid, List<String> entryList, QueryOptions options, String user) {
+        ResolvedEntries<R> resolved = new ResolvedEntries<>();
+        if (ListUtils.isEmpty(entryList)) {
+            return resolved;
+        }
+
+        // Group the entries by the kind of identifier, as each kind needs a different query
+        Map<String, List<String>> entryGroups = new LinkedHashMap<>();
+        for (String entry : ListUtils.unique(entryList)) {
+            entryGroups.computeIfAbsent(getIdentifierType(entry), k -> new ArrayList<>()).add(entry);
+        }
+
+        for (List<String> entryGroup : entryGroups.values()) {
+            List<String> pendingEntries = entryGroup;
+            try {
+                List<List<R>> results = internalGet(studyUid, entryGroup, null, options, user, true).getVersionedResults();
+                if (results.size() == entryGroup.size()) {
+                    pendingEntries = new ArrayList<>();
+                    for (int i = 0; i < entryGroup.size(); i++) {
+                        if (results.get(i).isEmpty()) {
+                            pendingEntries.add(entryGroup.get(i));
+                        } else {
+                            resolved.add(entryGroup.get(i), results.get(i).get(0));
+                        }
+                    }
+                }
+            } catch (CatalogException e) {
+                logger.debug("Could not resolve {} entries at once: {}", entryGroup.size(), e.getMessage());
+            }
+
+            // Resolve the remaining entries one by one to report the error of each of them
+            for (String entry : pendingEntries) {
+                try {
+                    OpenCGAResult<R> result = internalGet(studyUid, entry, options, user);
+                    if (result.getNumResults() == 0) {
+                        resolved.addError(entry, getEntity().name().toLowerCase() + " '" + entry + "' not found");
+                    } else {
+                        resolved.add(entry, result.first());
+                    }
+                } catch (CatalogException e) {
+                    resolved.addError(entry, e.getMessage());
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Flag the resolved entries over which the user does not have a permission. All the entries are checked at once, and only if any of
+     * them is denied, they are checked individually.
+     *
+     * @param resolved          Resolved entries.
+     * @param permissionChecker Function checking the permission over a list of uids.
+     */
+    void checkPermissions(ResolvedEntries<R> resolved, PermissionChecker permissionChecker) {
+        if (resolved.size() == 0) {
+            return;
+        }
+        try {
+            permissionChecker.check(resolved.getUids());
+        } catch (CatalogException e) {
+            for (Map.Entry<String, R> entry : resolved.getResults().entrySet()) {
+                try {
+                    permissionChecker.check(Collections.singletonList(entry.getValue().getUid()));
+                } catch (CatalogException e1) {
+                    resolved.deny(entry.getKey(), e1.getMessage());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PermissionChecker {
+        void check(List<Long> uids) throws CatalogException;
+    }
+
+    /**
+     * Get the kind of identifier of an entry. Entries of the same kind can be resolved with a single query.
+     *
+     * @param entry Entry as provided by the user.
+     * @return the kind of identifier.
+     */
+    String getIdentifierType(String entry) {
+        return UuidUtils.isOpenCgaUuid(entry) ? "uuid" : "id";
+    }
+
     /**
      * Create an entry in catalog.
      *
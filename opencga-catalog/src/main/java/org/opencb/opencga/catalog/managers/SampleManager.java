@@ -32,6 +32,7 @@ import org.opencb.opencga.catalog.db.api.*;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
+import org.opencb.opencga.catalog.models.ResolvedEntries;
 import org.opencb.opencga.catalog.stats.solr.CatalogSolrManager;
 import org.opencb.opencga.catalog.utils.AnnotationUtils;
 import org.opencb.opencga.catalog.utils.Constants;
@@ -372,17 +373,16 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             }
 
             if (queryFileManager) {
-                // Obtain the corresponding fileIds
-                InternalGetDataResult<File> result = catalogManager.getFileManager().internalGet(study.getUid(),
-                        query.getAsStringList(SampleDBAdaptor.QueryParams.FILE_IDS.key()),
-                        FileManager.INCLUDE_FILE_IDS, userId, true);
-                if (result.getMissing() == null || result.getMissing().isEmpty()) {
+                // Obtain the corresponding fileIds. Ids, paths and uuids can be mixed.
+                ResolvedEntries<File> result = catalogManager.getFileManager().resolve(study.getUid(), fileIds,
+                        FileManager.INCLUDE_FILE_IDS, userId);
+                if (result.getErrors().isEmpty()) {
                     // We have obtained all the results, so we add them to the query object
-                    query.put(SampleDBAdaptor.QueryParams.FILE_IDS.key(), result.getResults().stream().map(File::getId)
-                            .collect(Collectors.toList()));
+                    query.put(SampleDBAdaptor.QueryParams.FILE_IDS.key(), result.getResults().values().stream().map(File::getId)
+                            .distinct().collect(Collectors.toList()));
                 } else {
                     // We must not fail because of the additional file query, but this query should not get any results
-                    logger.warn("Missing files: {}\nChanged query to ensure no results are returned", result.getMissing());
+                    logger.warn("Missing files: {}\nChanged query to ensure no results are returned", result.getErrors());
                     query.put(SampleDBAdaptor.QueryParams.UID.key(), -1);
                     query.remove(SampleDBAdaptor.QueryParams.FILE_IDS.key());
                 }
@@ -401,16 +401,16 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             }
 
             if (queryIndividualManager) {
-                InternalGetDataResult<Individual> result = catalogManager.getIndividualManager().internalGet(study.getUid(),
-                        query.getAsStringList(SampleDBAdaptor.QueryParams.INDIVIDUAL_ID.key()),
-                        IndividualManager.INCLUDE_INDIVIDUAL_IDS, userId, true);
-                if (result.getMissing() == null || result.getMissing().isEmpty()) {
+                // Ids and uuids can be mixed
+                ResolvedEntries<Individual> result = catalogManager.getIndividualManager().resolve(study.getUid(), individualIds,
+                        IndividualManager.INCLUDE_INDIVIDUAL_IDS, userId);
+                if (result.getErrors().isEmpty()) {
                     // We have obtained all the results, so we add them to the query object
-                    query.put(SampleDBAdaptor.QueryParams.INDIVIDUAL_ID.key(), result.getResults().stream().map(Individual::getId)
-                            .collect(Collectors.toList()));
+                    query.put(SampleDBAdaptor.QueryParams.INDIVIDUAL_ID.key(), result.getResults().values().stream()
+                            .map(Individual::getId).distinct().collect(Collectors.toList()));
                 } else {
                     // We must not fail because of the additional individual query, but this query should not get any results
-                    logger.warn("Missing individuals: {}\nChanged query to ensure no results are returned", result.getMissing());
+                    logger.warn("Missing individuals: {}\nChanged query to ensure no results are returned", result.getErrors());
                     query.put(SampleDBAdaptor.QueryParams.UID.key(), -1);
                     query.remove(SampleDBAdaptor.QueryParams.INDIVIDUAL_ID.key());
                 }
@@ -482,25 +482,30 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             throw e;
         }
 
+        // Resolve all the samples and check the permissions at once
+        ResolvedEntries<Sample> resolvedSamples = resolve(study.getUid(), sampleIds, INCLUDE_SAMPLE_IDS, userId);
+        if (checkPermissions) {
+            checkPermissions(resolvedSamples, uids -> authorizationManager.checkSamplePermissions(study.getUid(), uids, userId,
+                    SampleAclEntry.SamplePermissions.DELETE));
+        }
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult result = OpenCGAResult.empty();
         for (String id : sampleIds) {
             String sampleId = id;
             String sampleUuid = "";
             try {
-                OpenCGAResult<Sample> internalResult = internalGet(study.getUid(), id, INCLUDE_SAMPLE_IDS, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Sample '" + id + "' not found");
+                Sample sample = resolvedSamples.get(id);
+                if (sample == null) {
+                    throw new CatalogException(resolvedSamples.getError(id));
                 }
-                Sample sample = internalResult.first();
 
                 // We set the proper values for the audit
                 sampleId = sample.getId();
                 sampleUuid = sample.getUuid();
 
-                if (checkPermissions) {
-                    authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId,
-                            SampleAclEntry.SamplePermissions.DELETE);
+                if (!resolvedSamples.isPermitted(id)) {
+                    throw new CatalogAuthorizationException(resolvedSamples.getError(id));
                 }
 
                 // Check if the sample can be deleted
@@ -1037,6 +1042,9 @@ public class SampleManager extends AnnotationSetManager<Sample> {
                 .append("options", options)
                 .append("token", token);
 
+        // Resolve all the samples at once
+        ResolvedEntries<Sample> resolvedSamples = resolve(study.getUid(), sampleIds, INCLUDE_SAMPLE_IDS, userId);
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Sample> result = OpenCGAResult.empty();
         for (String id : sampleIds) {
@@ -1044,11 +1052,10 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             String sampleUuid = "";
 
             try {
-                OpenCGAResult<Sample> internalResult = internalGet(study.getUid(), id, INCLUDE_SAMPLE_IDS, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Sample '" + id + "' not found");
+                Sample sample = resolvedSamples.get(id);
+                if (sample == null) {
+                    throw new CatalogException(resolvedSamples.getError(id));
                 }
-                Sample sample = internalResult.first();
 
                 // We set the proper values for the audit
                 sampleId = sample.getId();
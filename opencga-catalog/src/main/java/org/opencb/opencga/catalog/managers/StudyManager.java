@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.opencb.biodata.models.common.Status;
 import org.opencb.commons.datastore.core.Event;
+import org.opencb.commons.datastore.core.FacetField;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
@@ -702,6 +703,8 @@ public class StudyManager extends AbstractManager {
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
             throw e;
+        } finally {
+            authorizationManager.invalidateCache(study.getUid());
         }
     }
 
@@ -732,6 +735,8 @@ public class StudyManager extends AbstractManager {
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
             throw e;
+        } finally {
+            authorizationManager.invalidateCache(study.getUid());
         }
     }
 
@@ -866,6 +871,68 @@ public class StudyManager extends AbstractManager {
         return results;
     }
 
+    /**
+     * Fetch the summary counters of the entries of a resource, such as the number of samples by status or phenotype. The counters are
+     * kept up to date as entries are created, updated or deleted, so they are served without scanning the entries. As they count every
+     * entry of the study, they are only served to the owner and admins; for the rest of users the summary is calculated from the
+     * entries they are allowed to see.
+     *
+     * @param studyStr Study id.
+     * @param resource Resource. One of {@link SummaryDBAdaptor#RESOURCES}.
+     * @param token    Token of the user.
+     * @return one FacetField per summarised field, with the number of entries of the study and one bucket per value.
+     * @throws CatalogException if the user cannot view the study or the resource is not summarised.
+     */
+    public OpenCGAResult<FacetField> getEntitySummary(String studyStr, Enums.Resource resource, String token) throws CatalogException {
+        String userId = catalogManager.getUserManager().getUserId(token);
+        Study study = resolveId(studyStr, userId);
+
+        authorizationManager.checkCanViewStudy(study.getUid(), userId);
+        ParamUtils.checkObj(resource, "resource");
+        if (!SummaryDBAdaptor.RESOURCES.contains(resource)) {
+            throw new CatalogException("No summary available for " + resource + ". Available resources: " + SummaryDBAdaptor.RESOURCES);
+        }
+
+        // Entry ACLs may hide some of the entries even to users with study-wide VIEW permissions
+        if (authorizationManager.isOwnerOrAdmin(study.getUid(), userId)) {
+            return catalogDBAdaptorFactory.getCatalogSummaryDBAdaptor().get(study.getUid(), resource);
+        } else {
+            return catalogDBAdaptorFactory.getCatalogSummaryDBAdaptor().get(study.getUid(), resource, userId);
+        }
+    }
+
+    /**
+     * Recalculate from scratch the summary counters of every resource of the study.
+     *
+     * @param studyStr Study id.
+     * @param token    Token of the user.
+     * @return the result of the rebuild.
+     * @throws CatalogException if the user is not an owner or administrator of the study.
+     */
+    public OpenCGAResult<?> rebuildEntitySummary(String studyStr, String token) throws CatalogException {
+        String userId = catalogManager.getUserManager().getUserId(token);
+        Study study = resolveId(studyStr, userId);
+
+        ObjectMap auditParams = new ObjectMap()
+                .append("studyId", studyStr)
+                .append("token", token);
+        try {
+            authorizationManager.checkIsOwnerOrAdmin(study.getUid(), userId);
+
+            OpenCGAResult<?> result = catalogDBAdaptorFactory.getCatalogSummaryDBAdaptor().rebuild(study.getUid());
+
+            auditManager.audit(userId, Enums.Action.UPDATE_INTERNAL, Enums.Resource.STUDY, study.getId(),
+                    study.getUuid(), study.getId(), study.getUuid(), auditParams,
+                    new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+            return result;
+        } catch (CatalogException e) {
+            auditManager.audit(userId, Enums.Action.UPDATE_INTERNAL, Enums.Resource.STUDY, study.getId(),
+                    study.getUuid(), study.getId(), study.getUuid(), auditParams,
+                    new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+            throw e;
+        }
+    }
+
     public OpenCGAResult<Group> createGroup(String studyStr, String groupId, List<String> users, String sessionId)
             throws CatalogException {
         ParamUtils.checkParameter(groupId, "group id");
@@ -931,6 +998,8 @@ public class StudyManager extends AbstractManager {
             auditManager.audit(userId, Enums.Action.ADD_STUDY_GROUP, Enums.Resource.STUDY, study.getId(), study.getUuid(),
                     study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
             throw e;
+        } finally {
+            authorizationManager.invalidateCache(study.getUid());
         }
     }
 
@@ -1111,6 +1180,9 @@ public class StudyManager extends AbstractManager {
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
             throw e;
+        } finally {
+            // Some of the changes may have been written before a failure
+            authorizationManager.invalidateCache(study.getUid());
         }
     }
 
@@ -1226,6 +1298,8 @@ public class StudyManager extends AbstractManager {
             auditManager.audit(userId, Enums.Action.REMOVE_STUDY_GROUP, Enums.Resource.STUDY, study.getId(), study.getUuid(),
                     study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
             throw e;
+        } finally {
+            authorizationManager.invalidateCache(study.getUid());
         }
     }
 
@@ -16,6 +16,8 @@
 
 package org.opencb.opencga.catalog.managers;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.opencb.commons.datastore.core.Event;
 import org.opencb.commons.datastore.core.ObjectMap;
@@ -55,6 +57,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -67,6 +70,11 @@ public class UserManager extends AbstractManager {
 
     private String INTERNAL_AUTHORIZATION = CatalogAuthenticationManager.INTERNAL;
     private Map<String, AuthenticationManager> authenticationManagerMap;
+    // Authentication origin that resolved each token, so the rest of the authentication managers are not tried again
+    private final Cache<String, String> tokenOrigins = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
 
     protected static final String EMAIL_PATTERN = "^['_A-Za-z0-9-\\+]+(\\.['_A-Za-z0-9-]+)*@"
             + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
@@ -857,6 +865,8 @@ public class UserManager extends AbstractManager {
                 studyDBAdaptor.resyncUserWithSyncedGroups(userId, remoteGroups, authId);
             } catch (CatalogException e) {
                 logger.error("Could not update synced groups for user '" + userId + "'\n" + e.getMessage(), e);
+            } finally {
+                authorizationManager.invalidateCache();
             }
         }
 
@@ -1367,11 +1377,29 @@ public class UserManager extends AbstractManager {
      * @throws CatalogException when the session id does not correspond to any user or the token has expired.
      */
     public String getUserId(String token) throws CatalogException {
+        String origin = token == null ? null : tokenOrigins.getIfPresent(token);
+        if (origin != null && authenticationManagerMap.containsKey(origin)) {
+            try {
+                String userId = authenticationManagerMap.get(origin).getUserId(token);
+                userDBAdaptor.checkId(userId);
+                return userId;
+            } catch (Exception e) {
+                logger.debug("Could not get user from token using {} authentication manager. {}", origin, e.getMessage(), e);
+                tokenOrigins.invalidate(token);
+            }
+        }
+
         for (Map.Entry<String, AuthenticationManager> entry : authenticationManagerMap.entrySet()) {
+            if (entry.getKey().equals(origin)) {
+                continue;
+            }
             AuthenticationManager authenticationManager = entry.getValue();
             try {
                 String userId = authenticationManager.getUserId(token);
                 userDBAdaptor.checkId(userId);
+                if (token != null) {
+                    tokenOrigins.put(token, entry.getKey());
+                }
                 return userId;
             } catch (Exception e) {
                 logger.debug("Could not get user from token using {} authentication manager. {}", entry.getKey(), e.getMessage(), e);
@@ -556,11 +556,21 @@ public class MigrationManager {
             migrationRun = migrationDBAdaptor.get(annotation.id()).first();
             if (migrationRun == null) {
                 migrationRun = new MigrationRun();
+            } else if ((migrationRun.getStatus() != MigrationRun.MigrationStatus.PENDING
+                    && migrationRun.getStatus() != MigrationRun.MigrationStatus.ERROR)
+                    || migrationRun.getPatch() != annotation.patch()) {
+                // Checkpoints are only reused to resume an interrupted or failed execution of the same patch
+                migrationRun.setCheckpoints(new LinkedList<>());
+            } else if (CollectionUtils.isNotEmpty(migrationRun.getCheckpoints())) {
+                logger.info("Resuming migration '{}'. Skipping {} completed partitions", annotation.id(),
+                        migrationRun.getCheckpoints().size());
             }
             migrationRun.setStatus(MigrationRun.MigrationStatus.PENDING);
             migrationRun.setId(annotation.id());
             migrationRun.setDescription(annotation.description());
             migrationRun.setVersion(annotation.version());
+            migrationRun.setStart(start);
+            migrationRun.setPatch(annotation.patch());
         } catch (CatalogDBException e) {
             throw new MigrationException("Error reading migration run from catalog", e);
         }
@@ -584,6 +594,9 @@ public class MigrationManager {
             // Clear exception
             migrationRun.setException(null);
             migrationRun.setStatus(status);
+            if (status != MigrationRun.MigrationStatus.ERROR) {
+                migrationRun.setCheckpoints(new LinkedList<>());
+            }
             if (status == MigrationRun.MigrationStatus.DONE) {
                 logger.info("Migration '{}' succeeded : {}", annotation.id(), TimeUtils.durationToString(stopWatch));
             } else if (status == MigrationRun.MigrationStatus.ON_HOLD) {
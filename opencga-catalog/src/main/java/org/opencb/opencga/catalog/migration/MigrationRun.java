@@ -54,6 +54,11 @@ public class MigrationRun {
      */
     private String exception;
 
+    /**
+     * Partitions of the migration already completed. Used to resume an interrupted migration without processing them again.
+     */
+    private List<String> checkpoints = new LinkedList<>();
+
     public enum MigrationStatus {
         /**
          * Migration not needed. The migration refers to an older OpenCGA version.
@@ -123,6 +128,7 @@ public class MigrationRun {
         sb.append(", patch=").append(patch);
         sb.append(", status=").append(status);
         sb.append(", exception='").append(exception).append('\'');
+        sb.append(", checkpoints=").append(checkpoints);
         sb.append('}');
         return sb.toString();
     }
@@ -222,4 +228,21 @@ public class MigrationRun {
         this.exception = exception;
         return this;
     }
+
+    public List<String> getCheckpoints() {
+        return checkpoints;
+    }
+
+    public MigrationRun setCheckpoints(List<String> checkpoints) {
+        this.checkpoints = checkpoints;
+        return this;
+    }
+
+    public MigrationRun addCheckpoint(String checkpoint) {
+        if (this.checkpoints == null) {
+            this.checkpoints = new LinkedList<>();
+        }
+        this.checkpoints.add(checkpoint);
+        return this;
+    }
 }
@@ -2,7 +2,9 @@ package org.opencb.opencga.catalog.migration;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.WriteModel;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.Document;
@@ -11,7 +13,10 @@ import org.opencb.commons.ProgressLogger;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.commons.datastore.mongodb.MongoDBConfiguration;
+import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptor;
 import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptorFactory;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.core.common.JacksonUtils;
 import org.opencb.opencga.core.config.Configuration;
@@ -24,12 +29,20 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public abstract class MigrationTool {
 
+    /**
+     * Param with the maximum number of partitions migrated in parallel.
+     */
+    public static final String NUM_THREADS = "numThreads";
+    public static final int DEFAULT_NUM_THREADS = 4;
+
     protected Configuration configuration;
     protected CatalogManager catalogManager;
     protected MongoDBAdaptorFactory dbAdaptorFactory;
@@ -168,11 +181,107 @@ public abstract class MigrationTool {
         void accept(Document document);
     }
 
+    @FunctionalInterface
+    protected interface PartitionFunc {
+        void accept(String partition) throws Exception;
+    }
+
     protected final void migrateCollection(String collection, Bson query, Bson projection,
                                            MigrateCollectionFunc migrateFunc) {
         migrateCollection(collection, collection, query, projection, migrateFunc);
     }
 
+    /**
+     * Migrate the documents of a collection running one partition per study in parallel. See {@link #runInParallel}.
+     *
+     * @param collection  Collection to migrate.
+     * @param query       Query to filter the documents to migrate.
+     * @param projection  Projection of the documents.
+     * @param migrateFunc Function to migrate each document.
+     * @throws MigrationException if any of the studies could not be migrated.
+     */
+    protected final void migrateCollectionByStudy(String collection, Bson query, Bson projection, MigrateCollectionFunc migrateFunc)
+            throws MigrationException {
+        Map<String, Long> partitions = new LinkedHashMap<>();
+        queryMongo(MongoDBAdaptorFactory.STUDY_COLLECTION, new Document(),
+                Projections.include(StudyDBAdaptor.QueryParams.UID.key(), StudyDBAdaptor.QueryParams.FQN.key()),
+                doc -> partitions.put(collection + ":" + doc.getString(StudyDBAdaptor.QueryParams.FQN.key()),
+                        doc.get(StudyDBAdaptor.QueryParams.UID.key(), Number.class).longValue()));
+
+        runInParallel(partitions.keySet(), partition -> migrateCollection(collection,
+                Filters.and(query, Filters.eq(MongoDBAdaptor.PRIVATE_STUDY_UID, partitions.get(partition))), projection, migrateFunc));
+    }
+
+    /**
+     * Run a migration function over a list of independent partitions (studies, collections...) using up to {@link #NUM_THREADS}
+     * threads. Every partition successfully migrated is recorded as a checkpoint of the MigrationRun, so if the migration is
+     * interrupted or fails, the next execution will skip the partitions already completed.
+     *
+     * @param partitions    Unique ids of the partitions to migrate.
+     * @param partitionFunc Function migrating one partition.
+     * @throws MigrationException if any of the partitions could not be migrated.
+     */
+    protected final void runInParallel(Collection<String> partitions, PartitionFunc partitionFunc) throws MigrationException {
+        Set<String> checkpoints = migrationRun.getCheckpoints() != null
+                ? new HashSet<>(migrationRun.getCheckpoints())
+                : Collections.emptySet();
+        List<String> pendingPartitions = new ArrayList<>(partitions.size());
+        for (String partition : partitions) {
+            if (checkpoints.contains(partition)) {
+                privateLogger.info("Skipping partition '{}'. Already migrated", partition);
+            } else {
+                pendingPartitions.add(partition);
+            }
+        }
+        if (pendingPartitions.isEmpty()) {
+            privateLogger.info("Nothing to do!");
+            return;
+        }
+
+        int numThreads = params != null ? params.getInt(NUM_THREADS, DEFAULT_NUM_THREADS) : DEFAULT_NUM_THREADS;
+        numThreads = Math.max(1, Math.min(numThreads, pendingPartitions.size()));
+        privateLogger.info("Migrating {} partitions using {} threads", pendingPartitions.size(), numThreads);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        for (String partition : pendingPartitions) {
+            futures.put(partition, executorService.submit(() -> {
+                partitionFunc.accept(partition);
+                addCheckpoint(partition);
+                return null;
+            }));
+        }
+        executorService.shutdown();
+
+        // Wait for every partition, so all the successful ones are recorded even if some other fails
+        MigrationException exception = null;
+        for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new MigrationException("Interrupted migrating partition '" + entry.getKey() + "'", e);
+            } catch (ExecutionException e) {
+                privateLogger.error("Error migrating partition '{}'", entry.getKey(), e.getCause());
+                if (exception == null) {
+                    exception = new MigrationException("Error migrating partition '" + entry.getKey() + "': "
+                            + e.getCause().getMessage(), e.getCause());
+                } else {
+                    exception.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private synchronized void addCheckpoint(String partition) throws CatalogDBException {
+        migrationRun.addCheckpoint(partition);
+        dbAdaptorFactory.getMigrationDBAdaptor().upsert(migrationRun);
+    }
+
     protected final void migrateCollection(String inputCollection, String outputCollection, Bson query, Bson projection,
                                            MigrateCollectionFunc migrateFunc) {
         migrateCollection(getMongoCollection(inputCollection), getMongoCollection(outputCollection), query, projection, migrateFunc);
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.models;
+
+import org.opencb.opencga.core.models.IPrivateStudyUid;
+
+import java.util.*;
+
+/**
+ * Entries resolved in bulk from the identifiers provided by the user (ids, uuids, paths...).
+ *
+ * Every entry is either resolved, or has an error message explaining why it could not be resolved. Resolved entries can also be
+ * flagged as not permitted when the user lacks a permission required by the operation; those keep the resolved entity, so the proper
+ * id and uuid can still be reported.
+ *
+ * @param <T> Type of the resolved entries.
+ */
+public class ResolvedEntries<T extends IPrivateStudyUid> {
+
+    private final Map<String, T> results;
+    private final Map<String, String> errors;
+
+    public ResolvedEntries() {
+        this.results = new LinkedHashMap<>();
+        this.errors = new HashMap<>();
+    }
+
+    public ResolvedEntries<T> add(String entry, T result) {
+        results.put(entry, result);
+        return this;
+    }
+
+    public ResolvedEntries<T> addError(String entry, String errorMsg) {
+        errors.put(entry, errorMsg);
+        return this;
+    }
+
+    /**
+     * Flag a resolved entry as not permitted.
+     *
+     * @param entry    Entry as provided by the user.
+     * @param errorMsg Reason why the user is not allowed to operate over the entry.
+     * @return this object.
+     */
+    public ResolvedEntries<T> deny(String entry, String errorMsg) {
+        return addError(entry, errorMsg);
+    }
+
+    /**
+     * Get the entity resolved from the entry provided by the user, even if it is flagged as not permitted.
+     *
+     * @param entry Entry as provided by the user.
+     * @return the resolved entity, or null if it could not be resolved.
+     */
+    public T get(String entry) {
+        return results.get(entry);
+    }
+
+    public boolean isPermitted(String entry) {
+        return results.containsKey(entry) && !errors.containsKey(entry);
+    }
+
+    public String getError(String entry) {
+        return errors.get(entry);
+    }
+
+    public Map<String, T> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    public Map<String, String> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Get the uids of all the resolved entries, keyed by the entry provided by the user.
+     *
+     * @return a map of entry to uid.
+     */
+    public Map<String, Long> getUidMap() {
+        Map<String, Long> uidMap = new LinkedHashMap<>(results.size());
+        results.forEach((entry, result) -> uidMap.put(entry, result.getUid()));
+        return uidMap;
+    }
+
+    public List<Long> getUids() {
+        Set<Long> uids = new LinkedHashSet<>(results.size());
+        results.values().forEach(result -> uids.add(result.getUid()));
+        return new ArrayList<>(uids);
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ResolvedEntries{");
+        sb.append("results=").append(results.keySet());
+        sb.append(", errors=").append(errors);
+        sb.append('}');
+        return sb.toString();
+    }
+}
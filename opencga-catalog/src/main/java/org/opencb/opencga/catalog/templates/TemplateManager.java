@@ -18,26 +18,36 @@ package org.opencb.opencga.catalog.templates;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.time.StopWatch;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.catalog.db.api.*;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
+import org.opencb.opencga.catalog.managers.ResourceManager;
 import org.opencb.opencga.catalog.templates.config.TemplateFile;
 import org.opencb.opencga.catalog.templates.config.TemplateManifest;
 import org.opencb.opencga.catalog.templates.config.TemplateStudy;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.core.common.GitRepositoryState;
+import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.models.IPrivateStudyUid;
+import org.opencb.opencga.core.models.clinical.ClinicalAnalysis;
 import org.opencb.opencga.core.models.clinical.ClinicalAnalysisUpdateParams;
+import org.opencb.opencga.core.models.cohort.Cohort;
 import org.opencb.opencga.core.models.cohort.CohortUpdateParams;
 import org.opencb.opencga.core.models.common.Enums;
 import org.opencb.opencga.core.models.family.Family;
 import org.opencb.opencga.core.models.family.FamilyUpdateParams;
+import org.opencb.opencga.core.models.file.File;
 import org.opencb.opencga.core.models.file.FileLinkParams;
 import org.opencb.opencga.core.models.individual.Individual;
 import org.opencb.opencga.core.models.individual.IndividualUpdateParams;
 import org.opencb.opencga.core.models.job.Job;
+import org.opencb.opencga.core.models.panel.Panel;
 import org.opencb.opencga.core.models.panel.PanelUpdateParams;
+import org.opencb.opencga.core.models.sample.Sample;
 import org.opencb.opencga.core.models.sample.SampleUpdateParams;
 import org.opencb.opencga.core.models.study.*;
 import org.opencb.opencga.core.response.OpenCGAResult;
@@ -45,31 +55,72 @@ import org.opencb.opencga.core.response.RestResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 
 public class TemplateManager {
 
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_NUM_THREADS = 4;
+    static final String CHECKPOINT_FILE = ".template.checkpoint";
+
     private final CatalogManager catalogManager;
 
     private final Logger logger;
     private final boolean resume;
     private final boolean overwrite;
+    // Skip the entries loaded by a previous execution. When overwriting, all the entries are processed again.
+    private final boolean resumeFromCheckpoint;
 
     private final String token;
 
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int numThreads = DEFAULT_NUM_THREADS;
+
+    private ExecutorService executorService;
+    private Checkpoint checkpoint;
+
     public TemplateManager(CatalogManager catalogManager, boolean resume, boolean overwrite, String token) {
         this.catalogManager = catalogManager;
         this.overwrite = overwrite;
         this.resume = resume || overwrite;
+        this.resumeFromCheckpoint = resume && !overwrite;
         this.token = token;
 
         this.logger = LoggerFactory.getLogger(TemplateManager.class);
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public TemplateManager setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public TemplateManager setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+        return this;
+    }
+
     public void execute(TemplateManifest manifest, Path path) throws CatalogException {
 //        filterOutTemplate(template, studiesSubSet);
 
@@ -83,18 +134,36 @@ public class TemplateManager {
         // NOTE: Do not change the order of the following resource creation.
         String studyFqn = addStudyMetadata(manifest.getConfiguration().getProjectId(), study);
 
-        createIndividuals(studyFqn, path);
-        createSamples(studyFqn, path);
-        createCohorts(studyFqn, path);
-        createFamilies(studyFqn, path);
-        createPanels(studyFqn, path);
-        createClinicalAnalyses(studyFqn, path);
-
-        // TODO: What is this?
-//        if (study.getVariantEngineConfiguration() != null) {
-//            configureVariantEngine(studyFqn, study);
-//        }
-        createFiles(studyFqn, path);
+        checkpoint = new Checkpoint(path.resolve(CHECKPOINT_FILE));
+        if (resumeFromCheckpoint) {
+            checkpoint.load();
+        } else {
+            checkpoint.delete();
+        }
+        executorService = numThreads > 1
+                ? Executors.newFixedThreadPool(numThreads, new BasicThreadFactory.Builder().namingPattern("template-loader-%d").build())
+                : null;
+        try {
+            createIndividuals(studyFqn, path);
+            createSamples(studyFqn, path);
+            createCohorts(studyFqn, path);
+            createFamilies(studyFqn, path);
+            createPanels(studyFqn, path);
+            createClinicalAnalyses(studyFqn, path);
+
+            // TODO: What is this?
+//            if (study.getVariantEngineConfiguration() != null) {
+//                configureVariantEngine(studyFqn, study);
+//            }
+            createFiles(studyFqn, path);
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+                executorService = null;
+            }
+        }
+        // Template fully loaded
+        checkpoint.delete();
 //            if (CollectionUtils.isNotEmpty(study.getFiles())) {
 //                List<String> studyIndexVcfJobIds = fetchFiles(template, studyFqn, study);
 //                projectIndexVcfJobIds.addAll(studyIndexVcfJobIds);
@@ -244,84 +313,49 @@ public class TemplateManager {
 //    }
 
     private void createIndividuals(String studyFqn, Path path) throws CatalogException {
-        boolean hasParents = false;
         // Process/Create individuals without parents
-        try (TemplateEntryIterator<IndividualUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "individuals", IndividualUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                IndividualUpdateParams individual = iterator.next();
-
-                Query query = new Query(IndividualDBAdaptor.QueryParams.ID.key(), individual.getId());
-                boolean exists = catalogManager.getIndividualManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Individual '" + individual.getId() + "' already exists. Do you want to resume the load?");
-                }
-
-                if (!hasParents && hasParents(individual)) {
-                    hasParents = true;
-                }
-
-                // Remove parents and samples
-                individual.setFather(null);
-                individual.setMother(null);
-                individual.setSamples(null);
-
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating individuals for study '{}'", studyFqn);
+        processEntries(studyFqn, path, "individuals", "individuals", IndividualUpdateParams.class, IndividualUpdateParams::getId,
+                IndividualUpdateParams::getId,
+                ids -> getExistingIds(catalogManager.getIndividualManager(), studyFqn, IndividualDBAdaptor.QueryParams.ID.key(), ids,
+                        Individual::getId),
+                (individual, exists) -> {
+                    // Remove parents and samples
+                    individual.setFather(null);
+                    individual.setMother(null);
+                    individual.setSamples(null);
+
+                    if (!exists) {
+                        // Create individual
+                        logger.debug("Create individual '{}'", individual.getId());
+                        catalogManager.getIndividualManager().create(studyFqn, individual.toIndividual(), QueryOptions.empty(), token);
+                        return true;
+                    } else if (overwrite) {
+                        String individualId = individual.getId();
+                        // Remove individualId
+                        individual.setId(null);
+
+                        logger.debug("Update individual '{}'", individualId);
+                        catalogManager.getIndividualManager().update(studyFqn, individualId, individual, QueryOptions.empty(), token);
+                        return true;
                     }
-
-                    // Create individual
-                    logger.info("Create individual '{}'", individual.getId());
-                    catalogManager.getIndividualManager().create(studyFqn, individual.toIndividual(), QueryOptions.empty(), token);
-
-                    count++;
-                } else if (overwrite) {
-                    String individualId = individual.getId();
-                    // Remove individualId
-                    individual.setId(null);
-
-                    logger.info("Update individual '{}'", individual.getId());
-                    catalogManager.getIndividualManager().update(studyFqn, individualId, individual, QueryOptions.empty(), token);
-
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} individuals processed for study '{}'", count, studyFqn);
-            }
-        }
-
-        // Process parents
-        if (hasParents) {
-            try (TemplateEntryIterator<IndividualUpdateParams> iterator =
-                         new TemplateEntryIterator<>(path, "individuals", IndividualUpdateParams.class)) {
-                int count = 0;
-                while (iterator.hasNext()) {
-                    if (count == 0) {
-                        logger.info("Processing individual parents for study '{}'", studyFqn);
+                    return false;
+                });
+
+        // Process parents once all the individuals exist
+        processEntries(studyFqn, path, "individuals", "individuals.parents", IndividualUpdateParams.class, IndividualUpdateParams::getId,
+                IndividualUpdateParams::getId, null,
+                (individual, exists) -> {
+                    if (!hasParents(individual)) {
+                        return false;
                     }
-                    IndividualUpdateParams individual = iterator.next();
-
-                    if (hasParents(individual)) {
-                        IndividualUpdateParams updateParams = new IndividualUpdateParams()
-                                .setFather(individual.getFather())
-                                .setMother(individual.getMother());
-                        logger.info("Updating individual '{}' parents", individual.getId());
-
-                        catalogManager.getIndividualManager().update(studyFqn, individual.getId(), updateParams, QueryOptions.empty(),
-                                token);
-
-                        count++;
-                    }
-                }
-                if (count > 0) {
-                    logger.info("Updated parents of {} individuals", count);
-                }
-            }
-        }
+                    IndividualUpdateParams updateParams = new IndividualUpdateParams()
+                            .setFather(individual.getFather())
+                            .setMother(individual.getMother());
+                    logger.debug("Updating individual '{}' parents", individual.getId());
+
+                    catalogManager.getIndividualManager().update(studyFqn, individual.getId(), updateParams, QueryOptions.empty(), token);
+                    return true;
+                });
     }
 
     private boolean hasParents(IndividualUpdateParams individual) {
@@ -406,272 +440,340 @@ public class TemplateManager {
 //    }
 
     private void createSamples(String studyFqn, Path path) throws CatalogException {
-        // Process/Create samples
-        try (TemplateEntryIterator<SampleUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "samples", SampleUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                SampleUpdateParams sample = iterator.next();
-
-                Query query = new Query(SampleDBAdaptor.QueryParams.ID.key(), sample.getId());
-                boolean exists = catalogManager.getSampleManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Sample '" + sample.getId() + "' already exists. Do you want to resume the load?");
-                }
-
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating samples for study '{}'", studyFqn);
+        // Process/Create samples. Samples of the same individual are processed sequentially, as they all modify the individual.
+        processEntries(studyFqn, path, "samples", "samples", SampleUpdateParams.class, SampleUpdateParams::getId,
+                sample -> StringUtils.isNotEmpty(sample.getIndividualId()) ? sample.getIndividualId() : sample.getId(),
+                ids -> getExistingIds(catalogManager.getSampleManager(), studyFqn, SampleDBAdaptor.QueryParams.ID.key(), ids,
+                        Sample::getId),
+                (sample, exists) -> {
+                    if (!exists) {
+                        // Create sample
+                        logger.debug("Create sample '{}'", sample.getId());
+                        catalogManager.getSampleManager().create(studyFqn, sample.toSample(), QueryOptions.empty(), token);
+                        return true;
+                    } else if (overwrite) {
+                        String sampleId = sample.getId();
+                        // Remove sampleId
+                        sample.setId(null);
+
+                        logger.debug("Update sample '{}'", sampleId);
+                        catalogManager.getSampleManager().update(studyFqn, sampleId, sample, QueryOptions.empty(), token);
+                        return true;
                     }
-                    // Create sample
-                    logger.info("Create sample '{}'", sample.getId());
-                    catalogManager.getSampleManager().create(studyFqn, sample.toSample(), QueryOptions.empty(), token);
-
-                    count++;
-                } else if (overwrite) {
-                    String sampleId = sample.getId();
-                    // Remove sampleId
-                    sample.setId(null);
-
-                    logger.info("Update sample '{}'", sample.getId());
-                    catalogManager.getSampleManager().update(studyFqn, sampleId, sample, QueryOptions.empty(), token);
-
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} samples processed for study '{}'", count, studyFqn);
-            }
-        }
+                    return false;
+                });
     }
 
     private void createCohorts(String studyFqn, Path path) throws CatalogException {
-        // Process/Create cohorts
-        try (TemplateEntryIterator<CohortUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "cohorts", CohortUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                CohortUpdateParams cohort = iterator.next();
-
-                Query query = new Query(CohortDBAdaptor.QueryParams.ID.key(), cohort.getId());
-                boolean exists = catalogManager.getCohortManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Cohort '" + cohort.getId() + "' already exists. Do you want to resume the load?");
-                }
-
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating cohorts for study '{}'", studyFqn);
+        // Process/Create cohorts. Cohorts may share samples, so they are processed sequentially.
+        processEntries(studyFqn, path, "cohorts", "cohorts", CohortUpdateParams.class, CohortUpdateParams::getId, cohort -> "",
+                ids -> getExistingIds(catalogManager.getCohortManager(), studyFqn, CohortDBAdaptor.QueryParams.ID.key(), ids,
+                        Cohort::getId),
+                (cohort, exists) -> {
+                    if (!exists) {
+                        // Create cohort
+                        logger.debug("Create cohort '{}'", cohort.getId());
+                        catalogManager.getCohortManager().create(studyFqn, cohort.toCohort(), QueryOptions.empty(), token);
+                        return true;
+                    } else if (overwrite) {
+                        String cohortId = cohort.getId();
+                        // Remove cohortId
+                        cohort.setId(null);
+
+                        logger.debug("Update cohort '{}'", cohortId);
+                        catalogManager.getCohortManager().update(studyFqn, cohortId, cohort, QueryOptions.empty(), token);
+                        return true;
                     }
-
-                    // Create cohort
-                    logger.info("Create cohort '{}'", cohort.getId());
-                    catalogManager.getCohortManager().create(studyFqn, cohort.toCohort(), QueryOptions.empty(), token);
-
-                    count++;
-                } else if (overwrite) {
-                    String cohortId = cohort.getId();
-                    // Remove cohortId
-                    cohort.setId(null);
-
-                    logger.info("Update cohort '{}'", cohort.getId());
-                    catalogManager.getCohortManager().update(studyFqn, cohortId, cohort, QueryOptions.empty(), token);
-
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} cohorts processed for study '{}'", count, studyFqn);
-            }
-        }
+                    return false;
+                });
     }
 
     private void createFamilies(String studyFqn, Path path) throws CatalogException {
-        // Process/Create families
-        try (TemplateEntryIterator<FamilyUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "families", FamilyUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                FamilyUpdateParams family = iterator.next();
-
-                Query query = new Query(FamilyDBAdaptor.QueryParams.ID.key(), family.getId());
-                boolean exists = catalogManager.getFamilyManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Family '" + family.getId() + "' already exists. Do you want to resume the load?");
-                }
-
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating families for study '{}'", studyFqn);
-                    }
-
-                    // Create family
-                    logger.info("Create family '{}'", family.getId());
-                    Family completeFamily = family.toFamily();
-                    if (CollectionUtils.isNotEmpty(completeFamily.getMembers())) {
-                        List<String> memberIds = completeFamily.getMembers().stream().map(Individual::getId).collect(Collectors.toList());
-                        completeFamily.setMembers(null);
-                        catalogManager.getFamilyManager().create(studyFqn, completeFamily, memberIds, QueryOptions.empty(), token);
-                    } else {
-                        catalogManager.getFamilyManager().create(studyFqn, family.toFamily(), QueryOptions.empty(), token);
+        // Process/Create families. Families may share members, so they are processed sequentially.
+        processEntries(studyFqn, path, "families", "families", FamilyUpdateParams.class, FamilyUpdateParams::getId, family -> "",
+                ids -> getExistingIds(catalogManager.getFamilyManager(), studyFqn, FamilyDBAdaptor.QueryParams.ID.key(), ids,
+                        Family::getId),
+                (family, exists) -> {
+                    if (!exists) {
+                        // Create family
+                        logger.debug("Create family '{}'", family.getId());
+                        Family completeFamily = family.toFamily();
+                        if (CollectionUtils.isNotEmpty(completeFamily.getMembers())) {
+                            List<String> memberIds = completeFamily.getMembers().stream().map(Individual::getId)
+                                    .collect(Collectors.toList());
+                            completeFamily.setMembers(null);
+                            catalogManager.getFamilyManager().create(studyFqn, completeFamily, memberIds, QueryOptions.empty(), token);
+                        } else {
+                            catalogManager.getFamilyManager().create(studyFqn, completeFamily, QueryOptions.empty(), token);
+                        }
+                        return true;
+                    } else if (overwrite) {
+                        String familyId = family.getId();
+                        // Remove familyId
+                        family.setId(null);
+
+                        logger.debug("Update family '{}'", familyId);
+                        catalogManager.getFamilyManager().update(studyFqn, familyId, family, QueryOptions.empty(), token);
+                        return true;
                     }
-
-                    count++;
-                } else if (overwrite) {
-                    String familyId = family.getId();
-                    // Remove familyId
-                    family.setId(null);
-
-                    logger.info("Update family '{}'", family.getId());
-                    catalogManager.getFamilyManager().update(studyFqn, familyId, family, QueryOptions.empty(), token);
-
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} families processed for study '{}'", count, studyFqn);
-            }
-        }
+                    return false;
+                });
     }
 
     private void createPanels(String studyFqn, Path path) throws CatalogException {
         // Process/Create panels
-        try (TemplateEntryIterator<PanelUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "panels", PanelUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                PanelUpdateParams panel = iterator.next();
-
-                Query query = new Query(PanelDBAdaptor.QueryParams.ID.key(), panel.getId());
-                boolean exists = catalogManager.getPanelManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Panel '" + panel.getId() + "' already exists. Do you want to resume the load?");
-                }
-
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating panels for study '{}'", studyFqn);
+        processEntries(studyFqn, path, "panels", "panels", PanelUpdateParams.class, PanelUpdateParams::getId, PanelUpdateParams::getId,
+                ids -> getExistingIds(catalogManager.getPanelManager(), studyFqn, PanelDBAdaptor.QueryParams.ID.key(), ids,
+                        Panel::getId),
+                (panel, exists) -> {
+                    if (!exists) {
+                        // Create panel
+                        logger.debug("Create panel '{}'", panel.getId());
+                        catalogManager.getPanelManager().create(studyFqn, panel.toPanel(), QueryOptions.empty(), token);
+                        return true;
+                    } else if (overwrite) {
+                        String panelId = panel.getId();
+                        // Remove panelId
+                        panel.setId(null);
+
+                        logger.debug("Update panel '{}'", panelId);
+                        catalogManager.getPanelManager().update(studyFqn, panelId, panel, QueryOptions.empty(), token);
+                        return true;
                     }
-
-                    // Create family
-                    logger.info("Create panel '{}'", panel.getId());
-                    catalogManager.getPanelManager().create(studyFqn, panel.toPanel(), QueryOptions.empty(), token);
-
-                    count++;
-                } else if (overwrite) {
-                    String panelId = panel.getId();
-                    // Remove panelId
-                    panel.setId(null);
-
-                    logger.info("Update panel '{}'", panel.getId());
-                    catalogManager.getPanelManager().update(studyFqn, panelId, panel, QueryOptions.empty(), token);
-
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} panels processed for study '{}'", count, studyFqn);
-            }
-        }
+                    return false;
+                });
     }
 
     private void createClinicalAnalyses(String studyFqn, Path path) throws CatalogException {
-        // Process/Create Clinical Anlyses
-        try (TemplateEntryIterator<ClinicalAnalysisUpdateParams> iterator =
-                     new TemplateEntryIterator<>(path, "clinical", ClinicalAnalysisUpdateParams.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                ClinicalAnalysisUpdateParams clinical = iterator.next();
-
-                Query query = new Query(ClinicalAnalysisDBAdaptor.QueryParams.ID.key(), clinical.getId());
-                boolean exists = catalogManager.getClinicalAnalysisManager().count(studyFqn, query, token).getNumMatches() > 0;
-
-                if (exists && !resume) {
-                    throw new CatalogException("Clinical Analysis '" + clinical.getId()
-                            + "' already exists. Do you want to resume the load?");
-                }
+        // Process/Create Clinical Analyses. They may share families, individuals and panels, so they are processed sequentially.
+        processEntries(studyFqn, path, "clinical", "clinical", ClinicalAnalysisUpdateParams.class, ClinicalAnalysisUpdateParams::getId,
+                clinical -> "",
+                ids -> getExistingIds(catalogManager.getClinicalAnalysisManager(), studyFqn,
+                        ClinicalAnalysisDBAdaptor.QueryParams.ID.key(), ids, ClinicalAnalysis::getId),
+                (clinical, exists) -> {
+                    if (!exists) {
+                        // Create Clinical Analysis
+                        logger.debug("Create Clinical Analysis '{}'", clinical.getId());
+                        catalogManager.getClinicalAnalysisManager().create(studyFqn, clinical.toClinicalAnalysis(), QueryOptions.empty(),
+                                token);
+                        return true;
+                    } else if (overwrite) {
+                        String clinicalId = clinical.getId();
+                        // Remove clinicalAnalysisId
+                        clinical.setId(null);
+
+                        logger.debug("Update Clinical Analysis '{}'", clinicalId);
+                        catalogManager.getClinicalAnalysisManager().update(studyFqn, clinicalId, clinical, QueryOptions.empty(), token);
+                        return true;
+                    }
+                    return false;
+                });
+    }
 
-                if (!exists) {
-                    if (count == 0) {
-                        logger.info("Creating Clinical Analyses for study '{}'", studyFqn);
+    private void createFiles(String studyFqn, Path path) throws CatalogException {
+        // Process/Create Files. Files under the same top level folder are processed sequentially, as linking a file may create its
+        // parent folders.
+        processEntries(studyFqn, path, "files", "files", TemplateFile.class, TemplateFile::getPath,
+                file -> StringUtils.substringBefore(file.getPath(), "/"),
+                paths -> getExistingIds(catalogManager.getFileManager(), studyFqn, FileDBAdaptor.QueryParams.PATH.key(), paths,
+                        File::getPath),
+                (file, exists) -> {
+                    boolean incomplete = false;
+                    if (!exists) {
+                        if (StringUtils.isEmpty(file.getUri())) {
+                            throw new CatalogException("Missing mandatory parameter 'uri'. Could not link file '" + file.getPath() + "'.");
+                        }
+
+                        // Create File
+                        logger.debug("Create File '{}'", file.getPath());
+                        catalogManager.getFileManager().link(studyFqn,
+                                new FileLinkParams(file.getUri(), file.getPath(), file.getDescription(), file.getCreationDate(),
+                                        file.getModificationDate(), file.getRelatedFiles(), file.getStatus(), null), true, token);
+                        incomplete = true;
                     }
 
-                    // Create Clinical Analysis
-                    logger.info("Create Clinical Analysis '{}'", clinical.getId());
-                    catalogManager.getClinicalAnalysisManager().create(studyFqn, clinical.toClinicalAnalysis(), QueryOptions.empty(),
-                            token);
+                    if (incomplete || overwrite) {
+                        if (overwrite && !incomplete) {
+                            logger.debug("Update File '{}'", file.getPath());
+                        }
+                        catalogManager.getFileManager().update(studyFqn, file.getPath(), file, QueryOptions.empty(), token);
+                        return true;
+                    }
+                    return false;
+                });
+    }
 
-                    count++;
-                } else if (overwrite) {
-                    String clinicalId = clinical.getId();
-                    // Remove clinicalAnalysisId
-                    clinical.setId(null);
+    @FunctionalInterface
+    private interface ExistingEntriesFetcher {
+        Set<String> fetch(List<String> ids) throws CatalogException;
+    }
 
-                    logger.info("Update Clinical Analysis '{}'", clinical.getId());
-                    catalogManager.getClinicalAnalysisManager().update(studyFqn, clinicalId, clinical, QueryOptions.empty(), token);
+    @FunctionalInterface
+    private interface EntryLoader<T> {
+        /**
+         * Create or update an entry.
+         *
+         * @param entry  Entry read from the template.
+         * @param exists Whether the entry already exists in catalog.
+         * @return whether the entry was created or updated.
+         * @throws CatalogException if the entry could not be created or updated.
+         */
+        boolean load(T entry, boolean exists) throws CatalogException;
+    }
 
-                    count++;
-                }
-            }
-            if (count > 0) {
-                logger.info("{} clinical analyses processed for study '{}'", count, studyFqn);
-            }
+    /**
+     * Read the entries of a template file in batches, and load each batch. The existing entries of every batch are obtained with a
+     * single query, and the entries are loaded in parallel. Entries with the same lane key are loaded sequentially and in order, so
+     * entries that modify the same documents never run concurrently.
+     *
+     * After each batch, the number of entries processed is written to the checkpoint file, so a resumed load can skip them.
+     *
+     * @param studyFqn  Study fqn.
+     * @param path      Template directory.
+     * @param entity    Name of the template file, without extension.
+     * @param stage     Name of the stage in the checkpoint file.
+     * @param clazz     Class of the entries.
+     * @param getId     Function to get the id of an entry.
+     * @param getLane   Function to get the lane key of an entry.
+     * @param fetcher   Function to get the ids already existing in catalog. If null, entries are not checked.
+     * @param loader    Function to create or update each entry.
+     * @param <T>       Type of the entries.
+     * @throws CatalogException if any of the entries could not be loaded.
+     */
+    private <T> void processEntries(String studyFqn, Path path, String entity, String stage, Class<T> clazz, Function<T, String> getId,
+                                    Function<T, String> getLane, @Nullable ExistingEntriesFetcher fetcher, EntryLoader<T> loader)
+            throws CatalogException {
+        if (checkpoint.isDone(stage)) {
+            logger.info("Skipping '{}' for study '{}'. Already loaded.", stage, studyFqn);
+            return;
+        }
+        long skip = checkpoint.getProcessed(stage);
+        if (skip > 0) {
+            logger.info("Resuming '{}' for study '{}' after {} entries", stage, studyFqn, skip);
         }
-    }
 
-    private void createFiles(String studyFqn, Path path) throws CatalogException {
-        // Process/Create Files
-        try (TemplateEntryIterator<TemplateFile> iterator =
-                     new TemplateEntryIterator<>(path, "files", TemplateFile.class)) {
-            int count = 0;
-            while (iterator.hasNext()) {
-                TemplateFile file = iterator.next();
-
-                if (StringUtils.isEmpty(file.getPath())) {
-                    throw new CatalogException("Missing mandatory parameter 'path'");
+        StopWatch stopWatch = StopWatch.createStarted();
+        long processed = 0;
+        int numBatches = 0;
+        AtomicInteger count = new AtomicInteger();
+        Set<String> seenIds = new HashSet<>();
+        try (TemplateEntryIterator<T> iterator = new TemplateEntryIterator<>(path, entity, clazz)) {
+            List<T> batch = new ArrayList<>(batchSize);
+            boolean hasNext;
+            do {
+                // TemplateEntryIterator reads the next entry on each call to hasNext
+                hasNext = iterator.hasNext();
+                if (hasNext) {
+                    T entry = iterator.next();
+                    String id = getId.apply(entry);
+                    if (StringUtils.isEmpty(id)) {
+                        throw new CatalogException("Missing mandatory identifier in entry " + (processed + batch.size() + 1)
+                                + " from '" + entity + "'");
+                    }
+                    if (!seenIds.add(id)) {
+                        throw new CatalogException("Duplicated entry '" + id + "' in '" + entity + "'");
+                    }
+                    if (processed < skip) {
+                        // Already processed in a previous execution
+                        processed++;
+                        continue;
+                    }
+                    batch.add(entry);
                 }
-                Query query = new Query(FileDBAdaptor.QueryParams.PATH.key(), file.getPath());
-                boolean exists = catalogManager.getFileManager().count(studyFqn, query, token).getNumMatches() > 0;
 
-                if (exists && !resume) {
-                    throw new CatalogException("File '" + file.getPath() + "' already exists. Do you want to resume the load?");
-                }
+                if (batch.size() == batchSize || (!hasNext && !batch.isEmpty())) {
+                    loadBatch(stage, batch, getId, getLane, fetcher, loader, count);
+                    processed += batch.size();
+                    checkpoint.setProcessed(stage, processed);
+                    batch.clear();
 
-                boolean incomplete = false;
-                if (!exists) {
-                    if (StringUtils.isEmpty(file.getUri())) {
-                        throw new CatalogException("Missing mandatory parameter 'uri'. Could not link file.");
+                    if (++numBatches % 10 == 0) {
+                        logger.info("Processed {} {} for study '{}' in {}", processed, entity, studyFqn,
+                                TimeUtils.durationToString(stopWatch));
                     }
+                }
+            } while (hasNext);
+        }
+        checkpoint.setDone(stage);
+        if (count.get() > 0) {
+            logger.info("{} {} processed for study '{}' in {}", count.get(), stage, studyFqn, TimeUtils.durationToString(stopWatch));
+        }
+    }
 
-                    if (count == 0) {
-                        logger.info("Creating File for study '{}'", studyFqn);
-                    }
+    private <T> void loadBatch(String stage, List<T> batch, Function<T, String> getId, Function<T, String> getLane,
+                               @Nullable ExistingEntriesFetcher fetcher, EntryLoader<T> loader, AtomicInteger count)
+            throws CatalogException {
+        List<String> ids = batch.stream().map(getId).collect(Collectors.toList());
+        Set<String> existingIds = fetcher == null ? Collections.emptySet() : fetcher.fetch(ids);
+        if (!resume && !existingIds.isEmpty()) {
+            throw new CatalogException("Entries " + existingIds + " from '" + stage + "' already exist. Do you want to resume the load?");
+        }
 
-                    // Create File
-                    logger.info("Create File '{}'", file.getPath());
-                    catalogManager.getFileManager().link(studyFqn,
-                            new FileLinkParams(file.getUri(), file.getPath(), file.getDescription(), file.getCreationDate(),
-                                    file.getModificationDate(), file.getRelatedFiles(), file.getStatus(), null), true, token);
-                    incomplete = true;
-                }
+        // Group the entries by lane. Entries of the same lane are loaded in order by the same thread.
+        Map<String, List<T>> lanes = new LinkedHashMap<>();
+        for (T entry : batch) {
+            lanes.computeIfAbsent(getLane.apply(entry), k -> new ArrayList<>()).add(entry);
+        }
 
-                if (incomplete || overwrite) {
-                    if (overwrite && !incomplete) {
-                        logger.info("Update Clinical Analysis '{}'", file.getPath());
+        List<Callable<Void>> tasks = new ArrayList<>(lanes.size());
+        for (List<T> lane : lanes.values()) {
+            tasks.add(() -> {
+                for (T entry : lane) {
+                    if (loader.load(entry, existingIds.contains(getId.apply(entry)))) {
+                        count.incrementAndGet();
                     }
-                    catalogManager.getFileManager().update(studyFqn, file.getPath(), file, QueryOptions.empty(), token);
+                }
+                return null;
+            });
+        }
 
-                    count++;
+        if (executorService == null || tasks.size() == 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (CatalogException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CatalogException("Could not load '" + stage + "': " + e.getMessage(), e);
                 }
             }
-            if (count > 0) {
-                logger.info("{} files processed for study '{}'", count, studyFqn);
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(executorService.submit(task));
+        }
+        // Wait for all the lanes, even if some of them fail, before reporting the first error
+        CatalogException exception = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new CatalogException("Interrupted while loading '" + stage + "'", e);
+            } catch (ExecutionException e) {
+                if (exception == null) {
+                    exception = e.getCause() instanceof CatalogException
+                            ? (CatalogException) e.getCause()
+                            : new CatalogException("Could not load '" + stage + "': " + e.getCause().getMessage(), e.getCause());
+                } else {
+                    exception.addSuppressed(e.getCause());
+                }
             }
         }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private <R extends IPrivateStudyUid> Set<String> getExistingIds(ResourceManager<R> manager, String studyFqn, String key,
+                                                                    List<String> ids, Function<R, String> getId)
+            throws CatalogException {
+        Query query = new Query(key, ids);
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, key);
+        return manager.search(studyFqn, query, options, token).getResults().stream().map(getId).collect(Collectors.toSet());
     }
 
 
@@ -970,4 +1072,72 @@ public class TemplateManager {
         };
     }
 
+    /**
+     * Keeps track of the entries already loaded from each template file, so an interrupted load can be resumed without processing
+     * them again.
+     */
+    private final class Checkpoint {
+
+        private final Path file;
+        private final Properties properties = new Properties();
+        private boolean enabled = true;
+
+        private Checkpoint(Path file) {
+            this.file = file;
+        }
+
+        private void load() {
+            if (Files.exists(file)) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                    logger.info("Resuming template load from checkpoint {}", file);
+                } catch (IOException e) {
+                    logger.warn("Could not read checkpoint file {}. Resuming from the beginning: {}", file, e.getMessage());
+                    properties.clear();
+                }
+            }
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete checkpoint file {}: {}", file, e.getMessage());
+            }
+        }
+
+        private boolean isDone(String stage) {
+            return Boolean.parseBoolean(properties.getProperty(stage + ".done"));
+        }
+
+        private long getProcessed(String stage) {
+            return Long.parseLong(properties.getProperty(stage, "0"));
+        }
+
+        private void setProcessed(String stage, long processed) {
+            properties.setProperty(stage, String.valueOf(processed));
+            write();
+        }
+
+        private void setDone(String stage) {
+            properties.setProperty(stage + ".done", "true");
+            write();
+        }
+
+        private void write() {
+            if (!enabled) {
+                return;
+            }
+            Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "Template load checkpoint");
+                }
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Could not write checkpoint file {}. Disabling checkpoints: {}", file, e.getMessage());
+                enabled = false;
+            }
+        }
+    }
 }
@@ -888,6 +888,19 @@ public class AnnotationUtils {
         }
     }
 
+    /**
+     * Checks whether an annotation filter can be resolved using the annotation index, i.e. querying directly the values of the variable
+     * instead of matching the list of annotations. This is only possible when the filter is not restricted to a particular annotation
+     * set and does not contain negations, as the index merges the values of all the annotation sets of the same variable set.
+     *
+     * @param annotationSet Annotation set name the filter is restricted to, if any.
+     * @param valueString   Operator and values of the filter. E.g. "=abc,def" or ">=5".
+     * @return whether the filter can be resolved using the annotation index.
+     */
+    public static boolean isAnnotationIndexQuery(String annotationSet, String valueString) {
+        return StringUtils.isEmpty(annotationSet) && StringUtils.isNotEmpty(valueString) && !valueString.contains("!");
+    }
+
     private static String getOperator(String queryValue) {
         Matcher matcher = OPERATION_PATTERN.matcher(queryValue);
         if (matcher.find()) {
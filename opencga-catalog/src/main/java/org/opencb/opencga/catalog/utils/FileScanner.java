@@ -17,6 +17,7 @@
 package org.opencb.opencga.catalog.utils;
 
 import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.catalog.db.api.DBIterator;
@@ -26,6 +27,7 @@ import org.opencb.opencga.catalog.exceptions.CatalogIOException;
 import org.opencb.opencga.catalog.io.IOManager;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.catalog.managers.FileUtils;
+import org.opencb.opencga.core.common.IOUtils;
 import org.opencb.opencga.core.models.file.File;
 import org.opencb.opencga.core.models.file.FileStatus;
 import org.opencb.opencga.core.models.file.FileUpdateParams;
@@ -39,8 +41,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -54,6 +59,14 @@ public class FileScanner {
     protected final CatalogManager catalogManager;
 
     private FileUtils catalogFileUtils;
+    private int numThreads = 1;
+    private int batchSize = 100;
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+    private static final QueryOptions INCLUDE_EXISTING_FILE = new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(
+            FileDBAdaptor.QueryParams.ID.key(), FileDBAdaptor.QueryParams.UID.key(), FileDBAdaptor.QueryParams.PATH.key(),
+            FileDBAdaptor.QueryParams.TYPE.key(), FileDBAdaptor.QueryParams.URI.key(), FileDBAdaptor.QueryParams.SIZE.key(),
+            FileDBAdaptor.QueryParams.CHECKSUM.key(), FileDBAdaptor.QueryParams.INTERNAL_STATUS.key()));
 
     public enum FileScannerPolicy {
         DELETE,     //Delete file and file entry. Then create a new one
@@ -67,6 +80,37 @@ public class FileScanner {
         catalogFileUtils = new FileUtils(catalogManager);
     }
 
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Number of threads used to copy, calculate the checksum and read the metadata of the scanned files.
+     * If greater than 1, new files are registered in bulk.
+     *
+     * @param numThreads Number of threads
+     * @return this
+     */
+    public FileScanner setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number of new files to register at once when scanning with multiple threads.
+     *
+     * @param batchSize Batch size
+     * @return this
+     */
+    public FileScanner setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
     /**
      * Check tracking from all files from a study.
      * <p>
@@ -224,6 +268,9 @@ public class FileScanner {
             throw new CatalogException("Provided folder " + directory.getPath() + " is actually a file.");
         }
         Study study = catalogManager.getFileManager().getStudy(directory, sessionId);
+        if (numThreads > 1) {
+            return parallelScan(study, directory, directoryToScan, policy, calculateChecksum, deleteSource, filter, sessionId);
+        }
 
         long createFilesTime = 0, uploadFilesTime = 0, metadataReadTime = 0;
         IOManager ioManager = catalogManager.getIoManagerFactory().get(directoryToScan);
@@ -256,17 +303,7 @@ public class FileScanner {
                 logger.info("File already existing in target \"" + filePath + "\". FileScannerPolicy = " + policy);
                 switch (policy) {
                     case DELETE:
-                        logger.info("Deleting file { uid:" + existingFile.getUid() + ", path:\"" + existingFile.getPath() + "\" }");
-                        Query tmpQuery = new Query(FileDBAdaptor.QueryParams.UID.key(), existingFile.getUid());
-
-                        // Set the status of the file to PENDING DELETE
-                        FileUpdateParams updateParams = new FileUpdateParams()
-                                .setInternal(new SmallFileInternal(new FileStatus(FileStatus.PENDING_DELETE)));
-                        catalogManager.getFileManager().update(study.getFqn(), tmpQuery, updateParams, QueryOptions.empty(), sessionId);
-
-                        // Delete completely the file/folder !
-                        catalogManager.getFileManager().delete(study.getFqn(), tmpQuery, new QueryOptions(Constants.SKIP_TRASH, true),
-                                sessionId);
+                        delete(study, existingFile, sessionId);
                         overwrite = false;
                         break;
                     case REPLACE:
@@ -334,4 +371,278 @@ public class FileScanner {
         return files;
     }
 
+
+    private void delete(Study study, File existingFile, String sessionId) throws CatalogException {
+        logger.info("Deleting file { uid:" + existingFile.getUid() + ", path:\"" + existingFile.getPath() + "\" }");
+        Query tmpQuery = new Query(FileDBAdaptor.QueryParams.UID.key(), existingFile.getUid());
+
+        // Set the status of the file to PENDING DELETE
+        FileUpdateParams updateParams = new FileUpdateParams()
+                .setInternal(new SmallFileInternal(new FileStatus(FileStatus.PENDING_DELETE)));
+        catalogManager.getFileManager().update(study.getFqn(), tmpQuery, updateParams, QueryOptions.empty(), sessionId);
+
+        // Delete completely the file/folder !
+        catalogManager.getFileManager().delete(study.getFqn(), tmpQuery, new QueryOptions(Constants.SKIP_TRASH, true), sessionId);
+    }
+
+    /**
+     * Scan using a pool of threads.
+     *
+     * Existing files are read with one query per directory. Folders are created by the main thread, in the same order they are walked,
+     * so they always exist before their content is registered. Files are copied (or moved), and their checksum and metadata are
+     * calculated by the thread pool. New files are then registered in bulk by the main thread.
+     */
+    private List<File> parallelScan(Study study, File directory, URI directoryToScan, FileScannerPolicy policy, boolean calculateChecksum,
+                                    boolean deleteSource, Predicate<URI> filter, String sessionId)
+            throws CatalogException, IOException {
+        IOManager ioManager = catalogManager.getIoManagerFactory().get(directoryToScan);
+        if (!ioManager.exists(directoryToScan)) {
+            return new LinkedList<>();
+        }
+        ScanProgress progress = new ScanProgress();
+        Map<String, Map<String, File>> existingFiles = new HashMap<>();
+        Map<String, URI> folderUris = new HashMap<>();
+        folderUris.put(directory.getPath(), catalogManager.getFileManager().getUri(directory));
+
+        List<File> files = new LinkedList<>();
+        List<File> newFiles = new ArrayList<>(batchSize);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CompletionService<ScannedFile> completionService = new ExecutorCompletionService<>(executor);
+        int pendingTasks = 0;
+        try (Stream<URI> uris = ioManager.listFilesStream(directoryToScan)) {
+            Iterator<URI> iterator = uris.iterator();
+            while (iterator.hasNext()) {
+                URI uri = iterator.next();
+                if (!filter.test(uri)) {
+                    continue;
+                }
+                URI generatedFile = directoryToScan.relativize(uri);
+                String filePath = URI.create(directory.getPath()).resolve(generatedFile).toString();
+                boolean isDirectory = uri.getPath().endsWith("/");
+                if (isDirectory && !filePath.endsWith("/")) {
+                    filePath += "/";
+                }
+                String parentPath = getParentPath(filePath);
+
+                File existingFile = getExistingFiles(study, parentPath, existingFiles, sessionId).get(filePath);
+                if (existingFile != null) {
+                    logger.debug("File already existing in target \"" + filePath + "\". FileScannerPolicy = " + policy);
+                    switch (policy) {
+                        case DELETE:
+                            delete(study, existingFile, sessionId);
+                            existingFile = null;
+                            break;
+                        case REPLACE:
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Unimplemented policy '" + policy + "'");
+                    }
+                }
+
+                if (isDirectory) {
+                    if (existingFile == null) {
+                        existingFile = catalogManager.getFileManager().createFolder(study.getFqn(), Paths.get(filePath).toString(), true,
+                                null, QueryOptions.empty(), sessionId).first();
+                        // New empty folder
+                        existingFiles.put(filePath, new HashMap<>());
+                        logger.debug("Created new folder entry for " + uri + " { uid:" + existingFile.getUid() + ", path:\""
+                                + existingFile.getPath() + "\" } ");
+                    }
+                    folderUris.put(filePath, catalogManager.getFileManager().getUri(existingFile));
+                    continue;
+                }
+                if (existingFile != null && existingFile.getType() != File.Type.FILE) {
+                    continue;
+                }
+
+                URI parentUri = getFolderUri(study, parentPath, folderUris, sessionId);
+                File file = existingFile;
+                String path = filePath;
+                completionService.submit(() -> scanFile(study, uri, parentUri, path, file, ioManager, calculateChecksum, deleteSource,
+                        sessionId));
+                pendingTasks++;
+
+                // Limit the number of files waiting to be registered
+                while (pendingTasks >= numThreads * 2) {
+                    processScannedFile(completionService.take(), study, files, newFiles, progress, sessionId);
+                    pendingTasks--;
+                }
+            }
+            while (pendingTasks > 0) {
+                processScannedFile(completionService.take(), study, files, newFiles, progress, sessionId);
+                pendingTasks--;
+            }
+            registerFiles(study, files, newFiles, progress, sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CatalogException("Interrupted while scanning " + directoryToScan, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        progress.log(true);
+        return files;
+    }
+
+    private ScannedFile scanFile(Study study, URI uri, URI parentUri, String filePath, File existingFile, IOManager ioManager,
+                                 boolean calculateChecksum, boolean deleteSource, String sessionId) throws CatalogException, IOException {
+        URI targetUri = existingFile == null
+                ? Paths.get(parentUri).resolve(Paths.get(filePath).getFileName().toString()).toUri()
+                : catalogManager.getFileManager().getUri(existingFile);
+        if (!targetUri.equals(uri)) {
+            ioManager.createDirectory(parentUri, true);
+            if (deleteSource) {
+                ioManager.move(uri, targetUri, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                ioManager.copy(uri, targetUri, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        if (existingFile == null) {
+            File file = new File()
+                    .setPath(filePath)
+                    .setUri(targetUri)
+                    .setAttributes(new HashMap<>());
+            if (calculateChecksum) {
+                file.setChecksum(ioManager.calculateChecksum(targetUri));
+            }
+            // Improve metadata information and extract samples if any
+            new FileMetadataReader(catalogManager).addMetadataInformation(study.getFqn(), file);
+            return new ScannedFile(file, true, file.getSize());
+        } else {
+            ObjectMap params = catalogFileUtils.getModifiedFileAttributes(existingFile, targetUri, calculateChecksum);
+            boolean missing = existingFile.getInternal().getStatus().getId().equals(FileStatus.MISSING);
+            if (missing) {
+                logger.info("File { uid:" + existingFile.getUid() + ", path:'" + existingFile.getPath() + "' } recover tracking from file "
+                        + uri);
+            }
+            if (!FileStatus.READY.equals(existingFile.getInternal().getStatus().getId())) {
+                params.put(FileDBAdaptor.QueryParams.INTERNAL_STATUS.key(), new FileStatus(FileStatus.READY));
+            }
+            File file = existingFile;
+            if (!params.isEmpty()) {
+                catalogManager.getFileManager().update(study.getFqn(), existingFile.getPath(), params, QueryOptions.empty(), sessionId);
+                if (missing) {
+                    file = catalogManager.getFileManager().get(study.getFqn(), existingFile.getPath(), null, sessionId).first();
+                }
+            }
+            // Return file only if it was missing
+            return new ScannedFile(missing ? file : null, false, ioManager.getFileSize(targetUri));
+        }
+    }
+
+    private void processScannedFile(Future<ScannedFile> future, Study study, List<File> files, List<File> newFiles,
+                                    ScanProgress progress, String sessionId) throws CatalogException, IOException, InterruptedException {
+        ScannedFile scannedFile;
+        try {
+            scannedFile = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CatalogException) {
+                throw (CatalogException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else {
+                throw new CatalogException("Error scanning files", cause);
+            }
+        }
+        progress.add(scannedFile.size);
+        if (scannedFile.isNew) {
+            newFiles.add(scannedFile.file);
+            if (newFiles.size() >= batchSize) {
+                registerFiles(study, files, newFiles, progress, sessionId);
+            }
+        } else if (scannedFile.file != null) {
+            files.add(scannedFile.file);
+        }
+        progress.log(false);
+    }
+
+    private void registerFiles(Study study, List<File> files, List<File> newFiles, ScanProgress progress, String sessionId)
+            throws CatalogException {
+        if (newFiles.isEmpty()) {
+            return;
+        }
+        List<File> registeredFiles = catalogManager.getFileManager().registerFiles(study.getFqn(), newFiles, sessionId).getResults();
+        files.addAll(registeredFiles);
+        progress.registered += registeredFiles.size();
+        newFiles.clear();
+    }
+
+    private Map<String, File> getExistingFiles(Study study, String folderPath, Map<String, Map<String, File>> existingFiles,
+                                               String sessionId) throws CatalogException {
+        Map<String, File> files = existingFiles.get(folderPath);
+        if (files == null) {
+            // Read all the existing files from the folder at once
+            files = new HashMap<>();
+            Query query = new Query(FileDBAdaptor.QueryParams.DIRECTORY.key(), folderPath);
+            for (File file : catalogManager.getFileManager().search(study.getFqn(), query, INCLUDE_EXISTING_FILE, sessionId)
+                    .getResults()) {
+                files.put(file.getPath(), file);
+            }
+            existingFiles.put(folderPath, files);
+        }
+        return files;
+    }
+
+    private URI getFolderUri(Study study, String folderPath, Map<String, URI> folderUris, String sessionId) throws CatalogException {
+        URI uri = folderUris.get(folderPath);
+        if (uri == null) {
+            // The folder was excluded by the filter. Create it if needed
+            Query query = new Query(FileDBAdaptor.QueryParams.PATH.key(), folderPath);
+            DataResult<File> result = catalogManager.getFileManager().search(study.getFqn(), query, INCLUDE_EXISTING_FILE, sessionId);
+            File folder;
+            if (result.getNumResults() == 0) {
+                folder = catalogManager.getFileManager().createFolder(study.getFqn(), folderPath, true, null, QueryOptions.empty(),
+                        sessionId).first();
+            } else {
+                folder = result.first();
+            }
+            uri = catalogManager.getFileManager().getUri(folder);
+            folderUris.put(folderPath, uri);
+        }
+        return uri;
+    }
+
+    private static String getParentPath(String path) {
+        Path parent = Paths.get(path).getParent();
+        return parent == null ? "" : parent.toString() + "/";
+    }
+
+    private static class ScannedFile {
+        private final File file;
+        private final boolean isNew;
+        private final long size;
+
+        ScannedFile(File file, boolean isNew, long size) {
+            this.file = file;
+            this.isNew = isNew;
+            this.size = size;
+        }
+    }
+
+    private static class ScanProgress {
+        private final long start = System.currentTimeMillis();
+        private long lastLog = start;
+        private long scanned;
+        private long registered;
+        private long bytes;
+
+        void add(long size) {
+            scanned++;
+            bytes += size;
+        }
+
+        void log(boolean force) {
+            long now = System.currentTimeMillis();
+            if (!force && now - lastLog < PROGRESS_INTERVAL) {
+                return;
+            }
+            lastLog = now;
+            double seconds = Math.max(1, now - start) / 1000.0;
+            logger.info("Scanned {} files ({}), {} new files registered in {}s. {} files/s, {}/s", scanned,
+                    IOUtils.humanReadableByteCount(bytes, false), registered, String.format("%.1f", seconds),
+                    String.format("%.1f", scanned / seconds), IOUtils.humanReadableByteCount((long) (bytes / seconds), false));
+        }
+    }
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process channel notifying that a job has been submitted or updated, so the subscribers (i.e. the ExecutionDaemon) can react
+ * immediately instead of waiting for their next polling cycle.
+ * Listeners are run in the thread publishing the notification, so they should only flag the change and return.
+ */
+public class JobNotificationChannel {
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Logger logger = LoggerFactory.getLogger(JobNotificationChannel.class);
+
+    public void subscribe(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public void publish() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Error notifying job change: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by wasim on 06/06/17.
@@ -81,4 +82,21 @@ public class JwtSessionManagerTest extends GenericTest {
         assertEquals(jwtSessionManager.getUser(nonExpiringToken), "System");
         assertNull(jwtSessionManager.getExpiration(nonExpiringToken));
     }
+
+    @Test
+    public void testVerifiedTokenCache() throws CatalogException {
+        long hits = JwtManager.getClaimsCacheStats().hitCount();
+        assertEquals("testUser", jwtSessionManager.getUser(jwtToken));
+        assertEquals("OpenCGA users", jwtSessionManager.getAudience(jwtToken));
+        jwtSessionManager.getExpiration(jwtToken);
+        assertTrue(JwtManager.getClaimsCacheStats().hitCount() >= hits + 2);
+    }
+
+    @Test(expected = CatalogAuthenticationException.class)
+    public void testVerifiedTokenCacheOtherKey() throws CatalogAuthenticationException {
+        jwtSessionManager.validateToken(jwtToken);
+        Key otherKey = new SecretKeySpec(TextCodec.BASE64.decode(RandomStringUtils.randomAlphanumeric(50)),
+                SignatureAlgorithm.HS256.getJcaName());
+        jwtSessionManager.validateToken(jwtToken, otherKey);
+    }
 }
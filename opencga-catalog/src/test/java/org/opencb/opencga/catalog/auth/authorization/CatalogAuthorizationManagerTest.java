@@ -764,6 +764,43 @@ public class CatalogAuthorizationManagerTest extends GenericTest {
         catalogManager.getSampleManager().get(studyFqn, smp3.getId(), null, externalSessionId);
     }
 
+    @Test
+    public void checkSamplePermissions() throws CatalogException {
+        AuthorizationManager authorizationManager = catalogManager.getAuthorizationManager();
+        authorizationManager.checkSamplePermissions(studyUid, Arrays.asList(smp1.getUid(), smp6.getUid()), externalUser,
+                SampleAclEntry.SamplePermissions.VIEW);
+        authorizationManager.checkSamplePermissions(studyUid, Arrays.asList(smp1.getUid(), smp2.getUid(), smp3.getUid()), ownerUser,
+                SampleAclEntry.SamplePermissions.VIEW);
+
+        thrown.expect(CatalogAuthorizationException.class);
+        thrown.expectMessage("uid: " + smp3.getUid());
+        authorizationManager.checkSamplePermissions(studyUid, Arrays.asList(smp1.getUid(), smp3.getUid()), externalUser,
+                SampleAclEntry.SamplePermissions.VIEW);
+    }
+
+    @Test
+    public void checkSamplePermissionAfterAclChange() throws CatalogException {
+        AuthorizationManager authorizationManager = catalogManager.getAuthorizationManager();
+        authorizationManager.checkSamplePermission(studyUid, smp1.getUid(), externalUser, SampleAclEntry.SamplePermissions.VIEW);
+        // Cached decision
+        authorizationManager.checkSamplePermission(studyUid, smp1.getUid(), externalUser, SampleAclEntry.SamplePermissions.VIEW);
+
+        catalogManager.getSampleManager().updateAcl(studyFqn, Collections.singletonList(smp1.getId()), externalUser, noSamplePermissions,
+                ParamUtils.AclAction.SET, ownerSessionId);
+        thrown.expect(CatalogAuthorizationException.class);
+        authorizationManager.checkSamplePermission(studyUid, smp1.getUid(), externalUser, SampleAclEntry.SamplePermissions.VIEW);
+    }
+
+    @Test
+    public void checkStudyPermissionAfterGroupChange() throws CatalogException {
+        AuthorizationManager authorizationManager = catalogManager.getAuthorizationManager();
+        authorizationManager.checkIsOwnerOrAdmin(studyUid, studyAdminUser2);
+
+        updateGroup(studyFqn, groupAdmin, null, studyAdminUser2, null, ownerSessionId);
+        thrown.expect(CatalogAuthorizationException.class);
+        authorizationManager.checkIsOwnerOrAdmin(studyUid, studyAdminUser2);
+    }
+
     @Test
     public void readSampleExternalUser() throws CatalogException, IOException {
         String newUser = "newUser";
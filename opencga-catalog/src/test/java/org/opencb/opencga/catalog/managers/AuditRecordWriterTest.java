@@ -0,0 +1,158 @@
+package org.opencb.opencga.catalog.managers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.opencb.opencga.core.models.audit.AuditRecord;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.response.OpenCGAResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class AuditRecordWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private List<AuditRecord> inserted;
+    private AtomicBoolean fail;
+    private AuditRecordWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        inserted = Collections.synchronizedList(new ArrayList<>());
+        fail = new AtomicBoolean(false);
+        AuditDBAdaptor auditDBAdaptor = new AuditDBAdaptor() {
+            @Override
+            public OpenCGAResult<AuditRecord> insertAuditRecord(AuditRecord auditRecord) throws CatalogDBException {
+                return insertAuditRecords(Collections.singletonList(auditRecord));
+            }
+
+            @Override
+            public OpenCGAResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) throws CatalogDBException {
+                if (fail.get()) {
+                    throw new CatalogDBException("Database not available");
+                }
+                inserted.addAll(auditRecords);
+                return OpenCGAResult.empty();
+            }
+
+            @Override
+            public OpenCGAResult<AuditRecord> get(Query query, QueryOptions queryOptions) {
+                return OpenCGAResult.empty();
+            }
+
+            @Override
+            public OpenCGAResult groupBy(Query query, List<String> fields, QueryOptions options) {
+                return OpenCGAResult.empty();
+            }
+        };
+        writer = new AuditRecordWriter(auditDBAdaptor, 100, 10, 50, temporaryFolder.getRoot().toPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        writer.close();
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            writer.write(newRecord(i));
+        }
+        writer.flush();
+        assertEquals(25, inserted.size());
+        assertEquals(25, writer.getQueued());
+        assertEquals(25, writer.getFlushed());
+        assertEquals(0, writer.getQueueCount());
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        fail.set(true);
+        writer.write(Arrays.asList(newRecords(150)));
+        writer.flush();
+        assertEquals(0, inserted.size());
+        assertEquals(150, writer.getSpilled());
+        assertEquals(0, writer.getDropped());
+        assertTrue(countSpillFiles() > 0);
+
+        // Spilled records are written once the database is available
+        fail.set(false);
+        long timeout = System.currentTimeMillis() + 10000;
+        while (inserted.size() < 150 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        assertEquals(150, inserted.size());
+        Set<String> ids = new HashSet<>();
+        for (AuditRecord auditRecord : inserted) {
+            ids.add(auditRecord.getId());
+        }
+        assertEquals(150, ids.size());
+        assertEquals(0, countSpillFiles());
+    }
+
+    @Test
+    public void testReplayOrphanSpillFiles() throws Exception {
+        ObjectMapper objectMapper = JacksonUtils.getDefaultNonNullObjectMapper();
+        Path orphan = temporaryFolder.getRoot().toPath().resolve("opencga-audit-spill-1-orphan.json");
+        Files.write(orphan, Collections.singletonList(objectMapper.writeValueAsString(newRecord(1))));
+        Files.setLastModifiedTime(orphan, FileTime.fromMillis(System.currentTimeMillis() - 3600 * 1000));
+        // Spill file still in use by another writer
+        Path active = temporaryFolder.getRoot().toPath().resolve("opencga-audit-spill-2-active.json");
+        Files.write(active, Collections.singletonList(objectMapper.writeValueAsString(newRecord(2))));
+
+        writer.write(newRecord(3));
+        long timeout = System.currentTimeMillis() + 10000;
+        while (inserted.size() < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        writer.flush();
+        Thread.sleep(200);
+        Set<String> ids = new HashSet<>();
+        for (AuditRecord auditRecord : inserted) {
+            ids.add(auditRecord.getId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id3")), ids);
+        assertEquals(2, inserted.size());
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(active));
+    }
+
+    private long countSpillFiles() throws IOException {
+        try (Stream<Path> stream = Files.list(temporaryFolder.getRoot().toPath())) {
+            return stream.filter(path -> path.getFileName().toString().startsWith("opencga-audit-spill")).count();
+        }
+    }
+
+    private AuditRecord[] newRecords(int n) {
+        AuditRecord[] records = new AuditRecord[n];
+        for (int i = 0; i < n; i++) {
+            records[i] = newRecord(i);
+        }
+        return records;
+    }
+
+    private AuditRecord newRecord(int i) {
+        return new AuditRecord("id" + i, "operation", "user", "v1", Enums.Action.CREATE, Enums.Resource.SAMPLE, "sample" + i, "",
+                "study", "", new ObjectMap("key", i), new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS), new Date(),
+                new ObjectMap());
+    }
+}
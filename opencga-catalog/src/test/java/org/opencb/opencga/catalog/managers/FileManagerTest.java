@@ -80,6 +80,31 @@ public class FileManagerTest extends AbstractManagerTest {
         return fileManager.link(studyIdStr, uriOrigin, pathDestiny, params, sessionId);
     }
 
+    @Test
+    public void testRegisterFiles() throws CatalogException {
+        List<File> files = Arrays.asList(
+                new File().setPath("data/test/folder/register1.txt").setSampleIds(Collections.singletonList("registerSample")),
+                new File().setPath("data/test/folder/register2.txt").setSampleIds(Collections.singletonList("registerSample")),
+                new File().setPath("data/test/folder/register3.txt"));
+        assertEquals(3, fileManager.registerFiles(studyFqn, files, token).getNumResults());
+        Sample sample = catalogManager.getSampleManager().get(studyFqn, "registerSample", QueryOptions.empty(), token).first();
+        assertEquals(2, sample.getFileIds().size());
+
+        // Nothing is registered if any of the files cannot be inserted
+        files = Arrays.asList(
+                new File().setPath("data/test/folder/register4.txt"),
+                new File().setPath("data/test/folder/register1.txt").setSampleIds(Collections.singletonList("registerSample2")));
+        try {
+            fileManager.registerFiles(studyFqn, files, token);
+            fail("Path 'data/test/folder/register1.txt' was already in use");
+        } catch (CatalogException e) {
+            assertEquals(0, fileManager.search(studyFqn, new Query(FileDBAdaptor.QueryParams.PATH.key(),
+                    "data/test/folder/register4.txt"), null, token).getNumResults());
+            assertEquals(0, catalogManager.getSampleManager().search(studyFqn, new Query(SampleDBAdaptor.QueryParams.ID.key(),
+                    "registerSample2"), null, token).getNumResults());
+        }
+    }
+
     @Test
     public void testCreateFileFromUnsharedStudy() throws CatalogException {
         try {
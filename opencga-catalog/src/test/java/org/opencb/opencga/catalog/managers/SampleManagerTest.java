@@ -404,6 +404,64 @@ public class SampleManagerTest extends AbstractManagerTest {
                         .getResults().stream().map(Sample::getId).collect(Collectors.toList())));
     }
 
+    @Test
+    public void searchByAnnotationIndexTest() throws CatalogException {
+        Set<Variable> variables = new HashSet<>();
+        variables.add(new Variable().setId("name").setType(Variable.VariableType.STRING));
+        variables.add(new Variable().setId("age").setType(Variable.VariableType.INTEGER));
+        VariableSet variableSet = new VariableSet("indexedVset", "", false, false, false, "", variables, null, 1, null);
+        catalogManager.getStudyManager().createVariableSet(studyFqn, variableSet, token);
+
+        // The index is only maintained while it is enabled
+        catalogManager.getConfiguration().getOptimizations().setAnnotationQueryIndex(true);
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> annotations = new HashMap<>();
+            annotations.put("name", "name" + (i % 2));
+            annotations.put("age", 10 * i);
+            Sample sample = new Sample()
+                    .setId("indexed" + i)
+                    .setAnnotationSets(Collections.singletonList(new AnnotationSet("annSet" + i, variableSet.getId(), annotations)));
+            catalogManager.getSampleManager().create(studyFqn, sample, QueryOptions.empty(), token);
+        }
+        catalogManager.getConfiguration().getOptimizations().setAnnotationQueryIndex(false);
+
+        List<String> annotationQueries = Arrays.asList("indexedVset:name=name0", "indexedVset:age>15", "indexedVset:age<=20",
+                "indexedVset:name=name0,name1", "indexedVset:name=name1;indexedVset:age>=30", "indexedVset:name!=name0",
+                "indexedVset:annSet1:age=10");
+        Map<String, Long> expected = new HashMap<>();
+        for (String annotationQuery : annotationQueries) {
+            Query query = new Query(Constants.ANNOTATION, annotationQuery);
+            expected.put(annotationQuery, catalogManager.getSampleManager().count(studyFqn, query, token).getNumMatches());
+        }
+        assertEquals(3, expected.get("indexedVset:name=name0").longValue());
+        assertEquals(3, expected.get("indexedVset:age>15").longValue());
+        assertEquals(1, expected.get("indexedVset:name=name1;indexedVset:age>=30").longValue());
+
+        catalogManager.getConfiguration().getOptimizations().setAnnotationQueryIndex(true);
+        try {
+            for (String annotationQuery : annotationQueries) {
+                Query query = new Query(Constants.ANNOTATION, annotationQuery);
+                assertEquals(annotationQuery, expected.get(annotationQuery).longValue(),
+                        catalogManager.getSampleManager().count(studyFqn, query, token).getNumMatches());
+            }
+
+            // The index is kept up to date when the annotations change
+            Map<String, Object> annotations = new HashMap<>();
+            annotations.put("name", "name1");
+            annotations.put("age", 5);
+            catalogManager.getSampleManager().updateAnnotations(studyFqn, "indexed0", "annSet0", annotations,
+                    ParamUtils.CompleteUpdateAction.SET, new QueryOptions(), token);
+
+            Query query = new Query(Constants.ANNOTATION, "indexedVset:name=name0");
+            assertEquals(2, catalogManager.getSampleManager().count(studyFqn, query, token).getNumMatches());
+            query = new Query(Constants.ANNOTATION, "indexedVset:age<10");
+            assertEquals("indexed0", catalogManager.getSampleManager().search(studyFqn, query, SampleManager.INCLUDE_SAMPLE_IDS, token)
+                    .first().getId());
+        } finally {
+            catalogManager.getConfiguration().getOptimizations().setAnnotationQueryIndex(false);
+        }
+    }
+
     @Test
     public void updateQualityControlTest1() throws CatalogException {
         Sample sample = new Sample().setId("sample");
@@ -2407,6 +2465,20 @@ public class SampleManagerTest extends AbstractManagerTest {
         assertEquals(InternalStatus.DELETED, sampleDataResult.first().getInternal().getStatus().getId());
     }
 
+    @Test
+    public void testDeleteSamplesMixedIds() throws CatalogException {
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("SAMPLE_1"), QueryOptions.empty(), token);
+        Sample sample2 = catalogManager.getSampleManager().create(studyFqn, new Sample().setId("SAMPLE_2"), INCLUDE_RESULT, token)
+                .first();
+
+        // Ids and uuids are resolved together, and missing samples are reported without failing
+        OpenCGAResult<?> delete = catalogManager.getSampleManager().delete(studyFqn, Arrays.asList("SAMPLE_1", sample2.getUuid(),
+                "NON_EXISTING"), new QueryOptions(), true, token);
+        assertEquals(2, delete.getNumDeleted());
+        assertEquals(1, delete.getNumErrors());
+        assertEquals("NON_EXISTING", delete.getEvents().get(0).getId());
+    }
+
     @Test
     public void testAssignPermissions() throws CatalogException {
         Sample sample = new Sample().setId("sample");
@@ -18,6 +18,9 @@ package org.opencb.opencga.catalog.managers;
 
 import org.apache.solr.common.StringUtils;
 import org.junit.Test;
+import org.opencb.biodata.models.clinical.Phenotype;
+import org.opencb.biodata.models.common.Status;
+import org.opencb.commons.datastore.core.FacetField;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
@@ -25,9 +28,16 @@ import org.opencb.opencga.TestParamConstants;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.utils.ParamUtils;
+import org.opencb.opencga.core.api.ParamConstants;
 import org.opencb.opencga.core.common.TimeUtils;
 import org.opencb.opencga.core.config.storage.SampleIndexConfiguration;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.models.common.StatusParams;
 import org.opencb.opencga.core.models.file.File;
+import org.opencb.opencga.core.models.sample.Sample;
+import org.opencb.opencga.core.models.sample.SampleAclEntry;
+import org.opencb.opencga.core.models.sample.SampleAclParams;
+import org.opencb.opencga.core.models.sample.SampleUpdateParams;
 import org.opencb.opencga.core.models.study.*;
 import org.opencb.opencga.core.models.study.configuration.ClinicalAnalysisStudyConfiguration;
 import org.opencb.opencga.core.models.study.configuration.ClinicalPriorityValue;
@@ -268,4 +278,88 @@ public class StudyManagerTest extends AbstractManagerTest {
         OpenCGAResult<File> search = catalogManager.getFileManager().search(studyFqn, new Query(), new QueryOptions(), dummyToken);
         assertTrue(search.getNumResults() > 0);
     }
+
+    @Test
+    public void entitySummaryTest() throws CatalogException {
+        // Reads do not calculate the summary
+        assertFalse(catalogManager.getStudyManager().getEntitySummary(studyFqn, Enums.Resource.SAMPLE, token).getEvents().isEmpty());
+        catalogManager.getStudyManager().rebuildEntitySummary(studyFqn, token);
+        assertTrue(catalogManager.getStudyManager().getEntitySummary(studyFqn, Enums.Resource.SAMPLE, token).getEvents().isEmpty());
+
+        Map<String, Map<String, Long>> initial = getSummary(Enums.Resource.SAMPLE);
+
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("summary1")
+                .setStatus(new Status("stat1", "stat1", "", TimeUtils.getTime()))
+                .setPhenotypes(Collections.singletonList(new Phenotype("HP:0001159", "Syndactyly", "HPO"))), QueryOptions.empty(), token);
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("summary2")
+                .setStatus(new Status("stat1", "stat1", "", TimeUtils.getTime())), QueryOptions.empty(), token);
+
+        Map<String, Map<String, Long>> summary = getSummary(Enums.Resource.SAMPLE);
+        assertEquals(getCount(initial, "status", "stat1") + 2, getCount(summary, "status", "stat1"));
+        assertEquals(getCount(initial, "phenotypes", "HP:0001159") + 1, getCount(summary, "phenotypes", "HP:0001159"));
+
+        catalogManager.getSampleManager().update(studyFqn, "summary2",
+                new SampleUpdateParams().setStatus(new StatusParams("stat2", "stat2", "")), QueryOptions.empty(), token);
+        catalogManager.getSampleManager().delete(studyFqn, Collections.singletonList("summary1"), QueryOptions.empty(), token);
+
+        summary = getSummary(Enums.Resource.SAMPLE);
+        assertEquals(getCount(initial, "status", "stat1"), getCount(summary, "status", "stat1"));
+        assertEquals(getCount(initial, "status", "stat2") + 1, getCount(summary, "status", "stat2"));
+        assertEquals(getCount(initial, "phenotypes", "HP:0001159"), getCount(summary, "phenotypes", "HP:0001159"));
+
+        // The incremental counters must match the ones calculated from scratch
+        catalogManager.getStudyManager().rebuildEntitySummary(studyFqn, token);
+        assertEquals(summary, getSummary(Enums.Resource.SAMPLE));
+    }
+
+    @Test
+    public void entitySummaryRestrictedMemberTest() throws CatalogException {
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("summary1")
+                .setStatus(new Status("stat1", "stat1", "", TimeUtils.getTime())), QueryOptions.empty(), token);
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("summary2")
+                .setStatus(new Status("stat1", "stat1", "", TimeUtils.getTime())), QueryOptions.empty(), token);
+        catalogManager.getStudyManager().rebuildEntitySummary(studyFqn, token);
+        assertTrue(getCount(getSummary(Enums.Resource.SAMPLE), "status", "stat1") >= 2);
+
+        // user2 is a member of the study, but can only see one of the samples
+        catalogManager.getStudyManager().updateGroup(studyFqn, ParamConstants.MEMBERS_GROUP, ParamUtils.BasicUpdateAction.ADD,
+                new GroupUpdateParams(Collections.singletonList("user2")), token);
+        catalogManager.getSampleManager().updateAcl(studyFqn, Collections.singletonList("summary1"), "user2",
+                new SampleAclParams(null, null, null, null, SampleAclEntry.SamplePermissions.VIEW.name()), ParamUtils.AclAction.SET,
+                token);
+
+        List<FacetField> facetFields = catalogManager.getStudyManager().getEntitySummary(studyFqn, Enums.Resource.SAMPLE,
+                sessionIdUser2).getResults();
+        assertFalse(facetFields.isEmpty());
+        for (FacetField facetField : facetFields) {
+            assertEquals(1, facetField.getCount());
+        }
+        FacetField status = facetFields.stream().filter(f -> f.getName().equals("status")).findFirst().get();
+        assertEquals(1, status.getBuckets().size());
+        assertEquals("stat1", status.getBuckets().get(0).getValue());
+        assertEquals(1, status.getBuckets().get(0).getCount());
+    }
+
+    @Test
+    public void entitySummaryUnsupportedResourceTest() throws CatalogException {
+        thrown.expect(CatalogException.class);
+        thrown.expectMessage("No summary available");
+        catalogManager.getStudyManager().getEntitySummary(studyFqn, Enums.Resource.COHORT, token);
+    }
+
+    private Map<String, Map<String, Long>> getSummary(Enums.Resource resource) throws CatalogException {
+        Map<String, Map<String, Long>> summary = new HashMap<>();
+        for (FacetField facetField : catalogManager.getStudyManager().getEntitySummary(studyFqn, resource, token).getResults()) {
+            Map<String, Long> buckets = new HashMap<>();
+            for (FacetField.Bucket bucket : facetField.getBuckets()) {
+                buckets.put(bucket.getValue(), bucket.getCount());
+            }
+            summary.put(facetField.getName(), buckets);
+        }
+        return summary;
+    }
+
+    private long getCount(Map<String, Map<String, Long>> summary, String field, String value) {
+        return summary.getOrDefault(field, Collections.emptyMap()).getOrDefault(value, 0L);
+    }
 }
@@ -119,6 +119,22 @@ public class MigrationManagerTest extends AbstractManagerTest {
         }
     }
 
+    @Migration(id = "test-partitions-manual", version = "1.1.0", description = "", domain = Migration.MigrationDomain.CATALOG,
+            language = Migration.MigrationLanguage.JAVA, date = 20221101, manual = true)
+    public static class MigrationWithPartitions extends MigrationTool {
+        private static final Set<String> MIGRATED = Collections.synchronizedSet(new HashSet<>());
+
+        @Override
+        protected void run() throws Exception {
+            runInParallel(Arrays.asList("p1", "p2", "p3", "p4"), partition -> {
+                if (partition.equals(params.getString("fail"))) {
+                    throw new MigrationException("Partition " + partition + " failed");
+                }
+                MIGRATED.add(partition);
+            });
+        }
+    }
+
     @Override
     @Before
     public void setUp() throws java.io.IOException, CatalogException {
@@ -262,6 +278,25 @@ public class MigrationManagerTest extends AbstractManagerTest {
         assertEquals(MigrationRun.MigrationStatus.DONE, migrationRun.getStatus());
     }
 
+    @Test
+    public void testResumeMigrationWithPartitions() throws CatalogException {
+        String token = catalogManager.getUserManager().loginAsAdmin(TestParamConstants.ADMIN_PASSWORD).getToken();
+        MigrationWithPartitions.MIGRATED.clear();
+
+        MigrationRun migrationRun = catalogManager.getMigrationManager().runManualMigration("1.1.0", "test-partitions-manual",
+                Paths.get(""), new ObjectMap("fail", "p3").append(MigrationTool.NUM_THREADS, 2), token);
+        assertEquals(MigrationRun.MigrationStatus.ERROR, migrationRun.getStatus());
+        assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p4")), MigrationWithPartitions.MIGRATED);
+        assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p4")), new HashSet<>(migrationRun.getCheckpoints()));
+
+        // Only the partition that failed is migrated again
+        MigrationWithPartitions.MIGRATED.clear();
+        migrationRun = catalogManager.getMigrationManager().runManualMigration("1.1.0", "test-partitions-manual", Paths.get(""),
+                new ObjectMap(), token);
+        assertEquals(MigrationRun.MigrationStatus.DONE, migrationRun.getStatus());
+        assertEquals(Collections.singleton("p3"), MigrationWithPartitions.MIGRATED);
+        assertTrue(migrationRun.getCheckpoints().isEmpty());
+    }
 
     @Test
     public void testMigrationVersionOrder() {
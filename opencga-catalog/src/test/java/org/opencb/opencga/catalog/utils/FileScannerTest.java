@@ -48,6 +48,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -110,6 +111,60 @@ public class FileScannerTest {
 
     }
 
+    @Test
+    public void testParallelScan() throws IOException, CatalogException {
+        Files.createDirectory(directory.resolve("subfolder"));
+        Files.createDirectory(directory.resolve("subfolder/subsubfolder"));
+        for (String subfolder : Arrays.asList("", "subfolder/", "subfolder/subsubfolder/")) {
+            for (int i = 1; i <= 3; i++) {
+                CatalogManagerTest.createDebugFile(directory.resolve(subfolder + "file" + i + ".txt").toString());
+            }
+        }
+
+        FileScanner fileScanner = new FileScanner(catalogManager).setNumThreads(4).setBatchSize(2);
+        List<File> files = fileScanner.scan(folder, directory.toUri(), FileScanner.FileScannerPolicy.DELETE, true, false, sessionIdUser);
+
+        assertEquals(9, files.size());
+        for (File file : files) {
+            assertTrue(StringUtils.isNotEmpty(file.getChecksum()));
+            assertEquals(FileStatus.READY, file.getInternal().getStatus().getId());
+            assertTrue(Paths.get(file.getUri()).toFile().exists());
+            assertEquals(file.getChecksum(), catalogManager.getIoManagerFactory().getDefault().calculateChecksum(file.getUri()));
+        }
+        File file = catalogManager.getFileManager().get(study.getFqn(), folder.getPath() + "subfolder/subsubfolder/file3.txt", null,
+                sessionIdUser).first();
+        assertTrue(file.getSize() > 0);
+
+        // Scan again. Nothing new
+        files = fileScanner.scan(folder, directory.toUri(), FileScanner.FileScannerPolicy.REPLACE, true, false, sessionIdUser);
+        assertEquals(0, files.size());
+    }
+
+    @Test
+    public void testParallelScanReplaceExisting() throws IOException, CatalogException {
+        File file;
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(CatalogManagerTest.createDebugFile()))) {
+            file = catalogManager.getFileManager().upload(study.getFqn(), inputStream,
+                    new File().setPath(folder.getPath() + "file1.txt"), false, true, true, sessionIdUser).first();
+        }
+
+        CatalogManagerTest.createDebugFile(directory.resolve("file1.txt").toString());
+        CatalogManagerTest.createDebugFile(directory.resolve("file2.txt").toString());
+
+        FileScanner fileScanner = new FileScanner(catalogManager).setNumThreads(2);
+        List<File> files = fileScanner.scan(folder, directory.toUri(), FileScanner.FileScannerPolicy.REPLACE, true, true, sessionIdUser);
+
+        assertEquals(1, files.size());
+        assertEquals(folder.getPath() + "file2.txt", files.get(0).getPath());
+        assertFalse(directory.resolve("file2.txt").toFile().exists());
+
+        File replacedFile = catalogManager.getFileManager().get(study.getFqn(), file.getPath(), null, sessionIdUser).first();
+        assertEquals(FileStatus.READY, replacedFile.getInternal().getStatus().getId());
+        assertEquals(file.getUid(), replacedFile.getUid());
+        assertNotEquals(file.getChecksum(), replacedFile.getChecksum());
+        assertEquals(replacedFile.getChecksum(), catalogManager.getIoManagerFactory().getDefault().calculateChecksum(replacedFile.getUri()));
+    }
+
     @Test
     public void testDeleteExisting() throws IOException, CatalogException {
         DataResult<File> queryResult;
@@ -6,8 +6,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.TestParamConstants;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.catalog.managers.CatalogManagerExternalResource;
 import org.opencb.opencga.catalog.templates.TemplateManager;
@@ -17,10 +20,19 @@ import org.opencb.opencga.core.models.user.Account;
 import org.opencb.opencga.core.models.user.User;
 
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 public class TemplateManagerTest {
 
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
     @Rule
     public CatalogManagerExternalResource catalogManagerResource = new CatalogManagerExternalResource();
 
@@ -88,4 +100,64 @@ public class TemplateManagerTest {
 
     }
 
+    @Test
+    public void test_batches() throws Exception {
+        CatalogManager catalogManager = catalogManagerResource.getCatalogManager();
+        String adminToken = catalogManager.getUserManager().loginAsAdmin(TestParamConstants.ADMIN_PASSWORD).getToken();
+
+        catalogManager.getUserManager().create(new User().setId("user1").setName("User 1").setAccount(new Account().setType(Account.AccountType.FULL)),
+                TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user2").setName("User 2").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user3").setName("User 3").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user4").setName("User 4").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+
+        String token = catalogManager.getUserManager().login("user1", TestParamConstants.PASSWORD).getToken();
+        catalogManager.getProjectManager().create("project", "Project", "", "name", "common", "GRCh38", QueryOptions.empty(), token);
+        catalogManager.getStudyManager().create("project", new Study().setId("study"), QueryOptions.empty(), token);
+
+        URL resource = this.getClass().getResource("/templates_yaml/manifest.yml");
+        ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+        TemplateManifest manifest = objectMapper.readValue(resource, TemplateManifest.class);
+        Path path = Paths.get(resource.toURI()).getParent();
+
+        // Small batches loaded in parallel
+        new TemplateManager(catalogManager, false, false, token).setBatchSize(2).setNumThreads(3).execute(manifest, path);
+        assertFalse(Files.exists(path.resolve(".template.checkpoint")));
+
+        // Everything already exists
+        thrown.expect(CatalogException.class);
+        thrown.expectMessage("already exist");
+        new TemplateManager(catalogManager, false, false, token).setBatchSize(2).setNumThreads(3).execute(manifest, path);
+    }
+
+    @Test
+    public void test_resume() throws Exception {
+        CatalogManager catalogManager = catalogManagerResource.getCatalogManager();
+        String adminToken = catalogManager.getUserManager().loginAsAdmin(TestParamConstants.ADMIN_PASSWORD).getToken();
+
+        catalogManager.getUserManager().create(new User().setId("user1").setName("User 1").setAccount(new Account().setType(Account.AccountType.FULL)),
+                TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user2").setName("User 2").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user3").setName("User 3").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+        catalogManager.getUserManager().create(new User().setId("user4").setName("User 4").setAccount(new Account().setType(Account.AccountType.GUEST)), TestParamConstants.PASSWORD, adminToken);
+
+        String token = catalogManager.getUserManager().login("user1", TestParamConstants.PASSWORD).getToken();
+        catalogManager.getProjectManager().create("project", "Project", "", "name", "common", "GRCh38", QueryOptions.empty(), token);
+        catalogManager.getStudyManager().create("project", new Study().setId("study"), QueryOptions.empty(), token);
+
+        URL resource = this.getClass().getResource("/templates_yaml/manifest.yml");
+        ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
+        TemplateManifest manifest = objectMapper.readValue(resource, TemplateManifest.class);
+        Path path = Paths.get(resource.toURI()).getParent();
+
+        new TemplateManager(catalogManager, false, false, token).execute(manifest, path);
+        long numIndividuals = catalogManager.getIndividualManager().count("project:study", new Query(), token).getNumMatches();
+
+        // Resume with all the individuals already loaded
+        Files.write(path.resolve(".template.checkpoint"), "individuals.done=true\n".getBytes(StandardCharsets.UTF_8));
+        new TemplateManager(catalogManager, true, false, token).execute(manifest, path);
+        assertEquals(numIndividuals, catalogManager.getIndividualManager().count("project:study", new Query(), token).getNumMatches());
+        assertFalse(Files.exists(path.resolve(".template.checkpoint")));
+    }
+
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ public class QueryRestConfig {
 
     private int batchSize;
     private int limit;
+    private int numThreads;
 
     public QueryRestConfig() {
     }
@@ -34,6 +35,7 @@ public class QueryRestConfig {
         final StringBuilder sb = new StringBuilder("QueryRestConfig{");
         sb.append("batchSize=").append(batchSize);
         sb.append(", limit=").append(limit);
+        sb.append(", numThreads=").append(numThreads);
         sb.append('}');
         return sb.toString();
     }
@@ -55,4 +57,13 @@ public class QueryRestConfig {
         this.limit = limit;
         return this;
     }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public QueryRestConfig setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+        return this;
+    }
 }
@@ -27,6 +27,9 @@ public class RestConfig {
     private int defaultHostIndex = 0;
     private boolean tokenAutoRefresh;
     private boolean tlsAllowInvalidCertificates;
+    private boolean compression = true;
+    private int connectTimeout;
+    private int readTimeout;
     private QueryRestConfig query;
 
     public RestConfig() {
@@ -56,6 +59,9 @@ public class RestConfig {
         sb.append("hosts=").append(hosts);
         sb.append(", tokenAutoRefresh=").append(tokenAutoRefresh);
         sb.append(", tlsAllowInvalidCertificates=").append(tlsAllowInvalidCertificates);
+        sb.append(", compression=").append(compression);
+        sb.append(", connectTimeout=").append(connectTimeout);
+        sb.append(", readTimeout=").append(readTimeout);
         sb.append(", query=").append(query);
         sb.append('}');
         return sb.toString();
@@ -88,6 +94,33 @@ public class RestConfig {
         return this;
     }
 
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public RestConfig setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public RestConfig setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public RestConfig setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
     public QueryRestConfig getQuery() {
         return query;
     }
@@ -24,6 +24,8 @@
  import org.apache.commons.collections4.CollectionUtils;
  import org.apache.commons.lang3.StringUtils;
  import org.glassfish.jersey.client.ClientProperties;
+ import org.glassfish.jersey.client.filter.EncodingFilter;
+ import org.glassfish.jersey.message.GZipEncoder;
  import org.glassfish.jersey.media.multipart.FormDataMultiPart;
  import org.glassfish.jersey.media.multipart.MultiPartFeature;
  import org.glassfish.jersey.media.multipart.file.FileDataBodyPart;
@@ -37,6 +39,7 @@
  import org.opencb.opencga.core.response.OpenCGAResult;
  import org.opencb.opencga.core.response.QueryType;
  import org.opencb.opencga.core.response.RestResponse;
+ import org.opencb.opencga.core.response.VariantQueryResult;
  import org.slf4j.Logger;
  import org.slf4j.LoggerFactory;
 
@@ -56,6 +59,8 @@
  import java.security.SecureRandom;
  import java.security.cert.X509Certificate;
  import java.util.*;
+ import java.util.concurrent.*;
+ import java.util.concurrent.atomic.AtomicInteger;
  import java.util.stream.Collectors;
 
  /**
@@ -71,11 +76,33 @@
      private static final int DEFAULT_SKIP = 0;
      private static final int DEFAULT_CONNECT_TIMEOUT = 1000;
      private static final int DEFAULT_READ_TIMEOUT = 30000;
+     private static final int DEFAULT_NUM_THREADS = 4;
+     // Hardcoded OpenCGA IDs limit
+     // See org.opencb.opencga.server.rest.OpenCGAWSServer.MAX_ID_SIZE
+     private static final int ID_BATCH_SIZE = 100;
+     // Shared by all the clients. The number of concurrent calls of each query is limited by the "query.numThreads" configuration,
+     // and the total number of concurrent calls of the process by MAX_THREADS. Idle threads are released after a minute.
+     private static final int MAX_THREADS = 16;
+     private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+     private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 1, TimeUnit.MINUTES,
+             new LinkedBlockingQueue<>(), r -> {
+         Thread thread = new Thread(r, "opencga-client-" + THREAD_COUNT.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+     });
+
+     static {
+         EXECUTOR.allowCoreThreadTimeOut(true);
+     }
+
      protected final Client client;
      protected final ObjectMapper jsonObjectMapper;
      private final ClientConfiguration clientConfiguration;
      private final int batchSize;
      private final int defaultLimit;
+     private final int numThreads;
+     private final int connectTimeout;
+     private final int readTimeout;
      private final Logger privateLogger;
      protected Logger logger;
      private String token;
@@ -88,6 +115,12 @@
          this.logger = LoggerFactory.getLogger(this.getClass());
          this.privateLogger = LoggerFactory.getLogger(AbstractParentClient.class);
 
+         this.connectTimeout = clientConfiguration.getRest().getConnectTimeout() > 0
+                 ? clientConfiguration.getRest().getConnectTimeout()
+                 : DEFAULT_CONNECT_TIMEOUT;
+         this.readTimeout = clientConfiguration.getRest().getReadTimeout() > 0
+                 ? clientConfiguration.getRest().getReadTimeout()
+                 : DEFAULT_READ_TIMEOUT;
          this.client = createRestClient();
 
          jsonObjectMapper = new ObjectMapper();
@@ -104,15 +137,29 @@
              } else {
                  defaultLimit = DEFAULT_LIMIT;
              }
+             if (this.clientConfiguration.getRest().getQuery().getNumThreads() > 0) {
+                 numThreads = this.clientConfiguration.getRest().getQuery().getNumThreads();
+             } else {
+                 numThreads = DEFAULT_NUM_THREADS;
+             }
          } else {
              batchSize = DEFAULT_BATCH_SIZE;
              defaultLimit = DEFAULT_LIMIT;
+             numThreads = DEFAULT_NUM_THREADS;
          }
      }
 
      private Client createRestClient() {
          ClientBuilder clientBuilder = ClientBuilder.newBuilder();
          clientBuilder.register(JacksonUtils.ObjectMapperProvider.class);
+         // The client is shared by concurrent calls, so the timeouts are set once here and not on every call
+         clientBuilder.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout);
+         clientBuilder.property(ClientProperties.READ_TIMEOUT, readTimeout);
+         if (clientConfiguration.getRest().isCompression()) {
+             // Send "Accept-Encoding: gzip" and decode the compressed responses transparently
+             clientBuilder.register(GZipEncoder.class);
+             clientBuilder.register(EncodingFilter.class);
+         }
          if (clientConfiguration.getRest().isTlsAllowInvalidCertificates()) {
              privateLogger.debug("Using custom SSLContext to allow invalid certificates");
              try {
@@ -184,108 +231,272 @@
 
      private <T> RestResponse<T> execute(String category1, List<String> id1, String category2, String id2, String action,
                                          Map<String, Object> paramsMap, String method, Class<T> clazz) throws ClientException {
-         ObjectMap params;
-         if (paramsMap == null) {
-             params = new ObjectMap();
-         } else {
-             params = new ObjectMap(paramsMap);
+         RestResponse<T> finalRestResponse = null;
+         try (BatchIterator<T> iterator = new BatchIterator<>(category1, id1, category2, id2, action, paramsMap, method, clazz)) {
+             while (iterator.hasNext()) {
+                 RestResponse<T> batchRestResponse = iterator.next();
+                 int batchNumResults = batchRestResponse.allResultsSize();
+
+                 if (finalRestResponse == null) {
+                     finalRestResponse = batchRestResponse;
+                     if (finalRestResponse.getEvents() == null) {
+                         finalRestResponse.setEvents(new ArrayList<>());
+                     }
+                     if (finalRestResponse.first() == null) {
+                         finalRestResponse.setResponses(Collections.singletonList(new OpenCGAResult<>()));
+                         finalRestResponse.first().setResults(new ArrayList<>());
+                     }
+                     if (finalRestResponse.first().getEvents() == null) {
+                         finalRestResponse.first().setEvents(new ArrayList<>());
+                     }
+                 } else {
+                     // Merge results
+                     if (batchNumResults > 0) {
+                         finalRestResponse.first().getResults().addAll(batchRestResponse.getResponses().get(0).getResults());
+                         finalRestResponse.first().setNumResults(finalRestResponse.first().getResults().size());
+                     }
+                     if (batchRestResponse.getEvents() != null) {
+                         finalRestResponse.getEvents().addAll(batchRestResponse.getEvents());
+                     }
+                     if (batchRestResponse.first() != null && batchRestResponse.first().getEvents() != null) {
+                         finalRestResponse.first().getEvents().addAll(batchRestResponse.first().getEvents());
+                     }
+                 }
+             }
          }
-         params.put(QueryOptions.TIMEOUT, DEFAULT_READ_TIMEOUT);
-
-         client.property(ClientProperties.CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
-         client.property(ClientProperties.READ_TIMEOUT, DEFAULT_READ_TIMEOUT);
-
-         int skip;
-         int limit;
-         int batchSize;
-         if (CollectionUtils.isEmpty(id1)) {
-             skip = params.getInt(QueryOptions.SKIP, DEFAULT_SKIP);
-             limit = params.getInt(QueryOptions.LIMIT, defaultLimit);
-             batchSize = this.batchSize;
+         return finalRestResponse;
+     }
 
-             if (limit == 0) {
-                 limit = defaultLimit;
-             }
+     /**
+      * Iterate over the results of a query without waiting for all of them. The following batches are fetched in background while
+      * the results of the current one are consumed.
+      *
+      * @param category1 Resource category.
+      * @param id1       Comma separated list of ids, if any.
+      * @param category2 Sub-resource category, if any.
+      * @param id2       Sub-resource id, if any.
+      * @param action    Action.
+      * @param params    Params to be passed to the WS.
+      * @param method    Method by which the query will be done (GET or POST).
+      * @param clazz     Expected return class.
+      * @param <T>       Type of the results.
+      * @return An iterator over all the results. Any client error found while iterating is thrown as an IllegalStateException.
+      */
+     public <T> Iterator<T> iterator(String category1, String id1, String category2, String id2, String action,
+                                     Map<String, Object> params, String method, Class<T> clazz) {
+         List<String> ids;
+         if (StringUtils.isNotEmpty(id1)) {
+             ids = Arrays.asList(id1.split(","));
          } else {
-             // Ignore input SKIP and LIMIT from Params
-             skip = 0;
-             limit = id1.size();
-             // Hardcoded OpenCGA IDs limit
-             // See org.opencb.opencga.server.rest.OpenCGAWSServer.MAX_ID_SIZE
-             batchSize = 100;
-
-             params.remove(QueryOptions.SKIP);
-             params.remove(QueryOptions.LIMIT);
+             ids = Collections.emptyList();
          }
+         BatchIterator<T> batches = new BatchIterator<>(category1, ids, category2, id2, action, params, method, clazz);
+         return new Iterator<T>() {
+             private Iterator<T> current = Collections.emptyIterator();
+
+             @Override
+             public boolean hasNext() {
+                 while (!current.hasNext() && batches.hasNext()) {
+                     try {
+                         current = batches.next().allResults().iterator();
+                     } catch (ClientException e) {
+                         batches.close();
+                         throw new IllegalStateException(e.getMessage(), e);
+                     }
+                 }
+                 return current.hasNext();
+             }
 
-         RestResponse<T> finalRestResponse = null;
-         int finalNumResults = 0;
-         int batchNumResults;
-         // Call REST in batches
-         do {
-             // Update the batch limit
-             int batchLimit = Math.min(batchSize, limit - finalNumResults);
-
-             // Build URL
-             WebTarget path = client
-                     .target(clientConfiguration.getCurrentHost().getUrl())
-                     .path("webservices")
-                     .path("rest")
-                     .path("v2")
-                     .path(category1);
-             // Select batch. Either by ID or with limit/skip
-             if (CollectionUtils.isNotEmpty(id1)) {
-                 // Select batch of IDs
-                 path = path.path(String.join(",", id1.subList(skip, skip + batchLimit)));
-                 // FIXME: This should not be needed!
-                 params.put(QueryOptions.LIMIT, batchLimit);
+             @Override
+             public T next() {
+                 if (!hasNext()) {
+                     throw new NoSuchElementException();
+                 }
+                 return current.next();
+             }
+         };
+     }
+
+     /**
+      * Calls the REST in batches. Either by ID, or with limit/skip.
+      * GET queries by ID fetch up to "numThreads" batches concurrently. With limit/skip, the first page is fetched alone, and the next
+      * ones are only read ahead if it came back full: up to "numThreads" pages at a time if the number of matches is known, so no page
+      * is requested beyond the end of the results, or one page ahead otherwise.
+      * Any other call is sent in order, one batch at a time, from the calling thread.
+      */
+     private final class BatchIterator<T> implements AutoCloseable {
+
+         private final String category1;
+         private final List<String> ids;
+         private final String category2;
+         private final String id2;
+         private final String action;
+         private final ObjectMap params;
+         private final String method;
+         private final Class<T> clazz;
+         private final int batchLimit;
+         private final int maxInFlight;
+         private final Deque<Batch<T>> pending = new ArrayDeque<>();
+         private final int firstSkip;
+         private int limit;
+         private int inFlight;
+         private int skip;
+         private int submitted;
+         private boolean exhausted;
+
+         private BatchIterator(String category1, List<String> ids, String category2, String id2, String action,
+                               Map<String, Object> paramsMap, String method, Class<T> clazz) {
+             this.category1 = category1;
+             this.category2 = category2;
+             this.id2 = id2;
+             this.action = action;
+             this.method = method;
+             this.clazz = clazz;
+             if (paramsMap == null) {
+                 params = new ObjectMap();
              } else {
-                 // Select batch with skip/limit
-                 params.put(QueryOptions.SKIP, skip);
-                 params.put(QueryOptions.LIMIT, batchLimit);
+                 params = new ObjectMap(paramsMap);
              }
-             if (StringUtils.isNotEmpty(category2)) {
-                 path = path.path(category2);
+             params.put(QueryOptions.TIMEOUT, readTimeout);
+
+             if (CollectionUtils.isEmpty(ids)) {
+                 this.ids = Collections.emptyList();
+                 skip = params.getInt(QueryOptions.SKIP, DEFAULT_SKIP);
+                 int queryLimit = params.getInt(QueryOptions.LIMIT, defaultLimit);
+                 limit = queryLimit == 0 ? defaultLimit : queryLimit;
+                 batchLimit = batchSize;
+             } else {
+                 // Ignore input SKIP and LIMIT from Params
+                 this.ids = ids;
+                 skip = 0;
+                 limit = ids.size();
+                 batchLimit = ID_BATCH_SIZE;
+
+                 params.remove(QueryOptions.SKIP);
+                 params.remove(QueryOptions.LIMIT);
              }
-             if (StringUtils.isNotEmpty(id2)) {
-                 path = path.path(id2);
+             firstSkip = skip;
+             maxInFlight = GET.equals(method) && !action.equals("download") ? numThreads : 1;
+             // Pages are not read ahead until the size of the first one is known
+             inFlight = this.ids.isEmpty() ? 1 : maxInFlight;
+         }
+
+         public boolean hasNext() {
+             submit();
+             return !pending.isEmpty();
+         }
+
+         public RestResponse<T> next() throws ClientException {
+             if (!hasNext()) {
+                 throw new NoSuchElementException();
              }
-             path = path.path(action);
-             //privateLogger.info("PATH ::: " + path);
-             // Call REST
-             RestResponse<T> batchRestResponse = callRest(path, params, clazz, method, action);
-             batchNumResults = batchRestResponse.allResultsSize();
-
-             if (finalRestResponse == null) {
-                 finalRestResponse = batchRestResponse;
-                 if (finalRestResponse.getEvents() == null) {
-                     finalRestResponse.setEvents(new ArrayList<>());
-                 }
-                 if (finalRestResponse.first() == null) {
-                     finalRestResponse.setResponses(Collections.singletonList(new OpenCGAResult<>()));
-                     finalRestResponse.first().setResults(new ArrayList<>());
+             Batch<T> batch = pending.poll();
+             RestResponse<T> batchRestResponse = batch.get();
+             if (ids.isEmpty()) {
+                 if (batchRestResponse.allResultsSize() < batch.limit) {
+                     // Last page. Discard any batch requested beyond the end of the results
+                     exhausted = true;
+                     close();
+                 } else if (batch.skip == firstSkip && maxInFlight > 1) {
+                     // First page came back full. Read ahead the next pages
+                     OpenCGAResult<T> first = batchRestResponse.first();
+                     long numMatches = first != null ? first.getNumMatches() : -1;
+                     // Approximate counts may be lower than the actual number of results, so they can't be used to stop
+                     boolean approximateCount = first != null && first.getAttributes() != null
+                             && first.getAttributes().getBoolean(VariantQueryResult.APPROXIMATE_COUNT);
+                     if (numMatches >= 0 && !approximateCount) {
+                         limit = (int) Math.min(limit, Math.max(0, numMatches - firstSkip));
+                         inFlight = maxInFlight;
+                     } else {
+                         inFlight = 2;
+                     }
                  }
-                 if (finalRestResponse.first().getEvents() == null) {
-                     finalRestResponse.first().setEvents(new ArrayList<>());
+             }
+             return batchRestResponse;
+         }
+
+         private void submit() {
+             while (!exhausted && submitted < limit && pending.size() < inFlight) {
+                 // Update the batch limit
+                 int thisBatchLimit = Math.min(batchLimit, limit - submitted);
+                 ObjectMap batchParams = new ObjectMap(params);
+
+                 // Build URL
+                 WebTarget path = client
+                         .target(clientConfiguration.getCurrentHost().getUrl())
+                         .path("webservices")
+                         .path("rest")
+                         .path("v2")
+                         .path(category1);
+                 // Select batch. Either by ID or with limit/skip
+                 if (!ids.isEmpty()) {
+                     // Select batch of IDs
+                     path = path.path(String.join(",", ids.subList(skip, skip + thisBatchLimit)));
+                     // FIXME: This should not be needed!
+                     batchParams.put(QueryOptions.LIMIT, thisBatchLimit);
+                 } else {
+                     // Select batch with skip/limit
+                     batchParams.put(QueryOptions.SKIP, skip);
+                     batchParams.put(QueryOptions.LIMIT, thisBatchLimit);
                  }
-             } else {
-                 // Merge results
-                 if (batchNumResults > 0) {
-                     finalRestResponse.first().getResults().addAll(batchRestResponse.getResponses().get(0).getResults());
-                     finalRestResponse.first().setNumResults(finalRestResponse.first().getResults().size());
+                 if (StringUtils.isNotEmpty(category2)) {
+                     path = path.path(category2);
                  }
-                 if (batchRestResponse.getEvents() != null) {
-                     finalRestResponse.getEvents().addAll(batchRestResponse.getEvents());
+                 if (StringUtils.isNotEmpty(id2)) {
+                     path = path.path(id2);
                  }
-                 if (batchRestResponse.first().getEvents() != null) {
-                     finalRestResponse.first().getEvents().addAll(batchRestResponse.first().getEvents());
+                 path = path.path(action);
+
+                 WebTarget batchPath = path;
+                 FutureTask<RestResponse<T>> task = new FutureTask<>(() -> callRest(batchPath, batchParams, clazz, method, action));
+                 if (inFlight > 1) {
+                     EXECUTOR.execute(task);
+                 } else {
+                     task.run();
                  }
+                 pending.add(new Batch<>(skip, thisBatchLimit, task));
+
+                 skip += thisBatchLimit;
+                 submitted += thisBatchLimit;
              }
+         }
 
-             skip += batchNumResults;
-             finalNumResults += batchNumResults;
-         } while (batchNumResults >= batchSize && finalNumResults < limit);
-         return finalRestResponse;
+         @Override
+         public void close() {
+             for (Batch<T> batch : pending) {
+                 batch.future.cancel(true);
+             }
+             pending.clear();
+         }
+     }
+
+     private static final class Batch<T> {
+         private final int skip;
+         private final int limit;
+         private final Future<RestResponse<T>> future;
+
+         private Batch(int skip, int limit, Future<RestResponse<T>> future) {
+             this.skip = skip;
+             this.limit = limit;
+             this.future = future;
+         }
+
+         private RestResponse<T> get() throws ClientException {
+             try {
+                 return future.get();
+             } catch (InterruptedException e) {
+                 Thread.currentThread().interrupt();
+                 throw new ClientException("Interrupted while waiting for the REST response", e);
+             } catch (ExecutionException e) {
+                 if (e.getCause() instanceof ClientException) {
+                     throw (ClientException) e.getCause();
+                 } else if (e.getCause() instanceof RuntimeException) {
+                     throw (RuntimeException) e.getCause();
+                 } else {
+                     throw new ClientException(e.getCause());
+                 }
+             }
+         }
      }
 
      private <T> RestResponse<T> callRest(WebTarget path, ObjectMap params, Class<T> clazz, String method, String action)
@@ -424,7 +635,7 @@
          params.remove("file");
          params.remove("body");
 
-         path.property(ClientProperties.READ_TIMEOUT, DEFAULT_READ_TIMEOUT * 10);
+         path.property(ClientProperties.READ_TIMEOUT, readTimeout * 10);
          path.register(MultiPartFeature.class);
 
          final FileDataBodyPart filePart = new FileDataBodyPart("file", new File(filePath));
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.core.common;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies in milliseconds, with fixed buckets.
+ * Recording a value only increments a couple of counters, so it can be used in the hot path of every request.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds of the buckets, in milliseconds. Values above the last one go to the "+Inf" bucket. */
+    static final long[] BUCKETS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000};
+
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        counts = new LongAdder[BUCKETS.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long millis) {
+        if (millis < 0) {
+            millis = 0;
+        }
+        counts[bucket(millis)].increment();
+        sum.add(millis);
+        max.accumulate(millis);
+    }
+
+    static int bucket(long millis) {
+        int i = 0;
+        while (i < BUCKETS.length && millis > BUCKETS[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder c : counts) {
+            count += c.sum();
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Cumulative counts of each bucket, as required by the Prometheus histograms. The last element is the total count.
+     *
+     * @return Cumulative counts
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[counts.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i].sum();
+            cumulative[i] = count;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Estimate the given percentile, returning the upper bound of the bucket where it falls.
+     *
+     * @param percentile Percentile, between 0 and 100
+     * @return Estimated value in milliseconds, or 0 if there are no values
+     */
+    public long getPercentile(double percentile) {
+        long[] cumulative = getCumulativeCounts();
+        long total = cumulative[cumulative.length - 1];
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (cumulative[i] >= rank) {
+                return Math.min(BUCKETS[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LatencyHistogram{");
+        sb.append("count=").append(getCount());
+        sb.append(", sum=").append(getSum());
+        sb.append(", p50=").append(getPercentile(50));
+        sb.append(", p99=").append(getPercentile(99));
+        sb.append(", max=").append(getMax());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.core.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registry of the latency histograms of the process, exported in the Prometheus text format.
+ * <p>
+ * Usage:
+ * long start = System.currentTimeMillis();
+ * .....
+ * Metrics.record("opencga_variant_storage_duration_ms", System.currentTimeMillis() - start, "operation", "get");
+ * <p>
+ * Besides the histograms, the timings recorded by the current thread can be collected with {@link #startRequest()} and
+ * {@link #endRequest()}, to report the breakdown of a single request.
+ */
+public final class Metrics {
+
+    private static final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final ThreadLocal<Map<String, Long>> REQUEST_TIMINGS = new ThreadLocal<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Get or create the histogram with the given name and labels.
+     *
+     * @param name   Metric name. Must be a valid Prometheus metric name
+     * @param labels Pairs of label name and value
+     * @return the histogram
+     */
+    public static LatencyHistogram histogram(String name, String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be pairs of name and value");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return HISTOGRAMS.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(sb.toString(), k -> new LatencyHistogram());
+    }
+
+    /**
+     * Record a latency in the histogram with the given name and labels, and in the timings of the current request, if any.
+     *
+     * @param name   Metric name
+     * @param millis Latency in milliseconds
+     * @param labels Pairs of label name and value
+     */
+    public static void record(String name, long millis, String... labels) {
+        histogram(name, labels).record(millis);
+        Map<String, Long> timings = REQUEST_TIMINGS.get();
+        if (timings != null) {
+            timings.merge(name, millis, Long::sum);
+        }
+    }
+
+    /**
+     * Start collecting the timings recorded by the current thread.
+     */
+    public static void startRequest() {
+        REQUEST_TIMINGS.set(new LinkedHashMap<>());
+    }
+
+    /**
+     * Get the timings recorded by the current thread so far, without stopping the collection.
+     *
+     * @return Copy of the total time by metric name recorded since {@link #startRequest()}, or an empty map if not started
+     */
+    public static Map<String, Long> getRequestTimings() {
+        Map<String, Long> timings = REQUEST_TIMINGS.get();
+        return timings == null ? new LinkedHashMap<>() : new LinkedHashMap<>(timings);
+    }
+
+    /**
+     * Stop collecting the timings recorded by the current thread. Must be called once at the end of each request.
+     *
+     * @return Total time by metric name recorded since {@link #startRequest()}, or an empty map if not started
+     */
+    public static Map<String, Long> endRequest() {
+        Map<String, Long> timings = REQUEST_TIMINGS.get();
+        REQUEST_TIMINGS.remove();
+        return timings == null ? new LinkedHashMap<>() : timings;
+    }
+
+    /**
+     * Write all the histograms in the Prometheus text format (version 0.0.4).
+     *
+     * @return Metrics in Prometheus text format
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> entry : HISTOGRAMS.entrySet()) {
+            String name = entry.getKey();
+            sb.append("# TYPE ").append(name).append(" histogram\n");
+            for (Map.Entry<String, LatencyHistogram> histogramEntry : entry.getValue().entrySet()) {
+                String labels = histogramEntry.getKey();
+                String prefix = labels.isEmpty() ? "" : labels + ",";
+                LatencyHistogram histogram = histogramEntry.getValue();
+                long[] cumulative = histogram.getCumulativeCounts();
+                for (int i = 0; i < cumulative.length; i++) {
+                    String le = i < LatencyHistogram.BUCKETS.length ? String.valueOf(LatencyHistogram.BUCKETS[i]) : "+Inf";
+                    sb.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                            .append(cumulative[i]).append('\n');
+                }
+                String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+                sb.append(name).append("_sum").append(suffix).append(histogram.getSum()).append('\n');
+                sb.append(name).append("_count").append(suffix).append(cumulative[cumulative.length - 1]).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write a gauge in the Prometheus text format.
+     *
+     * @param sb    StringBuilder where to write
+     * @param name  Metric name
+     * @param value Value
+     */
+    public static void appendGauge(StringBuilder sb, String name, Number value) {
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    public static void clear() {
+        HISTOGRAMS.clear();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
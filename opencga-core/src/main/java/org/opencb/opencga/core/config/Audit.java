@@ -25,6 +25,24 @@ public class Audit {
     private long maxDocuments;
     private long maxSize;
 
+    /**
+     * Maximum number of audit records waiting to be written in background. 0 to write them synchronously.
+     */
+    private int queueSize = 10000;
+    /**
+     * Maximum number of audit records written at once.
+     */
+    private int batchSize = 100;
+    /**
+     * Maximum number of milliseconds an audit record waits in the queue before being written.
+     */
+    private long flushInterval = 1000;
+    /**
+     * Directory where the audit records are temporarily stored if they can not be written to the database.
+     * If empty, the log directory will be used.
+     */
+    private String spillDir;
+
     public Audit() {
     }
 
@@ -40,6 +58,10 @@ public class Audit {
         sb.append("manager='").append(manager).append('\'');
         sb.append(", maxDocuments=").append(maxDocuments);
         sb.append(", maxSize=").append(maxSize);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", flushInterval=").append(flushInterval);
+        sb.append(", spillDir='").append(spillDir).append('\'');
         sb.append('}');
         return sb.toString();
     }
@@ -70,4 +92,40 @@ public class Audit {
         this.maxSize = maxSize;
         return this;
     }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public Audit setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Audit setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public Audit setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public String getSpillDir() {
+        return spillDir;
+    }
+
+    public Audit setSpillDir(String spillDir) {
+        this.spillDir = spillDir;
+        return this;
+    }
 }
@@ -21,6 +21,11 @@ package org.opencb.opencga.core.config;
  */
 public class GrpcServerConfiguration extends AbstractServerConfiguration {
 
+    // Number of threads serving the gRPC calls
+    private int numThreads;
+    // Compress the responses with gzip unless the client asks otherwise
+    private boolean compression;
+
     public GrpcServerConfiguration() {
     }
 
@@ -28,4 +33,33 @@ public class GrpcServerConfiguration extends AbstractServerConfiguration {
         super(port);
     }
 
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("GrpcServerConfiguration{");
+        sb.append("port=").append(port);
+        sb.append(", logFile='").append(logFile).append('\'');
+        sb.append(", numThreads=").append(numThreads);
+        sb.append(", compression=").append(compression);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public GrpcServerConfiguration setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+        return this;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public GrpcServerConfiguration setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
 }
@@ -24,6 +24,7 @@ public class Monitor {
     private int daysToRemove;
     private int executionDaemonInterval;
     private int fileDaemonInterval;
+    private int summaryDaemonInterval;
 
     private int port;
 
@@ -36,6 +37,7 @@ public class Monitor {
         sb.append("daysToRemove=").append(daysToRemove);
         sb.append(", executionDaemonInterval=").append(executionDaemonInterval);
         sb.append(", fileDaemonInterval=").append(fileDaemonInterval);
+        sb.append(", summaryDaemonInterval=").append(summaryDaemonInterval);
         sb.append(", port=").append(port);
         sb.append('}');
         return sb.toString();
@@ -68,6 +70,15 @@ public class Monitor {
         return this;
     }
 
+    public int getSummaryDaemonInterval() {
+        return summaryDaemonInterval;
+    }
+
+    public Monitor setSummaryDaemonInterval(int summaryDaemonInterval) {
+        this.summaryDaemonInterval = summaryDaemonInterval;
+        return this;
+    }
+
     public int getPort() {
         return port;
     }
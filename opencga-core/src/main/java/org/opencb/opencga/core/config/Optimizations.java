@@ -8,6 +8,25 @@ public class Optimizations {
      */
     private boolean simplifyPermissions;
 
+    /**
+     * Number of seconds the study groups, ACLs and authorization decisions can be reused before reading them again from the database.
+     * Local ACL and group updates are visible immediately. Updates made by other processes may take up to this time to be noticed.
+     * 0 to disable the cache. By default, 5.
+     */
+    private int authorizationCacheTtl = 5;
+
+    /**
+     * Maximum number of authorization decisions cached per study. By default, 10000.
+     */
+    private int authorizationCacheSize = 10000;
+
+    /**
+     * Boolean indicating whether annotation filters should be resolved using the annotation index, querying directly the values of each
+     * variable instead of matching the whole list of annotations. The index is only maintained while this is enabled, so the
+     * add_annotation_index migration needs to be run (with --force if it already ran) every time it is enabled. By default, false.
+     */
+    private boolean annotationQueryIndex;
+
     public Optimizations() {
     }
 
@@ -24,4 +43,31 @@ public class Optimizations {
         return this;
     }
 
+    public int getAuthorizationCacheTtl() {
+        return authorizationCacheTtl;
+    }
+
+    public Optimizations setAuthorizationCacheTtl(int authorizationCacheTtl) {
+        this.authorizationCacheTtl = authorizationCacheTtl;
+        return this;
+    }
+
+    public int getAuthorizationCacheSize() {
+        return authorizationCacheSize;
+    }
+
+    public Optimizations setAuthorizationCacheSize(int authorizationCacheSize) {
+        this.authorizationCacheSize = authorizationCacheSize;
+        return this;
+    }
+
+    public boolean isAnnotationQueryIndex() {
+        return annotationQueryIndex;
+    }
+
+    public Optimizations setAnnotationQueryIndex(boolean annotationQueryIndex) {
+        this.annotationQueryIndex = annotationQueryIndex;
+        return this;
+    }
+
 }
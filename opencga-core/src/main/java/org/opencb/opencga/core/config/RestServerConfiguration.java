@@ -23,7 +23,8 @@ public class RestServerConfiguration extends AbstractServerConfiguration {
 
     private int defaultLimit;
     private int maxLimit;
-
+    // Compress the json responses with gzip when the client accepts it
+    private boolean compression;
 
     public RestServerConfiguration() {
     }
@@ -43,6 +44,7 @@ public class RestServerConfiguration extends AbstractServerConfiguration {
         final StringBuilder sb = new StringBuilder("RestServerConfiguration{");
         sb.append("defaultLimit=").append(defaultLimit);
         sb.append(", maxLimit=").append(maxLimit);
+        sb.append(", compression=").append(compression);
         sb.append('}');
         return sb.toString();
     }
@@ -64,4 +66,13 @@ public class RestServerConfiguration extends AbstractServerConfiguration {
         this.maxLimit = maxLimit;
         return this;
     }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public RestServerConfiguration setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
 }
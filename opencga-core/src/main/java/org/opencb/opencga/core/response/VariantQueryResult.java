@@ -42,7 +42,7 @@ public class VariantQueryResult<T> extends OpenCGAResult<T> {
     private static final String NUM_TOTAL_SAMPLES = "numTotalSamples";
     private static final String NUM_SAMPLES = "numSamples";
     private static final String SOURCE = "source";
-    private static final String APPROXIMATE_COUNT = "approximateCount";
+    public static final String APPROXIMATE_COUNT = "approximateCount";
     private static final String APPROXIMATE_COUNT_SAMPLING_SIZE = "approximateCountSamplingSize";
 
     public VariantQueryResult() {
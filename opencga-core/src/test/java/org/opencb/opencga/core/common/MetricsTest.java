@@ -0,0 +1,67 @@
+package org.opencb.opencga.core.common;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() {
+        Metrics.clear();
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(0, new LatencyHistogram().getPercentile(50));
+
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(0, LatencyHistogram.bucket(1));
+        assertEquals(1, LatencyHistogram.bucket(2));
+        assertEquals(LatencyHistogram.BUCKETS.length, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPrometheus() {
+        Metrics.record("opencga_test_duration_ms", 3, "endpoint", "a");
+        Metrics.record("opencga_test_duration_ms", 3000, "endpoint", "a");
+        Metrics.record("opencga_test_duration_ms", 7, "endpoint", "b\"");
+
+        String prometheus = Metrics.toPrometheus();
+        assertTrue(prometheus, prometheus.contains("# TYPE opencga_test_duration_ms histogram\n"));
+        assertTrue(prometheus, prometheus.contains("opencga_test_duration_ms_bucket{endpoint=\"a\",le=\"5\"} 1\n"));
+        assertTrue(prometheus, prometheus.contains("opencga_test_duration_ms_bucket{endpoint=\"a\",le=\"+Inf\"} 2\n"));
+        assertTrue(prometheus, prometheus.contains("opencga_test_duration_ms_sum{endpoint=\"a\"} 3003\n"));
+        assertTrue(prometheus, prometheus.contains("opencga_test_duration_ms_count{endpoint=\"b\\\"\"} 1\n"));
+    }
+
+    @Test
+    public void testRequestTimings() {
+        Metrics.record("opencga_test_duration_ms", 1);
+        Metrics.startRequest();
+        Metrics.record("opencga_test_duration_ms", 2);
+        Metrics.record("opencga_test_duration_ms", 3);
+        Metrics.record("opencga_other_duration_ms", 4);
+        assertEquals(5L, Metrics.getRequestTimings().get("opencga_test_duration_ms").longValue());
+        Map<String, Long> timings = Metrics.endRequest();
+
+        assertEquals(2, timings.size());
+        assertEquals(5L, timings.get("opencga_test_duration_ms").longValue());
+        assertEquals(4L, timings.get("opencga_other_duration_ms").longValue());
+        assertTrue(Metrics.endRequest().isEmpty());
+        assertEquals(3, Metrics.histogram("opencga_test_duration_ms").getCount());
+    }
+}
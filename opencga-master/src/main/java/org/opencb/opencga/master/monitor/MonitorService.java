@@ -28,6 +28,7 @@ import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.core.config.Configuration;
 import org.opencb.opencga.master.monitor.daemons.ExecutionDaemon;
+import org.opencb.opencga.master.monitor.daemons.SummaryDaemon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +47,12 @@ public class MonitorService {
     private int port;
 
     private ExecutionDaemon executionDaemon;
+    private SummaryDaemon summaryDaemon;
 //    private FileDaemon fileDaemon;
 //    private AuthorizationDaemon authorizationDaemon;
 
     private Thread executionThread;
+    private Thread summaryThread;
 //    private Thread indexThread;
 //    private Thread fileThread;
 //    private Thread authorizationThread;
@@ -97,6 +100,12 @@ public class MonitorService {
 //                    configuration.getMonitor().getDaysToRemove(), nonExpiringToken, catalogManager);
 
         executionThread = new Thread(executionDaemon, "execution-thread");
+
+        if (configuration.getMonitor().getSummaryDaemonInterval() > 0) {
+            summaryDaemon = new SummaryDaemon(configuration.getMonitor().getSummaryDaemonInterval(), nonExpiringToken, catalogManager);
+            summaryThread = new Thread(summaryDaemon, "summary-thread");
+            summaryThread.setDaemon(true);
+        }
 //            fileThread = new Thread(fileDaemon, "file-thread");
 //            authorizationThread = new Thread(authorizationDaemon, "authorization-thread");
 
@@ -107,6 +116,9 @@ public class MonitorService {
 
         // Launching the two daemons in two different threads
         executionThread.start();
+        if (summaryThread != null) {
+            summaryThread.start();
+        }
 //        indexThread.start();
 //        authorizationThread.start();
 //        fileThread.start();
@@ -163,6 +175,10 @@ public class MonitorService {
 
     public void stop() throws Exception {
         executionDaemon.setExit(true);
+        if (summaryDaemon != null) {
+            summaryDaemon.setExit(true);
+            summaryThread.interrupt();
+        }
 //        fileDaemon.setExit(true);
 //        executionDaemon.setExit(true);
 //        authorizationDaemon.setExit(true);
@@ -125,10 +125,12 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -144,6 +146,9 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     public static final String OUTDIR_PARAM = "outdir";
     public static final int EXECUTION_RESULT_FILE_EXPIRATION_MINUTES = 10;
     public static final String REDACTED_TOKEN = "xxxxxxxxxxxxxxxxxxxxx";
+    // Execution option with the number of threads used to check the queued and running jobs and register their results
+    public static final String NUM_THREADS = "daemon.numThreads";
+    public static final int DEFAULT_NUM_THREADS = 4;
     private String internalCli;
     private JobManager jobManager;
     private FileManager fileManager;
@@ -160,10 +165,44 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     // (15 + 50 from pending), and it will check up to 50 finished jobs from the running ones.
     // On second iteration, it will queue the remaining 50 pending jobs, and so on...
     private static final int NUM_JOBS_HANDLED = 50;
+    // Number of cycles after which the pending jobs are reloaded from the database even if no change has been notified
+    private static final int PENDING_JOBS_RELOAD_CYCLES = 10;
+    // Backoff between attempts to listen to the job changes
+    private static final long MIN_WATCH_BACKOFF_MILLIS = 1000;
+    private static final long MAX_WATCH_BACKOFF_MILLIS = 60000;
+    // Pending jobs are handled by priority and creation date
+    private static final Comparator<Job> PENDING_JOBS_COMPARATOR = Comparator
+            .comparingInt((Job job) -> job.getPriority() != null ? job.getPriority().getValue() : Enums.Priority.UNKNOWN.getValue())
+            .thenComparing(job -> StringUtils.defaultString(job.getCreationDate()))
+            .thenComparing(job -> StringUtils.defaultString(job.getId()));
     private final Query pendingJobsQuery;
     private final Query queuedJobsQuery;
     private final Query runningJobsQuery;
     private final QueryOptions queryOptions;
+    private final QueryOptions pendingJobsQueryOptions;
+
+    // Pending jobs kept in memory, one heap per queue. They are only reloaded from the database when a job change is notified.
+    private final Map<String, PriorityQueue<Job>> pendingJobsByQueue = new HashMap<>();
+    private final AtomicBoolean pendingJobsChanged = new AtomicBoolean(true);
+    private int cyclesSinceLastPendingJobsLoad;
+    private final Runnable jobChangeListener = this::onJobChange;
+    private final Object wakeUpLock = new Object();
+    private boolean wakeUp;
+    private volatile boolean watchingJobChanges;
+    // Threads of the daemon, whose job changes do not need to be notified
+    private final Set<Thread> daemonThreads = ConcurrentHashMap.newKeySet();
+    // Number of queued and running jobs checked on the last cycle
+    private int numQueuedJobs;
+    private int numRunningJobs;
+
+    // Queued and running jobs are checked in parallel. Only one task per job can be in progress at any time, so the transitions of a
+    // job are always processed in order.
+    private final ExecutorService jobWorkers;
+    private final Set<Long> jobsInProgress = ConcurrentHashMap.newKeySet();
+    private final List<Future<?>> cycleTasks = new ArrayList<>();
+    private final AtomicLong transitionsCount = new AtomicLong();
+    private final AtomicLong transitionsTime = new AtomicLong();
+    private final AtomicLong maxTransitionTime = new AtomicLong();
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
@@ -267,13 +306,45 @@ public class ExecutionDaemon extends MonitorParentDaemon {
                 .append(QueryOptions.SORT, Arrays.asList(JobDBAdaptor.QueryParams.PRIORITY.key(),
                         JobDBAdaptor.QueryParams.CREATION_DATE.key()))
                 .append(QueryOptions.ORDER, QueryOptions.ASCENDING);
+        // Load up to NUM_JOBS_HANDLED pending jobs per queue, with only the fields required to queue them
+        Map<String, List<String>> toolsPerQueue = catalogManager.getConfiguration().getAnalysis().getExecution().getToolsPerQueue();
+        int numQueues = toolsPerQueue != null ? toolsPerQueue.size() + 1 : 1;
+        pendingJobsQueryOptions = new QueryOptions(queryOptions)
+                .append(QueryOptions.LIMIT, NUM_JOBS_HANDLED * numQueues)
+                .append(QueryOptions.INCLUDE, Arrays.asList(JobDBAdaptor.QueryParams.ID.key(), JobDBAdaptor.QueryParams.UID.key(),
+                        JobDBAdaptor.QueryParams.UUID.key(), JobDBAdaptor.QueryParams.USER_ID.key(),
+                        JobDBAdaptor.QueryParams.DESCRIPTION.key(), JobDBAdaptor.QueryParams.TOOL.key(),
+                        JobDBAdaptor.QueryParams.PRIORITY.key(), JobDBAdaptor.QueryParams.PARAMS.key(),
+                        JobDBAdaptor.QueryParams.CREATION_DATE.key(), JobDBAdaptor.QueryParams.INTERNAL.key(),
+                        JobDBAdaptor.QueryParams.OUT_DIR.key(), JobDBAdaptor.QueryParams.DEPENDS_ON.key(),
+                        JobDBAdaptor.QueryParams.TAGS.key(), JobDBAdaptor.QueryParams.STUDY.key(),
+                        JobDBAdaptor.QueryParams.ATTRIBUTES.key()));
+
+        ObjectMap executionOptions = catalogManager.getConfiguration().getAnalysis().getExecution().getOptions();
+        int numThreads = executionOptions != null ? executionOptions.getInt(NUM_THREADS, DEFAULT_NUM_THREADS) : DEFAULT_NUM_THREADS;
+        AtomicInteger threadCount = new AtomicInteger();
+        jobWorkers = Executors.newFixedThreadPool(Math.max(1, numThreads), r -> {
+            Thread thread = new Thread(() -> {
+                daemonThreads.add(Thread.currentThread());
+                r.run();
+            }, "execution-daemon-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        jobManager.getNotificationChannel().subscribe(jobChangeListener);
     }
 
     @Override
     public void run() {
+        daemonThreads.add(Thread.currentThread());
+        Thread watcherThread = new Thread(this::watchJobChanges, "execution-daemon-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+
         while (!exit) {
             try {
-                Thread.sleep(interval);
+                awaitJobChanges();
             } catch (InterruptedException e) {
                 if (!exit) {
                     e.printStackTrace();
@@ -281,12 +352,27 @@ public class ExecutionDaemon extends MonitorParentDaemon {
             }
 
             try {
-                checkJobs();
+                checkJobs(false);
             } catch (Exception e) {
                 logger.error("Catch exception " + e.getMessage(), e);
             }
         }
 
+        jobManager.getNotificationChannel().unsubscribe(jobChangeListener);
+        watcherThread.interrupt();
+
+        try {
+            logger.info("Attempt to shutdown job workers");
+            jobWorkers.shutdown();
+            if (!jobWorkers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.error("Cancel non-finished job checks");
+                jobWorkers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.error("Job checks interrupted");
+            jobWorkers.shutdownNow();
+        }
+
         try {
             logger.info("Attempt to shutdown webhook executor");
             executor.shutdown();
@@ -302,42 +388,201 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
     }
 
-    protected void checkJobs() {
-        long pendingJobs = -1;
-        long queuedJobs = -1;
-        long runningJobs = -1;
-        try {
-            pendingJobs = jobManager.count(pendingJobsQuery, token).getNumMatches();
-            queuedJobs = jobManager.count(queuedJobsQuery, token).getNumMatches();
-            runningJobs = jobManager.count(runningJobsQuery, token).getNumMatches();
-        } catch (CatalogException e) {
-            logger.error("{}", e.getMessage(), e);
+    @Override
+    public void setExit(boolean exit) {
+        super.setExit(exit);
+        wakeUp();
+    }
+
+    /**
+     * Called every time a job is submitted or updated. Changes made by the daemon itself are ignored, as it already knows about them.
+     * The changes notified from the database by other threads only include new pending jobs and priority changes, so the status
+     * updates of the daemon are not notified back. See {@link #onJobStatusChange(Job)}.
+     */
+    private void onJobChange() {
+        if (!daemonThreads.contains(Thread.currentThread())) {
+            pendingJobsChanged.set(true);
+            wakeUp();
         }
-        logger.info("----- EXECUTION DAEMON  ----- pending={}, queued={}, running={}", pendingJobs, queuedJobs, runningJobs);
+    }
 
-            /*
-            PENDING JOBS
-             */
+    /**
+     * Called every time the daemon changes the status of a job. The pending jobs keep the status the jobs they depend on had when
+     * they were loaded, and the changes made by the daemon are not notified through {@link #onJobChange()}, so they are reloaded
+     * as soon as any job finishes.
+     *
+     * @param job Job whose status has changed.
+     */
+    private void onJobStatusChange(Job job) {
+        switch (job.getInternal().getStatus().getId()) {
+            case Enums.ExecutionStatus.DONE:
+            case Enums.ExecutionStatus.ERROR:
+            case Enums.ExecutionStatus.ABORTED:
+                pendingJobsChanged.set(true);
+                wakeUp();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (wakeUpLock) {
+            wakeUp = true;
+            wakeUpLock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until a job change is notified or the interval expires.
+     *
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private void awaitJobChanges() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + interval;
+        synchronized (wakeUpLock) {
+            long remaining = interval;
+            while (!wakeUp && remaining > 0) {
+                wakeUpLock.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            wakeUp = false;
+        }
+    }
+
+    /**
+     * Listen to the jobs changed by other processes (i.e. submitted through the REST server). If the database does not support change
+     * streams, or the connection is lost, the pending jobs will be reloaded from the database on every cycle until the watcher can
+     * reconnect, with an exponential backoff.
+     */
+    private void watchJobChanges() {
+        long backoff = MIN_WATCH_BACKOFF_MILLIS;
+        while (!exit && !Thread.currentThread().isInterrupted()) {
+            long start = System.currentTimeMillis();
+            watchingJobChanges = true;
+            // Any change may have been missed while disconnected
+            pendingJobsChanged.set(true);
+            try {
+                jobManager.watchChanges(token);
+                // Only returns normally when interrupted
+                return;
+            } catch (CatalogException e) {
+                logger.warn("Could not listen to job changes. Pending jobs will be polled every {} ms. Retry in {} ms. {}", interval,
+                        backoff, e.getMessage());
+            } finally {
+                watchingJobChanges = false;
+            }
+            if (System.currentTimeMillis() - start > MAX_WATCH_BACKOFF_MILLIS) {
+                // The watcher was working for a while, so reset the backoff
+                backoff = MIN_WATCH_BACKOFF_MILLIS;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_WATCH_BACKOFF_MILLIS);
+        }
+    }
+
+    protected void checkJobs() {
+        checkJobs(true);
+    }
+
+    /**
+     * Run a cycle of the daemon. Pending jobs are handled by the daemon thread, while the queued and running jobs are checked by the
+     * job workers.
+     *
+     * @param waitForJobWorkers Wait until every job check started on this cycle has finished.
+     */
+    private void checkJobs(boolean waitForJobWorkers) {
+        long start = System.currentTimeMillis();
+
+        /*
+        PENDING JOBS
+         */
         checkPendingJobs();
+        long pendingTime = System.currentTimeMillis() - start;
 
-            /*
-            QUEUED JOBS
-             */
+        /*
+        QUEUED JOBS
+         */
         checkQueuedJobs();
 
-            /*
-            RUNNING JOBS
-             */
+        /*
+        RUNNING JOBS
+         */
         checkRunningJobs();
+
+        if (waitForJobWorkers) {
+            for (Future<?> task : cycleTasks) {
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    logger.error("{}", e.getMessage(), e);
+                }
+            }
+        }
+        cycleTasks.clear();
+
+        long pendingJobs = pendingJobsByQueue.values().stream().mapToLong(Collection::size).sum();
+        long transitions = transitionsCount.getAndSet(0);
+        long avgTransitionTime = transitions > 0 ? transitionsTime.getAndSet(0) / transitions : 0;
+        logger.info("----- EXECUTION DAEMON  ----- pending={}, queued={}, running={}, inProgress={}", pendingJobs, numQueuedJobs,
+                numRunningJobs, jobsInProgress.size());
+        logger.info("Cycle time: {} ms (pending jobs: {} ms). Job checks finished: {}, avg time: {} ms, max time: {} ms",
+                System.currentTimeMillis() - start, pendingTime, transitions, avgTransitionTime, maxTransitionTime.getAndSet(0));
+    }
+
+    /**
+     * Check the job in one of the job workers, unless there is already a task in progress for the same job.
+     *
+     * @param job       Job to check.
+     * @param jobCheck  Function checking the job.
+     * @return false if the job could not be submitted because there are too many jobs in progress.
+     */
+    private boolean submitJobCheck(Job job, ToIntFunction<Job> jobCheck) {
+        if (jobsInProgress.size() >= 2 * NUM_JOBS_HANDLED) {
+            return false;
+        }
+        if (!jobsInProgress.add(job.getUid())) {
+            // The previous check of this job has not finished yet
+            return true;
+        }
+        try {
+            cycleTasks.add(jobWorkers.submit(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    jobCheck.applyAsInt(job);
+                } catch (RuntimeException e) {
+                    logger.error("[{}] - {}", job.getId(), e.getMessage(), e);
+                } finally {
+                    jobsInProgress.remove(job.getUid());
+                    long time = System.currentTimeMillis() - start;
+                    transitionsCount.incrementAndGet();
+                    transitionsTime.addAndGet(time);
+                    maxTransitionTime.accumulateAndGet(time, Math::max);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            jobsInProgress.remove(job.getUid());
+            return false;
+        }
+        return true;
     }
 
     protected void checkRunningJobs() {
-        int handledRunningJobs = 0;
+        numRunningJobs = 0;
         try (DBIterator<Job> iterator = jobManager.iterator(runningJobsQuery, queryOptions, token)) {
-            while (handledRunningJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
+            boolean accepted = true;
+            while (accepted && iterator.hasNext()) {
                 try {
                     Job job = iterator.next();
-                    handledRunningJobs += checkRunningJob(job);
+                    numRunningJobs++;
+                    accepted = submitJobCheck(job, this::checkRunningJob);
                 } catch (Exception e) {
                     logger.error("{}", e.getMessage(), e);
                 }
@@ -389,12 +634,14 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     }
 
     protected void checkQueuedJobs() {
-        int handledQueuedJobs = 0;
+        numQueuedJobs = 0;
         try (DBIterator<Job> iterator = jobManager.iterator(queuedJobsQuery, queryOptions, token)) {
-            while (handledQueuedJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
+            boolean accepted = true;
+            while (accepted && iterator.hasNext()) {
                 try {
                     Job job = iterator.next();
-                    handledQueuedJobs += checkQueuedJob(job);
+                    numQueuedJobs++;
+                    accepted = submitJobCheck(job, this::checkQueuedJob);
                 } catch (Exception e) {
                     logger.error("{}", e.getMessage(), e);
                 }
@@ -444,18 +691,44 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         // Clear job counts each cycle
         jobsCountByType.clear();
 
-        int handledPendingJobs = 0;
-        try (DBIterator<Job> iterator = jobManager.iterator(pendingJobsQuery, queryOptions, token)) {
-            while (handledPendingJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
+        cyclesSinceLastPendingJobsLoad++;
+        if (pendingJobsChanged.getAndSet(false) || !watchingJobChanges
+                || cyclesSinceLastPendingJobsLoad >= PENDING_JOBS_RELOAD_CYCLES) {
+            loadPendingJobs();
+        }
+
+        for (PriorityQueue<Job> queueJobs : pendingJobsByQueue.values()) {
+            List<Job> retainedJobs = new ArrayList<>();
+            int handledPendingJobs = 0;
+            while (handledPendingJobs < NUM_JOBS_HANDLED && !queueJobs.isEmpty()) {
+                Job job = queueJobs.poll();
                 try {
-                    Job job = iterator.next();
                     handledPendingJobs += checkPendingJob(job);
                 } catch (Exception e) {
                     logger.error("{}", e.getMessage(), e);
                 }
+                if (Enums.ExecutionStatus.PENDING.equals(job.getInternal().getStatus().getId())) {
+                    // The job could not be queued yet
+                    retainedJobs.add(job);
+                }
+            }
+            queueJobs.addAll(retainedJobs);
+        }
+    }
+
+    private void loadPendingJobs() {
+        cyclesSinceLastPendingJobsLoad = 0;
+        pendingJobsByQueue.clear();
+        try (DBIterator<Job> iterator = jobManager.iterator(pendingJobsQuery, pendingJobsQueryOptions, token)) {
+            while (iterator.hasNext()) {
+                Job job = iterator.next();
+                String queue = StringUtils.isNotEmpty(job.getTool().getId()) ? getQueue(job.getTool().getId()) : getQueue("");
+                pendingJobsByQueue.computeIfAbsent(queue, k -> new PriorityQueue<>(PENDING_JOBS_COMPARATOR)).add(job);
             }
         } catch (Exception e) {
             logger.error("{}", e.getMessage(), e);
+            // Try again on next cycle
+            pendingJobsChanged.set(true);
         }
     }
 
@@ -533,7 +806,8 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
 
 
-        Map<String, Object> params = job.getParams();
+        // Work on a copy, as the job is retained in memory if it cannot be queued
+        Map<String, Object> params = job.getParams() != null ? new HashMap<>(job.getParams()) : new HashMap<>();
         String outDirPathParam = (String) params.get(OUTDIR_PARAM);
         if (!StringUtils.isEmpty(outDirPathParam)) {
             try {
@@ -562,7 +836,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         Path stdout = outDirPath.resolve(getLogFileName(job));
 
         // Create cli
-        String commandLine = buildCli(internalCli, job);
+        String commandLine = buildCli(internalCli, job, params);
         String authenticatedCommandLine = commandLine + " --token " + userToken;
         String shadedCommandLine = commandLine + " --token " + REDACTED_TOKEN;
 
@@ -576,11 +850,12 @@ public class ExecutionDaemon extends MonitorParentDaemon {
             logger.error("Could not update job {}. {}", job.getId(), e.getMessage(), e);
             return 0;
         }
+        job.setParams(params);
 
         try {
             String queue = getQueue(tool);
             logger.info("Queue job '{}' on queue '{}'", job.getId(), queue);
-            batchExecutor.execute(job.getId(), queue, authenticatedCommandLine, stdout, stderr);
+            batchExecutor.execute(job, queue, authenticatedCommandLine, stdout, stderr);
         } catch (Exception e) {
             logger.error("Error executing job {}.", job.getId(), e);
             return abortJob(job, "Error executing job. " + e.getMessage());
@@ -655,6 +930,10 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     }
 
     private String getQueue(Tool tool) {
+        return getQueue(tool.id());
+    }
+
+    private String getQueue(String toolId) {
         String queue = "default";
         Execution execution = catalogManager.getConfiguration().getAnalysis().getExecution();
         if (StringUtils.isNotEmpty(execution.getDefaultQueue())) {
@@ -662,7 +941,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
         if (execution.getToolsPerQueue() != null) {
             for (Map.Entry<String, List<String>> entry : execution.getToolsPerQueue().entrySet()) {
-                if (entry.getValue().contains(tool.id())) {
+                if (entry.getValue().contains(toolId)) {
                     queue = entry.getKey();
                 }
             }
@@ -746,6 +1025,10 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     }
 
     public static String buildCli(String internalCli, Job job) {
+        return buildCli(internalCli, job, job.getParams());
+    }
+
+    private static String buildCli(String internalCli, Job job, Map<String, Object> params) {
         String toolId = job.getTool().getId();
         String internalCommand = TOOL_CLI_MAP.get(toolId);
         if (StringUtils.isEmpty(internalCommand)) {
@@ -754,7 +1037,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
                     .append(STUDY_PARAM, job.getStudy().getId());
             return buildCli(internalCli, "tools execute-job", params);
         } else {
-            return buildCli(internalCli, internalCommand, job.getParams());
+            return buildCli(internalCli, internalCommand, params);
         }
     }
 
@@ -827,7 +1110,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
             }
         }
 
-        if (!batchExecutor.canBeQueued()) {
+        if (!batchExecutor.canBeQueued(job)) {
             return false;
         }
 
@@ -893,6 +1176,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
         job.getInternal().setStatus(status);
         notifyStatusChange(job);
+        onJobStatusChange(job);
 
         return 1;
     }
@@ -1056,20 +1340,27 @@ public class ExecutionDaemon extends MonitorParentDaemon {
                 outputFiles.add(registeredFile);
             }
         }
-        if (execution != null) {
-            for (URI externalFile : execution.getExternalFiles()) {
-                Query query = new Query(FileDBAdaptor.QueryParams.URI.key(), externalFile);
-                try {
-                    OpenCGAResult<File> search = fileManager.search(job.getStudy().getId(), query, FileManager.INCLUDE_FILE_URI_PATH,
-                            token);
-                    if (search.getNumResults() == 0) {
-                        throw new CatalogException("File not found");
-                    }
-                    outputFiles.add(search.first());
-                } catch (CatalogException e) {
-                    logger.error("Could not obtain external file {}: {}", externalFile, e.getMessage(), e);
+        if (execution != null && CollectionUtils.isNotEmpty(execution.getExternalFiles())) {
+            // Fetch all the external files in a single query
+            List<String> externalUris = execution.getExternalFiles().stream().map(URI::toString).distinct().collect(Collectors.toList());
+            Query query = new Query(FileDBAdaptor.QueryParams.URI.key(), externalUris);
+            Map<String, File> externalFileMap = new HashMap<>();
+            try {
+                for (File file : fileManager.search(job.getStudy().getId(), query, FileManager.INCLUDE_FILE_URI_PATH, token)
+                        .getResults()) {
+                    externalFileMap.put(file.getUri().toString(), file);
+                }
+            } catch (CatalogException e) {
+                logger.error("Could not obtain external files {}: {}", externalUris, e.getMessage(), e);
+                return 0;
+            }
+            for (String externalUri : externalUris) {
+                File externalFile = externalFileMap.get(externalUri);
+                if (externalFile == null) {
+                    logger.error("Could not obtain external file {}: File not found", externalUri);
                     return 0;
                 }
+                outputFiles.add(externalFile);
             }
         }
         updateParams.setOutput(outputFiles);
@@ -1112,6 +1403,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
         job.getInternal().setStatus(updateParams.getInternal().getStatus());
         notifyStatusChange(job);
+        onJobStatusChange(job);
 
         // If it is a template, we will store the execution results in the same template folder
         String toolId = job.getTool().getId();
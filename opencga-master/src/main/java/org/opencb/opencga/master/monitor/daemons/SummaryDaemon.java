@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.master.monitor.daemons;
+
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
+import org.opencb.opencga.catalog.managers.CatalogManager;
+import org.opencb.opencga.catalog.managers.StudyManager;
+import org.opencb.opencga.core.models.study.Study;
+
+/**
+ * Periodically recalculates the summary counters of every study, fixing any deviation caused by changes not tracked by the
+ * incremental updates.
+ */
+public class SummaryDaemon extends MonitorParentDaemon {
+
+    public SummaryDaemon(int interval, String token, CatalogManager catalogManager) throws CatalogDBException {
+        super(interval, token, catalogManager);
+    }
+
+    @Override
+    public void run() {
+        while (!exit) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                if (!exit) {
+                    logger.warn("Summary daemon interrupted", e);
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            logger.info("----- SUMMARY DAEMON -----");
+            try {
+                for (Study study : catalogManager.getStudyManager().search(new Query(), StudyManager.INCLUDE_STUDY_IDS, token)
+                        .getResults()) {
+                    if (exit) {
+                        break;
+                    }
+                    try {
+                        long startTime = System.currentTimeMillis();
+                        catalogManager.getStudyManager().rebuildEntitySummary(study.getFqn(), token);
+                        logger.info("Summary of study {} rebuilt in {} ms", study.getFqn(), System.currentTimeMillis() - startTime);
+                    } catch (CatalogException e) {
+                        logger.error("Could not rebuild the summary of study {}: {}", study.getFqn(), e.getMessage(), e);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("{}", e.getMessage(), e);
+            }
+        }
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package org.opencb.opencga.master.monitor.executors;
 
+import org.opencb.opencga.core.models.job.Job;
+
 import java.nio.file.Path;
 
 /**
@@ -36,6 +38,20 @@ public interface BatchExecutor {
 
     void execute(String jobId, String queue, String commandLine, Path stdout, Path stderr) throws Exception;
 
+    /**
+     * Execute a job. Executors that take into account the resources required by each job can obtain them from the job tool and params.
+     *
+     * @param job         Job to be executed.
+     * @param queue       Queue where the job will be executed.
+     * @param commandLine Command line of the job.
+     * @param stdout      File where the standard output will be redirected.
+     * @param stderr      File where the standard error will be redirected.
+     * @throws Exception if the job could not be submitted.
+     */
+    default void execute(Job job, String queue, String commandLine, Path stdout, Path stderr) throws Exception {
+        execute(job.getId(), queue, commandLine, stdout, stderr);
+    }
+
     String getStatus(String jobId);
 
     boolean stop(String jobId) throws Exception;
@@ -48,6 +64,16 @@ public interface BatchExecutor {
         return true;
     }
 
+    /**
+     * Check whether the executor has enough capacity left to queue the job.
+     *
+     * @param job Job to be queued.
+     * @return true if the job can be queued.
+     */
+    default boolean canBeQueued(Job job) {
+        return canBeQueued();
+    }
+
     boolean isExecutorAlive();
 
     default String getCommandLine(String commandLine) {
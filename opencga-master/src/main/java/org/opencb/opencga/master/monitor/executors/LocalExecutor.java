@@ -16,10 +16,13 @@
 
 package org.opencb.opencga.master.monitor.executors;
 
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.exec.Command;
 import org.opencb.commons.exec.RunnableProcess;
 import org.opencb.opencga.core.config.Execution;
 import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.models.job.Job;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,29 +30,62 @@ import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * Created by pfurio on 22/08/16.
+ *
+ * Jobs are admitted according to the CPUs and memory they require, so several small jobs can run alongside a big one. The resources of
+ * each job are taken from the "numThreads" job param or the {@link #JOB_RESOURCES} configured for its tool.
  */
 public class LocalExecutor implements BatchExecutor {
 
     public static final String MAX_CONCURRENT_JOBS = "local.maxConcurrentJobs";
+    // Total number of CPUs available for the local jobs. Defaults to the number of processors of the machine.
+    public static final String MAX_CPUS = "local.maxCpus";
+    // Total memory available for the local jobs, e.g. 16G. Defaults to unlimited.
+    public static final String MAX_MEMORY = "local.maxMemory";
+    // Map of resources (cpus and memory) required by the jobs of each tool. Key "default" applies to any other tool.
+    public static final String JOB_RESOURCES = "local.jobResources";
+    public static final String JOB_NUM_THREADS_PARAM = "numThreads";
+
+    private static final String DEFAULT_JOB_RESOURCES = "default";
+    private static final String CPUS = "cpus";
+    private static final String MEMORY = "memory";
 
     private static int threadInitNumber;
     private static Logger logger;
     private final ExecutorService threadPool;
     private final Map<String, String> jobStatus;
     private final int maxConcurrentJobs;
+    private final int maxCpus;
+    private final long maxMemory;
+    private final Map<String, JobResources> toolResources;
+
+    // Jobs waiting for resources, in order of arrival
+    private final LinkedList<LocalJob> waitingJobs = new LinkedList<>();
+    // Resources reserved by the running jobs
+    private int numRunningJobs;
+    private int reservedCpus;
+    private long reservedMemory;
 
     public LocalExecutor(Execution execution) {
         logger = LoggerFactory.getLogger(LocalExecutor.class);
-        maxConcurrentJobs = execution.getOptions().getInt(MAX_CONCURRENT_JOBS, 1);
-        threadPool = Executors.newFixedThreadPool(maxConcurrentJobs);
+        ObjectMap options = execution.getOptions();
+        maxConcurrentJobs = options.getInt(MAX_CONCURRENT_JOBS, 1);
+        maxCpus = options.getInt(MAX_CPUS, Runtime.getRuntime().availableProcessors());
+        maxMemory = parseMemory(options.getString(MAX_MEMORY));
+        toolResources = new HashMap<>();
+        if (options.get(JOB_RESOURCES) instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) options.get(JOB_RESOURCES)).entrySet()) {
+                ObjectMap resources = new ObjectMap((Map<String, Object>) entry.getValue());
+                toolResources.put(entry.getKey(), new JobResources(resources.getInt(CPUS, 1), parseMemory(resources.getString(MEMORY))));
+            }
+        }
+        // Jobs are only submitted once their resources have been reserved, so the pool does not need to limit them
+        threadPool = Executors.newCachedThreadPool();
         jobStatus = Collections.synchronizedMap(new LinkedHashMap<String, String>(1000) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
@@ -60,58 +96,155 @@ public class LocalExecutor implements BatchExecutor {
 
     @Override
     public void execute(String jobId, String queue, String commandLine, Path stdout, Path stderr) throws Exception {
+        execute(jobId, getJobResources(null), commandLine, stdout, stderr);
+    }
+
+    @Override
+    public void execute(Job job, String queue, String commandLine, Path stdout, Path stderr) throws Exception {
+        execute(job.getId(), getJobResources(job), commandLine, stdout, stderr);
+    }
+
+    private void execute(String jobId, JobResources resources, String commandLine, Path stdout, Path stderr) {
         jobStatus.put(jobId, Enums.ExecutionStatus.QUEUED);
         Runnable runnable = () -> {
             try {
-                Thread.currentThread().setName("LocalExecutor-" + nextThreadNum());
-                logger.info("Ready to run - {}", commandLine);
-                jobStatus.put(jobId, Enums.ExecutionStatus.RUNNING);
-                Command com = new Command(commandLine);
-
-                DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(stdout.toFile()));
-                com.setOutputOutputStream(dataOutputStream);
-
-                dataOutputStream = new DataOutputStream(new FileOutputStream(stderr.toFile()));
-                com.setErrorOutputStream(dataOutputStream);
-
-                Thread hook = new Thread(() -> {
-                    logger.info("Running ShutdownHook. Job {id: " + jobId + "} has being aborted.");
-                    com.setStatus(RunnableProcess.Status.KILLED);
-                    com.setExitValue(-2);
-                    closeOutputStreams(com);
-                    jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
-                });
-
-                logger.info("==========================================");
-                logger.info("Executing job {}", jobId);
-                logger.debug("Executing commandLine {}", commandLine);
-                logger.info("==========================================");
-                System.err.println();
-
-                try {
-                    Runtime.getRuntime().addShutdownHook(hook);
-                    com.run();
-                } finally {
-                    Runtime.getRuntime().removeShutdownHook(hook);
-                    closeOutputStreams(com);
-                }
+                runJob(jobId, commandLine, stdout, stderr);
+            } finally {
+                release(resources);
+            }
+        };
+        synchronized (this) {
+            waitingJobs.add(new LocalJob(jobId, resources, runnable));
+            startWaitingJobs();
+        }
+    }
 
-                System.err.println();
-                logger.info("==========================================");
-                logger.info("Finished job {}", jobId);
-                logger.info("==========================================");
+    private void runJob(String jobId, String commandLine, Path stdout, Path stderr) {
+        try {
+            Thread.currentThread().setName("LocalExecutor-" + nextThreadNum());
+            logger.info("Ready to run - {}", commandLine);
+            jobStatus.put(jobId, Enums.ExecutionStatus.RUNNING);
+            Command com = new Command(commandLine);
 
-                if (com.getStatus().equals(RunnableProcess.Status.DONE)) {
-                    jobStatus.put(jobId, Enums.ExecutionStatus.DONE);
-                } else {
-                    jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
-                }
-            } catch (Throwable throwable) {
-                logger.error("Error running job " + jobId, throwable);
+            DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(stdout.toFile()));
+            com.setOutputOutputStream(dataOutputStream);
+
+            dataOutputStream = new DataOutputStream(new FileOutputStream(stderr.toFile()));
+            com.setErrorOutputStream(dataOutputStream);
+
+            Thread hook = new Thread(() -> {
+                logger.info("Running ShutdownHook. Job {id: " + jobId + "} has being aborted.");
+                com.setStatus(RunnableProcess.Status.KILLED);
+                com.setExitValue(-2);
+                closeOutputStreams(com);
                 jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+            });
+
+            logger.info("==========================================");
+            logger.info("Executing job {}", jobId);
+            logger.debug("Executing commandLine {}", commandLine);
+            logger.info("==========================================");
+            System.err.println();
+
+            try {
+                Runtime.getRuntime().addShutdownHook(hook);
+                com.run();
+            } finally {
+                Runtime.getRuntime().removeShutdownHook(hook);
+                closeOutputStreams(com);
             }
-        };
-        threadPool.submit(runnable);
+
+            System.err.println();
+            logger.info("==========================================");
+            logger.info("Finished job {}", jobId);
+            logger.info("==========================================");
+
+            if (com.getStatus().equals(RunnableProcess.Status.DONE)) {
+                jobStatus.put(jobId, Enums.ExecutionStatus.DONE);
+            } else {
+                jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+            }
+        } catch (Throwable throwable) {
+            logger.error("Error running job " + jobId, throwable);
+            jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+        }
+    }
+
+    /**
+     * Start every waiting job whose resources can be reserved. Smaller jobs may start before a bigger job that arrived earlier if
+     * there are not enough resources left for the latter.
+     */
+    private synchronized void startWaitingJobs() {
+        Iterator<LocalJob> iterator = waitingJobs.iterator();
+        while (iterator.hasNext() && numRunningJobs < maxConcurrentJobs) {
+            LocalJob localJob = iterator.next();
+            if (fits(localJob.resources)) {
+                iterator.remove();
+                numRunningJobs++;
+                reservedCpus += localJob.resources.cpus;
+                reservedMemory += localJob.resources.memory;
+                logger.info("Reserved {} cpus and {} bytes of memory for job {}", localJob.resources.cpus, localJob.resources.memory,
+                        localJob.jobId);
+                threadPool.submit(localJob.runnable);
+            }
+        }
+    }
+
+    private synchronized void release(JobResources resources) {
+        numRunningJobs--;
+        reservedCpus -= resources.cpus;
+        reservedMemory -= resources.memory;
+        startWaitingJobs();
+    }
+
+    private synchronized boolean fits(JobResources resources) {
+        if (numRunningJobs >= maxConcurrentJobs) {
+            return false;
+        }
+        if (numRunningJobs == 0) {
+            // A job requiring more than the whole capacity is run alone
+            return true;
+        }
+        return reservedCpus + resources.cpus <= maxCpus
+                && (maxMemory <= 0 || reservedMemory + resources.memory <= maxMemory);
+    }
+
+    JobResources getJobResources(Job job) {
+        JobResources resources = null;
+        if (job != null && job.getTool() != null) {
+            resources = toolResources.get(job.getTool().getId());
+        }
+        if (resources == null) {
+            resources = toolResources.getOrDefault(DEFAULT_JOB_RESOURCES, new JobResources(1, 0));
+        }
+        if (job != null && job.getParams() != null && job.getParams().get(JOB_NUM_THREADS_PARAM) != null) {
+            try {
+                int numThreads = Integer.parseInt(String.valueOf(job.getParams().get(JOB_NUM_THREADS_PARAM)));
+                if (numThreads > 0) {
+                    resources = new JobResources(numThreads, resources.memory);
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid '{}' param for job {}: {}", JOB_NUM_THREADS_PARAM, job.getId(),
+                        job.getParams().get(JOB_NUM_THREADS_PARAM));
+            }
+        }
+        return resources;
+    }
+
+    static long parseMemory(String memory) {
+        if (StringUtils.isBlank(memory)) {
+            return 0;
+        }
+        String value = memory.trim().toUpperCase();
+        if (value.endsWith("B")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        int exp = "KMGT".indexOf(value.charAt(value.length() - 1)) + 1;
+        if (exp > 0) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long unit = 1L << (10 * exp);
+        return (long) (Double.parseDouble(value.trim()) * unit);
     }
 
     private static synchronized int nextThreadNum() {
@@ -139,11 +272,26 @@ public class LocalExecutor implements BatchExecutor {
     }
 
     @Override
-    public boolean canBeQueued() {
-        return jobStatus.values()
-                .stream()
-                .filter(s -> s.equals(Enums.ExecutionStatus.RUNNING) || s.equals(Enums.ExecutionStatus.QUEUED))
-                .count() < maxConcurrentJobs;
+    public synchronized boolean canBeQueued() {
+        return waitingJobs.isEmpty() && numRunningJobs < maxConcurrentJobs && reservedCpus < maxCpus
+                && (maxMemory <= 0 || reservedMemory < maxMemory);
+    }
+
+    @Override
+    public synchronized boolean canBeQueued(Job job) {
+        return waitingJobs.isEmpty() && fits(getJobResources(job));
+    }
+
+    public synchronized int getReservedCpus() {
+        return reservedCpus;
+    }
+
+    public synchronized long getReservedMemory() {
+        return reservedMemory;
+    }
+
+    public synchronized int getNumRunningJobs() {
+        return numRunningJobs;
     }
 
     @Override
@@ -172,4 +320,34 @@ public class LocalExecutor implements BatchExecutor {
             command.setError(null);
         }
     }
+
+    static class JobResources {
+        private final int cpus;
+        private final long memory;
+
+        JobResources(int cpus, long memory) {
+            this.cpus = cpus;
+            this.memory = memory;
+        }
+
+        public int getCpus() {
+            return cpus;
+        }
+
+        public long getMemory() {
+            return memory;
+        }
+    }
+
+    private static class LocalJob {
+        private final String jobId;
+        private final JobResources resources;
+        private final Runnable runnable;
+
+        LocalJob(String jobId, JobResources resources, Runnable runnable) {
+            this.jobId = jobId;
+            this.resources = resources;
+            this.runnable = runnable;
+        }
+    }
 }
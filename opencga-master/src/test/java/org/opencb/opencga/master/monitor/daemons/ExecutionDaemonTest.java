@@ -58,6 +58,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -129,6 +130,28 @@ public class ExecutionDaemonTest extends AbstractManagerTest {
         assertTrue(uri.getPath().startsWith(catalogManager.getConfiguration().getJobDir()) && uri.getPath().endsWith(jobId + "/"));
     }
 
+    @Test
+    public void testPendingJobsPriority() throws Exception {
+        // Only one variant-index job can be queued or running at the same time
+        HashMap<String, Object> params = new HashMap<>();
+        String lowJob = catalogManager.getJobManager().submit(studyFqn, VariantIndexOperationTool.ID, Enums.Priority.LOW, params, token)
+                .first().getId();
+        String urgentJob = catalogManager.getJobManager().submit(studyFqn, VariantIndexOperationTool.ID, Enums.Priority.URGENT, params,
+                token).first().getId();
+
+        daemon.checkPendingJobs();
+
+        checkStatus(getJob(urgentJob), Enums.ExecutionStatus.QUEUED);
+        checkStatus(getJob(lowJob), Enums.ExecutionStatus.PENDING);
+
+        // Once the urgent job finishes, the job submitted first is queued
+        catalogManager.getJobManager().update(studyFqn, urgentJob, new PrivateJobUpdateParams()
+                .setInternal(new JobInternal(new Enums.ExecutionStatus(Enums.ExecutionStatus.DONE))), QueryOptions.empty(), token);
+        daemon.checkPendingJobs();
+
+        checkStatus(getJob(lowJob), Enums.ExecutionStatus.QUEUED);
+    }
+
     @Test
     public void testWebhookNotification() throws Exception {
         catalogManager.getStudyManager().update(studyFqn, new StudyUpdateParams()
@@ -509,7 +532,7 @@ public class ExecutionDaemonTest extends AbstractManagerTest {
 
     private static class DummyBatchExecutor implements BatchExecutor {
 
-        public Map<String, String> jobStatus = new HashMap<>();
+        public Map<String, String> jobStatus = new ConcurrentHashMap<>();
 
         @Override
         public void execute(String jobId, String queue, String commandLine, Path stdout, Path stderr) throws Exception {
@@ -21,6 +21,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.opencga.core.config.Execution;
+import org.opencb.opencga.core.models.job.Job;
+import org.opencb.opencga.core.models.job.ToolInfo;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -28,6 +30,7 @@ import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 
 public class LocalExecutorTest {
     private LocalExecutor localExecutor;
@@ -62,4 +65,45 @@ public class LocalExecutorTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test(timeout = 10000)
+    public void testResourceAdmission() throws Exception {
+        ObjectMap options = new ObjectMap()
+                .append(LocalExecutor.MAX_CONCURRENT_JOBS, 10)
+                .append(LocalExecutor.MAX_CPUS, 4)
+                .append(LocalExecutor.MAX_MEMORY, "4G")
+                .append(LocalExecutor.JOB_RESOURCES, new ObjectMap()
+                        .append("big-tool", new ObjectMap("cpus", 3).append("memory", "2G"))
+                        .append("default", new ObjectMap("cpus", 1).append("memory", "512M")));
+        localExecutor = new LocalExecutor(new Execution().setOptions(options));
+
+        Job bigJob = new Job().setId("big").setTool(new ToolInfo().setId("big-tool")).setParams(new HashMap<>());
+        Job smallJob = new Job().setId("small").setTool(new ToolInfo().setId("small-tool")).setParams(new HashMap<>());
+        Job threadsJob = new Job().setId("threads").setTool(new ToolInfo().setId("small-tool"))
+                .setParams(new HashMap<>(Collections.singletonMap(LocalExecutor.JOB_NUM_THREADS_PARAM, 2)));
+
+        Assert.assertEquals(2L << 30, localExecutor.getJobResources(bigJob).getMemory());
+        Assert.assertEquals(2, localExecutor.getJobResources(threadsJob).getCpus());
+
+        Assert.assertTrue(localExecutor.canBeQueued(bigJob));
+        localExecutor.execute(bigJob, "default", "sleep 2", rootDir.resolve("big.out"), rootDir.resolve("big.err"));
+        Assert.assertEquals(3, localExecutor.getReservedCpus());
+
+        // A small job still fits alongside the big one, but a job requiring 2 cpus does not
+        Assert.assertTrue(localExecutor.canBeQueued(smallJob));
+        Assert.assertFalse(localExecutor.canBeQueued(threadsJob));
+        localExecutor.execute(smallJob, "default", "sleep 2", rootDir.resolve("small.out"), rootDir.resolve("small.err"));
+        Assert.assertEquals(4, localExecutor.getReservedCpus());
+        Assert.assertEquals((2L << 30) + (512L << 20), localExecutor.getReservedMemory());
+        Assert.assertFalse(localExecutor.canBeQueued(smallJob));
+
+        while (!localExecutor.getStatus("big").equals("DONE") || !localExecutor.getStatus("small").equals("DONE")) {
+            Thread.sleep(500);
+        }
+        while (localExecutor.getNumRunningJobs() > 0) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(0, localExecutor.getReservedCpus());
+        Assert.assertTrue(localExecutor.canBeQueued(threadsJob));
+    }
+}
@@ -23,6 +23,10 @@ import org.opencb.opencga.core.config.storage.StorageConfiguration;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by imedina on 02/01/16.
@@ -30,6 +34,9 @@ import java.nio.file.Path;
 public class GrpcServer extends AbstractStorageServer {
 
     private Server server;
+    private ExecutorService executor;
+
+    private static final int DEFAULT_NUM_THREADS = 16;
 
     public GrpcServer() {
 //        this(storageConfiguration.getServer().getGrpc(), storageConfiguration.getDefaultStorageEngineId());
@@ -63,7 +70,20 @@ public class GrpcServer extends AbstractStorageServer {
 
     @Override
     public void start() throws Exception {
+        // Calls are served by a dedicated pool of threads, so long streaming calls can not exhaust the threads of the JVM
+        int numThreads = DEFAULT_NUM_THREADS;
+        if (configuration != null && configuration.getServer().getGrpc().getNumThreads() > 0) {
+            numThreads = configuration.getServer().getGrpc().getNumThreads();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "grpc-server-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
         server = ServerBuilder.forPort(port)
+                .executor(executor)
 //                .addService(AdminServiceGrpc.bindService(new AdminGrpcService(catalogConfiguration, storageConfiguration, this)))
 //                .addService(VariantServiceGrpc.bindService(new VariantGrpcService(catalogConfiguration, storageConfiguration)))
 //                .addService(AlignmentServiceGrpc.bindService(new AlignmentGrpcService(catalogConfiguration, storageConfiguration)))
@@ -72,7 +92,7 @@ public class GrpcServer extends AbstractStorageServer {
                 .addService(new AlignmentGrpcService(configuration, storageConfiguration))
                 .build()
                 .start();
-        logger.info("gRPC server started, listening on {}", port);
+        logger.info("gRPC server started, listening on {} with {} threads", port, numThreads);
 
         // A hook is added in case the JVM is shutting down
         Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -90,6 +110,17 @@ public class GrpcServer extends AbstractStorageServer {
         if (server != null) {
             server.shutdown();
         }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     @Override
@@ -16,6 +16,8 @@
 
 package org.opencb.opencga.server.grpc;
 
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.opencb.biodata.models.common.protobuf.service.ServiceTypesModel;
 import org.opencb.biodata.models.variant.Variant;
@@ -26,15 +28,23 @@ import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.core.config.Configuration;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Created by imedina on 29/12/15.
  */
 public class VariantGrpcService extends VariantServiceGrpc.VariantServiceImplBase {
 
+    // Per-call options
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String COMPRESSION = "compression";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
     private GenericGrpcService genericGrpcService;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -62,23 +72,103 @@ public class VariantGrpcService extends VariantServiceGrpc.VariantServiceImplBas
         super.distinct(request, responseObserver);
     }
 
+    /**
+     * Stream the variants matching the query. Variants are only sent while the client is ready to receive them, so slow clients do not
+     * make the server buffer the whole result. The projection (include, exclude or summary) is pushed down to the storage engine.
+     * Options:
+     *  - batchSize: Number of variants fetched from the storage engine on each round trip.
+     *  - compression: "gzip" or "none". Overrides the server configuration.
+     *
+     * @param request          Request
+     * @param responseObserver Response observer
+     */
     @Override
     public void get(GenericServiceModel.Request request, StreamObserver<VariantProto.Variant> responseObserver) {
+        ServerCallStreamObserver<VariantProto.Variant> serverObserver = (ServerCallStreamObserver<VariantProto.Variant>) responseObserver;
+        VariantDBIterator iterator;
+        int batchSize;
         try {
-            VariantAvroToVariantProtoConverter converter = new VariantAvroToVariantProtoConverter();
             Query query = genericGrpcService.createQuery(request);
             QueryOptions queryOptions = genericGrpcService.createQueryOptions(request);
-            logger.info("Get variants query : {} , queryOptions : {}" , query.toJson(), queryOptions.toJson());
-            try (VariantDBIterator iterator = genericGrpcService.variantStorageManager.iterator(query, queryOptions, request.getSessionId())) {
-                while (iterator.hasNext()) {
-                    Variant variant = iterator.next();
-                    responseObserver.onNext(converter.convert(variant));
+            // Projection params may be given as part of the query
+            for (String key : new String[]{QueryOptions.INCLUDE, QueryOptions.EXCLUDE, VariantField.SUMMARY}) {
+                if (query.containsKey(key)) {
+                    queryOptions.putIfAbsent(key, query.get(key));
+                    query.remove(key);
                 }
             }
-            responseObserver.onCompleted();
+            // Fail fast on invalid projections
+            VariantField.getIncludeFields(queryOptions);
+
+            batchSize = queryOptions.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Invalid " + BATCH_SIZE + " " + batchSize);
+            }
+            queryOptions.put(BATCH_SIZE, batchSize);
+
+            String compression = queryOptions.getString(COMPRESSION);
+            if (compression == null) {
+                compression = genericGrpcService.configuration.getServer().getGrpc().isCompression() ? "gzip" : "none";
+            }
+            if (!compression.equals("none")) {
+                serverObserver.setCompression(compression);
+                serverObserver.setMessageCompression(true);
+            }
+            queryOptions.remove(COMPRESSION);
+
+            logger.info("Get variants query : {} , queryOptions : {}", query.toJson(), queryOptions.toJson());
+            iterator = genericGrpcService.variantStorageManager.iterator(query, queryOptions, request.getSessionId());
+        } catch (IllegalArgumentException e) {
+            logger.error("Error on get variants", e);
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+            return;
         } catch (Exception e) {
             logger.error("Error on get variants", e);
-            responseObserver.onError(e);
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+            return;
+        }
+
+        VariantAvroToVariantProtoConverter converter = new VariantAvroToVariantProtoConverter();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable drain = () -> {
+            try {
+                // Send variants until the outbound buffer is full. The onReady handler resumes the stream once the client reads them.
+                while (!finished.get() && serverObserver.isReady()) {
+                    int sent = 0;
+                    while (sent < batchSize && iterator.hasNext()) {
+                        Variant variant = iterator.next();
+                        serverObserver.onNext(converter.convert(variant));
+                        sent++;
+                    }
+                    if (sent < batchSize && finished.compareAndSet(false, true)) {
+                        // The call is already finished, so a failure closing the iterator must not be reported as an error
+                        closeIterator(iterator);
+                        serverObserver.onCompleted();
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error on get variants", e);
+                if (finished.compareAndSet(false, true)) {
+                    closeIterator(iterator);
+                    serverObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+                }
+            }
+        };
+        serverObserver.setOnCancelHandler(() -> {
+            if (finished.compareAndSet(false, true)) {
+                logger.info("Get variants cancelled by the client");
+                closeIterator(iterator);
+            }
+        });
+        serverObserver.setOnReadyHandler(drain);
+        drain.run();
+    }
+
+    private void closeIterator(VariantDBIterator iterator) {
+        try {
+            iterator.close();
+        } catch (Exception e) {
+            logger.warn("Error closing variant iterator", e);
         }
     }
 
@@ -16,11 +16,16 @@
 
 package org.opencb.opencga.server.rest;
 
+import com.google.common.cache.CacheStats;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.opencb.commons.datastore.core.Event;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.utils.DataModelsUtils;
+import org.opencb.opencga.catalog.auth.authentication.JwtManager;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.core.common.GitRepositoryState;
+import org.opencb.opencga.core.common.Metrics;
 import org.opencb.opencga.core.exceptions.VersionException;
 import org.opencb.opencga.core.response.OpenCGAResult;
 import org.opencb.opencga.core.tools.annotations.Api;
@@ -68,6 +73,7 @@ public class MetaWSServer extends OpenCGAWSServer {
     private final String SOLR = "Solr";
     private final String VARIANT_STORAGE = "VariantStorage";
     private final String CATALOG_MONGO_DB = "CatalogMongoDB";
+    static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4";
 
     public MetaWSServer(@Context UriInfo uriInfo, @Context HttpServletRequest httpServletRequest, @Context HttpHeaders httpHeaders)
             throws IOException, VersionException {
@@ -223,6 +229,31 @@ public class MetaWSServer extends OpenCGAWSServer {
         lastAccess.set(LocalTime.now());
     }
 
+    @GET
+    @Path("/metrics")
+    @Produces(MetaWSServer.PROMETHEUS_CONTENT_TYPE)
+    @ApiOperation(httpMethod = "GET", value = "Latency histograms of the REST endpoints and variant queries, in Prometheus text format."
+            + " Only available for the installation administrator.", response = String.class)
+    public Response metrics() {
+        try {
+            String userId = catalogManager.getUserManager().getUserId(token);
+            catalogManager.getAuthorizationManager().checkIsInstallationAdministrator(userId);
+        } catch (CatalogException e) {
+            return createErrorResponse(e);
+        }
+        StringBuilder sb = new StringBuilder(Metrics.toPrometheus());
+        CacheStats claimsCacheStats = JwtManager.getClaimsCacheStats();
+        Metrics.appendGauge(sb, "opencga_jwt_claims_cache_hits", claimsCacheStats.hitCount());
+        Metrics.appendGauge(sb, "opencga_jwt_claims_cache_misses", claimsCacheStats.missCount());
+        ObjectMap auditStats = catalogManager.getAuditManager().getStats();
+        for (String key : auditStats.keySet()) {
+            Metrics.appendGauge(sb, "opencga_audit_records_" + key, auditStats.getLong(key));
+        }
+        Response response = buildResponse(Response.ok(sb.toString(), PROMETHEUS_CONTENT_TYPE));
+        logResponse(response.getStatusInfo());
+        return response;
+    }
+
     @GET
     @Path("/model")
     @ApiOperation(value = "Opencga model webservices.", response = String.class)
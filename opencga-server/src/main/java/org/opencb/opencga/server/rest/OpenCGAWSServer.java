@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.server.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -45,6 +46,7 @@ import org.opencb.opencga.catalog.utils.Constants;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.core.api.ParamConstants;
 import org.opencb.opencga.core.common.GitRepositoryState;
+import org.opencb.opencga.core.common.Metrics;
 import org.opencb.opencga.core.config.Configuration;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
 import org.opencb.opencga.core.exceptions.VersionException;
@@ -69,11 +71,14 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.*;
+import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -81,6 +86,7 @@ import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.opencb.opencga.core.api.ParamConstants.ADMIN_STUDY_FQN;
 import static org.opencb.opencga.core.common.JacksonUtils.getExternalOpencgaObjectMapper;
@@ -99,6 +105,8 @@ public class OpenCGAWSServer {
     protected long skip;
     protected boolean count;
     protected boolean lazy;
+    // Add the time spent on each step of the request to the events of the response
+    protected boolean timing;
     protected String token;
 
     @DefaultValue("")
@@ -113,6 +121,8 @@ public class OpenCGAWSServer {
 
     protected UriInfo uriInfo;
     protected HttpServletRequest httpServletRequest;
+    @Context
+    protected ResourceInfo resourceInfo;
     protected ObjectMap params;
     private String requestDescription;
 
@@ -124,6 +134,8 @@ public class OpenCGAWSServer {
     protected QueryOptions queryOptions;
 
     private static ObjectWriter jsonObjectWriter;
+    // Writer used to serialize the responses directly into the servlet output stream, which must not be closed by Jackson
+    private static ObjectWriter jsonStreamingObjectWriter;
     private static ObjectMapper jsonObjectMapper;
 
     protected static Logger logger; // = LoggerFactory.getLogger(this.getClass());
@@ -147,6 +159,11 @@ public class OpenCGAWSServer {
     private static final int MAX_LIMIT = AbstractManager.MAX_LIMIT;
     private static final int MAX_ID_SIZE = 100;
     static final String CURRENT_VERSION = "v2";
+    public static final String TIMING_PARAM = "timing";
+    static final String REQUEST_DURATION_METRIC = "opencga_rest_request_duration_ms";
+    static final String SERIALIZATION_DURATION_METRIC = "opencga_rest_serialization_duration_ms";
+    // Responses with more results are streamed while they are serialized, instead of building the whole json in memory
+    static final int STREAMING_MIN_RESULTS = 1000;
 
     public static String errorMessage;
 
@@ -159,6 +176,7 @@ public class OpenCGAWSServer {
         jsonObjectMapper.addMixIn(Genotype.class, GenotypeJsonMixin.class);
 
         jsonObjectWriter = jsonObjectMapper.writer();
+        jsonStreamingObjectWriter = jsonObjectWriter.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     public OpenCGAWSServer(@Context UriInfo uriInfo, @Context HttpServletRequest httpServletRequest, @Context HttpHeaders httpHeaders)
@@ -186,6 +204,7 @@ public class OpenCGAWSServer {
 
         // take the time for calculating the whole duration of the call
         startTime = System.currentTimeMillis();
+        Metrics.startRequest();
 
         // Add session attributes. Used by the ParamExceptionMapper
         httpServletRequest.getSession().setAttribute("startTime", startTime);
@@ -457,6 +476,9 @@ public class OpenCGAWSServer {
                 case QueryOptions.FACET:
                     queryOptions.put(entry.getKey(), value);
                     break;
+                case TIMING_PARAM:
+                    timing = Boolean.parseBoolean(value);
+                    break;
                 default:
                     // Query
                     query.put(entry.getKey(), value);
@@ -515,7 +537,9 @@ public class OpenCGAWSServer {
     }
 
     protected Response createErrorResponse(Throwable e) {
-        return createErrorResponse(e, startTime, apiVersion, requestDescription, params, uriInfo);
+        Response response = createErrorResponse(e, startTime, apiVersion, requestDescription, params, uriInfo);
+        recordMetrics(response.getStatusInfo());
+        return response;
     }
 
     public static Response createErrorResponse(Throwable e, long startTime, String apiVersion, String requestDescription, ObjectMap params,
@@ -612,6 +636,10 @@ public class OpenCGAWSServer {
         queryResponse.setTime(new Long(System.currentTimeMillis() - startTime).intValue());
         queryResponse.setApiVersion(apiVersion);
         queryResponse.setParams(params);
+        if (timing) {
+            events = events == null ? new ArrayList<>() : new ArrayList<>(events);
+            events.add(new Event(Event.Type.INFO, "Timing: " + Metrics.getRequestTimings()));
+        }
         queryResponse.setEvents(events);
 
         // Guarantee that the RestResponse object contains a list of results
@@ -647,9 +675,7 @@ public class OpenCGAWSServer {
 
         queryResponse.setResponses(list);
 
-        Response response = Response.fromResponse(createJsonResponse(queryResponse)).status(status).build();
-        logResponse(response.getStatusInfo(), queryResponse);
-        return response;
+        return createOkJsonResponse(queryResponse, status, queryResponse);
     }
 
     private Response.Status getResponseStatus(List<OpenCGAResult<?>> list) {
@@ -673,17 +699,66 @@ public class OpenCGAWSServer {
     }
 
     protected Response createRawOkResponse(Object obj) {
-        try {
-            String res = jsonObjectWriter.writeValueAsString(obj);
-//            System.out.println("\n\n\n" + res + "\n\n");
-            Response response = buildResponse(Response.ok(res, MediaType.APPLICATION_JSON_TYPE));
-            logResponse(response.getStatusInfo());
+        return createOkJsonResponse(obj, Response.Status.OK, null);
+    }
+
+    /**
+     * Create the json response of a successful request. Large responses are streamed, and logged once they have been sent.
+     *
+     * @param obj           Object to be serialized.
+     * @param status        Response status.
+     * @param queryResponse RestResponse to log, if any.
+     * @return the Response.
+     */
+    private Response createOkJsonResponse(Object obj, Response.StatusType status, RestResponse<?> queryResponse) {
+        boolean gzip = acceptsGzip();
+        String endpoint = getEndpoint();
+        if (countResults(obj) <= STREAMING_MIN_RESULTS) {
+            Response response = Response.fromResponse(createJsonResponse(obj, gzip, endpoint)).status(status).build();
+            logResponse(response.getStatusInfo(), queryResponse);
             return response;
-        } catch (JsonProcessingException e) {
-//            e.printStackTrace();
-            logger.error("Error parsing response object", e);
-            return createErrorResponse("", "Error parsing response object:\n" + Arrays.toString(e.getStackTrace()));
         }
+        StreamingOutput streamingOutput = outputStream -> {
+            try {
+                writeJson(outputStream, obj, gzip, endpoint);
+            } catch (IOException | RuntimeException e) {
+                // The response has been partially sent. Propagate the error so the connection is aborted, and the client does not
+                // take the truncated json as a complete response
+                logger.error("Error writing json response. Aborting connection", e);
+                logResponse(Response.Status.INTERNAL_SERVER_ERROR, queryResponse);
+                throw e;
+            }
+            logResponse(status, queryResponse);
+        };
+        return buildJsonResponse(Response.status(status).entity(streamingOutput), gzip);
+    }
+
+    private static int countResults(Object obj) {
+        if (obj instanceof RestResponse) {
+            int numResults = 0;
+            List<? extends OpenCGAResult<?>> responses = ((RestResponse<?>) obj).getResponses();
+            if (responses != null) {
+                for (OpenCGAResult<?> result : responses) {
+                    if (result != null && result.getResults() != null) {
+                        numResults += result.getResults().size();
+                    }
+                }
+            }
+            return numResults;
+        } else if (obj instanceof Collection) {
+            return ((Collection<?>) obj).size();
+        } else {
+            return 1;
+        }
+    }
+
+    private boolean acceptsGzip() {
+        if (configuration == null || configuration.getServer() == null || configuration.getServer().getRest() == null
+                || !configuration.getServer().getRest().isCompression()) {
+            return false;
+        }
+        String acceptEncoding = httpServletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
     }
 
     protected Response createOkResponse(InputStream o1, MediaType o2, String fileName) {
@@ -697,10 +772,30 @@ public class OpenCGAWSServer {
 
     void logResponse(Response.StatusType statusInfo) {
         logResponse(statusInfo, null, startTime, requestDescription);
+        recordMetrics(statusInfo);
     }
 
     void logResponse(Response.StatusType statusInfo, RestResponse<?> queryResponse) {
         logResponse(statusInfo, queryResponse, startTime, requestDescription);
+        recordMetrics(statusInfo);
+    }
+
+    private void recordMetrics(Response.StatusType statusInfo) {
+        Metrics.endRequest();
+        Metrics.histogram(REQUEST_DURATION_METRIC, "endpoint", getEndpoint(), "status", String.valueOf(statusInfo.getStatusCode()))
+                .record(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Name of the java method serving the request, used to aggregate the metrics by endpoint without the path params.
+     *
+     * @return the endpoint name, e.g. "VariantWebService.getVariants"
+     */
+    protected String getEndpoint() {
+        if (resourceInfo != null && resourceInfo.getResourceClass() != null && resourceInfo.getResourceMethod() != null) {
+            return resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        }
+        return "unknown";
     }
 
     public static void logResponse(Response.StatusType statusInfo, RestResponse<?> queryResponse, long startTime,
@@ -744,12 +839,58 @@ public class OpenCGAWSServer {
     }
 
     public static Response createJsonResponse(RestResponse queryResponse) {
+        return createJsonResponse(queryResponse, false);
+    }
+
+    /**
+     * Create a json response, without recording its serialization time.
+     *
+     * @param queryResponse Object to be serialized.
+     * @param gzip          Compress the response with gzip.
+     * @return the Response.
+     */
+    public static Response createJsonResponse(Object queryResponse, boolean gzip) {
+        return createJsonResponse(queryResponse, gzip, null);
+    }
+
+    /**
+     * Create a json response serialized in memory, so any serialization error is reported before sending anything.
+     *
+     * @param queryResponse Object to be serialized.
+     * @param gzip          Compress the response with gzip.
+     * @param endpoint      Endpoint to record the serialization time. Not recorded if null.
+     * @return the Response.
+     */
+    public static Response createJsonResponse(Object queryResponse, boolean gzip, String endpoint) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
         try {
-            return buildResponse(Response.ok(jsonObjectWriter.writeValueAsString(queryResponse), MediaType.APPLICATION_JSON_TYPE));
-        } catch (JsonProcessingException e) {
+            writeJson(json, queryResponse, gzip, endpoint);
+        } catch (IOException e) {
             logger.error("Error parsing queryResponse object", e);
             throw new WebApplicationException("Error parsing queryResponse object", e);
         }
+        return buildJsonResponse(Response.ok(json.toByteArray()), gzip);
+    }
+
+    private static void writeJson(OutputStream outputStream, Object queryResponse, boolean gzip, String endpoint) throws IOException {
+        OutputStream os = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+        long start = System.currentTimeMillis();
+        jsonStreamingObjectWriter.writeValue(os, queryResponse);
+        if (endpoint != null) {
+            Metrics.histogram(SERIALIZATION_DURATION_METRIC, "endpoint", endpoint).record(System.currentTimeMillis() - start);
+        }
+        if (gzip) {
+            ((GZIPOutputStream) os).finish();
+        }
+        os.flush();
+    }
+
+    private static Response buildJsonResponse(Response.ResponseBuilder responseBuilder, boolean gzip) {
+        responseBuilder.type(MediaType.APPLICATION_JSON_TYPE);
+        if (gzip) {
+            responseBuilder.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return buildResponse(responseBuilder);
     }
 
     protected static Response buildResponse(Response.ResponseBuilder responseBuilder) {
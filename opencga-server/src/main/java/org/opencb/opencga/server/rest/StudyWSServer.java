@@ -399,6 +399,32 @@ public class StudyWSServer extends OpenCGAWSServer {
         }
     }
 
+    @GET
+    @Path("/{study}/entitySummary")
+    @ApiOperation(value = "Fetch the summary counters of the files, samples or individuals of a study", response = FacetField.class)
+    public Response getEntitySummary(
+            @ApiParam(value = ParamConstants.STUDY_DESCRIPTION, required = true) @PathParam(ParamConstants.STUDY_PARAM) String studyStr,
+            @ApiParam(value = "Resource", allowableValues = "FILE,SAMPLE,INDIVIDUAL", required = true) @QueryParam("resource")
+                    Enums.Resource resource) {
+        try {
+            return createOkResponse(studyManager.getEntitySummary(studyStr, resource, token));
+        } catch (Exception e) {
+            return createErrorResponse(e);
+        }
+    }
+
+    @POST
+    @Path("/{study}/entitySummary/rebuild")
+    @ApiOperation(value = "Recalculate the summary counters of the files, samples and individuals of a study")
+    public Response rebuildEntitySummary(
+            @ApiParam(value = ParamConstants.STUDY_DESCRIPTION, required = true) @PathParam(ParamConstants.STUDY_PARAM) String studyStr) {
+        try {
+            return createOkResponse(studyManager.rebuildEntitySummary(studyStr, token));
+        } catch (Exception e) {
+            return createErrorResponse(e);
+        }
+    }
+
     @POST
     @Path("/{study}/variableSets/update")
     @ApiOperation(value = "Add or remove a variableSet", response = VariableSet.class)
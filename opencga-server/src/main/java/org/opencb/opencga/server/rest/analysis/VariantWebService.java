@@ -82,8 +82,10 @@ import org.opencb.opencga.core.response.OpenCGAResult;
 import org.opencb.opencga.core.response.RestResponse;
 import org.opencb.opencga.core.tools.annotations.*;
 import org.opencb.opencga.server.WebServiceException;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.annotation.VariantAnnotationManager;
+import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 
 import javax.servlet.http.HttpServletRequest;
@@ -405,6 +407,89 @@ public class VariantWebService extends AnalysisWebService {
         return submitJob(VariantExportTool.ID, project, study, params, jobName, jobDescription, dependsOn, jobTags);
     }
 
+    @GET
+    @Path("/export")
+    @ApiOperation(value = "Export the variants matching the query directly in the response, without submitting a job. "
+            + "Intended for small and medium exports, e.g. the variants of a gene panel for a family", response = Variant.class)
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = QueryOptions.INCLUDE, value = ParamConstants.INCLUDE_DESCRIPTION, example = "name,attributes", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = QueryOptions.EXCLUDE, value = ParamConstants.EXCLUDE_DESCRIPTION, example = "id,status", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = QueryOptions.LIMIT, value = ParamConstants.LIMIT_DESCRIPTION, dataType = "integer", paramType = "query"),
+            @ApiImplicitParam(name = QueryOptions.SKIP, value = ParamConstants.SKIP_DESCRIPTION, dataType = "integer", paramType = "query"),
+            @ApiImplicitParam(name = VariantField.SUMMARY, value = "Fast fetch of main variant parameters", dataType = "boolean", paramType = "query"),
+
+            @ApiImplicitParam(name = "id", value = ID_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "region", value = REGION_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "type", value = TYPE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = ParamConstants.PROJECT_PARAM, value = VariantCatalogQueryUtils.PROJECT_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = ParamConstants.STUDY_PARAM, value = STUDY_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "file", value = FILE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "filter", value = FILTER_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "sample", value = SAMPLE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "genotype", value = GENOTYPE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "cohort", value = COHORT_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "family", value = VariantCatalogQueryUtils.FAMILY_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "familyDisorder", value = VariantCatalogQueryUtils.FAMILY_DISORDER_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "familySegregation", value = VariantCatalogQueryUtils.FAMILY_SEGREGATION_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "familyMembers", value = VariantCatalogQueryUtils.FAMILY_MEMBERS_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "familyProband", value = VariantCatalogQueryUtils.FAMILY_PROBAND_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "includeStudy", value = INCLUDE_STUDY_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "includeSample", value = INCLUDE_SAMPLE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "gene", value = GENE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "ct", value = ANNOT_CONSEQUENCE_TYPE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "biotype", value = ANNOT_BIOTYPE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "populationFrequencyAlt", value = ANNOT_POPULATION_ALTERNATE_FREQUENCY_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "clinicalSignificance", value = ANNOT_CLINICAL_SIGNIFICANCE_DESCR, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "panel", value = VariantCatalogQueryUtils.PANEL_DESC, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "panelModeOfInheritance", value = VariantCatalogQueryUtils.PANEL_MOI_DESC, dataType = "string", paramType = "query"),
+    })
+    public Response exportStream(
+            @ApiParam(value = "Output format: vcf, json, avro, stats, cellbase, tped or ensembl_vep") @DefaultValue("vcf")
+            @QueryParam("outputFileFormat") String outputFileFormat,
+            @ApiParam(value = "Compress the output with gzip") @QueryParam("compress") boolean compress) {
+        try {
+            QueryOptions exportOptions = new QueryOptions(uriInfo.getQueryParameters(), true);
+            exportOptions.remove("outputFileFormat");
+            exportOptions.remove("compress");
+            // Same limit as any other query, already validated and defaulted
+            exportOptions.put(QueryOptions.LIMIT, queryOptions.getInt(QueryOptions.LIMIT));
+            Query query = getVariantQuery(exportOptions);
+
+            VariantWriterFactory.VariantOutputFormat outputFormat = VariantWriterFactory.toOutputFormat(outputFileFormat, "");
+            if (compress) {
+                outputFormat = outputFormat.withGzip();
+            }
+            if (outputFormat == VariantWriterFactory.VariantOutputFormat.PARQUET
+                    || outputFormat == VariantWriterFactory.VariantOutputFormat.PARQUET_GZ) {
+                throw new IllegalArgumentException("Output format " + outputFileFormat + " can not be streamed. "
+                        + "Use " + VariantExportTool.ID + " instead");
+            }
+            VariantWriterFactory.VariantOutputFormat finalOutputFormat = outputFormat;
+            // Check permissions and parse the query before sending anything, so any error is reported with the proper status
+            VariantStorageManager.VariantStreamWriter writer = variantManager.exportData(finalOutputFormat, query, exportOptions, token);
+
+            // Variants are written as they are read. Writing blocks while the client is not reading, and the export fails
+            // as soon as the client closes the connection.
+            StreamingOutput streamingOutput = outputStream -> {
+                try {
+                    writer.write(outputStream);
+                } catch (StorageEngineException e) {
+                    logger.error("Error exporting variants", e);
+                    throw new WebApplicationException("Error exporting variants: " + e.getMessage(), e);
+                }
+            };
+            MediaType mediaType = finalOutputFormat.isPlain() && finalOutputFormat != VariantWriterFactory.VariantOutputFormat.AVRO
+                    ? MediaType.TEXT_PLAIN_TYPE
+                    : MediaType.APPLICATION_OCTET_STREAM_TYPE;
+            Response response = buildResponse(Response.ok(streamingOutput, mediaType)
+                    .header("content-disposition", "attachment; filename = variants." + finalOutputFormat.getExtension()));
+            logResponse(response.getStatusInfo());
+            return response;
+        } catch (Exception e) {
+            return createErrorResponse(e);
+        }
+    }
+
     @GET
     @Path("/annotation/query")
     @ApiOperation(value = "Query variant annotations from any saved versions", response = VariantAnnotation.class)
@@ -16,9 +16,9 @@
 
 package org.opencb.opencga.server.rest.utils;
 
+import org.apache.commons.lang3.StringUtils;
 import org.opencb.opencga.core.tools.annotations.ApiOperation;
 import org.opencb.opencga.core.tools.annotations.ApiParam;
-import org.apache.commons.lang3.time.StopWatch;
 import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.opencga.core.api.ParamConstants;
 import org.opencb.opencga.core.exceptions.VersionException;
@@ -30,17 +30,30 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 
 @Path("/{apiVersion}/utils")
 @Produces("application/json")
 public class FileRangesWSServer extends OpenCGAWSServer {
 
+    /** Maximum number of ranges served in a single multipart response. */
+    static final int MAX_RANGES = 20;
+
     public FileRangesWSServer(@Context UriInfo uriInfo, @Context HttpServletRequest httpServletRequest, @Context HttpHeaders headerParam)
             throws IOException, VersionException {
         super(uriInfo, httpServletRequest, headerParam);
@@ -50,7 +63,7 @@ public class FileRangesWSServer extends OpenCGAWSServer {
     @Path("/ranges/{file}")
     @ApiOperation(value = "Fetch alignment files using HTTP Ranges protocol")
     @Produces("text/plain")
-    public Response getRanges(@Context HttpHeaders headers,
+    public Response getRanges(@Context HttpHeaders headers, @Context Request request,
                               @ApiParam(value = "File id, name or path") @PathParam("file") String fileIdStr,
                               @ApiParam(value = ParamConstants.STUDY_DESCRIPTION)
                               @QueryParam(ParamConstants.STUDY_PARAM) String studyStr) {
@@ -59,45 +72,205 @@ public class FileRangesWSServer extends OpenCGAWSServer {
             DataResult<File> queryResult = catalogManager.getFileManager().get(studyStr, fileIdStr, this.queryOptions, token);
             File file = queryResult.getResults().get(0);
 
-            List<String> rangeList = headers.getRequestHeader("range");
-            if (rangeList != null) {
-                long from;
-                long to;
-                String[] acceptedRanges = rangeList.get(0).split("=")[1].split("-");
-                from = Long.parseLong(acceptedRanges[0]);
-                to = Long.parseLong(acceptedRanges[1]);
-                int length = (int) (to - from) + 1;
-                ByteBuffer buf = ByteBuffer.allocate(length);
-
-                logger.debug("from: {} , to: {}, length:{}", from, to, length);
-                StopWatch t = StopWatch.createStarted();
-
-                java.nio.file.Path filePath = Paths.get(file.getUri());
-                try (FileChannel fc = (FileChannel.open(filePath, StandardOpenOption.READ))) {
-                    fc.position(from);
-                    fc.read(buf);
-                }
+            java.nio.file.Path filePath = Paths.get(file.getUri());
+            long size = Files.size(filePath);
+            Date lastModified = new Date(Files.getLastModifiedTime(filePath).toMillis());
+            EntityTag entityTag = new EntityTag(Long.toHexString(size) + "-" + Long.toHexString(lastModified.getTime()));
 
-                t.stop();
-                logger.debug("Skip {}B and read {}B in {}s", from, length, t.getTime(TimeUnit.MILLISECONDS) / 1000.0);
+            // Let browsers revalidate their cached copy, e.g. of index files, without downloading it again
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, entityTag);
+            if (notModified != null) {
+                return rangeResponse(notModified, lastModified, entityTag);
+            }
 
-                return Response.ok(buf.array(), MediaType.APPLICATION_OCTET_STREAM_TYPE)
-                        .header("Accept-Ranges", "bytes")
-                        .header("Access-Control-Allow-Origin", "*")
-                        .header("Access-Control-Allow-Headers", "x-requested-with, content-type, range")
-                        .header("Access-Control-Allow-Credentials", "true")
-                        .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
-                        .header("Content-Range", "bytes " + from + "-" + to + "/" + file.getSize())
-                        .header("Content-length", to - from + 1)
-                        .status(Response.Status.PARTIAL_CONTENT).build();
+            String rangeHeader = headers.getHeaderString("range");
+            // Invalid or unsupported ranges are ignored, and the whole file is sent
+            List<long[]> ranges = StringUtils.isNotEmpty(rangeHeader)
+                    && isRangeValid(headers.getHeaderString("if-range"), lastModified, entityTag)
+                    ? parseRanges(rangeHeader, size)
+                    : null;
+            if (ranges != null) {
+                if (ranges.isEmpty()) {
+                    return rangeResponse(Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE), lastModified, entityTag)
+                            .header("Content-Range", "bytes */" + size)
+                            .build();
+                }
+                logger.debug("File {}, ranges {}", file.getPath(), rangeHeader);
 
+                if (ranges.size() == 1) {
+                    long from = ranges.get(0)[0];
+                    long to = ranges.get(0)[1];
+                    StreamingOutput output = outputStream -> {
+                        try (FileChannel fc = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                            transfer(fc, from, to - from + 1, outputStream);
+                        }
+                    };
+                    return rangeResponse(Response.status(Response.Status.PARTIAL_CONTENT).entity(output)
+                            .type(MediaType.APPLICATION_OCTET_STREAM_TYPE), lastModified, entityTag)
+                            .header("Content-Range", "bytes " + from + "-" + to + "/" + size)
+                            .header("Content-length", to - from + 1)
+                            .build();
+                } else {
+                    String boundary = UUID.randomUUID().toString();
+                    StreamingOutput output = outputStream -> {
+                        try (FileChannel fc = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                            for (long[] range : ranges) {
+                                outputStream.write(("\r\n--" + boundary + "\r\n"
+                                        + "Content-Type: " + MediaType.APPLICATION_OCTET_STREAM + "\r\n"
+                                        + "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + size + "\r\n\r\n")
+                                        .getBytes(StandardCharsets.US_ASCII));
+                                transfer(fc, range[0], range[1] - range[0] + 1, outputStream);
+                            }
+                            outputStream.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                        }
+                    };
+                    return rangeResponse(Response.status(Response.Status.PARTIAL_CONTENT).entity(output)
+                            .type("multipart/byteranges; boundary=" + boundary), lastModified, entityTag)
+                            .build();
+                }
             } else {
                 DataInputStream stream = catalogManager.getFileManager().download(studyStr, fileIdStr, -1, -1, token);
-                return createOkResponse(stream, MediaType.APPLICATION_OCTET_STREAM_TYPE, file.getName());
+                return rangeResponse(Response.ok(stream, MediaType.APPLICATION_OCTET_STREAM_TYPE), lastModified, entityTag)
+                        .header("content-disposition", "attachment; filename =" + file.getName())
+                        .header("Content-length", size)
+                        .build();
             }
         } catch (Exception e) {
             return createErrorResponse(e);
         }
     }
 
+    private static Response.ResponseBuilder rangeResponse(Response.ResponseBuilder responseBuilder, Date lastModified,
+                                                          EntityTag entityTag) {
+        return responseBuilder
+                .header("Accept-Ranges", "bytes")
+                .header("Access-Control-Allow-Origin", "*")
+                .header("Access-Control-Allow-Headers", "x-requested-with, content-type, range, if-range, if-none-match, "
+                        + "if-modified-since")
+                .header("Access-Control-Allow-Credentials", "true")
+                .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
+                .header("Access-Control-Expose-Headers", "content-range, content-length, accept-ranges, etag, last-modified")
+                .lastModified(lastModified)
+                .tag(entityTag);
+    }
+
+    /**
+     * Copy a region of the file into the output stream. The data is transferred by the file channel in chunks, without loading the
+     * whole region in memory.
+     *
+     * @param fc           File channel
+     * @param position     First byte to copy
+     * @param count        Number of bytes to copy
+     * @param outputStream Output stream
+     * @throws IOException if the file could not be read or the client closed the connection
+     */
+    private static void transfer(FileChannel fc, long position, long count, OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long transferred = 0;
+        while (transferred < count) {
+            long n = fc.transferTo(position + transferred, count - transferred, target);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of file at position " + (position + transferred));
+            }
+            transferred += n;
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Check the If-Range header. Ranges are only served if the file has not changed since the client got the given ETag or date.
+     *
+     * @param ifRange      Value of the If-Range header
+     * @param lastModified Last modification date of the file
+     * @param entityTag    ETag of the file
+     * @return true if the ranges must be served, false if the whole file must be sent.
+     */
+    static boolean isRangeValid(String ifRange, Date lastModified, EntityTag entityTag) {
+        if (StringUtils.isEmpty(ifRange)) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(entityTag.toString());
+        } else {
+            try {
+                long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+                return date == lastModified.getTime() / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Parse the HTTP Range header, e.g. "bytes=0-99,200-,-50".
+     * As allowed by RFC 7233, headers that are not valid, with more than {@link #MAX_RANGES} ranges or with overlapping ranges are
+     * ignored.
+     *
+     * @param rangeHeader Range header
+     * @param size        Size of the file
+     * @return list of satisfiable ranges as pairs [first byte, last byte], both inclusive. Empty if none of the ranges can be served.
+     * Null if the header must be ignored.
+     */
+    static List<long[]> parseRanges(String rangeHeader, long size) {
+        String header = rangeHeader.trim();
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] rangesStr = header.substring("bytes=".length()).split(",");
+        if (rangesStr.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (String range : rangesStr) {
+            range = range.trim();
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String fromStr = range.substring(0, dash).trim();
+            String toStr = range.substring(dash + 1).trim();
+            long from;
+            long to;
+            try {
+                if (fromStr.isEmpty()) {
+                    // Suffix range. Last N bytes
+                    if (!StringUtils.isNumeric(toStr)) {
+                        return null;
+                    }
+                    long suffix = Long.parseLong(toStr);
+                    if (suffix == 0) {
+                        continue;
+                    }
+                    from = Math.max(0, size - suffix);
+                    to = size - 1;
+                } else {
+                    if (!StringUtils.isNumeric(fromStr) || !toStr.isEmpty() && !StringUtils.isNumeric(toStr)) {
+                        return null;
+                    }
+                    from = Long.parseLong(fromStr);
+                    to = toStr.isEmpty() ? size - 1 : Long.parseLong(toStr);
+                    if (to < from) {
+                        return null;
+                    }
+                    to = Math.min(to, size - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (from < size) {
+                ranges.add(new long[]{from, to});
+            }
+        }
+
+        List<long[]> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(range -> range[0]));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i)[0] <= sorted.get(i - 1)[1]) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
 }
@@ -0,0 +1,78 @@
+package org.opencb.opencga.server.rest.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.EntityTag;
+import java.util.Date;
+import java.util.List;
+
+public class FileRangesWSServerTest {
+
+    @Test
+    public void parseSingleRange() {
+        List<long[]> ranges = FileRangesWSServer.parseRanges("bytes=0-99", 1000);
+        Assert.assertEquals(1, ranges.size());
+        Assert.assertArrayEquals(new long[]{0, 99}, ranges.get(0));
+    }
+
+    @Test
+    public void parseMultipleRanges() {
+        List<long[]> ranges = FileRangesWSServer.parseRanges("bytes=0-99, 500-, -100", 1000);
+        Assert.assertEquals(3, ranges.size());
+        Assert.assertArrayEquals(new long[]{0, 99}, ranges.get(0));
+        Assert.assertArrayEquals(new long[]{500, 999}, ranges.get(1));
+        Assert.assertArrayEquals(new long[]{900, 999}, ranges.get(2));
+    }
+
+    @Test
+    public void parseRangesBeyondFileSize() {
+        // Ranges over 2GB must not overflow
+        long size = 5L * 1024 * 1024 * 1024;
+        List<long[]> ranges = FileRangesWSServer.parseRanges("bytes=4294967296-" + (size + 100), size);
+        Assert.assertEquals(1, ranges.size());
+        Assert.assertArrayEquals(new long[]{4294967296L, size - 1}, ranges.get(0));
+
+        Assert.assertTrue(FileRangesWSServer.parseRanges("bytes=1000-2000", 1000).isEmpty());
+    }
+
+    @Test
+    public void parseInvalidRange() {
+        // Invalid headers are ignored
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=100-50", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=abc-", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=--5", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=100", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=0-99999999999999999999", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("items=0-10", 1000));
+    }
+
+    @Test
+    public void parseOverlappingRanges() {
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=0-99, 50-150", 1000));
+        Assert.assertNull(FileRangesWSServer.parseRanges("bytes=500-, 0-10, -600", 1000));
+        Assert.assertEquals(2, FileRangesWSServer.parseRanges("bytes=100-199, 0-99", 1000).size());
+    }
+
+    @Test
+    public void parseTooManyRanges() {
+        StringBuilder sb = new StringBuilder("bytes=0-0");
+        for (int i = 1; i < FileRangesWSServer.MAX_RANGES; i++) {
+            sb.append(',').append(i * 10).append('-').append(i * 10);
+        }
+        Assert.assertEquals(FileRangesWSServer.MAX_RANGES, FileRangesWSServer.parseRanges(sb.toString(), 1000).size());
+        sb.append(",999-999");
+        Assert.assertNull(FileRangesWSServer.parseRanges(sb.toString(), 1000));
+    }
+
+    @Test
+    public void ifRange() {
+        Date lastModified = new Date(1600000000000L);
+        EntityTag entityTag = new EntityTag("abc");
+        Assert.assertTrue(FileRangesWSServer.isRangeValid(null, lastModified, entityTag));
+        Assert.assertTrue(FileRangesWSServer.isRangeValid("\"abc\"", lastModified, entityTag));
+        Assert.assertFalse(FileRangesWSServer.isRangeValid("\"def\"", lastModified, entityTag));
+        Assert.assertTrue(FileRangesWSServer.isRangeValid("Sun, 13 Sep 2020 12:26:40 GMT", lastModified, entityTag));
+        Assert.assertFalse(FileRangesWSServer.isRangeValid("Sun, 13 Sep 2020 12:26:41 GMT", lastModified, entityTag));
+    }
+}
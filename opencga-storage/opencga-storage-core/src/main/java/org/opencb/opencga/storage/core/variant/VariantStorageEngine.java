@@ -27,6 +27,7 @@ import org.opencb.biodata.models.variant.metadata.VariantMetadata;
 import org.opencb.cellbase.client.config.ClientConfiguration;
 import org.opencb.cellbase.client.rest.CellBaseClient;
 import org.opencb.commons.datastore.core.*;
+import org.opencb.opencga.core.common.Metrics;
 import org.opencb.opencga.core.common.TimeUtils;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
 import org.opencb.opencga.core.models.operations.variant.VariantAggregateFamilyParams;
@@ -74,6 +75,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -257,13 +259,57 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
             metadataFactory = new VariantMetadataFactory(getMetadataManager());
         }
         VariantExporter exporter = newVariantExporter(metadataFactory);
+        ParsedVariantQuery parsedVariantQuery = parseExportQuery(outputFormat, query, queryOptions);
+        exporter.export(outputFile, outputFormat, variantsFile, parsedVariantQuery);
+    }
+
+    /**
+     * Exports the result of the given query into an output stream, iterating locally through the database. No metadata is exported.
+     * The output stream is not closed.
+     *
+     * @param outputStream  Output stream
+     * @param outputFormat  Variant output format
+     * @param query         Query with the variants to export
+     * @param queryOptions  Query options
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    public void exportData(OutputStream outputStream, VariantOutputFormat outputFormat, Query query, QueryOptions queryOptions)
+            throws IOException, StorageEngineException {
+        exportData(outputStream, outputFormat, parseExportQuery(outputFormat, query, queryOptions));
+    }
+
+    /**
+     * Exports the result of a query already parsed with {@link #parseExportQuery} into an output stream.
+     * No metadata is exported. The output stream is not closed.
+     *
+     * @param outputStream  Output stream
+     * @param outputFormat  Variant output format
+     * @param query         Parsed query with the variants to export
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    public void exportData(OutputStream outputStream, VariantOutputFormat outputFormat, ParsedVariantQuery query)
+            throws IOException, StorageEngineException {
+        VariantExporter exporter = newVariantExporter(new VariantMetadataFactory(getMetadataManager()));
+        exporter.export(outputStream, outputFormat, query);
+    }
+
+    /**
+     * Parse the query of an export, so any invalid param is reported before writing anything.
+     *
+     * @param outputFormat  Variant output format
+     * @param query         Query with the variants to export
+     * @param queryOptions  Query options
+     * @return              Parsed query
+     */
+    public ParsedVariantQuery parseExportQuery(VariantOutputFormat outputFormat, Query query, QueryOptions queryOptions) {
         if (outputFormat == VariantOutputFormat.VCF || outputFormat == VariantOutputFormat.VCF_GZ) {
             if (!isValidParam(query, VariantQueryParam.UNKNOWN_GENOTYPE)) {
                 query.put(VariantQueryParam.UNKNOWN_GENOTYPE.key(), "./.");
             }
         }
-        ParsedVariantQuery parsedVariantQuery = parseQuery(query, queryOptions);
-        exporter.export(outputFile, outputFormat, variantsFile, parsedVariantQuery);
+        return parseQuery(query, queryOptions);
     }
 
     /**
@@ -653,15 +699,16 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
 
         // then, load variants
         queryOptions.put(QueryOptions.EXCLUDE, Arrays.asList(VariantField.STUDIES_SAMPLES, VariantField.STUDIES_FILES));
+        // Take the timestamp before reading any variant, so variants modified during the load are indexed again in the next sync
+        long timestamp = System.currentTimeMillis();
         try (VariantDBIterator iterator = getVariantsToSecondaryIndex(overwrite, query, queryOptions, dbAdaptor)) {
             VariantSearchLoadResult load = variantSearchManager.load(dbName, iterator, newVariantSearchDataWriter(dbName));
 
             if (isValidParam(query, VariantQueryParam.REGION)) {
                 logger.info("Partial secondary index. Do not update {} timestamp", SEARCH_INDEX_LAST_TIMESTAMP.key());
             } else {
-                long value = System.currentTimeMillis();
                 getMetadataManager().updateProjectMetadata(projectMetadata -> {
-                    projectMetadata.getAttributes().put(SEARCH_INDEX_LAST_TIMESTAMP.key(), value);
+                    projectMetadata.getAttributes().put(SEARCH_INDEX_LAST_TIMESTAMP.key(), timestamp);
                     return projectMetadata;
                 });
             }
@@ -671,9 +718,26 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
             throw e;
         } catch (Exception e) {
             throw new StorageEngineException("Exception building secondary index", e);
+        } finally {
+            // The search index might have been modified, even on failure
+            incrementSearchIndexVersion();
         }
     }
 
+    /**
+     * Increment the version of the search index stored in the project metadata, so any process discards the aggregations cached from
+     * the search index. Must be called every time the search index collection is modified.
+     *
+     * @throws StorageEngineException if the project metadata could not be updated
+     */
+    public void incrementSearchIndexVersion() throws StorageEngineException {
+        getMetadataManager().updateProjectMetadata(projectMetadata -> {
+            long version = projectMetadata.getAttributes().getLong(SEARCH_INDEX_VERSION.key());
+            projectMetadata.getAttributes().put(SEARCH_INDEX_VERSION.key(), version + 1);
+            return projectMetadata;
+        });
+    }
+
     protected VariantDBIterator getVariantsToSecondaryIndex(boolean overwrite, Query query, QueryOptions queryOptions,
                                                             VariantDBAdaptor dbAdaptor)
             throws StorageEngineException {
@@ -697,7 +761,9 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
     protected SolrInputDocumentDataWriter newVariantSearchDataWriter(String collection) throws StorageEngineException {
         return new SolrInputDocumentDataWriter(collection,
                 getVariantSearchManager().getSolrClient(),
-                getVariantSearchManager().getInsertBatchSize());
+                getVariantSearchManager().getInsertBatchSize(),
+                getOptions().getInt(SEARCH_LOAD_WRITER_THREADS.key(), SEARCH_LOAD_WRITER_THREADS.defaultValue()),
+                getOptions().getBoolean(SEARCH_LOAD_SOFT_COMMIT.key(), SEARCH_LOAD_SOFT_COMMIT.defaultValue()));
     }
 
     public void secondaryIndexSamples(String study, List<String> samples)
@@ -731,7 +797,9 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
                 variantSearchManager.load(collectionName, iterator,
                         new SolrInputDocumentDataWriter(collectionName,
                                 variantSearchManager.getSolrClient(),
-                                variantSearchManager.getInsertBatchSize()));
+                                variantSearchManager.getInsertBatchSize(),
+                                getOptions().getInt(SEARCH_LOAD_WRITER_THREADS.key(), SEARCH_LOAD_WRITER_THREADS.defaultValue()),
+                                getOptions().getBoolean(SEARCH_LOAD_SOFT_COMMIT.key(), SEARCH_LOAD_SOFT_COMMIT.defaultValue())));
             } else {
                 throw new StorageEngineException("Solr is not alive!");
             }
@@ -1092,7 +1160,9 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         }
         addDefaultLimit(options, getOptions());
         addDefaultSampleLimit(query, getOptions());
+        long start = System.currentTimeMillis();
         query = preProcessQuery(query, options);
+        Metrics.record("opencga_variant_query_parse_duration_ms", System.currentTimeMillis() - start);
         return getVariantQueryExecutor(query, options).get(query, options);
     }
 
@@ -1251,7 +1321,8 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         List<VariantAggregationExecutor> executors = new ArrayList<>(3);
 
         try {
-            executors.add(new SearchIndexVariantAggregationExecutor(getVariantSearchManager(), getDBName()));
+            executors.add(new SearchIndexVariantAggregationExecutor(getVariantSearchManager(), getDBName(), getMetadataManager(),
+                    getOptions()));
             executors.add(new ChromDensityVariantAggregationExecutor(this, getMetadataManager()));
         } catch (Exception e) {
             throw VariantQueryException.internalException(e);
@@ -90,6 +90,7 @@ public enum VariantStorageOptions implements ConfigurationOption {
     QUERY_LIMIT_MAX("query.limit.max", 5000),
     QUERY_SAMPLE_LIMIT_DEFAULT("query.sample.limit.default", 100),
     QUERY_SAMPLE_LIMIT_MAX("query.sample.limit.max", 1000),
+    QUERY_COALESCE("query.coalesce", true),                // Share the result of identical concurrent queries
 
     // Search intersect options
     INTERSECT_ACTIVE("search.intersect.active", true),                       // Allow intersect queries with the SearchEngine (Solr)
@@ -97,6 +98,10 @@ public enum VariantStorageOptions implements ConfigurationOption {
     INTERSECT_PARAMS_THRESHOLD("search.intersect.params.threshold", 3),      // Minimum number of QueryParams in the query to intersect
     SEARCH_LOAD_BATCH_SIZE("search.load.batchSize", 100),
     SEARCH_LOAD_THREADS("search.load.numThreads", 2),
+    SEARCH_LOAD_WRITER_THREADS("search.load.writer.numThreads", 2),  // Concurrent update requests to the SearchEngine
+    SEARCH_LOAD_SOFT_COMMIT("search.load.softCommit", true),         // Use soft commits while loading, and a hard commit at the end
+    SEARCH_FACET_CACHE_SIZE("search.facet.cache.size", 1000),       // Max number of faceted queries to cache. 0 to disable
+    SEARCH_FACET_CACHE_TTL("search.facet.cache.ttl", 3600),         // Time to live of cached faceted queries, in seconds
 
     APPROXIMATE_COUNT_SAMPLING_SIZE("approximateCountSamplingSize", 1000),
     @Deprecated
@@ -120,7 +125,8 @@ public enum VariantStorageOptions implements ConfigurationOption {
     RELEASE("release", 1),
 
     MERGE_MODE("merge.mode", VariantStorageEngine.MergeMode.ADVANCED),
-    SEARCH_INDEX_LAST_TIMESTAMP("search.index.last.timestamp", 0);
+    SEARCH_INDEX_LAST_TIMESTAMP("search.index.last.timestamp", 0),
+    SEARCH_INDEX_VERSION("search.index.version", 0); // Incremented every time the search index is modified
 
     private final String key;
     private final Object value;
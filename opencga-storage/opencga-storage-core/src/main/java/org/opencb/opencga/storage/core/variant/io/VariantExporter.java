@@ -113,6 +113,25 @@ public class VariantExporter {
         }
     }
 
+    /**
+     * Exports the result of the given query into an output stream, e.g. the response of a web service. No metadata is exported.
+     * The output stream is not closed.
+     *
+     * @param outputStream  Output stream. Compressed if the output format requires it.
+     * @param outputFormat  Variant Output format.
+     * @param query         Query with the variants to export
+     * @throws IOException  If there is any IO error, e.g. the client closed the connection
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    public void export(OutputStream outputStream, VariantOutputFormat outputFormat, ParsedVariantQuery query)
+            throws IOException, StorageEngineException {
+        // Closing the wrapped stream finishes the compression without closing the given output stream
+        try (OutputStream os = VariantWriterFactory.getOutputStream(
+                new VariantWriterFactory.UnclosableOutputStream(outputStream), outputFormat)) {
+            exportData(os, outputFormat, null, query.getInputQuery(), query.getInputOptions(), false);
+        }
+    }
+
     protected void exportData(OutputStream outputStream, VariantOutputFormat outputFormat, URI variantsFile,
                               Query query, QueryOptions queryOptions, boolean logProgress)
             throws StorageEngineException, IOException {
@@ -216,8 +216,6 @@ public class VariantWriterFactory {
 
     public static OutputStream getOutputStream(URI output, VariantOutputFormat outputFormat, IOConnectorProvider ioConnectorProvider)
             throws IOException {
-        boolean gzip = outputFormat.isGzip();
-
         // output format has priority over output name
         OutputStream outputStream;
         if (isStandardOutput(output)) {
@@ -228,6 +226,20 @@ public class VariantWriterFactory {
             logger.debug("writing to %s", output);
         }
 
+        return getOutputStream(outputStream, outputFormat);
+    }
+
+    /**
+     * Wrap the given output stream to write the variant output format, compressing it if required.
+     *
+     * @param outputStream Raw output stream
+     * @param outputFormat Variant output format
+     * @return the wrapped output stream
+     * @throws IOException if the compressed stream could not be created
+     */
+    public static OutputStream getOutputStream(OutputStream outputStream, VariantOutputFormat outputFormat) throws IOException {
+        boolean gzip = outputFormat.isGzip();
+
         // If compressed a GZip output stream is used
         if (gzip && outputFormat != VariantOutputFormat.AVRO_GZ) {
             outputStream = new GZIPOutputStream(outputStream);
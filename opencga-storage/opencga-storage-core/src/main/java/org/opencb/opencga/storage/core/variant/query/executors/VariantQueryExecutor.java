@@ -5,6 +5,7 @@ import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.common.Metrics;
 import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
@@ -35,10 +36,14 @@ public abstract class VariantQueryExecutor implements VariantIterable {
     }
 
     public final VariantQueryResult<Variant> get(Query query, QueryOptions options) {
+        long start = System.currentTimeMillis();
         try {
             return (VariantQueryResult<Variant>) getOrIterator(query, options, false);
         } catch (StorageEngineException e) {
             throw VariantQueryException.internalException(e);
+        } finally {
+            Metrics.record("opencga_variant_query_executor_duration_ms", System.currentTimeMillis() - start,
+                    "executor", getClass().getSimpleName());
         }
     }
 
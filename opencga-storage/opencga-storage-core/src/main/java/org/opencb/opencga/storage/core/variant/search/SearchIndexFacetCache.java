@@ -0,0 +1,194 @@
+package org.opencb.opencga.storage.core.variant.search;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.Event;
+import org.opencb.commons.datastore.core.FacetField;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of faceted queries executed in the search engine.
+ *
+ * Entries are keyed by the normalized query, options and facet, regardless of the order of the facet terms. Each entry records the
+ * version of the search index it was computed from, and is discarded when the search index is modified, or after the time to live.
+ * If the only difference between two facets is the limit of some simple categorical facets (e.g. "type:10" and "type:5"), the
+ * result of the larger limit is reused, truncating the buckets.
+ *
+ * Each caller gets its own copy of the cached result, with the facet fields in the order requested.
+ */
+public class SearchIndexFacetCache {
+
+    // Simple categorical facet with limit. No values to include, no ranges and no nested facets.
+    private static final Pattern LIMITED_FACET_PATTERN = Pattern.compile("^([a-zA-Z][a-zA-Z0-9_.]*):(\\d+)$");
+    // Name of the facet field returned for a facet term
+    private static final Pattern FACET_NAME_PATTERN = Pattern.compile("^([^:\\[>(]+)");
+    private static final String FACET_SEPARATOR = ";";
+
+    private final Cache<String, Entry> cache;
+
+    public SearchIndexFacetCache(int maxSize, long ttlSeconds) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface FacetLoader {
+        DataResult<FacetField> load(Query query, QueryOptions options) throws Exception;
+    }
+
+    /**
+     * Get the result of a faceted query from the cache, or execute it with the given loader.
+     *
+     * @param query     Query
+     * @param options   Query options with the facet
+     * @param version   Current version of the search index
+     * @param loader    Function to execute the faceted query
+     * @return          Result of the faceted query
+     * @throws Exception if the loader fails
+     */
+    public DataResult<FacetField> get(Query query, QueryOptions options, long version, FacetLoader loader) throws Exception {
+        Map<String, Integer> limits = new HashMap<>();
+        String key = buildKey(query, options, limits);
+
+        List<String> names = getFacetNames(options.getString(QueryOptions.FACET));
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version == version && entry.covers(limits)) {
+            return entry.get(limits, names);
+        }
+
+        DataResult<FacetField> result = loader.load(new Query(query), new QueryOptions(options));
+        entry = new Entry(version, limits, result);
+        cache.put(key, entry);
+        return entry.get(limits, names);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    static String buildKey(Query query, QueryOptions options, Map<String, Integer> limits) {
+        StringBuilder sb = new StringBuilder();
+        appendSorted(sb, query, null);
+        sb.append('|');
+        appendSorted(sb, options, QueryOptions.FACET);
+        sb.append('|');
+        String[] terms = options.getString(QueryOptions.FACET).split(FACET_SEPARATOR);
+        Arrays.sort(terms);
+        for (String term : terms) {
+            Matcher matcher = LIMITED_FACET_PATTERN.matcher(term);
+            if (matcher.matches()) {
+                limits.put(matcher.group(1), Integer.valueOf(matcher.group(2)));
+                sb.append(matcher.group(1)).append(":*");
+            } else {
+                sb.append(term);
+            }
+            sb.append(FACET_SEPARATOR);
+        }
+        return sb.toString();
+    }
+
+    private static List<String> getFacetNames(String facet) {
+        List<String> names = new ArrayList<>();
+        for (String term : facet.split(FACET_SEPARATOR)) {
+            Matcher matcher = FACET_NAME_PATTERN.matcher(term);
+            names.add(matcher.find() ? matcher.group(1) : term);
+        }
+        return names;
+    }
+
+    private static void appendSorted(StringBuilder sb, Map<String, Object> map, String skipKey) {
+        for (Map.Entry<String, Object> entry : new TreeMap<>(map).entrySet()) {
+            if (entry.getKey().equals(skipKey) || entry.getValue() == null) {
+                continue;
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final Map<String, Integer> limits;
+        private final DataResult<FacetField> result;
+
+        private Entry(long version, Map<String, Integer> limits, DataResult<FacetField> result) {
+            this.version = version;
+            this.limits = limits;
+            this.result = result;
+        }
+
+        private boolean covers(Map<String, Integer> requestedLimits) {
+            for (Map.Entry<String, Integer> entry : requestedLimits.entrySet()) {
+                if (limits.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private DataResult<FacetField> get(Map<String, Integer> requestedLimits, List<String> requestedNames) {
+            List<FacetField> facets = new ArrayList<>(result.getResults().size());
+            for (FacetField facetField : result.getResults()) {
+                facets.add(copy(facetField, requestedLimits.get(facetField.getName())));
+            }
+            // Same order as the requested facet. Unknown names go to the end
+            facets.sort(Comparator.comparingInt(facetField -> {
+                int i = requestedNames.indexOf(facetField.getName());
+                return i < 0 ? Integer.MAX_VALUE : i;
+            }));
+            List<Event> events = result.getEvents() == null ? new ArrayList<>() : new ArrayList<>(result.getEvents());
+            return new DataResult<>(0, events, facets.size(), facets, result.getNumMatches());
+        }
+    }
+
+    /**
+     * Deep copy of a list of facet fields, including their buckets and nested facets.
+     *
+     * @param facetFields Facet fields to copy
+     * @return Independent copy of the facet fields
+     */
+    public static List<FacetField> copy(List<FacetField> facetFields) {
+        if (facetFields == null) {
+            return null;
+        }
+        List<FacetField> copy = new ArrayList<>(facetFields.size());
+        for (FacetField facetField : facetFields) {
+            copy.add(copy(facetField, null));
+        }
+        return copy;
+    }
+
+    private static FacetField copy(FacetField facetField, Integer limit) {
+        List<FacetField.Bucket> buckets = null;
+        if (facetField.getBuckets() != null) {
+            List<FacetField.Bucket> source = facetField.getBuckets();
+            if (limit != null && source.size() > limit) {
+                source = source.subList(0, limit);
+            }
+            buckets = new ArrayList<>(source.size());
+            for (FacetField.Bucket bucket : source) {
+                buckets.add(new FacetField.Bucket(bucket.getValue(), bucket.getCount(), copy(bucket.getFacetFields())));
+            }
+        }
+        return new FacetField(facetField.getName(), facetField.getCount(), buckets)
+                .setAggregationName(facetField.getAggregationName())
+                .setAggregationValues(facetField.getAggregationValues() == null
+                        ? null : new ArrayList<>(facetField.getAggregationValues()))
+                .setStart(facetField.getStart())
+                .setEnd(facetField.getEnd())
+                .setStep(facetField.getStep());
+    }
+}
@@ -1,10 +1,9 @@
 package org.opencb.opencga.storage.core.variant.search;
 
-import org.opencb.commons.datastore.core.DataResult;
-import org.opencb.commons.datastore.core.FacetField;
-import org.opencb.commons.datastore.core.Query;
-import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.*;
 import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.ProjectMetadata;
 import org.opencb.opencga.storage.core.variant.query.executors.VariantAggregationExecutor;
 import org.opencb.opencga.storage.core.variant.search.solr.VariantSearchManager;
 import org.slf4j.Logger;
@@ -12,16 +11,41 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.*;
+
 public class SearchIndexVariantAggregationExecutor extends VariantAggregationExecutor {
 
+    // Time during which the version of the search index read from the project metadata is reused
+    static final long SEARCH_INDEX_VERSION_TTL_MILLIS = 5000;
+
     private final VariantSearchManager searchManager;
     private final String dbName;
+    private final VariantStorageMetadataManager metadataManager;
+    private final SearchIndexFacetCache cache;
+    private long searchIndexVersion;
+    private long searchIndexVersionTime;
     private Logger logger = LoggerFactory.getLogger(SearchIndexVariantAggregationExecutor.class);
 
 
     public SearchIndexVariantAggregationExecutor(VariantSearchManager searchManager, String dbName) {
         this.searchManager = searchManager;
         this.dbName = dbName;
+        this.metadataManager = null;
+        this.cache = null;
+    }
+
+    public SearchIndexVariantAggregationExecutor(VariantSearchManager searchManager, String dbName,
+                                                 VariantStorageMetadataManager metadataManager, ObjectMap options) {
+        this.searchManager = searchManager;
+        this.dbName = dbName;
+        this.metadataManager = metadataManager;
+        int cacheSize = options.getInt(SEARCH_FACET_CACHE_SIZE.key(), SEARCH_FACET_CACHE_SIZE.defaultValue());
+        if (cacheSize > 0) {
+            this.cache = new SearchIndexFacetCache(cacheSize,
+                    options.getLong(SEARCH_FACET_CACHE_TTL.key(), SEARCH_FACET_CACHE_TTL.<Number>defaultValue().longValue()));
+        } else {
+            this.cache = null;
+        }
     }
 
     @Override
@@ -31,8 +55,35 @@ public class SearchIndexVariantAggregationExecutor extends VariantAggregationExe
 
     @Override
     protected VariantQueryResult<FacetField> aggregation(Query query, QueryOptions options, String facet) throws Exception {
-        DataResult<FacetField> r = searchManager.facetedQuery(dbName, query, options);
+        DataResult<FacetField> r;
+        if (cache == null) {
+            r = searchManager.facetedQuery(dbName, query, options);
+        } else {
+            r = cache.get(query, options, getSearchIndexVersion(), (q, o) -> searchManager.facetedQuery(dbName, q, o));
+        }
         return new VariantQueryResult<>(r)
                 .setSource(VariantSearchManager.SEARCH_ENGINE_ID);
     }
+
+    /**
+     * Version of the search index, used to discard the cached facets computed before any change. The version is stored in the
+     * project metadata, and incremented by any process every time the search index collection is modified. To avoid reading the
+     * project metadata on every facet, it is reused for {@link #SEARCH_INDEX_VERSION_TTL_MILLIS}, so changes may take up to that
+     * time to be seen.
+     *
+     * @return Version of the search index
+     */
+    private synchronized long getSearchIndexVersion() {
+        long now = System.currentTimeMillis();
+        if (now - searchIndexVersionTime > SEARCH_INDEX_VERSION_TTL_MILLIS) {
+            ProjectMetadata projectMetadata = metadataManager.getProjectMetadata();
+            searchIndexVersion = projectMetadata == null ? 0 : projectMetadata.getAttributes().getLong(SEARCH_INDEX_VERSION.key());
+            searchIndexVersionTime = now;
+        }
+        return searchIndexVersion;
+    }
+
+    public SearchIndexFacetCache getCache() {
+        return cache;
+    }
 }
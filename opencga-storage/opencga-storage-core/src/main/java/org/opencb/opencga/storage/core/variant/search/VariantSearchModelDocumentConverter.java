@@ -0,0 +1,250 @@
+package org.opencb.opencga.storage.core.variant.search;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Converts {@link VariantSearchModel} from and to Solr documents without the reflection based
+ * {@link org.apache.solr.client.solrj.beans.DocumentObjectBinder}.
+ *
+ * Must be kept in sync with the {@link org.apache.solr.client.solrj.beans.Field} annotations from {@link VariantSearchModel}.
+ */
+public final class VariantSearchModelDocumentConverter {
+
+    private VariantSearchModelDocumentConverter() {
+    }
+
+    public static SolrInputDocument toSolrInputDocument(VariantSearchModel model) {
+        SolrInputDocument document = new SolrInputDocument();
+        setField(document, "id", model.getId());
+        setField(document, "variantId", model.getVariantId());
+        setField(document, "chromosome", model.getChromosome());
+        setField(document, "start", model.getStart());
+        setField(document, "end", model.getEnd());
+        setField(document, "xrefs", model.getXrefs());
+        setField(document, "type", model.getType());
+        setField(document, "release", model.getRelease());
+        setField(document, "studies", model.getStudies());
+        setField(document, "phastCons", model.getPhastCons());
+        setField(document, "phylop", model.getPhylop());
+        setField(document, "gerp", model.getGerp());
+        setField(document, "caddRaw", model.getCaddRaw());
+        setField(document, "caddScaled", model.getCaddScaled());
+        setField(document, "sift", model.getSift());
+        setField(document, "siftDesc", model.getSiftDesc());
+        setField(document, "polyphen", model.getPolyphen());
+        setField(document, "polyphenDesc", model.getPolyphenDesc());
+        setField(document, "genes", model.getGenes());
+        setField(document, "biotypes", model.getBiotypes());
+        setField(document, "soAcc", model.getSoAcc());
+        setField(document, "geneToSoAcc", model.getGeneToSoAcc());
+        setField(document, "clinicalSig", model.getClinicalSig());
+        setField(document, "traits", model.getTraits());
+        setField(document, "other", model.getOther());
+
+        // Dynamic fields. Map keys are the full field names
+        setFields(document, model.getPassStats());
+        setFields(document, model.getAltStats());
+        setFields(document, model.getScore());
+        setFields(document, model.getScorePValue());
+        setFields(document, model.getPopFreq());
+        setFields(document, model.getGt());
+        setFields(document, model.getDp());
+        setFields(document, model.getSampleFormat());
+        setFields(document, model.getQual());
+        setFields(document, model.getFilter());
+        setFields(document, model.getFileInfo());
+        return document;
+    }
+
+    public static VariantSearchModel toVariantSearchModel(SolrDocument document) {
+        VariantSearchModel model = new VariantSearchModel();
+        for (Map.Entry<String, Object> entry : document) {
+            String name = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    model.setId(toStr(value));
+                    break;
+                case "variantId":
+                    model.setVariantId(toStr(value));
+                    break;
+                case "chromosome":
+                    model.setChromosome(toStr(value));
+                    break;
+                case "start":
+                    model.setStart(toNumber(value).intValue());
+                    break;
+                case "end":
+                    model.setEnd(toNumber(value).intValue());
+                    break;
+                case "xrefs":
+                    model.setXrefs(toList(value, Object::toString));
+                    break;
+                case "type":
+                    model.setType(toStr(value));
+                    break;
+                case "release":
+                    model.setRelease(toNumber(value).intValue());
+                    break;
+                case "studies":
+                    model.setStudies(toList(value, Object::toString));
+                    break;
+                case "phastCons":
+                    model.setPhastCons(toNumber(value).doubleValue());
+                    break;
+                case "phylop":
+                    model.setPhylop(toNumber(value).doubleValue());
+                    break;
+                case "gerp":
+                    model.setGerp(toNumber(value).doubleValue());
+                    break;
+                case "caddRaw":
+                    model.setCaddRaw(toNumber(value).doubleValue());
+                    break;
+                case "caddScaled":
+                    model.setCaddScaled(toNumber(value).doubleValue());
+                    break;
+                case "sift":
+                    model.setSift(toNumber(value).doubleValue());
+                    break;
+                case "siftDesc":
+                    model.setSiftDesc(toStr(value));
+                    break;
+                case "polyphen":
+                    model.setPolyphen(toNumber(value).doubleValue());
+                    break;
+                case "polyphenDesc":
+                    model.setPolyphenDesc(toStr(value));
+                    break;
+                case "genes":
+                    model.setGenes(toList(value, Object::toString));
+                    break;
+                case "biotypes":
+                    model.setBiotypes(toList(value, Object::toString));
+                    break;
+                case "soAcc":
+                    model.setSoAcc(toList(value, o -> ((Number) o).intValue()));
+                    break;
+                case "geneToSoAcc":
+                    model.setGeneToSoAcc(toList(value, Object::toString));
+                    break;
+                case "clinicalSig":
+                    model.setClinicalSig(toList(value, Object::toString));
+                    break;
+                case "traits":
+                    model.setTraits(toList(value, Object::toString));
+                    break;
+                case "other":
+                    model.setOther(toList(value, Object::toString));
+                    break;
+                default:
+                    addDynamicField(model, name, value);
+                    break;
+            }
+        }
+        return model;
+    }
+
+    private static void addDynamicField(VariantSearchModel model, String name, Object value) {
+        int idx = name.indexOf('_');
+        if (idx < 0) {
+            // Unknown field. Ignore, as the DocumentObjectBinder would do
+            return;
+        }
+        switch (name.substring(0, idx)) {
+            case "passStats":
+                model.getPassStats().put(name, toNumber(value).floatValue());
+                break;
+            case "altStats":
+                model.getAltStats().put(name, toNumber(value).floatValue());
+                break;
+            case "score":
+                model.getScore().put(name, toNumber(value).floatValue());
+                break;
+            case "scorePValue":
+                model.getScorePValue().put(name, toNumber(value).floatValue());
+                break;
+            case "popFreq":
+                model.getPopFreq().put(name, toNumber(value).floatValue());
+                break;
+            case "gt":
+                model.getGt().put(name, toStr(value));
+                break;
+            case "dp":
+                model.getDp().put(name, toNumber(value).intValue());
+                break;
+            case "sampleFormat":
+                model.getSampleFormat().put(name, toStr(value));
+                break;
+            case "qual":
+                model.getQual().put(name, toNumber(value).floatValue());
+                break;
+            case "filter":
+                model.getFilter().put(name, toStr(value));
+                break;
+            case "fileInfo":
+                model.getFileInfo().put(name, toStr(value));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void setField(SolrInputDocument document, String name, Object value) {
+        if (value != null) {
+            document.setField(name, value);
+        }
+    }
+
+    private static void setFields(SolrInputDocument document, Map<String, ?> values) {
+        if (values != null) {
+            for (Map.Entry<String, ?> entry : values.entrySet()) {
+                setField(document, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static Object single(Object value) {
+        if (value instanceof Collection) {
+            Iterator<?> iterator = ((Collection<?>) value).iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+        return value;
+    }
+
+    private static String toStr(Object value) {
+        Object o = single(value);
+        return o == null ? null : o.toString();
+    }
+
+    private static Number toNumber(Object value) {
+        Object o = single(value);
+        if (o instanceof Number) {
+            return (Number) o;
+        } else {
+            return Double.valueOf(String.valueOf(o));
+        }
+    }
+
+    private static <T> List<T> toList(Object value, Function<Object, T> mapper) {
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<T> list = new ArrayList<>(collection.size());
+            for (Object o : collection) {
+                list.add(mapper.apply(o));
+            }
+            return list;
+        } else {
+            List<T> list = new ArrayList<>(1);
+            list.add(mapper.apply(value));
+            return list;
+        }
+    }
+}
@@ -1,38 +1,89 @@
 package org.opencb.opencga.storage.core.variant.search.solr;
 
 import com.google.common.base.Throwables;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.core.common.TimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Writes SolrInputDocuments into a Solr collection.
+ *
+ * By default, every batch is sent synchronously, and a hard commit is executed every {@code insertBatchSize} documents.
+ *
+ * In bulk load mode ({@code softCommit = true}), documents are sent with commitWithin, intermediate commits are soft commits, and
+ * one single hard commit is executed at the end of the load. With {@code numThreads > 1}, update requests are sent concurrently
+ * from a pool of writer threads. Pending requests are always completed before any commit.
+ */
 public class SolrInputDocumentDataWriter implements DataWriter<SolrInputDocument> {
 
+    public static final int DEFAULT_COMMIT_WITHIN_MS = 60000;
+
     private final String collection;
     private final SolrClient solrClient;
     private final int insertBatchSize;
-    private int serverBufferSize = 0;
-    private int insertedDocuments = 0;
-    private long addTimeMs = 0;
+    private final int numThreads;
+    private final boolean softCommit;
+    private ExecutorService executor;
+    private Semaphore inFlightRequests;
+    private final Queue<Future<?>> pendingRequests = new LinkedList<>();
+    private final AtomicLong serverBufferSize = new AtomicLong();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final AtomicLong maxInFlightBytes = new AtomicLong();
+    private final AtomicLong addTimeMs = new AtomicLong();
+    private long insertedDocuments = 0;
     private long commitTimeMs = 0;
+    private long startTime = System.currentTimeMillis();
     private final Logger logger = LoggerFactory.getLogger(VariantSearchManager.class);
 
     public SolrInputDocumentDataWriter(String collection, SolrClient solrClient, int insertBatchSize) {
+        this(collection, solrClient, insertBatchSize, 1, false);
+    }
+
+    public SolrInputDocumentDataWriter(String collection, SolrClient solrClient, int insertBatchSize, int numThreads,
+                                       boolean softCommit) {
         this.collection = collection;
         this.solrClient = solrClient;
         this.insertBatchSize = insertBatchSize;
+        this.numThreads = Math.max(1, numThreads);
+        this.softCommit = softCommit;
+    }
+
+    @Override
+    public boolean open() {
+        if (numThreads > 1) {
+            executor = Executors.newFixedThreadPool(numThreads, new BasicThreadFactory.Builder()
+                    .namingPattern("solr-writer-%s")
+                    .daemon(true)
+                    .build());
+            // Allow one extra request per thread to be waiting in the queue
+            inFlightRequests = new Semaphore(numThreads * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean pre() {
+        startTime = System.currentTimeMillis();
+        return true;
     }
 
     @Override
     public final boolean write(List<SolrInputDocument> batch) {
         try {
             add(batch);
-            if (serverBufferSize > insertBatchSize) {
+            if (serverBufferSize.get() > insertBatchSize) {
                 commit();
             }
         } catch (Exception e) {
@@ -45,34 +96,139 @@ public class SolrInputDocumentDataWriter implements DataWriter<SolrInputDocument
     public boolean post() {
         try {
             commit();
+            if (softCommit) {
+                // Make the load durable with one single hard commit
+                hardCommit();
+            }
         } catch (Exception e) {
             Throwables.propagate(e);
         }
-        logger.info("Finish Solr Bulk Load: {} inserted documents.", insertedDocuments);
-        logger.info("Push (add) time :{}", TimeUtils.durationToString(addTimeMs));
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - startTime);
+        logger.info("Finish Solr Bulk Load: {} inserted documents in {} ({} docs/sec)",
+                insertedDocuments, TimeUtils.durationToString(elapsedMs), String.format("%.2f", insertedDocuments * 1000.0 / elapsedMs));
+        logger.info("Push (add) time :{}", TimeUtils.durationToString(addTimeMs.get()));
         logger.info("Commit time: {}", TimeUtils.durationToString(commitTimeMs));
+        if (numThreads > 1) {
+            logger.info("Max in-flight: {} bytes", maxInFlightBytes.get());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
         return true;
     }
 
     protected void add(List<SolrInputDocument> batch) throws Exception {
-        UpdateResponse response = solrClient.add(collection, batch);
-        addTimeMs += response.getElapsedTime();
+        if (executor == null) {
+            addSync(batch, 0);
+        } else {
+            checkFinishedRequests(false);
+            long bytes = estimateSize(batch);
+            inFlightRequests.acquire();
+            long current = inFlightBytes.addAndGet(bytes);
+            maxInFlightBytes.accumulateAndGet(current, Math::max);
+            pendingRequests.add(executor.submit(() -> {
+                try {
+                    addSync(batch, bytes);
+                } finally {
+                    inFlightBytes.addAndGet(-bytes);
+                    inFlightRequests.release();
+                }
+                return null;
+            }));
+        }
+    }
+
+    private void addSync(List<SolrInputDocument> batch, long bytes) throws Exception {
+        UpdateResponse response;
+        if (softCommit) {
+            response = solrClient.add(collection, batch, DEFAULT_COMMIT_WITHIN_MS);
+        } else {
+            response = solrClient.add(collection, batch);
+        }
+        addTimeMs.addAndGet(response.getElapsedTime());
         if (response.getException() != null) {
             // FIXME: Is this even possible?
             throw response.getException();
         }
-        serverBufferSize += batch.size();
+        serverBufferSize.addAndGet(batch.size());
     }
 
     protected void commit() throws Exception {
+        checkFinishedRequests(true);
+        if (softCommit) {
+            UpdateResponse response = solrClient.commit(collection, false, false, true);
+            updateCommitTime(response);
+        } else {
+            hardCommit();
+        }
+        insertedDocuments += serverBufferSize.getAndSet(0);
+    }
+
+    private void hardCommit() throws Exception {
         UpdateResponse response = solrClient.commit(collection, true, true, false);
+        updateCommitTime(response);
+    }
+
+    private void updateCommitTime(UpdateResponse response) throws Exception {
         commitTimeMs += response.getElapsedTime();
         if (response.getException() != null) {
             // FIXME: Is this even possible?
             throw response.getException();
         }
-        insertedDocuments += serverBufferSize;
-        serverBufferSize = 0;
     }
 
+    /**
+     * Remove finished add requests, propagating any error.
+     *
+     * @param wait  Wait for all pending requests to finish
+     * @throws Exception    if any add request failed
+     */
+    private void checkFinishedRequests(boolean wait) throws Exception {
+        while (!pendingRequests.isEmpty() && (wait || pendingRequests.peek().isDone())) {
+            try {
+                pendingRequests.poll().get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static long estimateSize(List<SolrInputDocument> batch) {
+        long bytes = 0;
+        for (SolrInputDocument document : batch) {
+            for (SolrInputField field : document) {
+                for (Object value : field) {
+                    if (value instanceof CharSequence) {
+                        bytes += ((CharSequence) value).length();
+                    } else {
+                        bytes += Long.BYTES;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public long getInsertedDocuments() {
+        return insertedDocuments;
+    }
+
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes.get();
+    }
 }
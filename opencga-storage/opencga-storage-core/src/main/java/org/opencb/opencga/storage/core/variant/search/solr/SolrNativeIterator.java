@@ -16,40 +16,83 @@
 
 package org.opencb.opencga.storage.core.variant.search.solr;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
+import org.apache.solr.client.solrj.impl.StreamingBinaryResponseParser;
+import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CursorMarkParams;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
 import org.opencb.opencga.storage.core.variant.search.VariantSearchModel;
+import org.opencb.opencga.storage.core.variant.search.VariantSearchModelDocumentConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.*;
 
-
+/**
+ * Iterates over the results of a Solr query using cursorMarks.
+ *
+ * The next page is requested in a background thread as soon as the current one is received, so the Solr round trip (and the
+ * conversion into {@link VariantSearchModel} beans) overlaps with the consumption of the current page. At most
+ * {@link #MAX_FETCH_THREADS} pages are fetched in background at the same time in the whole process. If all of them are busy, the
+ * next page is fetched on demand instead. Documents are converted
+ * while the javabin response is parsed, without building the intermediate SolrDocumentList. The number of rows per
+ * request adapts to the response time of the server, between {@link #MIN_BATCH_SIZE} and {@link #MAX_BATCH_SIZE}.
+ *
+ * Cursors do not support "start", so skipped elements are consumed by advancing the cursor fetching only the "id" field.
+ */
 public class SolrNativeIterator implements Iterator<VariantSearchModel>, AutoCloseable {
 
-    private SolrClient solrClient;
-    private String collection;
-    private SolrQuery solrQuery;
-    private QueryResponse solrResponse;
-    private String cursorMark;
-    private String nextCursorMark;
+    public static final int MAX_FETCH_THREADS = 16;
+
+    private static final ExecutorService THREAD_POOL = new ThreadPoolExecutor(0, MAX_FETCH_THREADS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new BasicThreadFactory.Builder()
+            .namingPattern("solr-native-iterator-%s")
+            .daemon(true)
+            .build());
+
+    public static final int MIN_BATCH_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 5000;
+    public static final int SKIP_BATCH_SIZE = 10000;
+    // Target response time per page. Pages faster than the lower bound grow, pages slower than the upper bound shrink.
+    private static final long FAST_RESPONSE_MS = 250;
+    private static final long SLOW_RESPONSE_MS = 2000;
+
+    private final SolrClient solrClient;
+    private final String collection;
+    private final SolrQuery solrQuery;
+    private final Logger logger = LoggerFactory.getLogger(SolrNativeIterator.class);
 
     private Iterator<VariantSearchModel> solrIterator;
+    private RunnableFuture<Batch> nextBatch;
+    private long numFound = -1;
+    private int batchSize;
 
+    // Number of elements not yet requested to the server
     private int remaining;
 
-    private static final int BATCH_SIZE = 100;
-
     public SolrNativeIterator(SolrClient solrClient, String collection, SolrQuery solrQuery) throws SolrServerException {
+        this(solrClient, collection, solrQuery, MIN_BATCH_SIZE);
+    }
+
+    public SolrNativeIterator(SolrClient solrClient, String collection, SolrQuery solrQuery, int initialBatchSize)
+            throws SolrServerException {
         this.solrClient = solrClient;
         this.collection = collection;
         this.solrQuery = solrQuery;
+        this.batchSize = Math.min(Math.max(initialBatchSize, MIN_BATCH_SIZE), MAX_BATCH_SIZE);
 
         // Make sure that query is sorted
         this.solrQuery.setSort(SolrQuery.SortClause.asc("id"));
@@ -59,62 +102,32 @@ public class SolrNativeIterator implements Iterator<VariantSearchModel>, AutoClo
                 ? Integer.MAX_VALUE
                 : solrQuery.getRows();
 
-        // We the set cursor at the beginning
-        this.cursorMark = CursorMarkParams.CURSOR_MARK_START;
-
         // We create an empty iterator, this will return false in the first hasNext call
         this.solrIterator = Collections.emptyIterator();
 
-        // Current Solr iterator (aka cursorMarks) implementation does not support skip.
-        // A simple solution is to waste these records and remove the Start from the solrQuery
-        if (solrQuery.getStart() != null && solrQuery.getStart() >= 0) {
-            // Do not change the order or position of the next two lines of code
-            Integer skip = solrQuery.getStart();
-            // We need to increment remaining with skip to allow the decrement in the hasNext method
-            this.remaining = (this.remaining < Integer.MAX_VALUE - skip) ? this.remaining + skip : Integer.MAX_VALUE;
-            solrQuery.setStart(null);
-            for (int i = 0; i < skip && hasNext(); i++) {
-                next();
-            }
+        String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        Integer skip = solrQuery.getStart();
+        solrQuery.setStart(null);
+        if (skip != null && skip > 0) {
+            cursorMark = skip(cursorMark, skip);
+        }
+
+        // Start fetching the first batch
+        if (cursorMark != null && remaining > 0) {
+            fetchNext(cursorMark);
         }
     }
 
     @Override
     public boolean hasNext() {
-        // This is always false the first time with the empty iterator
-        if (solrIterator.hasNext()) {
-            return true;
-        } else {
-            // This only happens when there are no more records in Solr
-            if (cursorMark.equals(nextCursorMark) || remaining == 0) {
+        while (!solrIterator.hasNext()) {
+            if (nextBatch == null) {
                 return false;
             }
-
-            // We need to fetch another batch from Solr
-            try {
-                if (nextCursorMark != null) {
-                    cursorMark = nextCursorMark;
-                }
-                solrQuery.setRows(remaining > BATCH_SIZE ? BATCH_SIZE : remaining);
-                solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
-
-                // Execute the query and fetch setRows records, we will iterate over this list
-                solrResponse = solrClient.query(collection, solrQuery, SolrRequest.METHOD.POST);
-
-                // When the number of returned elements is less than setRows it means there are no enough elements in the server
-                if (solrResponse.getResults().size() < BATCH_SIZE) {
-                    remaining = 0;
-                } else {
-                    // We decrement the number of elements found
-                    remaining -= solrResponse.getResults().size();
-                }
-                nextCursorMark = solrResponse.getNextCursorMark();
-                solrIterator = solrResponse.getBeans(VariantSearchModel.class).iterator();
-                return solrIterator.hasNext();
-            } catch (SolrServerException | IOException e) {
-                throw new VariantQueryException("Error fetching more solr documents", e);
-            }
+            Batch batch = takeNextBatch();
+            solrIterator = batch.beans.iterator();
         }
+        return true;
     }
 
     @Override
@@ -129,14 +142,148 @@ public class SolrNativeIterator implements Iterator<VariantSearchModel>, AutoClo
 
     @Override
     public void close() throws Exception {
-        // nothing to do
+        if (nextBatch != null) {
+            nextBatch.cancel(true);
+            nextBatch = null;
+        }
     }
 
     public long getNumFound() {
-        // Sanity check
-        if (solrResponse == null) {
-            hasNext();
+        if (numFound < 0) {
+            if (nextBatch == null) {
+                return 0;
+            }
+            // Wait for the current request to finish, without consuming it
+            numFound = getNextBatch().numFound;
+        }
+        return numFound;
+    }
+
+    private Batch getNextBatch() {
+        try {
+            // Fetch the batch from this thread if it could not be submitted. Does nothing if it is already running or done
+            nextBatch.run();
+            return nextBatch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VariantQueryException("Interrupted while fetching solr documents", e);
+        } catch (ExecutionException e) {
+            throw new VariantQueryException("Error fetching more solr documents", e.getCause());
+        }
+    }
+
+    /**
+     * Wait for the pending batch and, unless this was the last one, submit the request for the following batch.
+     *
+     * @return the pending batch
+     */
+    private Batch takeNextBatch() {
+        Batch batch = getNextBatch();
+        nextBatch = null;
+        numFound = batch.numFound;
+
+        // When the number of returned elements is less than setRows it means there are no more elements in the server
+        boolean lastBatch = batch.beans.size() < batch.rows || batch.cursorMark.equals(batch.nextCursorMark);
+        if (!lastBatch && remaining > 0) {
+            adaptBatchSize(batch.time);
+            fetchNext(batch.nextCursorMark);
+        }
+        return batch;
+    }
+
+    private void fetchNext(String cursorMark) {
+        int rows = Math.min(remaining, batchSize);
+        remaining -= rows;
+        SolrQuery query = solrQuery.getCopy();
+        query.setRows(rows);
+        query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        nextBatch = new FutureTask<>(() -> {
+            long start = System.currentTimeMillis();
+            List<VariantSearchModel> beans = new ArrayList<>(rows);
+            long[] numFound = {0};
+            StreamingResponseCallback callback = new StreamingResponseCallback() {
+                @Override
+                public void streamSolrDocument(SolrDocument doc) {
+                    beans.add(VariantSearchModelDocumentConverter.toVariantSearchModel(doc));
+                }
+
+                @Override
+                public void streamDocListInfo(long found, long docListStart, Float maxScore) {
+                    numFound[0] = found;
+                }
+            };
+            QueryRequest request = new QueryRequest(query, SolrRequest.METHOD.POST);
+            request.setStreamingResponseCallback(callback);
+            request.setResponseParser(new StreamingBinaryResponseParser(callback));
+            QueryResponse response = request.process(solrClient, collection);
+            return new Batch(beans, rows, cursorMark, response.getNextCursorMark(), numFound[0],
+                    System.currentTimeMillis() - start);
+        });
+        try {
+            THREAD_POOL.execute(nextBatch);
+        } catch (RejectedExecutionException e) {
+            // Too many iterators fetching in background. The batch will be fetched when needed
+            logger.debug("Fetching solr documents on demand");
+        }
+    }
+
+    private void adaptBatchSize(long time) {
+        if (time < FAST_RESPONSE_MS && batchSize < MAX_BATCH_SIZE) {
+            batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
+        } else if (time > SLOW_RESPONSE_MS && batchSize > MIN_BATCH_SIZE) {
+            batchSize = Math.max(batchSize / 2, MIN_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Advance the cursor skipping the given number of elements. Only the "id" field is fetched, and no beans are created.
+     *
+     * @param cursorMark    Initial cursorMark
+     * @param skip          Number of elements to skip
+     * @return              The cursorMark after the skipped elements, or null if there are no more elements
+     * @throws SolrServerException on error executing the query
+     */
+    private String skip(String cursorMark, int skip) throws SolrServerException {
+        SolrQuery query = solrQuery.getCopy();
+        query.setFields("id");
+        while (skip > 0) {
+            int rows = Math.min(skip, SKIP_BATCH_SIZE);
+            query.setRows(rows);
+            query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+            QueryResponse response;
+            try {
+                response = solrClient.query(collection, query, SolrRequest.METHOD.POST);
+            } catch (IOException e) {
+                throw new VariantQueryException("Error skipping solr documents", e);
+            }
+            numFound = response.getResults().getNumFound();
+            String nextCursorMark = response.getNextCursorMark();
+            if (response.getResults().size() < rows || cursorMark.equals(nextCursorMark)) {
+                // Nothing left after skip
+                logger.debug("Skip {} exceeds the number of results", skip);
+                return null;
+            }
+            skip -= rows;
+            cursorMark = nextCursorMark;
+        }
+        return cursorMark;
+    }
+
+    private static class Batch {
+        private final List<VariantSearchModel> beans;
+        private final int rows;
+        private final String cursorMark;
+        private final String nextCursorMark;
+        private final long numFound;
+        private final long time;
+
+        Batch(List<VariantSearchModel> beans, int rows, String cursorMark, String nextCursorMark, long numFound, long time) {
+            this.beans = beans;
+            this.rows = rows;
+            this.cursorMark = cursorMark;
+            this.nextCursorMark = nextCursorMark;
+            this.numFound = numFound;
+            this.time = time;
         }
-        return solrResponse == null ? 0 : solrResponse.getResults().getNumFound();
     }
 }
@@ -51,7 +51,7 @@ public class SolrVariantDBIterator extends VariantDBIterator {
 
     @Override
     public void close() throws Exception {
-        // nothing to do
+        solrNativeIterator.close();
     }
 
     @Override
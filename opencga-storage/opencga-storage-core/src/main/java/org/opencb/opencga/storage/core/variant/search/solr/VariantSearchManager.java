@@ -215,7 +215,7 @@ public class VariantSearchManager {
                 new VariantDBReader(variantDBIterator),
                 progressLogger
                         .<Variant>asTask(d -> "up to position " + d)
-                        .then(new VariantToSolrBeanConverterTask(solrManager.getSolrClient().getBinder())),
+                        .then(new VariantToSolrBeanConverterTask()),
                 writer,
                 ParallelTaskRunner.Config.builder()
                         .setBatchSize(batchSize)
@@ -91,6 +91,21 @@ public abstract class VariantExporterTest extends VariantStorageBaseTest {
         }
     }
 
+    @Test
+    public void exportStreamJsonTest() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        variantStorageEngine.exportData(outputStream, VariantOutputFormat.JSON_GZ, new Query(), new QueryOptions());
+
+        int numVariants = 0;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))))) {
+            while (br.readLine() != null) {
+                numVariants++;
+            }
+        }
+        assertEquals(variantStorageEngine.count(new Query()).first().intValue(), numVariants);
+    }
+
     @Test
     public void exportJsonGivenVariantsFileTest() throws Exception {
         URI outputDir = newOutputUri();
@@ -0,0 +1,100 @@
+package org.opencb.opencga.storage.core.variant.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.FacetField;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class SearchIndexFacetCacheTest {
+
+    private SearchIndexFacetCache cache;
+    private AtomicInteger calls;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new SearchIndexFacetCache(10, 60);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Query query = new Query("study", "s1").append("gene", "BRCA2");
+        assertEquals(5, get(query, "type:5", 0).getResults().get(0).getBuckets().size());
+        assertEquals(1, calls.get());
+
+        // Same query, different order
+        assertEquals(5, get(new Query("gene", "BRCA2").append("study", "s1"), "type:5", 0).getResults().get(0).getBuckets().size());
+        assertEquals(1, calls.get());
+
+        // Different query
+        get(new Query("study", "s1"), "type:5", 0);
+        assertEquals(2, calls.get());
+
+        // New search index version
+        get(query, "type:5", 1);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testReuseLargerLimit() throws Exception {
+        Query query = new Query("study", "s1");
+        assertEquals(8, get(query, "type:8", 0).getResults().get(0).getBuckets().size());
+        assertEquals(1, calls.get());
+
+        assertEquals(3, get(query, "type:3", 0).getResults().get(0).getBuckets().size());
+        assertEquals(1, calls.get());
+
+        assertEquals(10, get(query, "type:10", 0).getResults().get(0).getBuckets().size());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFacetOrder() throws Exception {
+        Query query = new Query("study", "s1");
+        DataResult<FacetField> result = get(query, "type:3;gene:2", 0);
+        assertEquals(Arrays.asList("type", "gene"), result.getResults().stream().map(FacetField::getName).collect(Collectors.toList()));
+        assertEquals(1, calls.get());
+
+        result = get(query, "gene:2;type:3", 0);
+        assertEquals(Arrays.asList("gene", "type"), result.getResults().stream().map(FacetField::getName).collect(Collectors.toList()));
+        assertEquals(2, result.getResults().get(0).getBuckets().size());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testCopies() throws Exception {
+        Query query = new Query("study", "s1");
+        DataResult<FacetField> result = get(query, "type:5", 0);
+        result.getResults().get(0).getBuckets().clear();
+
+        result = get(query, "type:5", 0);
+        assertEquals(1, calls.get());
+        assertEquals(5, result.getResults().get(0).getBuckets().size());
+    }
+
+    private DataResult<FacetField> get(Query query, String facet, long version) throws Exception {
+        return cache.get(query, new QueryOptions(QueryOptions.FACET, facet), version, (q, o) -> {
+            calls.incrementAndGet();
+            List<FacetField> results = new ArrayList<>();
+            for (String term : o.getString(QueryOptions.FACET).split(";")) {
+                int limit = Integer.parseInt(term.split(":")[1]);
+                List<FacetField.Bucket> buckets = new ArrayList<>();
+                for (int i = 0; i < limit; i++) {
+                    buckets.add(new FacetField.Bucket("value" + i, 100 - i, null));
+                }
+                results.add(new FacetField(term.split(":")[0], 1000, buckets));
+            }
+            return new DataResult<>(10, new ArrayList<>(), results.size(), results, 1);
+        });
+    }
+}
@@ -1,5 +1,9 @@
 package org.opencb.opencga.storage.core.variant.search;
 
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
 import org.junit.Before;
 import org.junit.Test;
 import org.opencb.biodata.models.variant.Variant;
@@ -56,4 +60,39 @@ public class VariantSearchToVariantConverterTest {
 
         assertEquals(expectedVariant.getStudies(), actualVariant.getStudies());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDocumentConverter() throws Exception {
+        Variant variant = Variant.newBuilder("chr1:1000:A:T")
+                .setStudyId("1")
+                .setFileId("5")
+                .setSampleDataKeys("GT", "AD", "DP")
+                .addSample("S1", "0/0", "10,1", "11")
+                .addSample("S2", "1/1", "1,2", "1")
+                .setFilter("PASS")
+                .setQuality(200.0)
+                .addFileData("k1", "v1")
+                .build();
+        variant.getStudies().get(0).getScores().add(new VariantScore("gwas1", "A", null, 3.4f, 0.002f));
+        VariantSearchModel model = converter.convertToStorageType(variant);
+
+        DocumentObjectBinder binder = new DocumentObjectBinder();
+        SolrInputDocument expected = binder.toSolrInputDocument(model);
+        SolrInputDocument actual = VariantSearchModelDocumentConverter.toSolrInputDocument(model);
+        int nonNullFields = 0;
+        for (SolrInputField field : expected) {
+            if (field.getValue() != null) {
+                nonNullFields++;
+                assertEquals(field.getName(), field.getValue(), actual.getFieldValue(field.getName()));
+            }
+        }
+        assertEquals(nonNullFields, actual.getFieldNames().size());
+
+        SolrDocument document = new SolrDocument();
+        for (SolrInputField field : actual) {
+            document.setField(field.getName(), field.getValue());
+        }
+        assertEquals(binder.getBean(VariantSearchModel.class, document).toString(),
+                VariantSearchModelDocumentConverter.toVariantSearchModel(document).toString());
+    }
+}
@@ -460,6 +460,8 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
     protected HadoopVariantSearchDataWriter newVariantSearchDataWriter(String collection) throws StorageEngineException {
         return new HadoopVariantSearchDataWriter(
                 collection, getVariantSearchManager().getSolrClient(), getVariantSearchManager().getInsertBatchSize(),
+                getOptions().getInt(SEARCH_LOAD_WRITER_THREADS.key(), SEARCH_LOAD_WRITER_THREADS.defaultValue()),
+                getOptions().getBoolean(SEARCH_LOAD_SOFT_COMMIT.key(), SEARCH_LOAD_SOFT_COMMIT.defaultValue()),
                 getDBAdaptor());
     }
 
@@ -1051,7 +1053,8 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
     protected List<VariantAggregationExecutor> initVariantAggregationExecutors() {
         List<VariantAggregationExecutor> executors = new ArrayList<>(3);
         try {
-            executors.add(new SearchIndexVariantAggregationExecutor(getVariantSearchManager(), getDBName()));
+            executors.add(new SearchIndexVariantAggregationExecutor(getVariantSearchManager(), getDBName(), getMetadataManager(),
+                    getOptions()));
             executors.add(new SampleIndexVariantAggregationExecutor(getMetadataManager(), getSampleIndexDBAdaptor()));
             executors.add(new ChromDensityVariantAggregationExecutor(this, getMetadataManager()));
         } catch (Exception e) {
@@ -69,6 +69,8 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     VARIANT_TABLE_LOAD_REFERENCE("storage.hadoop.variant.table.load.reference", false),
     PENDING_SECONDARY_INDEX_TABLE_COMPRESSION("storage.hadoop.pendingSecondaryIndex.table.compression",
             Compression.Algorithm.SNAPPY.getName()),
+    // Only discover pending variants to secondary index from the variants modified since the last secondary index
+    PENDING_SECONDARY_INDEX_DISCOVER_INCREMENTAL("storage.hadoop.pendingSecondaryIndex.discover.incremental", true),
     PENDING_SECONDARY_INDEX_PRUNE_TABLE_COMPRESSION("storage.hadoop.pendingSecondaryIndexPrune.table.compression",
             Compression.Algorithm.SNAPPY.getName()),
 
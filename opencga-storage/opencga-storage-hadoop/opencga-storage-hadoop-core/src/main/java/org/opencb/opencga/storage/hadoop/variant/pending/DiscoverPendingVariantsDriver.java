@@ -2,12 +2,10 @@ package org.opencb.opencga.storage.hadoop.variant.pending;
 
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.client.Delete;
-import org.apache.hadoop.hbase.client.Mutation;
-import org.apache.hadoop.hbase.client.Result;
-import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.MultithreadedTableMapper;
+import org.apache.hadoop.hbase.mapreduce.TableInputFormat;
 import org.apache.hadoop.hbase.mapreduce.TableMapper;
 import org.apache.hadoop.hbase.mapreduce.TableOutputFormat;
 import org.apache.hadoop.mapreduce.Counter;
@@ -31,6 +29,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.function.Function;
 
 /**
@@ -41,6 +43,8 @@ import java.util.function.Function;
 public class DiscoverPendingVariantsDriver extends AbstractVariantsTableDriver {
 
     public static final String OVERWRITE = "overwrite";
+    public static final String INCREMENTAL = "incremental";
+    private static final int INCREMENTAL_GET_BATCH_SIZE = 1000;
     private final Logger logger = LoggerFactory.getLogger(DiscoverPendingVariantsDriver.class);
 
     private PendingVariantsDescriptor descriptor;
@@ -85,8 +89,19 @@ public class DiscoverPendingVariantsDriver extends AbstractVariantsTableDriver {
 //        Scan scan = parser.parseQuery(query,
 //                new QueryOptions(QueryOptions.INCLUDE, VariantField.TYPE.fieldName()));
 
-        Scan scan = new Scan();
-        descriptor.configureScan(scan, getMetadataManager());
+        boolean overwrite = getConf().getBoolean(OVERWRITE, false);
+        Scan scan = null;
+        if (!overwrite && getConf().getBoolean(INCREMENTAL, false)) {
+            scan = descriptor.configureIncrementalScan(new Scan(), getMetadataManager());
+        }
+        if (scan == null) {
+            job.getConfiguration().setBoolean(INCREMENTAL, false);
+            scan = new Scan();
+            descriptor.configureScan(scan, getMetadataManager());
+        } else {
+            logger.info("Incremental discovery. Only read variants modified since the last execution");
+            job.getConfiguration().setBoolean(INCREMENTAL, true);
+        }
         VariantMapReduceUtil.configureMapReduceScan(scan, getConf());
         logger.info("Scan variants table " + variantTable + " with scan " + scan.toString(50));
 
@@ -127,6 +142,12 @@ public class DiscoverPendingVariantsDriver extends AbstractVariantsTableDriver {
         private int pendingVariants;
         private PendingVariantsDescriptor descriptor;
         private Function<Result, Mutation> pendingEvaluator;
+        // Incremental mode. Rows from the input scan are only candidates, that need to be read from the variants table.
+        private boolean incremental;
+        private HBaseManager hBaseManager;
+        private String variantsTable;
+        private Scan fullScan;
+        private List<Get> pendingGets;
 
 
         @Override
@@ -138,14 +159,51 @@ public class DiscoverPendingVariantsDriver extends AbstractVariantsTableDriver {
             readyVariants = 0;
             pendingVariants = 0;
             boolean overwrite = context.getConfiguration().getBoolean(OVERWRITE, false);
-            pendingEvaluator = descriptor.getPendingEvaluatorMapper(
-                    new VariantStorageMetadataManager(
-                            new HBaseVariantStorageMetadataDBAdaptorFactory(
-                                    new VariantTableHelper(context.getConfiguration()))), overwrite);
+            VariantStorageMetadataManager metadataManager = new VariantStorageMetadataManager(
+                    new HBaseVariantStorageMetadataDBAdaptorFactory(
+                            new VariantTableHelper(context.getConfiguration())));
+            pendingEvaluator = descriptor.getPendingEvaluatorMapper(metadataManager, overwrite);
+            incremental = context.getConfiguration().getBoolean(INCREMENTAL, false);
+            if (incremental) {
+                hBaseManager = new HBaseManager(context.getConfiguration());
+                variantsTable = context.getConfiguration().get(TableInputFormat.INPUT_TABLE);
+                fullScan = descriptor.configureScan(new Scan(), metadataManager);
+                pendingGets = new ArrayList<>(INCREMENTAL_GET_BATCH_SIZE);
+            }
         }
 
         @Override
         protected void map(ImmutableBytesWritable key, Result value, Context context) throws IOException, InterruptedException {
+            if (incremental) {
+                Get get = new Get(value.getRow());
+                for (Map.Entry<byte[], NavigableSet<byte[]>> entry : fullScan.getFamilyMap().entrySet()) {
+                    for (byte[] qualifier : entry.getValue()) {
+                        get.addColumn(entry.getKey(), qualifier);
+                    }
+                }
+                pendingGets.add(get);
+                if (pendingGets.size() >= INCREMENTAL_GET_BATCH_SIZE) {
+                    flushGets(context);
+                }
+            } else {
+                evaluate(key, value, context);
+            }
+        }
+
+        private void flushGets(Context context) throws IOException, InterruptedException {
+            if (pendingGets.isEmpty()) {
+                return;
+            }
+            Result[] results = hBaseManager.act(variantsTable, (Table table) -> table.get(pendingGets));
+            pendingGets.clear();
+            for (Result result : results) {
+                if (result != null && !result.isEmpty()) {
+                    evaluate(new ImmutableBytesWritable(result.getRow()), result, context);
+                }
+            }
+        }
+
+        private void evaluate(ImmutableBytesWritable key, Result value, Context context) throws IOException, InterruptedException {
             Mutation mutation = pendingEvaluator.apply(value);
 
             variants++;
@@ -163,6 +221,10 @@ public class DiscoverPendingVariantsDriver extends AbstractVariantsTableDriver {
 
         @Override
         protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (incremental) {
+                flushGets(context);
+                hBaseManager.close();
+            }
             super.cleanup(context);
 
             Counter counter = context.getCounter(VariantsTableMapReduceHelper.COUNTER_GROUP_NAME, "variants");
@@ -33,6 +33,19 @@ public interface PendingVariantsDescriptor {
 
     Scan configureScan(Scan scan, VariantStorageMetadataManager metadataManager);
 
+    /**
+     * Configure a scan that only returns the variants modified since the last time the pending variants were processed.
+     * The returned rows are used only as candidates. The columns from {@link #configureScan} are then read for each of them.
+     *
+     * @param scan              Scan to configure
+     * @param metadataManager   VariantStorageMetadataManager
+     * @return The configured scan, or null if the incremental discovery is not supported.
+     * @throws IOException      on error configuring the scan
+     */
+    default Scan configureIncrementalScan(Scan scan, VariantStorageMetadataManager metadataManager) throws IOException {
+        return null;
+    }
+
     Function<Result, Mutation> getPendingEvaluatorMapper(VariantStorageMetadataManager metadataManager, boolean overwrite);
 
     default boolean createTableIfNeeded(String tableName, HBaseManager hBaseManager, Compression.Algorithm compression) throws IOException {
@@ -257,6 +257,9 @@ public class VariantPruneManager {
             ptr.run();
         } catch (ExecutionException e) {
             throw new StorageEngineException("Error checking variant prune report", e);
+        } finally {
+            // Some variants might have been removed from the secondary index, even on failure
+            engine.incrementSearchIndexVersion();
         }
     }
 
@@ -35,7 +35,12 @@ public class HadoopVariantSearchDataWriter extends SolrInputDocumentDataWriter {
 
     public HadoopVariantSearchDataWriter(String collection, SolrClient solrClient, int insertBatchSize,
                                          VariantHadoopDBAdaptor dbAdaptor) {
-        super(collection, solrClient, insertBatchSize);
+        this(collection, solrClient, insertBatchSize, 1, false, dbAdaptor);
+    }
+
+    public HadoopVariantSearchDataWriter(String collection, SolrClient solrClient, int insertBatchSize, int numThreads,
+                                         boolean softCommit, VariantHadoopDBAdaptor dbAdaptor) {
+        super(collection, solrClient, insertBatchSize, numThreads, softCommit);
         this.writer = new HBaseDataWriter<Mutation>(dbAdaptor.getHBaseManager(), dbAdaptor.getVariantTable()) {
             @Override
             protected BufferedMutatorParams buildBufferedMutatorParams() {
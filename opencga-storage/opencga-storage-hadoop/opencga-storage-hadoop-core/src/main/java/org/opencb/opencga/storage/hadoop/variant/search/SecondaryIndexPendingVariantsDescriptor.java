@@ -68,6 +68,20 @@ public class SecondaryIndexPendingVariantsDescriptor implements PendingVariantsD
         return scan;
     }
 
+    @Override
+    public Scan configureIncrementalScan(Scan scan, VariantStorageMetadataManager metadataManager) throws IOException {
+        long ts = metadataManager.getProjectMetadata().getAttributes().getLong(SEARCH_INDEX_LAST_TIMESTAMP.key());
+        if (ts <= 0) {
+            return null;
+        }
+        // Every operation modifying a variant (load, annotation, stats, remove) writes one of these sync markers.
+        // Restricting the scan to the markers written after the last index allows HBase to skip older store files.
+        scan.addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, INDEX_NOT_SYNC.bytes());
+        scan.addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, INDEX_UNKNOWN.bytes());
+        scan.setTimeRange(ts, HConstants.LATEST_TIMESTAMP);
+        return scan;
+    }
+
     public Function<Result, Mutation> getPendingEvaluatorMapper(VariantStorageMetadataManager metadataManager, boolean overwrite) {
         if (overwrite) {
             // When overwriting mark all variants as pending
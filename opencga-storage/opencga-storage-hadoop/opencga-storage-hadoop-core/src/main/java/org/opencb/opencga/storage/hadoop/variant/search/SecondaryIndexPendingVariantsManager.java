@@ -6,9 +6,12 @@ import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHadoopDBAdaptor;
 import org.opencb.opencga.storage.hadoop.variant.executors.MRExecutor;
+import org.opencb.opencga.storage.hadoop.variant.pending.DiscoverPendingVariantsDriver;
 import org.opencb.opencga.storage.hadoop.variant.pending.PendingVariantsManager;
 import org.opencb.opencga.storage.hadoop.variant.pending.PendingVariantsReader;
 
+import static org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions.PENDING_SECONDARY_INDEX_DISCOVER_INCREMENTAL;
+
 public class SecondaryIndexPendingVariantsManager extends PendingVariantsManager {
     private final VariantHadoopDBAdaptor dbAdaptor;
 
@@ -27,6 +30,9 @@ public class SecondaryIndexPendingVariantsManager extends PendingVariantsManager
         options = new ObjectMap(options);
         // Never filter by study!
         options.remove(VariantQueryParam.STUDY.key());
+        options.put(DiscoverPendingVariantsDriver.INCREMENTAL, options.getBoolean(
+                PENDING_SECONDARY_INDEX_DISCOVER_INCREMENTAL.key(),
+                PENDING_SECONDARY_INDEX_DISCOVER_INCREMENTAL.defaultValue()));
         super.discoverPending(mrExecutor, options);
     }
 }
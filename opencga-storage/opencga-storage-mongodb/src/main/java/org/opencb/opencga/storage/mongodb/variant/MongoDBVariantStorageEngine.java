@@ -161,6 +161,9 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
                 throw e;
             } catch (Exception e) {
                 throw new StorageEngineException("Exception closing VariantDBIterator", e);
+            } finally {
+                // Some variants might have been removed from the search index, even on failure
+                incrementSearchIndexVersion();
             }
 
             // Then, load new variants.